@@ -34,6 +34,11 @@ public class MethodAnalytics implements Serializable {
     private String activeOperations;
     private String methodName;
     private double averageExecTime;
+    private long recentOperationCalls;
+    private long execTimeP50;
+    private long execTimeP90;
+    private long execTimeP99;
+    private long maxExecTime;
 
     public MethodAnalytics(String activeOperations,
                            double averageExecTime,
@@ -57,6 +62,42 @@ public class MethodAnalytics implements Serializable {
         this.totalOperationCalls = totalOperationCalls;
     }
 
+    /**
+     * Creates method analytics with call time percentiles of recent calls,
+     * all times are in nanoseconds.
+     */
+    public MethodAnalytics(String activeOperations,
+                           double averageExecTime,
+                           int completed,
+                           int failed,
+                           String hostName,
+                           String methodName,
+                           int numActiveOperations,
+                           ServiceID serviceID,
+                           long totalCallTime,
+                           int totalOperationCalls,
+                           long recentOperationCalls,
+                           long execTimeP50,
+                           long execTimeP90,
+                           long execTimeP99,
+                           long maxExecTime) {
+        this(activeOperations,
+             averageExecTime,
+             completed,
+             failed,
+             hostName,
+             methodName,
+             numActiveOperations,
+             serviceID,
+             totalCallTime,
+             totalOperationCalls);
+        this.recentOperationCalls = recentOperationCalls;
+        this.execTimeP50 = execTimeP50;
+        this.execTimeP90 = execTimeP90;
+        this.execTimeP99 = execTimeP99;
+        this.maxExecTime = maxExecTime;
+    }
+
     public int getNumActiveOperations() {
         return numActiveOperations;
     }
@@ -69,6 +110,11 @@ public class MethodAnalytics implements Serializable {
         return totalOperationCalls;
     }
 
+    /**
+     * Returns the number of calls in progress, the same as
+     * {@link #getNumActiveOperations()}. Calls are not identified, so the ids
+     * of the calls in progress are not listed.
+     */
     public String getActiveOperations() {
         return activeOperations;
     }
@@ -97,15 +143,44 @@ public class MethodAnalytics implements Serializable {
         return totalCallTime;
     }
 
+    /**
+     * Returns the number of calls in the window of the call time percentiles.
+     */
+    public long getRecentOperationCalls() {
+        return recentOperationCalls;
+    }
+
+    public long getExecTimeP50() {
+        return execTimeP50;
+    }
+
+    public long getExecTimeP90() {
+        return execTimeP90;
+    }
+
+    public long getExecTimeP99() {
+        return execTimeP99;
+    }
+
+    public long getMaxExecTime() {
+        return maxExecTime;
+    }
+
     @Override public String toString() {
         return String.format("%s, completed: %s, numActiveOps: %s, averageExecTime: %s, " +
-                             "totalOperationCalls: %s, activeOperations: %s, totalCallTime: %s",
+                             "totalOperationCalls: %s, activeOperations: %s, totalCallTime: %s, " +
+                             "recentOperationCalls: %s, p50: %s, p90: %s, p99: %s, max: %s",
                              methodName,
                              getCompleted(),
                              getNumActiveOperations(),
                              getAverageExecTime(),
                              getTotalOperationCalls(),
                              getActiveOperations(),
-                             getTotalCallTime());
+                             getTotalCallTime(),
+                             getRecentOperationCalls(),
+                             getExecTimeP50(),
+                             getExecTimeP90(),
+                             getExecTimeP99(),
+                             getMaxExecTime());
     }
 }
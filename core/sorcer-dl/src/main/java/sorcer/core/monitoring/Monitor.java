@@ -61,6 +61,19 @@ public interface Monitor {
      */
     void update(MonitorRegistration registration, Status status, MethodAnalytics analytics) throws IOException, MonitorException;
 
+    /**
+     * Update the status of the registration with a batch of updates, applied in order
+     *
+     * @param registration The registration
+     * @param updates The updates
+     *
+     * @throws IOException If there is a communication failure between the client and the service.
+     * @throws MonitorException If the {@code Monitor} service is unable to update the status of the registration.
+     * This may be due to expired lease or other error(s).
+     * @throws IllegalArgumentException If the {@code registration} or {@code updates} is {@code null}.
+     */
+    void update(MonitorRegistration registration, List<MonitorUpdate> updates) throws IOException, MonitorException;
+
     /**
      * The register method creates a leased
      * {@link EventRegistration} for the notification of
@@ -0,0 +1,42 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sorcer.core.monitoring;
+
+import sorcer.core.analytics.MethodAnalytics;
+
+import java.io.Serializable;
+
+/**
+ * A status update of a {@link MonitorRegistration}, sent to a {@link Monitor} in a batch.
+ */
+public class MonitorUpdate implements Serializable {
+    static final long serialVersionUID = 1L;
+    private final Monitor.Status status;
+    private final MethodAnalytics analytics;
+
+    public MonitorUpdate(Monitor.Status status, MethodAnalytics analytics) {
+        this.status = status;
+        this.analytics = analytics;
+    }
+
+    public Monitor.Status getStatus() {
+        return status;
+    }
+
+    public MethodAnalytics getAnalytics() {
+        return analytics;
+    }
+}
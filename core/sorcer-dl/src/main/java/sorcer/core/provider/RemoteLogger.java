@@ -20,6 +20,9 @@ package sorcer.core.provider;
 import net.jini.core.event.EventRegistration;
 import net.jini.core.event.RemoteEventListener;
 import net.jini.core.lease.LeaseDeniedException;
+import sorcer.core.provider.logger.LogBatchException;
+import sorcer.core.provider.logger.LogPage;
+import sorcer.core.provider.logger.LogQuery;
 import sorcer.core.provider.logger.LoggingConfig;
 
 import java.io.IOException;
@@ -40,12 +43,33 @@ public interface RemoteLogger extends Remote {
 
     public void publish(List<LoggingEventVO> record) throws RemoteException;
 
+    /**
+     * Publishes a batch of logging events compressed by {@link sorcer.core.provider.logger.LoggingEvents#compress(List)}.
+     *
+     * @throws LogBatchException if the batch can not be read, publishing it again fails the same way
+     */
+    public void publish(byte[] batch) throws RemoteException, LogBatchException;
+
     public List<LoggingConfig> getLoggers() throws IOException;
 
     public String[] getLogNames() throws RemoteException;
 
     public List<String> getLog(String fileName) throws RemoteException;
 
+    /**
+     * Returns a page of events of the log file selected by the query, filtered by the service.
+     * Like {@link #getLog(String)}, an error reading the log file is returned as the only line
+     * of the page.
+     */
+    public LogPage getLog(String fileName, LogQuery query) throws RemoteException;
+
+    /**
+     * Returns the complete lines of the log file written after the byte offset, up to
+     * <code>maxBytes</code>. A negative offset returns the last lines of the log file. An error
+     * reading the log file is returned as the only line of the page.
+     */
+    public LogPage tailLog(String fileName, long offset, int maxBytes) throws RemoteException;
+
     public void deleteLog(String logName) throws RemoteException;
 
 
@@ -0,0 +1,28 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sorcer.core.provider.logger;
+
+/**
+ * Thrown by {@link sorcer.core.provider.RemoteLogger#publish(byte[])} when the
+ * batch of logging events can not be read. Publishing the same batch again
+ * fails the same way, so clients drop it.
+ */
+public class LogBatchException extends Exception {
+
+    public LogBatchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sorcer.core.provider.logger;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A page of lines of a remote log file.
+ */
+public class LogPage implements Serializable {
+	static final long serialVersionUID = 1L;
+	private final List<String> lines;
+	private final long offset;
+	private final long nextOffset;
+	private final boolean endOfLog;
+
+	public LogPage(List<String> lines, long offset, long nextOffset, boolean endOfLog) {
+		this.lines = lines;
+		this.offset = offset;
+		this.nextOffset = nextOffset;
+		this.endOfLog = endOfLog;
+	}
+
+	public List<String> getLines() {
+		return lines;
+	}
+
+	/**
+	 * Returns the byte offset of the log file the page was read from.
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Returns the byte offset of the log file to read the next page from.
+	 */
+	public long getNextOffset() {
+		return nextOffset;
+	}
+
+	/**
+	 * Returns true if the page was read to the end of the log file.
+	 */
+	public boolean isEndOfLog() {
+		return endOfLog;
+	}
+}
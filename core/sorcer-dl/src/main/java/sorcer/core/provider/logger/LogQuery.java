@@ -0,0 +1,120 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sorcer.core.provider.logger;
+
+import java.io.Serializable;
+
+/**
+ * Selects a page of log events of a remote log file. Events are selected from
+ * a byte offset of the log file, the next page starts at the
+ * {@link LogPage#getNextOffset()} of the previous one.
+ */
+public class LogQuery implements Serializable {
+	static final long serialVersionUID = 1L;
+	private long offset;
+	private int limit = 1000;
+	private long from = Long.MIN_VALUE;
+	private long to = Long.MAX_VALUE;
+	private Level level;
+	private String logger;
+	private String mogramId;
+
+	/**
+	 * Sets the byte offset of the log file to read events from.
+	 */
+	public LogQuery offset(long offset) {
+		this.offset = offset;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of events of a page.
+	 */
+	public LogQuery limit(int limit) {
+		this.limit = limit;
+		return this;
+	}
+
+	/**
+	 * Selects events logged between the times in milliseconds, inclusive.
+	 */
+	public LogQuery timeRange(long from, long to) {
+		this.from = from;
+		this.to = to;
+		return this;
+	}
+
+	/**
+	 * Selects events of the level or higher.
+	 */
+	public LogQuery level(Level level) {
+		this.level = level;
+		return this;
+	}
+
+	/**
+	 * Selects events of loggers with the name prefix.
+	 */
+	public LogQuery logger(String logger) {
+		this.logger = logger;
+		return this;
+	}
+
+	/**
+	 * Selects events of the mogram, see {@link sorcer.core.provider.RemoteLogger#KEY_MOGRAM_ID}.
+	 */
+	public LogQuery mogramId(String mogramId) {
+		this.mogramId = mogramId;
+		return this;
+	}
+
+	public long getOffset() {
+		return offset;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public long getFrom() {
+		return from;
+	}
+
+	public long getTo() {
+		return to;
+	}
+
+	public boolean hasTimeRange() {
+		return from != Long.MIN_VALUE || to != Long.MAX_VALUE;
+	}
+
+	public Level getLevel() {
+		return level;
+	}
+
+	public String getLogger() {
+		return logger;
+	}
+
+	public String getMogramId() {
+		return mogramId;
+	}
+
+	public String toString() {
+		return "LogQuery offset: " + offset + ", limit: " + limit + ", from: " + from + ", to: " + to
+				+ ", level: " + level + ", logger: " + logger + ", mogramId: " + mogramId;
+	}
+}
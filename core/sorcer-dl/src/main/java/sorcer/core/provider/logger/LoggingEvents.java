@@ -0,0 +1,115 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sorcer.core.provider.logger;
+
+import ch.qos.logback.classic.spi.LoggingEventVO;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serializes batches of logging events compressed with GZIP, published with
+ * {@link sorcer.core.provider.RemoteLogger#publish(byte[])}.
+ */
+public class LoggingEvents {
+
+    /**
+     * The classes a batch of events may contain: the logback value objects and
+     * the JDK classes they are made of.
+     */
+    private static final Set<String> ALLOWED = new HashSet<String>(Arrays.asList(
+            "ch.qos.logback.classic.spi.LoggingEventVO",
+            "ch.qos.logback.classic.spi.LoggerContextVO",
+            "ch.qos.logback.classic.spi.IThrowableProxy",
+            "ch.qos.logback.classic.spi.ThrowableProxyVO",
+            "ch.qos.logback.classic.spi.StackTraceElementProxy",
+            "ch.qos.logback.classic.spi.ClassPackagingData",
+            "org.slf4j.Marker",
+            "org.slf4j.helpers.BasicMarker",
+            "java.lang.Object",
+            "java.lang.String",
+            "java.lang.Number",
+            "java.lang.Boolean",
+            "java.lang.Integer",
+            "java.lang.Long",
+            "java.lang.StackTraceElement",
+            "java.util.ArrayList",
+            "java.util.LinkedList",
+            "java.util.Vector",
+            "java.util.HashMap",
+            "java.util.LinkedHashMap",
+            "java.util.TreeMap",
+            "java.util.concurrent.CopyOnWriteArrayList"));
+
+    private LoggingEvents() {
+    }
+
+    public static byte[] compress(List<LoggingEventVO> loggingEvents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeObject(new ArrayList<LoggingEventVO>(loggingEvents));
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<LoggingEventVO> decompress(byte[] batch) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new EventsInputStream(new GZIPInputStream(new ByteArrayInputStream(batch)))) {
+            return (List<LoggingEventVO>) in.readObject();
+        }
+    }
+
+    /**
+     * Batches are published by remote clients, so only the classes of logging
+     * events are resolved.
+     */
+    private static class EventsInputStream extends ObjectInputStream {
+
+        EventsInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (!isAllowed(desc.getName()))
+                throw new InvalidClassException(desc.getName(), "not allowed in a batch of logging events");
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+            throw new InvalidClassException("proxy", "not allowed in a batch of logging events");
+        }
+
+        private static boolean isAllowed(String name) {
+            int dims = 0;
+            while (dims < name.length() && name.charAt(dims) == '[')
+                dims++;
+            if (dims == 0)
+                return ALLOWED.contains(name) || name.startsWith("java.util.Collections$");
+            // arrays of primitives, or of allowed classes
+            if (name.charAt(dims) != 'L')
+                return name.length() == dims + 1;
+            return name.endsWith(";") && isAllowed(name.substring(dims + 1, name.length() - 1));
+        }
+    }
+}
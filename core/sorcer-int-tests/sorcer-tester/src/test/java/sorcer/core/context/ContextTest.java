@@ -9,6 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static sorcer.co.operator.*;
 import static sorcer.eo.operator.context;
 
@@ -64,4 +65,47 @@ public class ContextTest {
 //		logger.info("weak x1 = " + cxt.getSoftValue("arg/var/x1"));
 		assertEquals(cxt.getSoftValue("arg/var/x1"), 20.0);
 	}
+
+	@Test
+	public void linkedContextPaths() throws Exception {
+		Context<Double> addContext = new PositionalContext("add");
+		addContext.putInValue("arg1/eval", 90.0);
+
+		ServiceContext invokeContext = new ServiceContext("invoke");
+		invokeContext.putLink("add", addContext);
+		invokeContext.putLink("args/multiply", new PositionalContext("multiply"));
+		assertEquals(invokeContext.localLinkPaths().toString(), "[add, args/multiply]");
+
+		// values under a link are put in the linked context
+		invokeContext.putValue("add/arg2/eval", 110.0);
+		assertEquals(addContext.getValue("arg2/eval"), 110.0);
+		invokeContext.putValue("args/multiply/arg1/eval", 10.0);
+		assertEquals(invokeContext.getValue("args/multiply/arg1/eval"), 10.0);
+		// paths that only share a name prefix with a link are local
+		invokeContext.putValue("addition/eval", 1.0);
+		assertEquals(invokeContext.get("addition/eval"), 1.0);
+
+		invokeContext.removeLink("add");
+		assertEquals(invokeContext.localLinkPaths().toString(), "[args/multiply]");
+		assertNull(invokeContext.getValue("add/arg1/eval"));
+	}
+
+	@Test
+	public void contextBuildTime() throws Exception {
+		Context<Double> linked = new PositionalContext("linked");
+		linked.putValue("arg/x", 1.0);
+		for (int size : new int[] { 1000, 10000, 50000 }) {
+			ServiceContext cxt = new ServiceContext("build");
+			cxt.putLink("linked", linked);
+			long start = System.nanoTime();
+			for (int i = 0; i < size; i++)
+				cxt.putValue("arg/x" + i, (double) i);
+			for (int i = 0; i < size; i++)
+				cxt.getValue("arg/y" + i);
+			long time = (System.nanoTime() - start) / 1000000;
+			logger.info("context build time for {} paths: {} ms", size, time);
+			assertEquals(cxt.getValue("arg/x" + (size - 1)), (double) (size - 1));
+			assertEquals(cxt.getValue("linked/arg/x"), 1.0);
+		}
+	}
 }
@@ -171,7 +171,37 @@ public class ProcModelTest {
 		logger.info("z eval: " + value(pm, "z"));
 		assertEquals(value(pm, "z"), 650.0);
 	}
-		
+
+	@Test
+	public void incrementalParModelTest() throws RemoteException,
+			ContextException {
+		ProcModel pm = procModel(proc("x1", 10.0), proc("x2", 20.0), proc("x3", 30.0),
+				proc("y1", invoker("x1 + x2", args("x1", "x2"))),
+				proc("y2", invoker("x3 * 2", args("x3"))),
+				proc("z", invoker("y1 + y2", args("y1", "y2"))));
+
+		Proc y1 = (Proc) pm.asis("y1");
+		Proc y2 = (Proc) pm.asis("y2");
+		Proc z = (Proc) pm.asis("z");
+
+		assertEquals(value(pm, "z"), 90.0);
+		assertTrue(y1.isValid() && y2.isValid() && z.isValid());
+		assertTrue(pm.getDependents("y1").contains("z"));
+
+		// only transitive dependents of x1 are evaluated again
+		put(pm, "x1", 15.0);
+		assertFalse(y1.isValid());
+		assertTrue(y2.isValid());
+		assertFalse(z.isValid());
+		assertEquals(value(pm, "z"), 95.0);
+
+		setValue(pm, "x3", 40.0);
+		assertTrue(y1.isValid());
+		assertFalse(y2.isValid());
+		assertEquals(value(pm, "z"), 115.0);
+		assertEquals(value(pm, "y2"), 80.0);
+	}
+
 	@Test
 	public void contextParsTest() throws RemoteException,
 			ContextException {
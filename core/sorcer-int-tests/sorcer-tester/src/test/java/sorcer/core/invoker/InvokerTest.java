@@ -123,6 +123,24 @@ public class InvokerTest {
 		assertEquals(value(pm, "expr"), 60.0);
 	}
 
+	@Test
+	public void groovyInvokerScriptCache() throws Exception {
+		ProcModel pm = procModel("proc-model");
+		add(pm, proc("x", 10.0), proc("y", 20.0));
+		add(pm, invoker("expr", "x * y + 40", args("x", "y")));
+		ScriptCache scripts = GroovyInvoker.getScriptCache();
+		assertEquals(invoke(pm, "expr"), 240.0);
+		long compiled = scripts.getCompileCount();
+		long hits = scripts.getHitCount();
+		for (int i = 0; i < 100; i++) {
+			setValue(pm, "x", (double) i);
+			assertEquals(invoke(pm, "expr"), i * 20.0 + 40.0);
+		}
+		logger.info("script cache: " + scripts);
+		assertEquals(scripts.getCompileCount(), compiled);
+		assertTrue(scripts.getHitCount() >= hits + 100);
+	}
+
 	@Test
 	public void lambdaInvokerTest() throws RemoteException, ContextException,
 			SignatureException, ExertionException {
@@ -9,12 +9,16 @@ import sorcer.arithmetic.tester.provider.impl.AdderImpl;
 import sorcer.arithmetic.tester.provider.impl.MultiplierImpl;
 import sorcer.arithmetic.tester.provider.impl.SubtractorImpl;
 import sorcer.core.dispatch.ExertionSorter;
+import sorcer.core.exertion.Mograms;
 import sorcer.core.provider.rendezvous.ServiceJobber;
 import sorcer.service.*;
 import sorcer.service.Strategy.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static sorcer.co.operator.*;
 import static sorcer.eo.operator.*;
@@ -200,4 +204,31 @@ public class ExertionSorterTest {
         Assert.assertArrayEquals(expList.toArray(), es.getSortedJob().getMograms().toArray());
     }
 
+    @Test
+    public void testSorterDependencies() throws Exception {
+        Job job = createComplexJob();
+        ExertionSorter es = new ExertionSorter(job);
+        final Exertion f3 = (Exertion)job.getMogram("Task_f3");
+        final Exertion j2 = (Exertion)job.getMogram("Job_f2");
+        final Exertion j8 = (Exertion)job.getMogram("Job_f8");
+        final Exertion j20 = (Exertion)job.getMogram("Job_f20");
+        Map<Mogram, Set<Mogram>> deps = es.getDependencies(es.getSortedJob());
+        Assert.assertTrue(deps.get(j2).isEmpty());
+        Assert.assertTrue(deps.get(j20).isEmpty());
+        Assert.assertEquals(Collections.singleton(j2), deps.get(f3));
+        Assert.assertEquals(Collections.singleton(j2), deps.get(j8));
+        Assert.assertTrue(es.hasDependencies(es.getSortedJob()));
+        Assert.assertTrue(((ServiceExertion)es.getSortedJob()).getControlContext().isDagFlow());
+    }
+
+    @Test
+    public void testContinuousJobNotDag() throws Exception {
+        Job job = createComplexJob();
+        ExertionSorter es = new ExertionSorter(job);
+        Job sorted = (Job) es.getSortedJob();
+        sorted.getControlContext().setAccessType(Access.PUSH);
+        Assert.assertTrue(Mograms.isCatalogDag(sorted));
+        ((Task) sorted.getMogram("Task_f3")).setContinous(true);
+        Assert.assertFalse(Mograms.isCatalogDag(sorted));
+    }
 }
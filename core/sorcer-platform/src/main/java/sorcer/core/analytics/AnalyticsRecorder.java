@@ -30,13 +30,14 @@ import java.text.NumberFormat;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Dennis Reedy
  */
 public class AnalyticsRecorder {
     private Logger logger = LoggerFactory.getLogger(AnalyticsRecorder.class);
-    private final Map<String, MethodInvocationRecord> activityMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, MethodInvocationRecord> activityMap = new ConcurrentHashMap<>();
     private ServiceID serviceID;
     private String hostName;
     private final MonitorAgent monitorAgent;
@@ -53,47 +54,47 @@ public class AnalyticsRecorder {
     public Map<String, MethodAnalytics> getMethodAnalytics() {
         Map<String, MethodAnalytics> result = new HashMap<>();
         for(Map.Entry<String, MethodInvocationRecord> entry : activityMap.entrySet()) {
-            result.put(entry.getKey(), entry.getValue().create(serviceID, hostName));
+            result.put(entry.getKey(), entry.getValue().create());
         }
         return result;
     }
 
     public MethodAnalytics getMethodAnalytics(String m) {
-        MethodInvocationRecord record = getMethodInvocationRecord(m);
+        MethodInvocationRecord record = activityMap.get(m);
         if(record!=null) {
-            return record.create(serviceID, hostName);
+            return record.create();
         }
         return null;
     }
 
-    public int inprocess(String m) {
+    /**
+     * Records the start of a call to the method.
+     *
+     * @return the start time of the call, passed to {@link #completed(String, long)}
+     * or {@link #failed(String, long)} when the call returns
+     */
+    public long inprocess(String m) {
         MethodInvocationRecord record = getMethodInvocationRecord(m);
-        int id = record.inprocess();
+        long startTime = record.inprocess();
         if(logger.isDebugEnabled())
-            logger.debug("{} num active: {}", m, record.numActiveOperations.get());
-        monitorAgent.inprocess(record.create(serviceID, hostName));
-        return id;
-    }
-
-    public void completed(String m, int id) {
-        MethodInvocationRecord record = getMethodInvocationRecord(m);
-        record.complete(id);
-        activityMap.put(m, record);
-        monitorAgent.completed(record.create(serviceID, hostName));
+            logger.debug("{} num active: {}", m, record.getNumActiveOperations());
+        if(MonitorAgent.isMonitoringEnabled())
+            monitorAgent.update(Monitor.Status.ACTIVE, m, record.analytics());
+        return startTime;
     }
 
-    /*public void completed(String m, long startTime) {
+    public void completed(String m, long startTime) {
         MethodInvocationRecord record = getMethodInvocationRecord(m);
         record.complete(startTime);
-        activityMap.put(m, record);
-        monitorAgent.completed(record.create(serviceID, hostName));
-    }*/
+        if(MonitorAgent.isMonitoringEnabled())
+            monitorAgent.update(Monitor.Status.COMPLETED, m, record.analytics());
+    }
 
-    public void failed(String m, int id) {
+    public void failed(String m, long startTime) {
         MethodInvocationRecord record = getMethodInvocationRecord(m);
-        record.failed(id);
-        activityMap.put(m, record);
-        monitorAgent.update(Monitor.Status.FAILED, record.create(serviceID, hostName));
+        record.failed(startTime);
+        if(MonitorAgent.isMonitoringEnabled())
+            monitorAgent.update(Monitor.Status.FAILED, m, record.analytics());
     }
 
     public void terminate() {
@@ -119,13 +120,12 @@ public class AnalyticsRecorder {
     }
 
     private MethodInvocationRecord getMethodInvocationRecord(String m) {
-        MethodInvocationRecord methodInvocationRecord;
-        synchronized(activityMap) {
-            methodInvocationRecord = activityMap.get(m);
-            if (methodInvocationRecord == null) {
-                methodInvocationRecord = new MethodInvocationRecord(m);
-                activityMap.put(m, methodInvocationRecord);
-            }
+        MethodInvocationRecord methodInvocationRecord = activityMap.get(m);
+        if (methodInvocationRecord == null) {
+            methodInvocationRecord = new MethodInvocationRecord(m, serviceID, hostName);
+            MethodInvocationRecord existing = activityMap.putIfAbsent(m, methodInvocationRecord);
+            if (existing != null)
+                methodInvocationRecord = existing;
         }
         return methodInvocationRecord;
     }
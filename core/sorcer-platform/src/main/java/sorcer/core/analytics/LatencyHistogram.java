@@ -0,0 +1,165 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sorcer.core.analytics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size histogram of call times over a sliding time window. Call times
+ * are counted in log-linear buckets of microseconds, each power of two is
+ * split into 8 buckets so a percentile is reported within 12.5% of the
+ * measured time. The window is a ring of intervals, the oldest interval is
+ * cleared when it is reused. Recording a call time does not allocate.
+ */
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // call times above 2^40 microseconds (12 days) are counted in the last bucket
+    private static final int MAX_EXPONENT = 40;
+    static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final Interval[] intervals;
+    private final long intervalLength;
+
+    LatencyHistogram() {
+        this(6, 10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param intervals the number of intervals in the window
+     * @param intervalLength the length of an interval
+     * @param unit the time unit of the interval length
+     */
+    LatencyHistogram(int intervals, long intervalLength, TimeUnit unit) {
+        this.intervals = new Interval[intervals];
+        for (int i = 0; i < intervals; i++)
+            this.intervals[i] = new Interval();
+        this.intervalLength = unit.toNanos(intervalLength);
+    }
+
+    /**
+     * Records the call time completed at <code>now</code>, both in
+     * nanoseconds as returned by {@link System#nanoTime()}.
+     */
+    void record(long callTime, long now) {
+        long epoch = now / intervalLength;
+        Interval interval = intervals[(int) Math.floorMod(epoch, (long) intervals.length)];
+        if (interval.epoch != epoch)
+            interval.reset(epoch);
+        interval.counts.incrementAndGet(index(TimeUnit.NANOSECONDS.toMicros(callTime)));
+        long max = interval.max.get();
+        while (callTime > max && !interval.max.compareAndSet(max, callTime))
+            max = interval.max.get();
+    }
+
+    /**
+     * Returns the call times of the window ending at <code>now</code>.
+     */
+    Snapshot snapshot(long now) {
+        long epoch = now / intervalLength;
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        long max = 0;
+        for (Interval interval : intervals) {
+            long e = interval.epoch;
+            if (e > epoch || e <= epoch - intervals.length)
+                continue;
+            for (int i = 0; i < BUCKETS; i++) {
+                long c = interval.counts.get(i);
+                counts[i] += c;
+                total += c;
+            }
+            max = Math.max(max, interval.max.get());
+        }
+        return new Snapshot(total,
+                            percentile(counts, total, 0.5, max),
+                            percentile(counts, total, 0.9, max),
+                            percentile(counts, total, 0.99, max),
+                            max);
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) Math.max(0, value);
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT)
+            return BUCKETS - 1;
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the largest value counted in the bucket.
+     */
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+
+    private static long percentile(long[] counts, long total, double percentile, long max) {
+        if (total == 0)
+            return 0;
+        long rank = (long) Math.ceil(percentile * total);
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i];
+            if (count >= rank)
+                return Math.min(TimeUnit.MICROSECONDS.toNanos(upperBound(i)), max);
+        }
+        return max;
+    }
+
+    private static class Interval {
+        final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        final AtomicLong max = new AtomicLong();
+        volatile long epoch = Long.MIN_VALUE;
+
+        synchronized void reset(long epoch) {
+            if (this.epoch >= epoch)
+                return;
+            // calls recorded while the interval is cleared may be lost
+            for (int i = 0; i < BUCKETS; i++)
+                counts.set(i, 0);
+            max.set(0);
+            this.epoch = epoch;
+        }
+    }
+
+    /**
+     * Call times of a window in nanoseconds.
+     */
+    static class Snapshot {
+        final long count;
+        final long p50;
+        final long p90;
+        final long p99;
+        final long max;
+
+        Snapshot(long count, long p50, long p90, long p99, long max) {
+            this.count = count;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+    }
+}
@@ -16,106 +16,109 @@
 package sorcer.core.analytics;
 
 import net.jini.core.lookup.ServiceID;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
+ * Invocation counters and call times of a method. Counters are striped so
+ * concurrent calls do not contend, and call times are recorded in a
+ * {@link LatencyHistogram}. Recording a call does not allocate, the
+ * percentiles of the histogram are only computed when the
+ * {@link MethodAnalytics} are created.
+ *
  * @author Dennis Reedy
  */
 class MethodInvocationRecord {
-    AtomicInteger numActiveOperations = new AtomicInteger();
-    private AtomicInteger idGenerator = new AtomicInteger();
-    private AtomicInteger completed = new AtomicInteger();
-    private AtomicInteger failed = new AtomicInteger();
-    private final Map<Integer, Long> stopWatch = new ConcurrentHashMap<>();
-    private AtomicInteger totalOperationCalls = new AtomicInteger();
-    private AtomicLong totalCallTime = new AtomicLong();
-    private volatile double averageExecTime;
+    private final LongAdder numActiveOperations = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalOperationCalls = new LongAdder();
+    private final LongAdder totalCallTime = new LongAdder();
+    private final LatencyHistogram histogram = new LatencyHistogram();
     private final String methodName;
-    static Logger logger = LoggerFactory.getLogger(MethodInvocationRecord.class);
+    private final ServiceID serviceID;
+    private final String hostName;
+    private final Supplier<MethodAnalytics> analytics = new Supplier<MethodAnalytics>() {
+        @Override public MethodAnalytics get() {
+            return create();
+        }
+    };
 
-    MethodInvocationRecord(String methodName) {
+    MethodInvocationRecord(String methodName, ServiceID serviceID, String hostName) {
         this.methodName = methodName;
+        this.serviceID = serviceID;
+        this.hostName = hostName;
     }
 
-    int inprocess() {
-        int id = idGenerator.incrementAndGet();
-        numActiveOperations.incrementAndGet();
-        stopWatch.put(id, System.nanoTime());
-        return id;
-    }
-
-    void failed(int id) {
-        handleCallTime(id);
-        failed.incrementAndGet();
+    /**
+     * @return the start time of the call, passed to {@link #complete(long)}
+     * or {@link #failed(long)} when the call returns
+     */
+    long inprocess() {
+        numActiveOperations.increment();
+        return System.nanoTime();
     }
 
-    void complete(int id) {
-        handleCallTime(id);
-        completed.incrementAndGet();
+    void failed(long startTime) {
+        handleCallTime(startTime);
+        failed.increment();
     }
 
     void complete(long startTime) {
         handleCallTime(startTime);
-        completed.incrementAndGet();
+        completed.increment();
     }
 
-    MethodAnalytics create(ServiceID serviceID, String hostName) {
-        String activeOps = "";
-        synchronized (stopWatch) {
-            if (stopWatch.size() > 0) {
-                StringBuilder b = new StringBuilder();
-                for (Integer i : stopWatch.keySet()) {
-                    if (b.length() > 0)
-                        b.append(", ");
-                    b.append(Integer.toString(i));
-                }
-                activeOps = b.toString();
-            }
-        }
-        return new MethodAnalytics(activeOps,
-                                   averageExecTime,
-                                   completed.get(),
-                                   failed.get(),
+    int getNumActiveOperations() {
+        return numActiveOperations.intValue();
+    }
+
+    /**
+     * Returns the supplier of the analytics of the record, for updates built
+     * when they are sent.
+     */
+    Supplier<MethodAnalytics> analytics() {
+        return analytics;
+    }
+
+    MethodAnalytics create() {
+        long callTime = totalCallTime.sum();
+        int totalCalls = totalOperationCalls.intValue();
+        int active = numActiveOperations.intValue();
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot(System.nanoTime());
+        return new MethodAnalytics(Integer.toString(active),
+                                   totalCalls == 0 ? 0 : callTime / totalCalls,
+                                   completed.intValue(),
+                                   failed.intValue(),
                                    hostName,
                                    methodName,
-                                   numActiveOperations.get(),
+                                   active,
                                    serviceID,
-                                   totalCallTime.get(),
-                                   totalOperationCalls.get());
+                                   callTime,
+                                   totalCalls,
+                                   snapshot.count,
+                                   snapshot.p50,
+                                   snapshot.p90,
+                                   snapshot.p99,
+                                   snapshot.max);
     }
 
     private void handleCallTime(long startTime) {
-        long callTime = System.nanoTime() - startTime;;
-        totalCallTime.addAndGet(callTime);
-        int totalCalls = totalOperationCalls.incrementAndGet();
-        averageExecTime = totalCallTime.get() / totalCalls;
-        numActiveOperations.decrementAndGet();
-    }
-
-    private void handleCallTime(int id)  {
-        if(stopWatch.containsKey(id)) {
-            handleCallTime(stopWatch.remove(id));
-        } else {
-            logger.error("{} id not found: {}", id, methodName);
-            totalOperationCalls.incrementAndGet();
-        }
+        long now = System.nanoTime();
+        long callTime = now - startTime;
+        totalCallTime.add(callTime);
+        totalOperationCalls.increment();
+        histogram.record(callTime, now);
+        numActiveOperations.decrement();
     }
 
     @Override public String toString() {
-        return String.format("%s: completed: %s, numActiveOps: %s, averageExecTime: %s, " +
-                             "totalOperationCalls: %s, activeOperations: %s, totalCallTime: %s",
+        return String.format("%s: completed: %s, numActiveOps: %s, totalOperationCalls: %s, totalCallTime: %s",
                              methodName,
-                             completed.get(),
-                             numActiveOperations.get(),
-                             averageExecTime,
-                             totalOperationCalls.get(),
-                             stopWatch.keySet().toString(),
-                             totalCallTime.get());
+                             completed.sum(),
+                             numActiveOperations.sum(),
+                             totalOperationCalls.sum(),
+                             totalCallTime.sum());
     }
 }
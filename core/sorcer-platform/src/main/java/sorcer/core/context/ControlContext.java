@@ -50,6 +50,13 @@ public class ControlContext extends ServiceContext<Object> implements StrategyCo
 	 */
 	public final static String EXERTION_FLOW = "exertion" + CPS + "flow";
 
+	/**
+	 * Indicates that component mograms of this exertion have data dependencies
+	 * between them and may be released as soon as their own inputs are
+	 * available instead of strictly in sequence.
+	 */
+	public final static String EXERTION_DAG_FLOW = "exertion" + CPS + "flow" + CPS + "dag";
+
 	public final static String EXERTION_PROVISIONABLE = "exertion" + CPS
 			+ "provisionable";
 
@@ -285,6 +292,14 @@ public class ControlContext extends ServiceContext<Object> implements StrategyCo
 		put(EXERTION_FLOW, type);
 	}
 
+	public boolean isDagFlow() {
+		return Boolean.TRUE.equals(get(EXERTION_DAG_FLOW));
+	}
+
+	public void setDagFlow(boolean state) {
+		put(EXERTION_DAG_FLOW, state);
+	}
+
 	public boolean isMonitorable() {
 		return Boolean.TRUE.equals(get(EXERTION_MONITORABLE));
 	}
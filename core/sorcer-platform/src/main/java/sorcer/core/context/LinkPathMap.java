@@ -0,0 +1,198 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.context;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static sorcer.core.SorcerConstants.CPS;
+
+/**
+ * The data map of a {@link ServiceContext} that keeps the sorted paths of its
+ * {@link ContextLink} values up to date on every change. The links of a path
+ * are found by looking up its ancestor paths, so resolving a path depends on
+ * its depth and not on the number of paths in the context.
+ */
+class LinkPathMap<T> extends ConcurrentHashMap<String, T> {
+
+	private static final long serialVersionUID = -4187266730937735641L;
+
+	// rebuilt on first use after deserialization
+	private transient volatile NavigableSet<String> linkPaths;
+
+	LinkPathMap() {
+		super();
+		linkPaths = new ConcurrentSkipListSet<String>();
+	}
+
+	LinkPathMap(Map<String, ? extends T> map) {
+		this();
+		putAll(map);
+	}
+
+	/**
+	 * Returns the sorted paths of all links in this map.
+	 */
+	NavigableSet<String> getLinkPaths() {
+		NavigableSet<String> paths = linkPaths;
+		if (paths == null) {
+			paths = new ConcurrentSkipListSet<String>();
+			for (Map.Entry<String, T> e : entrySet()) {
+				if (e.getValue() instanceof ContextLink)
+					paths.add(e.getKey());
+			}
+			linkPaths = paths;
+		}
+		return paths;
+	}
+
+	/**
+	 * Returns the paths of links that are the <code>path</code> or its
+	 * ancestors, the shortest first.
+	 */
+	List<String> getLinkPaths(String path) {
+		NavigableSet<String> paths = getLinkPaths();
+		if (paths.isEmpty())
+			return Collections.emptyList();
+		List<String> found = null;
+		int index = path.indexOf(CPS);
+		while (true) {
+			String ancestor = index < 0 ? path : path.substring(0, index);
+			if (paths.contains(ancestor)) {
+				if (get(ancestor) instanceof ContextLink) {
+					if (found == null)
+						found = new ArrayList<String>(2);
+					found.add(ancestor);
+				} else {
+					// a link removed by an iterator of the views
+					paths.remove(ancestor);
+				}
+			}
+			if (index < 0)
+				break;
+			index = path.indexOf(CPS, index + 1);
+		}
+		return found == null ? Collections.<String>emptyList() : found;
+	}
+
+	private void index(String path, Object value) {
+		if (value instanceof ContextLink)
+			getLinkPaths().add(path);
+		else
+			getLinkPaths().remove(path);
+	}
+
+	@Override
+	public T put(String path, T value) {
+		T old = super.put(path, value);
+		index(path, value);
+		return old;
+	}
+
+	@Override
+	public void putAll(Map<? extends String, ? extends T> map) {
+		for (Map.Entry<? extends String, ? extends T> e : map.entrySet())
+			put(e.getKey(), e.getValue());
+	}
+
+	@Override
+	public T putIfAbsent(String path, T value) {
+		T old = super.putIfAbsent(path, value);
+		if (old == null)
+			index(path, value);
+		return old;
+	}
+
+	@Override
+	public T remove(Object path) {
+		T old = super.remove(path);
+		if (old instanceof ContextLink)
+			getLinkPaths().remove(path);
+		return old;
+	}
+
+	@Override
+	public boolean remove(Object path, Object value) {
+		boolean removed = super.remove(path, value);
+		if (removed && value instanceof ContextLink)
+			getLinkPaths().remove(path);
+		return removed;
+	}
+
+	@Override
+	public T replace(String path, T value) {
+		T old = super.replace(path, value);
+		if (old != null)
+			index(path, value);
+		return old;
+	}
+
+	@Override
+	public boolean replace(String path, T oldValue, T newValue) {
+		boolean replaced = super.replace(path, oldValue, newValue);
+		if (replaced)
+			index(path, newValue);
+		return replaced;
+	}
+
+	@Override
+	public T computeIfAbsent(String path, Function<? super String, ? extends T> function) {
+		T value = super.computeIfAbsent(path, function);
+		index(path, value);
+		return value;
+	}
+
+	@Override
+	public T computeIfPresent(String path, BiFunction<? super String, ? super T, ? extends T> function) {
+		T value = super.computeIfPresent(path, function);
+		index(path, value);
+		return value;
+	}
+
+	@Override
+	public T compute(String path, BiFunction<? super String, ? super T, ? extends T> function) {
+		T value = super.compute(path, function);
+		index(path, value);
+		return value;
+	}
+
+	@Override
+	public T merge(String path, T value, BiFunction<? super T, ? super T, ? extends T> function) {
+		T merged = super.merge(path, value, function);
+		index(path, merged);
+		return merged;
+	}
+
+	@Override
+	public void replaceAll(BiFunction<? super String, ? super T, ? extends T> function) {
+		super.replaceAll(function);
+		linkPaths = null;
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		linkPaths = new ConcurrentSkipListSet<String>();
+	}
+}
@@ -52,7 +52,6 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.rmi.RemoteException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import static sorcer.eo.operator.sig;
@@ -65,7 +64,7 @@ public class ServiceContext<T> extends ServiceMogram implements
 		Context<T>, AssociativeContext<T>, Contexter<T>, SorcerConstants {
 
 	private static final long serialVersionUID = 3311956866023311727L;
-	protected Map<String, T> data = new ConcurrentHashMap<String, T>();
+	protected Map<String, T> data = new LinkPathMap<T>();
 	protected String subjectPath = "";
 	protected Object subjectValue = "";
 	// default eval new ReturnPath(Context.RETURN);
@@ -234,7 +233,7 @@ public class ServiceContext<T> extends ServiceMogram implements
 	 */
     protected void initContext() {
 		super.init();
-		data = new ConcurrentHashMap<String, T>();
+		data = new LinkPathMap<T>();
 		metacontext = new HashMap<String, Map<String, String>>();
 		metacontext.put(SorcerConstants.CONTEXT_ATTRIBUTES, new HashMap());
 
@@ -381,7 +380,7 @@ public class ServiceContext<T> extends ServiceMogram implements
 		}
 		if (result == null) {
 			// could be in a linked context
-			List<String> paths = localLinkPaths();
+			List<String> paths = localLinkPaths(path);
 			int len;
 			for (String linkPath : paths) {
 				ContextLink link = null;
@@ -515,7 +514,7 @@ public class ServiceContext<T> extends ServiceMogram implements
 		if(path==null)
 			throw new IllegalArgumentException("path must not be null");
 		// first test if path is in a linked context
-		List<String> paths = localLinkPaths();
+		List<String> paths = localLinkPaths(path);
 		for (String linkPath : paths) {
 			// path has to start with linkPath+last_piece_of_offset
 			ContextLink link = null;
@@ -706,7 +705,7 @@ public class ServiceContext<T> extends ServiceMogram implements
 				result = (ContextLink) value;
 		} else if (value == null) {
 			// could be in a linked context
-			List<String> paths = localLinkPaths();
+			List<String> paths = localLinkPaths(path);
 			int len;
 			for (String linkPath : paths) {
 				ContextLink link = (ContextLink) get(linkPath);
@@ -751,7 +750,7 @@ public class ServiceContext<T> extends ServiceMogram implements
 			result[0] = this;
 			result[1] = path;
 		} else if (value == null) {
-			List<String> paths = localLinkPaths();
+			List<String> paths = localLinkPaths(path);
 			int len;
 			for (String linkPath : paths) {
 				ContextLink link = (ContextLink) get(linkPath);
@@ -1276,18 +1275,30 @@ public class ServiceContext<T> extends ServiceMogram implements
 
 	public List<String> localLinkPaths() throws ContextException {
 		List<String> keys = new ArrayList<String>();
-		Iterator i = keyIterator();
-		String key;
-
-		while (i.hasNext()) {
-			key = (String) i.next();
+		// link paths are kept sorted by the data map
+		for (String key : getLinkPathMap().getLinkPaths()) {
 			if (get(key) instanceof ContextLink)
 				keys.add(key);
 		}
-		SorcerUtil.bubbleSort(keys);
 		return keys;
 	}
 
+	/**
+	 * Returns the sorted paths of links in this context that the given path
+	 * can resolve to, i.e. the path itself and its ancestor paths.
+	 */
+	protected List<String> localLinkPaths(String path) {
+		return getLinkPathMap().getLinkPaths(path);
+	}
+
+	private LinkPathMap<T> getLinkPathMap() {
+		if (!(data instanceof LinkPathMap)) {
+			// data of contexts serialized without the link path index
+			data = new LinkPathMap<T>(data);
+		}
+		return (LinkPathMap<T>) data;
+	}
+
 	/**
 	 * Returns a list of all paths marked as data input.
 	 *
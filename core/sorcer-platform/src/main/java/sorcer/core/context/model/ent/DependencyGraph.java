@@ -0,0 +1,185 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.context.model.ent;
+
+import sorcer.co.tuple.DependencyEntry;
+import sorcer.service.Path;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The dependency graph of entries of a {@link ProcModel}. For each path it
+ * keeps the paths of entries evaluated with its value, built from arguments
+ * of entries and from dependencies of the model strategy. Entries with
+ * arguments that are not known are kept apart and depend on all paths.
+ */
+class DependencyGraph {
+
+	// ends the dependency paths of a key in the built dependencies
+	private static final String END = new String();
+
+	// the paths of entries with a path as their argument
+	private final ConcurrentHashMap<String, Set<String>> dependents = new ConcurrentHashMap<String, Set<String>>();
+
+	// the argument paths of entries
+	private final Map<String, Collection<String>> arguments = new ConcurrentHashMap<String, Collection<String>>();
+
+	// entries that may depend on any path
+	private final Set<String> untracked = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	// dependencies of the model strategy, reversed
+	private volatile Map<String, Set<String>> dependers = Collections.emptyMap();
+
+	// the dependencies the reversed map was built from, each key followed
+	// by its dependency paths and END
+	private volatile String[] built = new String[0];
+
+	/**
+	 * Sets the argument paths of the entry at the <code>path</code>, null if
+	 * they are not known.
+	 */
+	void update(String path, Collection<String> args) {
+		remove(path);
+		if (args == null) {
+			untracked.add(path);
+		} else if (!args.isEmpty()) {
+			arguments.put(path, args);
+			for (String arg : args) {
+				Set<String> paths = dependents.get(arg);
+				if (paths == null) {
+					paths = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+					Set<String> existing = dependents.putIfAbsent(arg, paths);
+					if (existing != null)
+						paths = existing;
+				}
+				paths.add(path);
+			}
+		}
+	}
+
+	void remove(String path) {
+		untracked.remove(path);
+		Collection<String> args = arguments.remove(path);
+		if (args != null) {
+			for (String arg : args) {
+				Set<String> paths = dependents.get(arg);
+				if (paths != null)
+					paths.remove(path);
+			}
+		}
+	}
+
+	/**
+	 * Reverses the dependency map of the model strategy, the key of the map
+	 * is evaluated after its dependency paths. The map is compared with the
+	 * dependencies it was reversed from last time and reversed again only if
+	 * they differ, the map and its dependency lists are changed in place.
+	 */
+	void setDependencies(Map<String, List<DependencyEntry>> dependencies) {
+		if (isBuilt(dependencies))
+			return;
+		Map<String, Set<String>> reversed = new HashMap<String, Set<String>>();
+		List<String> from = new ArrayList<String>();
+		if (dependencies != null) {
+			for (Map.Entry<String, List<DependencyEntry>> e : dependencies.entrySet()) {
+				from.add(e.getKey());
+				for (DependencyEntry de : e.getValue()) {
+					List<Path> dpl = de.value();
+					if (dpl == null)
+						continue;
+					for (Path p : dpl) {
+						from.add(p.path);
+						Set<String> paths = reversed.get(p.path);
+						if (paths == null) {
+							paths = new HashSet<String>();
+							reversed.put(p.path, paths);
+						}
+						paths.add(e.getKey());
+					}
+				}
+				from.add(END);
+			}
+		}
+		dependers = reversed;
+		built = from.toArray(new String[from.size()]);
+	}
+
+	/**
+	 * Returns true if the dependencies are the ones the reversed map was
+	 * built from, in the same order.
+	 */
+	private boolean isBuilt(Map<String, List<DependencyEntry>> dependencies) {
+		String[] from = built;
+		int i = 0;
+		if (dependencies != null) {
+			for (Map.Entry<String, List<DependencyEntry>> e : dependencies.entrySet()) {
+				if (i >= from.length || from[i] == END || !Objects.equals(e.getKey(), from[i++]))
+					return false;
+				for (DependencyEntry de : e.getValue()) {
+					List<Path> dpl = de.value();
+					if (dpl == null)
+						continue;
+					for (Path p : dpl) {
+						if (i >= from.length || from[i] == END || !Objects.equals(p.path, from[i++]))
+							return false;
+					}
+				}
+				if (i >= from.length || from[i++] != END)
+					return false;
+			}
+		}
+		return i == from.length;
+	}
+
+	/**
+	 * Returns the <code>path</code>, all untracked paths and the paths that
+	 * depend on them directly or transitively.
+	 */
+	Set<String> getAffected(String path) {
+		Set<String> affected = new LinkedHashSet<String>();
+		Deque<String> pending = new ArrayDeque<String>();
+		pending.add(path);
+		pending.addAll(untracked);
+		Map<String, Set<String>> reversed = dependers;
+		while (!pending.isEmpty()) {
+			String next = pending.poll();
+			if (!affected.add(next))
+				continue;
+			Set<String> paths = dependents.get(next);
+			if (paths != null)
+				pending.addAll(paths);
+			paths = reversed.get(next);
+			if (paths != null)
+				pending.addAll(paths);
+		}
+		return affected;
+	}
+
+	/**
+	 * Returns the paths of entries with the <code>path</code> as their
+	 * argument.
+	 */
+	Set<String> getDependents(String path) {
+		Set<String> paths = dependents.get(path);
+		return paths == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(paths);
+	}
+
+	Set<String> getUntracked() {
+		return Collections.unmodifiableSet(untracked);
+	}
+}
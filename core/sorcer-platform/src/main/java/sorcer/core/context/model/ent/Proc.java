@@ -151,6 +151,7 @@ public class Proc<T> extends Entry<T> implements Variability<T>, Mappable<T>,
 			} catch (Exception e) {
 				throw new SetterException(e);
 			}
+			scopeChanged();
 			return;
 		}
 		if (mappable != null && this._2 instanceof String ) {
@@ -177,14 +178,25 @@ public class Proc<T> extends Entry<T> implements Variability<T>, Mappable<T>,
 			} catch (Exception e) {
 				throw new SetterException(e);
 			}
+			scopeChanged();
 		} else if (value instanceof Evaluation) {
 			this.value = (T) value;
+			scopeChanged();
 		} else {
+			boolean changed = !Objects.equals(value, _2);
 			this.value = (T)value;
 			_2 = (T) value;
+			if (changed)
+				scopeChanged();
 		}
 	}
 
+	// invalidates cached values of procs in the scope that depend on this one
+	private void scopeChanged() {
+		if (scope instanceof ProcModel && ((ProcModel) scope).asis(name) == this)
+			((ProcModel) scope).entryChanged(name);
+	}
+
 	@Override
 	public T value() {
 		return value;
@@ -208,7 +220,7 @@ public class Proc<T> extends Entry<T> implements Variability<T>, Mappable<T>,
 	public T getValue(Arg... args) throws EvaluationException, RemoteException {
 		// check for a constant or cached eval
 		if (value instanceof Incrementor || ((value instanceof ServiceInvoker) &&
-				scope != null && (scope instanceof ProcModel) && ((ProcModel)scope).isChanged()))
+				scope != null && (scope instanceof ProcModel) && ((ProcModel)scope).isChanged(this)))
 			isValid = false;
 		if (_2 != null && isValid && args.length == 00 && !isPersistent) {
 			try {
@@ -65,6 +65,9 @@ public class ProcModel extends PositionalContext<Object> implements Model, Invoc
 
     private static final long serialVersionUID = -6932730998474298653L;
 
+	// dependencies of entries, rebuilt on first use after deserialization
+	private transient volatile DependencyGraph dependencies;
+
 	public static ProcModel instance(Signature builder) throws SignatureException {
 		ProcModel model = (ProcModel) sorcer.co.operator.instance(builder);
 		model.setBuilder(builder);
@@ -182,6 +185,9 @@ public class ProcModel extends PositionalContext<Object> implements Model, Invoc
 		try {
 			if (obj instanceof Proc) {
 				((Proc) obj).setValue(value);
+				// procs scoped by this model update its dependencies when set
+				if (((Proc) obj).getScope() != this)
+					entryChanged(path);
 				return value;
 			} else {
 				if (value instanceof Scopable) {
@@ -199,6 +205,108 @@ public class ProcModel extends PositionalContext<Object> implements Model, Invoc
 		}
 	}
 
+	@Override
+	public Object put(String path, Object value) {
+		Object old = super.put(path, value);
+		if (path != null)
+			entryChanged(path);
+		return old;
+	}
+
+	@Override
+	public void putAll(Context<Object> context) {
+		super.putAll(context);
+		for (String path : ((ServiceContext<Object>) context).keySet())
+			entryChanged(path);
+	}
+
+	@Override
+	public Object remove(Object path) {
+		Object old = super.remove(path);
+		if (old != null && path instanceof String) {
+			getDependencyGraph().remove((String) path);
+			invalidateDependents((String) path);
+		}
+		return old;
+	}
+
+	/**
+	 * Updates the dependencies of the entry at the <code>path</code> and
+	 * invalidates values evaluated with its previous value.
+	 */
+	public void entryChanged(String path) {
+		getDependencyGraph().update(path, getArgPaths(data.get(path)));
+		invalidateDependents(path);
+	}
+
+	/**
+	 * Invalidates values of the entry at the <code>path</code>, of entries
+	 * that depend on it directly or transitively and of entries with
+	 * arguments that are not known.
+	 */
+	public void invalidateDependents(String path) {
+		DependencyGraph graph = getDependencyGraph();
+		if (mogramStrategy instanceof ModelStrategy)
+			graph.setDependencies(((ModelStrategy) mogramStrategy).getDependentPaths());
+		for (String p : graph.getAffected(path)) {
+			Object val = data.get(p);
+			if (val instanceof Entry) {
+				((Entry) val).setValid(false);
+				if (((Entry) val).value() instanceof ServiceInvoker)
+					((ServiceInvoker) ((Entry) val).value()).valueValid(false);
+			}
+		}
+	}
+
+	/**
+	 * Returns the paths of entries the entry <code>value</code> is evaluated
+	 * with, an empty list if it has no dependencies or null if it may depend
+	 * on any entry of this model.
+	 */
+	protected Collection<String> getArgPaths(Object value) {
+		if (value instanceof Entry && ((Entry) value).value() instanceof ServiceInvoker) {
+			ArgSet args = ((ServiceInvoker) ((Entry) value).value()).getArgs();
+			if (args == null || args.isEmpty())
+				return null;
+			List<String> paths = new ArrayList<String>(args.size());
+			for (Arg arg : args)
+				paths.add(arg.getName());
+			return paths;
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Returns the names of entries that have the entry at the
+	 * <code>path</code> as their argument.
+	 */
+	public Set<String> getDependents(String path) {
+		return getDependencyGraph().getDependents(path);
+	}
+
+	/**
+	 * Returns true if the cached value of the <code>entry</code> may be out of
+	 * date. Entries of this model are invalidated by changes of their
+	 * dependencies, other entries by any change of this model.
+	 */
+	public boolean isChanged(Entry entry) {
+		return isChanged && data.get(entry.getName()) != entry;
+	}
+
+	private DependencyGraph getDependencyGraph() {
+		DependencyGraph graph = dependencies;
+		if (graph == null) {
+			graph = new DependencyGraph();
+			Iterator<Map.Entry<String, Object>> i = entryIterator();
+			while (i.hasNext()) {
+				Map.Entry<String, Object> entry = i.next();
+				graph.update(entry.getKey(), getArgPaths(entry.getValue()));
+			}
+			dependencies = graph;
+		}
+		return graph;
+	}
+
 	public Proc getProc(String name) throws ContextException {
 		Object obj = get(name);
 		if (obj instanceof Proc)
@@ -39,9 +39,20 @@ import sorcer.service.*;
 import sorcer.service.modeling.Model;
 import sorcer.service.modeling.Variability;
 import sorcer.service.Signature.ReturnPath;
+import sorcer.util.ConfigurableThreadFactory;
+import sorcer.util.Sorcer;
 
 import java.rmi.RemoteException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import static sorcer.eo.operator.*;
 
@@ -59,6 +70,19 @@ import static sorcer.eo.operator.*;
 public class SrvModel extends ProcModel implements Invocation<Object> {
     private static final Logger logger = LoggerFactory.getLogger(SrvModel.class);
 
+    public static final String EVALUATION_THREADS = "sorcer.model.evaluation.threads";
+
+    // evaluates dependencies of concurrent models, created on first use
+    private static volatile ExecutorService evaluator;
+
+    // set in evaluator threads, nested dependencies are evaluated in place
+    private static final ThreadLocal<Boolean> evaluating = new ThreadLocal<Boolean>() {
+        @Override
+        protected Boolean initialValue() {
+            return false;
+        }
+    };
+
     public static SrvModel instance(Signature builder) throws SignatureException {
         SrvModel model = (SrvModel) sorcer.co.operator.instance(builder);
         model.setBuilder(builder);
@@ -139,11 +163,16 @@ public class SrvModel extends ProcModel implements Invocation<Object> {
 
     // used as getValue but renamed to alter polymorphic chaining
     public Object getSrvValue(String path, Arg... args) throws EvaluationException {
+        return getSrvValue(path, true, args);
+    }
+
+    private Object getSrvValue(String path, boolean withDependencies, Arg... args) throws EvaluationException {
         Object val = null;
         try {
             append(args);
             if (path != null) {
-                execDependencies(path, args);
+                if (withDependencies)
+                    execDependencies(path, args);
                 val = get(path);
             } else {
                 ReturnPath rp = Arg.getReturnPath(args);
@@ -156,12 +185,12 @@ public class SrvModel extends ProcModel implements Invocation<Object> {
             if (val instanceof Srv) {
                 if (((Srv) val).isCached()) {
                     return ((Srv) val).getSrvValue();
-                } else if (isChanged())
+                } else if (isChanged((Srv) val))
                     ((Srv) val).setValid(false);
                 Object val2 = ((Srv) val).asis();
                 if (val2 instanceof SignatureEntry) {
-                    // return the calculated eval
-                    if (((Srv) val).getSrvValue() != null && ((Srv) val).isValueCurrent() && !isChanged())
+                    // return the calculated eval, invalidated by changes of its dependencies
+                    if (((Srv) val).getSrvValue() != null && ((Srv) val).isValueCurrent())
                         return ((Srv) val).getSrvValue();
                     else {
                         Signature sig = ((SignatureEntry) ((Srv) val).asis()).value();
@@ -288,6 +317,31 @@ public class SrvModel extends ProcModel implements Invocation<Object> {
         return val;
     }
 
+    @Override
+    protected Collection<String> getArgPaths(Object value) {
+        if (!(value instanceof Srv) || ((Srv) value).value() instanceof ServiceInvoker)
+            return super.getArgPaths(value);
+        Srv srv = (Srv) value;
+        Object val = srv.value();
+        ReturnPath rp = srv.getReturnPath();
+        if (val instanceof SignatureEntry && ((SignatureEntry) val).value() != null)
+            rp = (ReturnPath) ((SignatureEntry) val).value().getReturnPath();
+        if (rp != null && rp.inPaths != null) {
+            List<String> paths = new ArrayList<String>(rp.inPaths.length);
+            for (Path p : rp.inPaths)
+                paths.add(p.path);
+            return paths;
+        } else if (srv.getPaths() != null && srv.getPaths().length > 0) {
+            return Arrays.asList(srv.getPaths());
+        } else if (val instanceof Arg || val instanceof Service || val instanceof Evaluation
+                || val instanceof ValueCallable || val instanceof EntryCollable || val instanceof Client
+                || val instanceof Closure || val instanceof MorphFidelity) {
+            // evaluated with the whole model
+            return null;
+        }
+        return Collections.emptyList();
+    }
+
     public Object evalSignature(Signature sig, String path, Arg... args) throws MogramException {
         Context out = execSignature(sig, args);
         if (sig.getReturnPath() != null) {
@@ -295,7 +349,9 @@ public class SrvModel extends ProcModel implements Invocation<Object> {
             if (obj == null)
                 obj = out.getValue(path);
             if (obj != null) {
-                ((Srv)get(path)).setSrvValue(obj);
+                Srv srv = (Srv) get(path);
+                srv.setSrvValue(obj);
+                srv.setValid(true);
                 return obj;
             } else {
                 logger.warn("no eval for return path: {} in: {}", ((ReturnPath)sig.getReturnPath()).path, out);
@@ -375,6 +431,10 @@ public class SrvModel extends ProcModel implements Invocation<Object> {
             List<DependencyEntry> del = dpm.get(path);
             Entry entry = entry(path);
             if (del != null && del.size() > 0) {
+                if (isConcurrent() && isUnconditional(del) && !evaluating.get()) {
+                    execConcurrently(path, dpm, args);
+                    return;
+                }
                 for (DependencyEntry de : del) {
                     List<Path> dpl = de._2;
                     if (de.getType().equals(Variability.Type.FIDELITY)) {
@@ -420,6 +480,192 @@ public class SrvModel extends ProcModel implements Invocation<Object> {
         execDependencies(sig.getName(), args);
     }
 
+    /**
+     * Returns true if dependencies of entries are evaluated concurrently, the
+     * flow type of the model strategy is {@link Strategy.Flow#PAR}.
+     */
+    public boolean isConcurrent() {
+        return mogramStrategy instanceof ModelStrategy
+                && ((ModelStrategy) mogramStrategy).getFlowType() == Strategy.Flow.PAR;
+    }
+
+    private static boolean isUnconditional(List<DependencyEntry> del) {
+        for (DependencyEntry de : del) {
+            if (de.getType().equals(Variability.Type.FIDELITY) || de.getType().equals(Variability.Type.CONDITION))
+                return false;
+        }
+        return true;
+    }
+
+    private static Set<String> getDependencyPaths(List<DependencyEntry> del) {
+        Set<String> paths = new LinkedHashSet<String>();
+        for (DependencyEntry de : del) {
+            if (de._2 != null) {
+                for (Path p : de._2)
+                    paths.add(p.path);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Evaluates the dependencies of the <code>path</code> in topological
+     * order, an entry is evaluated as soon as its dependencies are, so
+     * independent entries run concurrently on the shared evaluation executor.
+     * Entries with fidelity or conditional dependencies evaluate them on
+     * their own.
+     */
+    private void execConcurrently(String path, Map<String, List<DependencyEntry>> dpm, final Arg... args)
+            throws ContextException {
+        // the dependencies of each entry reachable from the path
+        final Map<String, Set<String>> graph = new LinkedHashMap<String, Set<String>>();
+        final Set<String> conditional = new HashSet<String>();
+        Deque<String> pending = new ArrayDeque<String>(getDependencyPaths(dpm.get(path)));
+        while (!pending.isEmpty()) {
+            String p = pending.poll();
+            if (graph.containsKey(p))
+                continue;
+            List<DependencyEntry> del = dpm.get(p);
+            Set<String> deps = Collections.emptySet();
+            if (del != null && del.size() > 0) {
+                if (isUnconditional(del)) {
+                    deps = getDependencyPaths(del);
+                    pending.addAll(deps);
+                } else {
+                    conditional.add(p);
+                }
+            }
+            graph.put(p, deps);
+        }
+
+        Map<String, Integer> remaining = new HashMap<String, Integer>();
+        Map<String, List<String>> dependents = new HashMap<String, List<String>>();
+        for (Map.Entry<String, Set<String>> e : graph.entrySet()) {
+            remaining.put(e.getKey(), e.getValue().size());
+            for (String dep : e.getValue()) {
+                List<String> dl = dependents.get(dep);
+                if (dl == null) {
+                    dl = new ArrayList<String>();
+                    dependents.put(dep, dl);
+                }
+                dl.add(e.getKey());
+            }
+        }
+
+        CompletionService<String> done = new ExecutorCompletionService<String>(getEvaluator());
+        List<Future<String>> futures = new ArrayList<Future<String>>();
+        for (Map.Entry<String, Integer> e : remaining.entrySet()) {
+            if (e.getValue() == 0)
+                futures.add(done.submit(new DependencyTask(e.getKey(), conditional.contains(e.getKey()), args)));
+        }
+        int evaluated = 0;
+        try {
+            while (evaluated < futures.size()) {
+                String p = done.take().get();
+                evaluated++;
+                List<String> dl = dependents.get(p);
+                if (dl == null)
+                    continue;
+                for (String d : dl) {
+                    int count = remaining.get(d) - 1;
+                    remaining.put(d, count);
+                    if (count == 0)
+                        futures.add(done.submit(new DependencyTask(d, conditional.contains(d), args)));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(futures);
+            throw new ContextException(e);
+        } catch (ExecutionException e) {
+            cancel(futures);
+            if (e.getCause() instanceof ContextException)
+                throw (ContextException) e.getCause();
+            throw new ContextException(e.getCause());
+        }
+        if (evaluated < graph.size())
+            throw new ContextException("Cyclic dependencies of: " + path + " in: " + getName());
+    }
+
+    private static void cancel(List<Future<String>> futures) {
+        for (Future<String> f : futures)
+            f.cancel(false);
+    }
+
+    // evaluates an entry with its dependencies already evaluated
+    private class DependencyTask implements Callable<String> {
+        private final String path;
+        private final boolean withDependencies;
+        private final Arg[] args;
+        private final ClassLoader loader;
+
+        DependencyTask(String path, boolean withDependencies, Arg[] args) {
+            this.path = path;
+            this.withDependencies = withDependencies;
+            this.args = args;
+            loader = Thread.currentThread().getContextClassLoader();
+        }
+
+        @Override
+        public String call() throws Exception {
+            Thread thread = Thread.currentThread();
+            ClassLoader current = thread.getContextClassLoader();
+            thread.setContextClassLoader(loader);
+            evaluating.set(true);
+            try {
+                getSrvValue(path, withDependencies, args);
+            } finally {
+                evaluating.set(false);
+                thread.setContextClassLoader(current);
+            }
+            return path;
+        }
+    }
+
+    // writes of concurrently evaluated entries are applied one at a time
+
+    @Override
+    public synchronized Object putValue(String path, Object value) throws ContextException {
+        return super.putValue(path, value);
+    }
+
+    @Override
+    public synchronized Object putInoutValue(String path, Object value) throws ContextException {
+        return super.putInoutValue(path, value);
+    }
+
+    @Override
+    public synchronized Context appendInout(Context context) throws ContextException {
+        return super.appendInout(context);
+    }
+
+    private static ExecutorService getEvaluator() {
+        if (evaluator == null) {
+            synchronized (SrvModel.class) {
+                if (evaluator == null) {
+                    int threads = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+                    String size = Sorcer.getProperty(EVALUATION_THREADS);
+                    if (size != null) {
+                        try {
+                            threads = Integer.parseInt(size.trim());
+                        } catch (NumberFormatException e) {
+                            logger.warn("Could not evaluate property: {}: {}, using default: {}",
+                                    EVALUATION_THREADS, size, threads);
+                        }
+                    }
+                    ConfigurableThreadFactory tf = new ConfigurableThreadFactory();
+                    tf.setDaemon(true);
+                    tf.setNameFormat("SrvModel-eval-%2$s");
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                            60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), tf);
+                    executor.allowCoreThreadTimeOut(true);
+                    evaluator = executor;
+                }
+            }
+        }
+        return evaluator;
+    }
+
     /**
      * Appends a signature <code>signature</code> for this model.
      **/
@@ -0,0 +1,156 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.dispatch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.core.provider.Provider;
+import sorcer.service.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static sorcer.service.Exec.*;
+
+/**
+ * Dispatches component mograms of a job in waves derived from the DAG built by
+ * {@link ExertionSorter}. A component is released as soon as all siblings it
+ * depends on are done, so the job takes its critical path time rather than
+ * the sum of all component execution times.
+ */
+public class CatalogDagDispatcher extends CatalogParallelDispatcher {
+    private final Logger logger = LoggerFactory.getLogger(CatalogDagDispatcher.class);
+
+    private final Map<Mogram, Set<Mogram>> dependencies;
+
+    public CatalogDagDispatcher(Job job,
+                                Map<Mogram, Set<Mogram>> dependencies,
+                                Set<Context> sharedContexts,
+                                boolean isSpawned,
+                                Provider provider,
+                                ProvisionManager provisionManager) {
+        super(job, sharedContexts, isSpawned, provider, provisionManager);
+        this.dependencies = dependencies;
+    }
+
+    @Override
+    public void doExec(Arg... args) throws ExertionException,
+            SignatureException {
+        // remaining parents and dependents of every component to dispatch
+        Map<Mogram, Set<Mogram>> waiting = new HashMap<Mogram, Set<Mogram>>();
+        Map<Mogram, List<Mogram>> dependents = new HashMap<Mogram, List<Mogram>>();
+        for (Mogram mogram : inputXrts) {
+            if (mogram instanceof Exertion) {
+                waiting.put(mogram, new HashSet<Mogram>());
+                dependents.put(mogram, new ArrayList<Mogram>());
+            }
+        }
+        for (Mogram mogram : waiting.keySet()) {
+            Set<Mogram> deps = dependencies.get(mogram);
+            if (deps == null)
+                continue;
+            for (Mogram dep : deps) {
+                // completed or skipped components are not waited for
+                if (waiting.containsKey(dep)) {
+                    waiting.get(mogram).add(dep);
+                    dependents.get(dep).add(mogram);
+                }
+            }
+        }
+
+        CompletionService<Exertion> completion = new ExecutorCompletionService<Exertion>(executor);
+        Map<Future<Exertion>, Mogram> running = new HashMap<Future<Exertion>, Mogram>();
+        for (Mogram mogram : inputXrts) {
+            if (waiting.containsKey(mogram) && waiting.get(mogram).isEmpty())
+                running.put(completion.submit(new ExecExertion((Exertion) mogram)), mogram);
+        }
+        int pending = waiting.size() - running.size();
+        logger.debug("Job: {} released {} components, {} waiting on dependencies",
+                xrt.getName(), running.size(), pending);
+
+        boolean isFailed = false;
+        boolean isSuspended = false;
+        while (!running.isEmpty()) {
+            Future<Exertion> result;
+            Mogram done;
+            try {
+                result = completion.take();
+                done = running.remove(result);
+                ServiceExertion se = (ServiceExertion) result.get();
+                se.stopExecTime();
+                if (se.getStatus() == FAILED)
+                    isFailed = true;
+                else if (se.getStatus() == SUSPENDED)
+                    isSuspended = true;
+            } catch (InterruptedException e) {
+                logger.warn("Interrupted while waiting for components of {}", xrt.getName(), e);
+                isFailed = true;
+                break;
+            } catch (ExecutionException e) {
+                logger.warn("Error while executing component of {}", xrt.getName(), e.getCause());
+                isFailed = true;
+                continue;
+            }
+            // do not release new components once the job cannot complete
+            if (isFailed || isSuspended)
+                continue;
+            for (Mogram next : dependents.get(done)) {
+                Set<Mogram> parents = waiting.get(next);
+                parents.remove(done);
+                if (parents.isEmpty()) {
+                    running.put(completion.submit(new ExecExertion((Exertion) next)), next);
+                    pending--;
+                }
+            }
+        }
+        if (!isFailed && !isSuspended && pending > 0) {
+            logger.warn("Job: {} has {} components with unresolved dependencies", xrt.getName(), pending);
+            isFailed = true;
+        }
+
+        if (isFailed) {
+            xrt.setStatus(FAILED);
+            state = FAILED;
+            ExertionException fe = new ExertionException(this.getClass().getName()
+                    + " failed job", xrt);
+            xrt.reportException(fe);
+            dispatchers.remove(xrt.getId());
+            throw fe;
+        } else if (isSuspended) {
+            xrt.setStatus(SUSPENDED);
+            state = SUSPENDED;
+            ExertionException fe = new ExertionException(this.getClass().getName()
+                    + " suspended job", xrt);
+            xrt.reportException(fe);
+            dispatchers.remove(xrt.getId());
+            throw fe;
+        }
+
+        if (masterXrt != null) {
+            // finally exert Master Exertion
+            masterXrt = (ServiceExertion) execExertion(masterXrt);
+            masterXrt.stopExecTime();
+            if (masterXrt.getStatus() <= FAILED)
+                xrt.setStatus(FAILED);
+            else
+                xrt.setStatus(DONE);
+        }
+        xrt.setStatus(DONE);
+        dispatchers.remove(xrt.getId());
+        state = DONE;
+    }
+}
@@ -86,6 +86,53 @@ public class ExertionSorter {
     }
 
 
+    /**
+     * Return, for each direct component of the given job, the set of sibling
+     * components it depends on through pipes or context mappings. Dependencies
+     * of mograms nested in a component job are attributed to that component.
+     *
+     * @param job
+     * @return dependencies of components in the order of the job
+     */
+    public Map<Mogram, Set<Mogram>> getDependencies(Exertion job) {
+        Map<String, Mogram> owners = new HashMap<String, Mogram>();
+        Map<Mogram, Set<Mogram>> dependencies = new LinkedHashMap<Mogram, Set<Mogram>>();
+        for (Mogram xrt : job.getMograms()) {
+            owners.put(xrt.getId().toString(), xrt);
+            if (xrt instanceof Job) {
+                for (String subId : addSubExertions(((Job) xrt).getMograms()))
+                    owners.put(subId, xrt);
+            }
+            dependencies.put(xrt, new HashSet<Mogram>());
+        }
+        for (Map.Entry<String, Mogram> entry : owners.entrySet()) {
+            if (dag.getVertex(entry.getKey()) == null)
+                continue;
+            for (String depId : dag.getChildLabels(entry.getKey())) {
+                Mogram owner = owners.get(depId);
+                if (owner != null && owner != entry.getValue()) {
+                    dependencies.get(entry.getValue()).add(owner);
+                    logger.debug("Dependency: " + entry.getValue().getName() + " on: " + owner.getName());
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * Check if any component of the given job depends on one of its siblings
+     *
+     * @param job
+     * @return true if at least one dependency between components exists
+     */
+    public boolean hasDependencies(Exertion job) {
+        for (Set<Mogram> deps : getDependencies(job).values()) {
+            if (!deps.isEmpty())
+                return true;
+        }
+        return false;
+    }
+
     /**
      * Determine the Flow (PAR or SEQ) for mograms that have the Flow setValue to AUTO
      *
@@ -132,6 +179,13 @@ public class ExertionSorter {
         if (topXrt.getFlowType()!=null && topXrt.getFlowType().equals(Strategy.Flow.AUTO)) {
             ((ServiceExertion) topXrt).setFlowType(setFlow(topXrt, sortedSubset));
             logger.info("FLOW for exertion: " + topXrt.getName() + " set to: " + topXrt.getFlowType());
+            // dependent components of an AUTO job can still be released by waves
+            if (topXrt.getFlowType().equals(Strategy.Flow.SEQ))
+                ((ServiceExertion) topXrt).getControlContext().setDagFlow(true);
+        } else if (topXrt.getFlowType()!=null && topXrt.getFlowType().equals(Strategy.Flow.PAR)
+                && hasDependencies(topXrt)) {
+            ((ServiceExertion) topXrt).getControlContext().setDagFlow(true);
+            logger.info("PAR exertion: " + topXrt.getName() + " has dependencies, DAG flow enabled");
         }
         List<String> exertionsBefore = new ArrayList<String>();
         for (Mogram xrt : topXrt.getMograms())
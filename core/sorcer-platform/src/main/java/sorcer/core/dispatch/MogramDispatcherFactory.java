@@ -80,8 +80,11 @@ public class MogramDispatcherFactory implements DispatcherFactory {
         }
 
         try {
-            if(mogram instanceof Job)
-                mogram = new ExertionSorter((Job)mogram).getSortedJob();
+            ExertionSorter sorter = null;
+            if(mogram instanceof Job) {
+                sorter = new ExertionSorter((Job)mogram);
+                mogram = sorter.getSortedJob();
+            }
 
             if ( mogram instanceof Block && Mograms.isCatalogBlock((Exertion)mogram)) {
                 logger.info("Running Catalog Block Dispatcher...");
@@ -109,6 +112,14 @@ public class MogramDispatcherFactory implements DispatcherFactory {
                                                              loki,
                                                              provider,
                                                              provisionManager);
+                } else if (Mograms.isCatalogDag(job)) {
+                    logger.info("Running Catalog DAG Dispatcher...");
+                    dispatcher = new CatalogDagDispatcher(job,
+                                                          sorter.getDependencies(job),
+                                                          sharedContexts,
+                                                          isSpawned,
+                                                          provider,
+                                                          provisionManager);
                 } else if (Mograms.isCatalogParallel(job)) {
                     logger.info("Running Catalog Parallel Dispatcher...");
                     dispatcher = new CatalogParallelDispatcher(job,
@@ -21,6 +21,7 @@ package sorcer.core.dispatch;
 import net.jini.core.entry.Entry;
 import net.jini.core.entry.UnusableEntryException;
 import net.jini.core.lease.Lease;
+import net.jini.core.transaction.Transaction;
 import net.jini.entry.UnusableEntriesException;
 import net.jini.id.Uuid;
 import net.jini.space.JavaSpace05;
@@ -34,10 +35,13 @@ import sorcer.core.monitor.MonitorUtil;
 import sorcer.core.monitor.MonitoringSession;
 import sorcer.core.provider.Provider;
 import sorcer.core.provider.SpaceTaker;
+import sorcer.river.TX;
 import sorcer.service.*;
 import sorcer.service.space.SpaceAccessor;
+import sorcer.util.SorcerEnv;
 
 import java.rmi.RemoteException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -47,9 +51,24 @@ import static sorcer.service.Exec.*;
 import static sorcer.util.StringUtils.tName;
 
 public class SpaceParallelDispatcher extends ExertDispatcher {
+    /**
+     * Maximum number of envelops written to the space in one call, a value
+     * of 1 (default) writes each envelop separately.
+     */
+    public static final String WRITE_BATCH_SIZE = "space.dispatch.batch.size";
+    /**
+     * Maximum time in milliseconds the first prepared envelop waits for
+     * others to be added to its batch before the batch is written. With 0
+     * (default) a batch is written when full or when all envelops are
+     * prepared.
+     */
+    public static final String WRITE_BATCH_LINGER = "space.dispatch.batch.linger";
     protected JavaSpace05 space;
     private int doneExertionIndex = 0;
     protected LokiMemberUtil loki;
+    protected int writeBatchSize = 1;
+    protected long writeBatchLinger = 0;
+    private static final long WRITE_TRANSACTION_LEASE = 60 * 1000;
     private final Logger logger = LoggerFactory.getLogger(SpaceParallelDispatcher.class);
 
     public SpaceParallelDispatcher(Exertion exertion,
@@ -70,8 +89,39 @@ public class SpaceParallelDispatcher extends ExertDispatcher {
         disatchGroup.setMaxPriority(Thread.NORM_PRIORITY - 1);
 
         this.loki = loki;
+        writeBatchSize = getIntProperty(WRITE_BATCH_SIZE, writeBatchSize);
+        writeBatchLinger = getIntProperty(WRITE_BATCH_LINGER, (int) writeBatchLinger);
 	}
 
+    private int getIntProperty(String property, int defaultValue) {
+        String value = SorcerEnv.getProperty(property);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Could not evaluate property: " + property + ": " + value
+                        + " using default: " + defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    public void setWriteBatchSize(int writeBatchSize) {
+        this.writeBatchSize = writeBatchSize;
+    }
+
+    public long getWriteBatchLinger() {
+        return writeBatchLinger;
+    }
+
+    public void setWriteBatchLinger(long writeBatchLinger) {
+        this.writeBatchLinger = writeBatchLinger;
+    }
+
     public int getDoneExertionIndex() {
         return doneExertionIndex;
     }
@@ -90,27 +140,133 @@ public class SpaceParallelDispatcher extends ExertDispatcher {
     public void doExec(Arg... args) throws SignatureException, ExertionException {
         new Thread(disatchGroup, new CollectResultThread(), tName("collect-" + xrt.getName())).start();
 
+        if (writeBatchSize > 1) {
+            doExecBatch();
+            return;
+        }
         for (Mogram mogram : inputXrts) {
-            logger.info("Calling monSession.init from SpaceParallelDispatcher for: {}", mogram.getName());
-            MonitoringSession monSession = MonitorUtil.getMonitoringSession((Exertion)mogram);
-            if (xrt.isMonitorable() && monSession!=null) {
+            initMonitoring((Exertion) mogram);
+            dispatchExertion((Exertion)mogram);
+            try {
+                afterExec((Exertion)mogram);
+            } catch (ContextException ce) {
+                logger.warn("Problem sending state to monitor");
+            }
+        }
+	}
+
+    /**
+     * Writes envelops of input mograms in batches of up to writeBatchSize
+     * entries. Mograms are prepared by a separate thread; a batch is written
+     * when full, when its first envelop waited writeBatchLinger for others,
+     * or when all mograms are prepared.
+     */
+    protected void doExecBatch() throws SignatureException, ExertionException {
+        final WriteBatcher<Exertion> batcher = new WriteBatcher<Exertion>(writeBatchSize, writeBatchLinger);
+        Thread preparer = new Thread(disatchGroup, new Runnable() {
+            @Override
+            public void run() {
                 try {
-                    if (monSession.getState()==State.INITIAL.ordinal()) {
-                        logger.info("initializing monitoring from SpaceParallelDispatcher for{}", mogram.getName());
-                        monSession.init(Lease.FOREVER, MogramDispatcherFactory.DEFAULT_TIMEOUT_PERIOD);
+                    for (Mogram mogram : inputXrts) {
+                        initMonitoring((Exertion) mogram);
+                        batcher.add((Exertion) mogram);
                     }
-                } catch (MonitorException | RemoteException e) {
-                    logger.error("Problem starting monitoring for {}", xrt.getName(), e);
+                } finally {
+                    batcher.close();
                 }
             }
-            dispatchExertion((Exertion)mogram);
+        }, tName("prepare-" + xrt.getName()));
+        preparer.start();
+        try {
+            List<Exertion> batch;
+            while (!(batch = batcher.next()).isEmpty())
+                dispatchExertions(batch);
+        } catch (InterruptedException e) {
+            preparer.interrupt();
+            xrt.setStatus(FAILED);
+            throw new ExertionException("Interrupted while writing exertion envelops", e);
+        }
+    }
+
+    protected void initMonitoring(Exertion exertion) {
+        logger.info("Calling monSession.init from SpaceParallelDispatcher for: {}", exertion.getName());
+        MonitoringSession monSession = MonitorUtil.getMonitoringSession(exertion);
+        if (xrt.isMonitorable() && monSession!=null) {
             try {
-                afterExec((Exertion)mogram);
+                if (monSession.getState()==State.INITIAL.ordinal()) {
+                    logger.info("initializing monitoring from SpaceParallelDispatcher for{}", exertion.getName());
+                    monSession.init(Lease.FOREVER, MogramDispatcherFactory.DEFAULT_TIMEOUT_PERIOD);
+                }
+            } catch (MonitorException | RemoteException e) {
+                logger.error("Problem starting monitoring for {}", xrt.getName(), e);
+            }
+        }
+    }
+
+    protected void dispatchExertions(List<Exertion> exertions) throws ExertionException, SignatureException {
+        logger.debug("dispatching batch of {} mograms", exertions.size());
+        List<Exertion> failed;
+        // within a transaction a failed write leaves nothing in the space and can be retried
+        Transaction.Created txn = TX.createTransaction(WRITE_TRANSACTION_LEASE);
+        try {
+            failed = writeEnvelops(exertions, txn);
+        } catch (RemoteException re) {
+            if (txn == null) {
+                // some envelops may have been written, writing them again would execute them twice
+                xrt.setStatus(FAILED);
+                throw new ExertionException("Writing exertion envelops into exertion space failed!", re);
+            }
+            logger.warn("Space not reachable....resetting space", re);
+            abort(txn);
+            space = SpaceAccessor.getSpace();
+            if (space == null) {
+                xrt.setStatus(FAILED);
+                throw new ExertionException("NO exertion space available!");
+            }
+            txn = TX.createTransaction(WRITE_TRANSACTION_LEASE);
+            try {
+                failed = writeEnvelops(exertions, txn);
+            } catch (RemoteException e) {
+                abort(txn);
+                xrt.setStatus(FAILED);
+                throw new ExertionException("Writing exertion envelops into exertion space failed!", e);
+            } catch (ExertionException | SignatureException e) {
+                abort(txn);
+                throw e;
+            }
+        } catch (ExertionException | SignatureException e) {
+            abort(txn);
+            throw e;
+        }
+        if (txn != null) {
+            try {
+                TX.commitTransaction(txn);
+            } catch (Exception e) {
+                xrt.setStatus(FAILED);
+                throw new ExertionException("Committing exertion envelops into exertion space failed!", e);
+            }
+        }
+        if (failed.size() < exertions.size())
+            xrt.setStatus(INSPACE);
+        for (Exertion exertion : exertions) {
+            try {
+                afterExec(exertion);
             } catch (ContextException ce) {
                 logger.warn("Problem sending state to monitor");
             }
         }
-	}
+    }
+
+    private void abort(Transaction.Created txn) {
+        if (txn == null)
+            return;
+        try {
+            TX.abortTransaction(txn);
+        } catch (Exception e) {
+            // the transaction lease expires and discards its writes anyway
+            logger.debug("Could not abort transaction {}", txn, e);
+        }
+    }
 
     protected void dispatchExertion(Exertion exertion) throws ExertionException, SignatureException {
         logger.debug("exertion #{}: exertion: {}", exertion.getIndex(), exertion);
@@ -299,6 +455,59 @@ public class SpaceParallelDispatcher extends ExertDispatcher {
         }
     }
 
+    /**
+     * Writes envelops of all given mograms with a single space call. If the
+     * bulk write is rejected, each envelop is written separately so that
+     * failures are reported for the affected mograms only.
+     *
+     * @param txn transaction to write under, or null
+     * @return mograms whose envelops could not be written
+     */
+    protected List<Exertion> writeEnvelops(List<Exertion> exertions, Transaction.Created txn) throws
+            ExertionException, SignatureException, RemoteException {
+        space = SpaceAccessor.getSpace();
+        if (space == null) {
+            throw new ExertionException("NO exertion space available!");
+        }
+        List<Entry> envelops = new ArrayList<Entry>(exertions.size());
+        List<Long> leases = new ArrayList<Long>(exertions.size());
+        for (Exertion exertion : exertions) {
+            ((ServiceExertion) exertion).setSubject(subject);
+            preExecExertion(exertion);
+            ExertionEnvelop ee = ExertionEnvelop.getTemplate(exertion);
+            ee.state = INITIAL;
+            envelops.add(ee);
+            leases.add(Lease.FOREVER);
+        }
+        Transaction transaction = txn == null ? null : txn.transaction;
+        List<Exertion> failed = new ArrayList<Exertion>();
+        try {
+            space.write(envelops, transaction, leases);
+            logger.debug("written {} envelops to: {}", envelops.size(), space);
+            return failed;
+        } catch (RemoteException re) {
+            throw re;
+        } catch (Exception e) {
+            logger.warn("Bulk write of {} envelops failed, writing separately", envelops.size(), e);
+        }
+        for (int i = 0; i < envelops.size(); i++) {
+            try {
+                space.write(envelops.get(i), transaction, Lease.FOREVER);
+            } catch (RemoteException e) {
+                throw e;
+            } catch (Exception e) {
+                Exertion exertion = exertions.get(i);
+                logger.warn("writeEnvelop failed for: {}", exertion.getName(), e);
+                exertion.setStatus(FAILED);
+                exertion.reportException(e);
+                failed.add(exertion);
+            }
+        }
+        if (!failed.isEmpty())
+            state = Exec.FAILED;
+        return failed;
+    }
+
     protected ExertionEnvelop takeEnvelop(Entry template)
             throws ExertionException {
         space = SpaceAccessor.getSpace();
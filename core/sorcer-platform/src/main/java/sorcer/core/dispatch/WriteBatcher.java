@@ -0,0 +1,83 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.dispatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups items prepared by one thread into batches written by another. A batch is complete when it holds
+ * <code>size</code> items, when <code>linger</code> milliseconds passed since its first item was taken, or when
+ * the producer is closed. With a linger of 0 batches are only cut by size.
+ */
+class WriteBatcher<T> {
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<Object>();
+    private final int size;
+    private final long linger;
+    private boolean closed;
+
+    WriteBatcher(int size, long linger) {
+        if (size < 1)
+            throw new IllegalArgumentException("Batch size must be positive: " + size);
+        this.size = size;
+        this.linger = linger;
+    }
+
+    void add(T item) {
+        queue.add(item);
+    }
+
+    /**
+     * Signal that no more items will be added
+     */
+    void close() {
+        queue.add(END);
+    }
+
+    /**
+     * Wait for the next batch.
+     *
+     * @return the next batch, or an empty list once all items were returned
+     */
+    @SuppressWarnings("unchecked")
+    List<T> next() throws InterruptedException {
+        List<T> batch = new ArrayList<T>(size);
+        if (closed)
+            return batch;
+        Object item = queue.take();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(linger);
+        while (item != END) {
+            batch.add((T) item);
+            if (batch.size() >= size)
+                return batch;
+            if (linger > 0) {
+                item = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (item == null)
+                    return batch;
+            } else {
+                item = queue.take();
+            }
+        }
+        closed = true;
+        return batch;
+    }
+}
@@ -53,6 +53,25 @@ public class Mograms implements SorcerConstants {
 				&& Access.PUSH.equals(cc.get(cc.EXERTION_ACCESS));
 	}
 
+	public static boolean isCatalogDag(Job job) {
+		ControlContext cc = job.getControlContext();
+		return cc.isDagFlow()
+				&& Access.PUSH.equals(cc.get(cc.EXERTION_ACCESS))
+				&& !hasContinuousTasks(job);
+	}
+
+	/**
+	 * Continuous tasks take the context of the task executed before them, so
+	 * a job with such tasks has to be executed in sequence.
+	 */
+	public static boolean hasContinuousTasks(Job job) {
+		for (Mogram mogram : job.getMograms()) {
+			if (mogram instanceof Task && ((Task) mogram).isContinous())
+				return true;
+		}
+		return false;
+	}
+
 	public static boolean isCatalogBlock(Exertion exertion) {
 		ControlContext cc = (ControlContext)exertion.getControlContext();
 		return exertion instanceof Block
@@ -17,7 +17,7 @@
 
 package sorcer.core.invoker;
 
-import groovy.lang.GroovyShell;
+import groovy.lang.Binding;
 import sorcer.core.context.ServiceContext;
 import sorcer.core.context.model.ent.Proc;
 import sorcer.service.*;
@@ -43,16 +43,14 @@ public class GroovyInvoker<T> extends ServiceInvoker<T> {
 
 	private static StringBuilder staticImports;
 
+	// compiled scripts shared by all Groovy invokers
+	private static final ScriptCache scripts = new ScriptCache();
+
 	/**
 	 * expression to be evaluated
 	 */
 	protected String expression;
 
-	/**
-	 * The evaluator
-	 */
-	transient private GroovyShell shell;
-
 	private File scriptFile = null;
 
 	public GroovyInvoker() {
@@ -98,7 +96,7 @@ public class GroovyInvoker<T> extends ServiceInvoker<T> {
 	public T getValue(Arg... entries) throws InvocationException,
 			RemoteException {
 		Object result = null;
-		shell = new GroovyShell(Thread.currentThread().getContextClassLoader());
+		Binding binding = new Binding();
 		if (entries != null) {
 			for (Arg a : entries)
 				try {
@@ -110,26 +108,20 @@ public class GroovyInvoker<T> extends ServiceInvoker<T> {
 				}
 		}
 		try {
-			initBindings();
+			initBindings(binding);
 		} catch (ContextException ex) {
 			throw new InvocationException(ex);
 		}
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		if (loader == null)
+			loader = GroovyInvoker.class.getClassLoader();
 		try {
-			synchronized (shell) {
-				if (scriptFile != null) {
-					try {
-						result = shell.evaluate(scriptFile);
-					} catch (IOException e) {
-						throw new InvocationException(e);
-					}
-				} else {
-					StringBuilder sb = new StringBuilder(staticImports.toString());
-					sb.append(expression);
-					logger.debug(sb.toString());
-					synchronized (shell) {
-						result = shell.evaluate(sb.toString());
-					}
-				}
+			if (scriptFile != null) {
+				result = scripts.createScript(scriptFile, loader, binding).run();
+			} else {
+				String script = staticImports + expression;
+				logger.debug(script);
+				result = scripts.createScript(script, loader, binding).run();
 			}
 //			TODO testing
 //			printedEntries(args);
@@ -157,7 +149,7 @@ public class GroovyInvoker<T> extends ServiceInvoker<T> {
 		}
 	}
 
-	private void initBindings() throws RemoteException, ContextException {
+	private void initBindings(Binding binding) throws RemoteException, ContextException {
 //		logger.info("invokeContext keys: " + invokeContext.keySet() + "\nfor: " + expression);
 		if (invokeContext != null) {
 			if (args != null && args.size() > 0) {
@@ -185,7 +177,7 @@ public class GroovyInvoker<T> extends ServiceInvoker<T> {
 			if (val instanceof Evaluation) {
 				val = ((Evaluation) val).getValue();
 			}
-			shell.setVariable(key, val);
+			binding.setVariable(key, val);
 		}
 	}
 
@@ -216,8 +208,15 @@ public class GroovyInvoker<T> extends ServiceInvoker<T> {
 		return sb;
 	}
 
+	/**
+	 * Returns the cache of scripts compiled by Groovy invokers.
+	 */
+	public static ScriptCache getScriptCache() {
+		return scripts;
+	}
+
 	public void clean() {
-		shell = null;
+		// scripts are compiled once and bound per evaluation
 	}
 
 	@Override
@@ -0,0 +1,247 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.invoker;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import groovy.lang.Binding;
+import groovy.lang.GroovyCodeSource;
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.Script;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.util.Sorcer;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of compiled Groovy script classes. Scripts are keyed by
+ * their text, or by the path and modification time of their file, and by the
+ * class loader they are compiled with; each evaluation creates a new script
+ * instance with its own {@link Binding}, so a repeated evaluation costs only
+ * the script execution. The number of scripts kept per class loader is set
+ * with the <code>sorcer.script.cache.size</code> property.
+ * <p>
+ * Every script is compiled with its own {@link GroovyClassLoader}, so the
+ * class and source caches of that loader hold only the script and are
+ * released with it when the script is evicted.
+ */
+public class ScriptCache {
+	private final static Logger logger = LoggerFactory.getLogger(ScriptCache.class);
+
+	public static final String SCRIPT_CACHE_SIZE = "sorcer.script.cache.size";
+
+	public static final int DEFAULT_SCRIPT_CACHE_SIZE = 256;
+
+	// class loaders with compiled scripts, dropped when not used for a while
+	private final Cache<ClassLoader, Scripts> loaders = CacheBuilder.newBuilder()
+			.weakKeys()
+			.maximumSize(64)
+			.expireAfterAccess(30, TimeUnit.MINUTES)
+			.removalListener(new RemovalListener<ClassLoader, Scripts>() {
+				public void onRemoval(RemovalNotification<ClassLoader, Scripts> notification) {
+					Scripts scripts = notification.getValue();
+					if (scripts != null)
+						scripts.classes.invalidateAll();
+				}
+			})
+			.build();
+
+	private final int size;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong compilations = new AtomicLong();
+
+	private final AtomicLong compileTime = new AtomicLong();
+
+	private final AtomicInteger scriptCount = new AtomicInteger();
+
+	public ScriptCache() {
+		this(getCacheSize());
+	}
+
+	public ScriptCache(int size) {
+		this.size = size;
+	}
+
+	private static int getCacheSize() {
+		String size = Sorcer.getProperty(SCRIPT_CACHE_SIZE);
+		if (size != null) {
+			try {
+				return Integer.parseInt(size.trim());
+			} catch (NumberFormatException e) {
+				logger.warn("Could not evaluate property: {}: {}, using default: {}",
+						SCRIPT_CACHE_SIZE, size, DEFAULT_SCRIPT_CACHE_SIZE);
+			}
+		}
+		return DEFAULT_SCRIPT_CACHE_SIZE;
+	}
+
+	/**
+	 * Returns a new instance of the script compiled from the text.
+	 */
+	public Script createScript(final String text, final ClassLoader loader, Binding binding) throws Exception {
+		Scripts scripts = getScripts(loader);
+		Class<?> scriptClass = getScriptClass(scripts, text, new Callable<Compiled>() {
+			public Compiled call() {
+				GroovyClassLoader scriptLoader = createLoader(loader);
+				return new Compiled(scriptLoader.parseClass(text, "Script" + scriptCount.incrementAndGet() + ".groovy"),
+						scriptLoader);
+			}
+		});
+		return InvokerHelper.createScript(scriptClass, binding);
+	}
+
+	/**
+	 * Returns a new instance of the script compiled from the file. The file
+	 * is compiled again when it is modified.
+	 */
+	public Script createScript(final File file, final ClassLoader loader, Binding binding) throws Exception {
+		Scripts scripts = getScripts(loader);
+		String key = file.getCanonicalPath() + '@' + file.lastModified();
+		Class<?> scriptClass = getScriptClass(scripts, key, new Callable<Compiled>() {
+			public Compiled call() throws IOException {
+				GroovyClassLoader scriptLoader = createLoader(loader);
+				// not kept in the source cache of the loader, a modified file has a new key
+				return new Compiled(scriptLoader.parseClass(new GroovyCodeSource(file), false), scriptLoader);
+			}
+		});
+		return InvokerHelper.createScript(scriptClass, binding);
+	}
+
+	private Class<?> getScriptClass(Scripts scripts, String key, final Callable<Compiled> compiler)
+			throws Exception {
+		Compiled script = scripts.classes.getIfPresent(key);
+		if (script != null) {
+			hits.incrementAndGet();
+			return script.scriptClass;
+		}
+		try {
+			return scripts.classes.get(key, new Callable<Compiled>() {
+				public Compiled call() throws Exception {
+					long start = System.nanoTime();
+					Compiled compiled = compiler.call();
+					compileTime.addAndGet(System.nanoTime() - start);
+					compilations.incrementAndGet();
+					return compiled;
+				}
+			}).scriptClass;
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			// compilation errors are reported as they are
+			throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		}
+	}
+
+	private Scripts getScripts(ClassLoader loader) throws ExecutionException {
+		return loaders.get(loader, new Callable<Scripts>() {
+			public Scripts call() {
+				return new Scripts(size);
+			}
+		});
+	}
+
+	private static GroovyClassLoader createLoader(final ClassLoader parent) {
+		return AccessController.doPrivileged(new PrivilegedAction<GroovyClassLoader>() {
+			public GroovyClassLoader run() {
+				return new GroovyClassLoader(parent, new CompilerConfiguration());
+			}
+		});
+	}
+
+	/**
+	 * Returns the number of evaluations that used an already compiled script.
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of compiled scripts.
+	 */
+	public long getCompileCount() {
+		return compilations.get();
+	}
+
+	/**
+	 * Returns the total time spent compiling scripts in milliseconds.
+	 */
+	public long getCompileTime() {
+		return TimeUnit.NANOSECONDS.toMillis(compileTime.get());
+	}
+
+	public long size() {
+		long count = 0;
+		for (Scripts scripts : loaders.asMap().values())
+			count += scripts.classes.size();
+		return count;
+	}
+
+	public void clear() {
+		loaders.invalidateAll();
+	}
+
+	@Override
+	public String toString() {
+		return "ScriptCache [size: " + size() + ", hits: " + hits + ", compiled: " + compilations
+				+ ", compile time: " + getCompileTime() + " ms]";
+	}
+
+	private static class Scripts {
+		final Cache<String, Compiled> classes;
+
+		Scripts(int size) {
+			this.classes = CacheBuilder.newBuilder()
+					.maximumSize(size)
+					.removalListener(new RemovalListener<String, Compiled>() {
+						public void onRemoval(RemovalNotification<String, Compiled> notification) {
+							Compiled script = notification.getValue();
+							// the loader only holds this script, and its meta class
+							// must not keep the class from being unloaded
+							if (script != null) {
+								script.loader.clearCache();
+								InvokerHelper.removeClass(script.scriptClass);
+							}
+						}
+					})
+					.build();
+		}
+	}
+
+	private static class Compiled {
+		final Class<?> scriptClass;
+		final GroovyClassLoader loader;
+
+		Compiled(Class<?> scriptClass, GroovyClassLoader loader) {
+			this.scriptClass = scriptClass;
+			this.loader = loader;
+		}
+	}
+}
@@ -35,20 +35,29 @@ import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 /**
+ * Registers with a {@link Monitor} and sends it status updates. Updates are
+ * coalesced in a bounded channel and sent in batches every flush interval,
+ * set with the <code>monitor.flush.interval</code> property in milliseconds,
+ * the capacity of the channel is set with the <code>monitor.update.capacity</code>
+ * property.
+ *
  * @author Dennis Reedy
  */
 public class MonitorAgent {
     private static final LookupDiscoveryManager discoveryManager;
     private static final Logger logger = LoggerFactory.getLogger(MonitorAgent.class);
-    private static boolean monitoringEnabled = Boolean.parseBoolean(System.getProperty("monitoring.enabled", "true"));
+    private static volatile boolean monitoringEnabled = Boolean.parseBoolean(System.getProperty("monitoring.enabled", "true"));
+    private static final long flushInterval = Long.getLong("monitor.flush.interval", 1000);
     private static MonitorListener monitorListener;
-    private final static ExecutorService executor = Executors.newSingleThreadScheduledExecutor();
-    private final static BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+    private final static ScheduledExecutorService executor = Executors.newScheduledThreadPool(2);
+    private final static BlockingQueue<RegistrationRequest> requests = new LinkedBlockingQueue<>();
+    private final static UpdateChannel updates = new UpdateChannel(Integer.getInteger("monitor.update.capacity", 10000));
     private final static CountDownLatch discoveryLatch = new CountDownLatch(1);
-    private final List<Request> pendingUpdateRequests = new ArrayList<>();
     static {
         if(monitoringEnabled) {
             try {
@@ -67,6 +76,7 @@ public class MonitorAgent {
                 logger.debug("Discovery using groups: {}, locators: {}",
                              discoveryManager.getGroups(), discoveryManager.getLocators());
                 executor.submit(new MonitorNotificationHandler());
+                executor.scheduleWithFixedDelay(new UpdateFlusher(), flushInterval, flushInterval, TimeUnit.MILLISECONDS);
             } catch (IOException e) {
                 throw new RuntimeException("Could not create instance of DiscoveryManagement", e);
             }
@@ -75,7 +85,7 @@ public class MonitorAgent {
         }
     }
 
-    private MonitorRegistration monitorRegistration;
+    private volatile MonitorRegistration monitorRegistration;
     private LeaseRenewalManager leaseManager;
 
     public void register(String identifier, String owner) {
@@ -87,10 +97,32 @@ public class MonitorAgent {
             monitorRegistration = new MonitorRegistration(null, UuidFactory.generate(), identifier, owner, null);
             return;
         }
-        requests.add(new Request(new RegistrationRequest()
-                                     .identifier(identifier)
-                                     .owner(owner)
-                                     .duration(duration).listener(new MonitorRegistrationNotifier())));
+        requests.add(new RegistrationRequest()
+                         .identifier(identifier)
+                         .owner(owner)
+                         .duration(duration).listener(new MonitorRegistrationNotifier()));
+    }
+
+    /**
+     * Returns true if updates are sent to a {@link Monitor}, callers may skip
+     * building {@link MethodAnalytics} otherwise.
+     */
+    public static boolean isMonitoringEnabled() {
+        return monitoringEnabled;
+    }
+
+    /**
+     * Returns the number of updates dropped because the update channel was full.
+     */
+    public static long getDroppedUpdates() {
+        return updates.getDropped();
+    }
+
+    /**
+     * Returns the number of updates replaced by a later update of the same method and status.
+     */
+    public static long getCoalescedUpdates() {
+        return updates.getCoalesced();
     }
 
     public MonitorRegistration getMonitorRegistration() {
@@ -125,9 +157,10 @@ public class MonitorAgent {
         if(!monitoringEnabled) {
             return;
         }
-        Request request = new Request(new UpdateRequest(copyRegistration()).status(status).analytics(analytics));
-        if(monitorRegistration==null) {
-            pendingUpdateRequests.add(request);
+        if(!updates.offer(this, status, analytics)) {
+            if (logger.isTraceEnabled())
+                logger.trace("DROPPED: {} {}", analytics, status);
+        } else if(monitorRegistration==null) {
             if(analytics!=null) {
                 if (logger.isDebugEnabled())
                     logger.debug("No MonitorRegistration, queued update status for method {} {}",
@@ -136,19 +169,30 @@ public class MonitorAgent {
                 if (logger.isDebugEnabled())
                     logger.debug("No MonitorRegistration, queued update status {}", status);
             }
+        }
+    }
+
+    /**
+     * Queues an update of the method with analytics built when the update is
+     * sent, so updates coalesced before they are sent do not build analytics.
+     */
+    public void update(Monitor.Status status, String methodName, Supplier<MethodAnalytics> analytics) {
+        if(!monitoringEnabled) {
             return;
         }
-        if(requests.add(request)) {
+        if(!updates.offer(this, status, methodName, analytics)) {
             if (logger.isTraceEnabled())
-                logger.trace("ADDED: {} {}", monitorRegistration.getIdentifier(), status);
-        } else {
-            logger.warn("FAILED ADDING: {}", analytics);
+                logger.trace("DROPPED: {} {}", methodName, status);
+        } else if(monitorRegistration==null) {
+            if (logger.isDebugEnabled())
+                logger.debug("No MonitorRegistration, queued update status for method {} {}", methodName, status);
         }
     }
 
     public void terminate() {
         if(!monitoringEnabled)
             return;
+        updates.remove(this);
         if(monitorRegistration!=null) {
             try {
                 leaseManager.cancel(monitorRegistration.getLease());
@@ -166,14 +210,6 @@ public class MonitorAgent {
                 return;
             monitorRegistration = registration;
             leaseManager = new LeaseRenewalManager(monitorRegistration.getLease(), Lease.FOREVER, null);
-            for(Request r : pendingUpdateRequests) {
-                r.updateRequest.registration = copyRegistration();
-                if (logger.isDebugEnabled())
-                    logger.debug("Posted {} {} {}",
-                                 monitorRegistration.getIdentifier(), monitorRegistration.getOwner(), r.updateRequest.status);
-                requests.add(r);
-            }
-            pendingUpdateRequests.clear();
             if(logger.isDebugEnabled())
                 logger.debug("Successful registration to a Monitor for {}, {}",
                              monitorRegistration.getIdentifier(), monitorRegistration.getOwner());
@@ -183,7 +219,7 @@ public class MonitorAgent {
             monitorRegistration = new MonitorRegistration(null, UuidFactory.generate(), identifier, owner, null);
             monitoringEnabled = false;
             requests.clear();
-            pendingUpdateRequests.clear();
+            updates.clear();
             if(e!=null) {
                 logger.warn("Unable to obtain a MonitorRegistration for {}, {}, setting monitoringEnabled to false",
                             identifier, owner, e);
@@ -250,26 +286,6 @@ public class MonitorAgent {
         }
     }
 
-    private class UpdateRequest {
-        Monitor.Status status;
-        MethodAnalytics analytics;
-        MonitorRegistration registration;
-
-        UpdateRequest(MonitorRegistration registration) {
-            this.registration = registration;
-        }
-
-        UpdateRequest status(Monitor.Status status) {
-            this.status = status;
-            return this;
-        }
-
-        UpdateRequest analytics(MethodAnalytics analytics) {
-            this.analytics = analytics;
-            return this;
-        }
-    }
-
     private MonitorRegistration copyRegistration() {
         if(monitorRegistration==null)
             return null;
@@ -297,67 +313,30 @@ public class MonitorAgent {
         return monitor;
     }
 
-    private class Request {
-        UpdateRequest updateRequest;
-        RegistrationRequest registrationRequest;
-
-        Request(UpdateRequest updateRequest) {
-            this.updateRequest = updateRequest;
-        }
-
-        Request(RegistrationRequest registrationRequest) {
-            this.registrationRequest = registrationRequest;
-        }
-    }
-
     private static class MonitorNotificationHandler implements Runnable {
 
         @Override public void run() {
             logger.debug("[{}] Started MonitorNotificationHandler", Thread.currentThread().getId());
             while(true) {
                 try {
-                    Request request = requests.take();
-                    if(request.registrationRequest!=null) {
-                        RegistrationRequest r = request.registrationRequest;
-                        if (logger.isDebugEnabled())
-                            logger.debug("Processing registration request for {}, {}", r.identifier, r.owner);
-                        try {
-                            long timeout = Long.parseLong(System.getProperty("monitor.discovery.timeout", "5"));
-                            discoveryLatch.await(timeout, TimeUnit.SECONDS);
-                            Monitor monitor = getMonitor(timeout);
-                            if(monitor==null) {
-                                if(r.registrationListener!=null)
-                                    r.registrationListener.failed(r.identifier, r.owner, null);
-                            } else {
-                                MonitorRegistration monitorRegistration = monitor.register(r.identifier, r.owner, r.duration);
-                                if (r.registrationListener != null)
-                                    r.registrationListener.notify(monitorRegistration);
-                            }
-                        } catch (IOException | MonitorException e) {
+                    RegistrationRequest r = requests.take();
+                    if (logger.isDebugEnabled())
+                        logger.debug("Processing registration request for {}, {}", r.identifier, r.owner);
+                    try {
+                        long timeout = Long.parseLong(System.getProperty("monitor.discovery.timeout", "5"));
+                        discoveryLatch.await(timeout, TimeUnit.SECONDS);
+                        Monitor monitor = getMonitor(timeout);
+                        if(monitor==null) {
                             if(r.registrationListener!=null)
-                                r.registrationListener.failed(r.identifier, r.owner, e);
-                        }
-                    } else {
-                        UpdateRequest updateRequest = request.updateRequest;
-                        MonitorRegistration monitorRegistration = updateRequest.registration;
-                        if (logger.isTraceEnabled())
-                            logger.trace("HANDLE: {} {}", monitorRegistration.getIdentifier(), updateRequest.status);
-                        try {
-                            monitorRegistration.getMonitor().update(monitorRegistration, updateRequest.status, updateRequest.analytics);
-                            if (logger.isTraceEnabled())
-                                logger.trace("HANDLED: {} {}", monitorRegistration.getIdentifier(), updateRequest.status);
-                        } catch (IOException | MonitorException e) {
-                            if (updateRequest.analytics != null) {
-                                logger.warn("Unable to update status for method {} {}, {}: {}",
-                                            updateRequest.analytics.getMethodName(),
-                                            updateRequest.status,
-                                            e.getClass().getName(),
-                                            e.getMessage());
-                            } else {
-                                logger.warn("Unable to update status {}, {}: {}",
-                                            updateRequest.status, e.getClass().getName(), e.getMessage());
-                            }
+                                r.registrationListener.failed(r.identifier, r.owner, null);
+                        } else {
+                            MonitorRegistration monitorRegistration = monitor.register(r.identifier, r.owner, r.duration);
+                            if (r.registrationListener != null)
+                                r.registrationListener.notify(monitorRegistration);
                         }
+                    } catch (IOException | MonitorException e) {
+                        if(r.registrationListener!=null)
+                            r.registrationListener.failed(r.identifier, r.owner, e);
                     }
                 } catch (InterruptedException e) {
                     logger.error("Interrupted", e);
@@ -366,4 +345,38 @@ public class MonitorAgent {
             }
         }
     }
+
+    private static class UpdateFlusher implements Runnable {
+        private long reportedDropped;
+
+        @Override public void run() {
+            try {
+                Map<MonitorAgent, List<MonitorUpdate>> batches = updates.drain();
+                for(Map.Entry<MonitorAgent, List<MonitorUpdate>> batch : batches.entrySet()) {
+                    MonitorRegistration monitorRegistration = batch.getKey().copyRegistration();
+                    if(monitorRegistration==null || monitorRegistration.getMonitor()==null)
+                        continue;
+                    try {
+                        monitorRegistration.getMonitor().update(monitorRegistration, batch.getValue());
+                        if (logger.isTraceEnabled())
+                            logger.trace("HANDLED: {} {} updates", monitorRegistration.getIdentifier(), batch.getValue().size());
+                    } catch (IOException | MonitorException e) {
+                        logger.warn("Unable to update status of {} with {} updates, {}: {}",
+                                    monitorRegistration.getIdentifier(),
+                                    batch.getValue().size(),
+                                    e.getClass().getName(),
+                                    e.getMessage());
+                    }
+                }
+                long dropped = updates.getDropped();
+                if(dropped>reportedDropped) {
+                    logger.warn("Dropped {} updates, {} pending, {} coalesced",
+                                dropped-reportedDropped, updates.size(), updates.getCoalesced());
+                    reportedDropped = dropped;
+                }
+            } catch (RuntimeException e) {
+                logger.error("Problem sending updates", e);
+            }
+        }
+    }
 }
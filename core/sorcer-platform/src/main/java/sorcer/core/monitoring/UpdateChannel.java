@@ -0,0 +1,175 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sorcer.core.monitoring;
+
+import sorcer.core.analytics.MethodAnalytics;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A bounded channel of pending {@link MonitorAgent} updates. Updates of the
+ * same agent, method and status are coalesced into the latest one, so the
+ * {@link Monitor} gets every status of a method with its latest analytics, in
+ * the order the latest updates were offered.
+ * Updates for a new method or status are dropped when the channel is full.
+ * Analytics offered with a {@link Supplier} are only built when the updates
+ * are drained.
+ */
+class UpdateChannel {
+    private final Map<Key, Update> updates = new LinkedHashMap<>();
+    private final int capacity;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    UpdateChannel(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return false if the update was dropped
+     */
+    synchronized boolean offer(MonitorAgent agent, Monitor.Status status, MethodAnalytics analytics) {
+        return offer(new Key(agent, analytics == null ? null : analytics.getMethodName(), status),
+                     new Update(status, analytics, null));
+    }
+
+    /**
+     * Offers an update of the method with analytics built when drained.
+     *
+     * @return false if the update was dropped
+     */
+    synchronized boolean offer(MonitorAgent agent, Monitor.Status status, String methodName,
+                               Supplier<MethodAnalytics> analytics) {
+        return offer(new Key(agent, methodName, status), new Update(status, null, analytics));
+    }
+
+    private boolean offer(Key key, Update update) {
+        // the coalesced update moves to the end, the updates stay in the order of their latest offer
+        if (updates.remove(key) != null) {
+            updates.put(key, update);
+            coalesced.incrementAndGet();
+            return true;
+        }
+        if (updates.size() >= capacity) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        updates.put(key, update);
+        return true;
+    }
+
+    /**
+     * Removes the updates of agents with a {@link MonitorRegistration}, the
+     * updates of other agents are kept until they are registered.
+     *
+     * @return the updates of each agent in the order they were offered
+     */
+    Map<MonitorAgent, List<MonitorUpdate>> drain() {
+        Map<MonitorAgent, List<Update>> drained = new LinkedHashMap<>();
+        synchronized (this) {
+            Iterator<Map.Entry<Key, Update>> it = updates.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Update> e = it.next();
+                MonitorAgent agent = e.getKey().agent;
+                if (agent.getMonitorRegistration() == null)
+                    continue;
+                List<Update> batch = drained.get(agent);
+                if (batch == null) {
+                    batch = new ArrayList<>();
+                    drained.put(agent, batch);
+                }
+                batch.add(e.getValue());
+                it.remove();
+            }
+        }
+        // analytics are built without blocking the offers
+        Map<MonitorAgent, List<MonitorUpdate>> batches = new LinkedHashMap<>();
+        for (Map.Entry<MonitorAgent, List<Update>> e : drained.entrySet()) {
+            List<MonitorUpdate> batch = new ArrayList<>(e.getValue().size());
+            for (Update update : e.getValue())
+                batch.add(update.create());
+            batches.put(e.getKey(), batch);
+        }
+        return batches;
+    }
+
+    synchronized void remove(MonitorAgent agent) {
+        Iterator<Key> it = updates.keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().agent == agent)
+                it.remove();
+        }
+    }
+
+    synchronized void clear() {
+        updates.clear();
+    }
+
+    synchronized int size() {
+        return updates.size();
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    long getCoalesced() {
+        return coalesced.get();
+    }
+
+    private static class Update {
+        final Monitor.Status status;
+        final MethodAnalytics analytics;
+        final Supplier<MethodAnalytics> supplier;
+
+        Update(Monitor.Status status, MethodAnalytics analytics, Supplier<MethodAnalytics> supplier) {
+            this.status = status;
+            this.analytics = analytics;
+            this.supplier = supplier;
+        }
+
+        MonitorUpdate create() {
+            return new MonitorUpdate(status, supplier == null ? analytics : supplier.get());
+        }
+    }
+
+    private static class Key {
+        final MonitorAgent agent;
+        final String methodName;
+        final Monitor.Status status;
+
+        Key(MonitorAgent agent, String methodName, Monitor.Status status) {
+            this.agent = agent;
+            this.methodName = methodName;
+            this.status = status;
+        }
+
+        @Override public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key that = (Key) o;
+            return agent == that.agent && status == that.status && Objects.equals(methodName, that.methodName);
+        }
+
+        @Override public int hashCode() {
+            return 31 * (31 * System.identityHashCode(agent) + Objects.hashCode(methodName)) + Objects.hashCode(status);
+        }
+    }
+}
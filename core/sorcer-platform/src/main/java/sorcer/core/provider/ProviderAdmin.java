@@ -19,11 +19,14 @@ import org.rioproject.impl.jmx.JMXConnectionUtil;
 import org.rioproject.impl.jmx.MBeanServerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import sorcer.core.analytics.MethodAnalytics;
 
 import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Implements ProviderMBean as a standard MBean
@@ -95,6 +98,30 @@ public class ProviderAdmin implements ProviderAdminMBean {
         return provider.getProviderName();
     }
 
+    @Override public String[] getMethodLatencies() {
+        Map<String, MethodAnalytics> analytics = new TreeMap<>(provider.getMethodAnalytics());
+        String[] latencies = new String[analytics.size()];
+        int i = 0;
+        for(MethodAnalytics m : analytics.values()) {
+            latencies[i++] = String.format("%s: calls: %d, recent: %d, failed: %d, active: %d, " +
+                                           "p50: %.3f ms, p90: %.3f ms, p99: %.3f ms, max: %.3f ms",
+                                           m.getMethodName(),
+                                           m.getTotalOperationCalls(),
+                                           m.getRecentOperationCalls(),
+                                           m.getFailed(),
+                                           m.getNumActiveOperations(),
+                                           toMillis(m.getExecTimeP50()),
+                                           toMillis(m.getExecTimeP90()),
+                                           toMillis(m.getExecTimeP99()),
+                                           toMillis(m.getMaxExecTime()));
+        }
+        return latencies;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+
     @Override public void destroy() {
         logger.warn("Destroying {}", provider.getProviderName());
         provider.destroy();
@@ -28,6 +28,15 @@ public interface ProviderAdminMBean {
      */
     String getProviderName();
 
+    /**
+     * Get the call times of recent calls for each method of the provider, in
+     * milliseconds
+     *
+     * @return A line for each method with its call counts and the p50, p90,
+     * p99 and max call times, never null
+     */
+    String[] getMethodLatencies();
+
     /**
      * Destroy the Provider
      */
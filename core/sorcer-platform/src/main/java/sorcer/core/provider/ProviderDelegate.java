@@ -54,6 +54,7 @@ import sorcer.core.exertion.NetTask;
 import sorcer.core.loki.member.LokiMemberUtil;
 import sorcer.core.misc.MsgRef;
 import sorcer.core.monitor.MonitoringSession;
+import sorcer.core.provider.ServiceInvocationCache.Dispatch;
 import sorcer.core.provider.ServiceProvider.ProxyVerifier;
 import sorcer.core.provider.exerter.ServiceShell;
 import sorcer.core.proxy.Partnership;
@@ -200,6 +201,9 @@ public class ProviderDelegate {
 
 	private int maximumPoolSize = 20;
 
+	/* max number of envelops taken at once by a space taker, 1 takes them one by one */
+	private int takeBatchSize = 1;
+
 	private List<ExecutorService> spaceHandlingPools;
 
 	/** lease manager also used by provider workers. */
@@ -290,6 +294,12 @@ public class ProviderDelegate {
 	 */
 	private Map<Class<?>, Object> serviceComponents;
 
+	/**
+	 * Service beans and methods resolved for dispatched requests, cleared
+	 * when service components change.
+	 */
+	private final ServiceInvocationCache invocationCache = new ServiceInvocationCache();
+
 	/**
 	 * Indicates a single threaded execution for service beans or providers
 	 * implementing the SingleThreadModel interface.
@@ -543,6 +553,13 @@ public class ProviderDelegate {
             logger.warn("Problem getting {}.{}", ServiceProvider.COMPONENT, MAX_WORKER_POOL_SIZE, e);
         }
 
+        try {
+            takeBatchSize = (Integer) jconfig.getEntry(ServiceProvider.COMPONENT, WORKER_TAKE_BATCH_SIZE, int.class,
+                                                       1);
+        } catch (Exception e) {
+            logger.warn("Problem getting {}.{}", ServiceProvider.COMPONENT, WORKER_TAKE_BATCH_SIZE, e);
+        }
+
         try {
             spaceReadiness = (Boolean) jconfig.getEntry(ServiceProvider.COMPONENT, SPACE_READINESS, boolean.class,
                                                         false);
@@ -743,6 +760,18 @@ public class ProviderDelegate {
                                                                              queueSize == 0),
 										spaceWorkerPool);
                 spaceTakers.add(worker);
+            } else if (takeBatchSize > 1) {
+                worker = new SpaceBatchTaker(new SpaceTaker.SpaceTakerData(envelop,
+                                                                           memberInfo,
+                                                                           provider,
+                                                                           spaceName,
+                                                                           spaceGroup,
+                                                                           workerTransactional,
+                                                                           queueSize == 0),
+                                             spaceWorkerPool,
+                                             remoteLogging,
+                                             takeBatchSize);
+                spaceTakers.add(worker);
             } else {
                 worker = new SpaceTaker(new SpaceTaker.SpaceTakerData(envelop,
                                                                       memberInfo,
@@ -783,6 +812,12 @@ public class ProviderDelegate {
 									provider, spaceName, spaceGroup,
 									workerTransactional, queueSize == 0),
 							spaceWorkerPool);
+                    spaceTakers.add(worker);
+				} else if (takeBatchSize > 1) {
+					worker = new SpaceBatchTaker(new SpaceTaker.SpaceTakerData(
+							envelop, memberInfo, provider, spaceName,
+							spaceGroup, workerTransactional, queueSize == 0),
+							spaceWorkerPool, remoteLogging, takeBatchSize);
                     spaceTakers.add(worker);
 				} else {
 					worker = new SpaceTaker(new SpaceTaker.SpaceTakerData(
@@ -970,22 +1005,25 @@ public class ProviderDelegate {
 		} catch (SignatureException e) {
 			throw new ContextException(e);
 		}
-		Iterator i = serviceComponents.entrySet().iterator();
-		Map.Entry next;
-		Object impl = null;
-		while (i.hasNext()) {
-			next = (Map.Entry) i.next();
-			if (next.getKey() == serviceType) {
-				impl = next.getValue();
-				break;
-			}
-			Class[] supertypes = ((Class)next.getKey()).getInterfaces();			
-			for (Class st : supertypes) {
-				if (st == serviceType) {
+		Object impl = invocationCache.getBean(serviceType);
+		if (impl == null) {
+			Iterator i = serviceComponents.entrySet().iterator();
+			Map.Entry next;
+			while (i.hasNext()) {
+				next = (Map.Entry) i.next();
+				if (next.getKey() == serviceType) {
 					impl = next.getValue();
 					break;
 				}
+				Class[] supertypes = ((Class)next.getKey()).getInterfaces();
+				for (Class st : supertypes) {
+					if (st == serviceType) {
+						impl = next.getValue();
+						break;
+					}
+				}
 			}
+			invocationCache.putBean(serviceType, impl);
 		}
         return exertBeanTask(task, impl, args);
 //        if (impl != null) {
@@ -1068,41 +1106,50 @@ public class ProviderDelegate {
             }
             Method m = null;
             try {
-                // select the proper method for the bean type
-                if (selector.equals("invoke") && (bean instanceof Mogram)) {
-                    m = bean.getClass().getMethod(selector, Context.class, Arg[].class);
-                    isContextual = true;
-                } else if (selector.equals("evaluate") || selector.equals("explore")) {
-                    m = bean.getClass().getMethod(selector, Context.class, Arg[].class);
-                    isContextual = true;
-                } else if (selector.equals("exert") && bean instanceof ServiceShell) {
-                    m = bean.getClass().getMethod(selector, Mogram.class, Arg[].class);
-                    isContextual = false;
-                } else if (selector.equals("getValue") && bean instanceof Evaluation) {
-                    m = bean.getClass().getMethod(selector, Arg[].class);
-                    isContextual = false;
-                 } else {
-                    for(Method method : bean.getClass().getMethods()) {
-                        Class[] parmTypes = method.getParameterTypes();
-                        if(parmTypes.length==0 && argTypes.length==0) {
-                            m = method;
-                            break;
-                        }
-                        if (method.getName().equals(selector) && parmTypes.length==argTypes.length) {
-                            for (int i = 0; i < parmTypes.length; i++) {
-                                if (argTypes[i].isAssignableFrom(parmTypes[i])) {
-                                    m = method;
-                                    break;
+                ServiceInvocationCache.Invocation invocation = invocationCache.getInvocation(Dispatch.BEAN,
+                        bean.getClass(), selector, argTypes);
+                if (invocation != null) {
+                    m = invocation.method;
+                    isContextual = invocation.contextual;
+                } else {
+                    // select the proper method for the bean type
+                    if (selector.equals("invoke") && (bean instanceof Mogram)) {
+                        m = bean.getClass().getMethod(selector, Context.class, Arg[].class);
+                        isContextual = true;
+                    } else if (selector.equals("evaluate") || selector.equals("explore")) {
+                        m = bean.getClass().getMethod(selector, Context.class, Arg[].class);
+                        isContextual = true;
+                    } else if (selector.equals("exert") && bean instanceof ServiceShell) {
+                        m = bean.getClass().getMethod(selector, Mogram.class, Arg[].class);
+                        isContextual = false;
+                    } else if (selector.equals("getValue") && bean instanceof Evaluation) {
+                        m = bean.getClass().getMethod(selector, Arg[].class);
+                        isContextual = false;
+                    } else {
+                        for(Method method : bean.getClass().getMethods()) {
+                            Class[] parmTypes = method.getParameterTypes();
+                            if(parmTypes.length==0 && argTypes.length==0) {
+                                m = method;
+                                break;
+                            }
+                            if (method.getName().equals(selector) && parmTypes.length==argTypes.length) {
+                                for (int i = 0; i < parmTypes.length; i++) {
+                                    if (argTypes[i].isAssignableFrom(parmTypes[i])) {
+                                        m = method;
+                                        break;
+                                    }
                                 }
+                                if(m!=null)
+                                    break;
                             }
-                            if(m!=null)
-                                break;
+                        }
+                        if(m==null) {
+                            m = bean.getClass().getMethod(selector, argTypes);
                         }
                     }
-					if(m==null) {
-                        m = bean.getClass().getMethod(selector, argTypes);
-                    }
-				}
+                    invocationCache.putInvocation(Dispatch.BEAN, bean.getClass(), selector, argTypes,
+                                                  new ServiceInvocationCache.Invocation(m, isContextual));
+                }
                 if(logger.isTraceEnabled())
                     logger.trace("Executing service bean method: {} by: {} isContextual: {}",
                                  m, config.getProviderName(), isContextual);
@@ -1376,7 +1423,16 @@ public class ProviderDelegate {
 			throws ExertionException {
 		Class[] argTypes = new Class[] { Mogram.class };
 		try {
-			Method m = provider.getClass().getMethod(selector, argTypes);
+			Method m;
+			ServiceInvocationCache.Invocation invocation = invocationCache.getInvocation(Dispatch.EXERTION,
+					provider.getClass(), selector, argTypes);
+			if (invocation != null) {
+				m = invocation.method;
+			} else {
+				m = provider.getClass().getMethod(selector, argTypes);
+				invocationCache.putInvocation(Dispatch.EXERTION, provider.getClass(), selector, argTypes,
+											  new ServiceInvocationCache.Invocation(m, false));
+			}
 			logger.info("Executing method: " + m + " by: "
 					+ config.getProviderName());
 
@@ -1400,21 +1456,29 @@ public class ProviderDelegate {
 				isContextual = false;
 			}
 			Method execMethod = null;
-			for(Method m : provider.getClass().getMethods()) {
-				if(m.getName().equals(selector) && m.getParameterCount()==1) {
-					if(m.getParameterTypes()[0].isAssignableFrom(argTypes[0])) {
-						execMethod = m;
-						break;
+			ServiceInvocationCache.Invocation invocation = invocationCache.getInvocation(Dispatch.CONTEXT,
+					provider.getClass(), selector, argTypes);
+			if (invocation != null) {
+				execMethod = invocation.method;
+			} else {
+				for (Method m : provider.getClass().getMethods()) {
+					if (m.getName().equals(selector) && m.getParameterCount() == 1) {
+						if (m.getParameterTypes()[0].isAssignableFrom(argTypes[0])) {
+							execMethod = m;
+							break;
+						}
 					}
 				}
+				if (execMethod == null)
+					execMethod = provider.getClass().getMethod(selector, argTypes);
+				invocationCache.putInvocation(Dispatch.CONTEXT, provider.getClass(), selector, argTypes,
+											  new ServiceInvocationCache.Invocation(execMethod, isContextual));
 			}
-			if(execMethod==null)
-				execMethod = provider.getClass().getMethod(selector, argTypes);
 			Context result;
             /*boolean monitored = MonitorCheck.monitor(execMethod);
 			int id = 0;
             if(monitored)*/
-            int id = analyticsRecorder.inprocess(selector);
+            long startTime = analyticsRecorder.inprocess(selector);
 			try {
 				if (isContextual) {
 					result = (ServiceContext) execMethod.invoke(provider, args);
@@ -1428,11 +1492,11 @@ public class ProviderDelegate {
 					result = sc;
 				}
 				if(result.getExceptions().size()>0)
-					analyticsRecorder.failed(selector, id);
+					analyticsRecorder.failed(selector, startTime);
 				else
-					analyticsRecorder.completed(selector, id);
+					analyticsRecorder.completed(selector, startTime);
 			} catch(Exception e) {
-				analyticsRecorder.failed(selector, id);
+				analyticsRecorder.failed(selector, startTime);
                 throw e;
 			}
 
@@ -1781,6 +1845,7 @@ public class ProviderDelegate {
         if (remoteLoggerInstaller!=null) {
             remoteLoggerInstaller.destroy();
         }
+        destroyBeans();
         if (spaceEnabled && spaceHandlingPools != null) {
             for (SpaceTaker st : spaceTakers) {
                 if(st!=null)
@@ -2930,6 +2995,7 @@ public class ProviderDelegate {
 
 		callProviders(serviceBeans);
 		serviceComponents = new HashMap<>();
+		invocationCache.clear();
 
 		if (serviceComponents.size() == 1) {
 			for (Object serviceBean : serviceBeans) {
@@ -3015,6 +3081,30 @@ public class ProviderDelegate {
 		return serviceBean;
 	}
 
+	/**
+	 * Calls the <code>destroy</code> method of service beans that have one,
+	 * the counterpart of their <code>init</code> method.
+	 */
+	private void destroyBeans() {
+		if (serviceBeans == null)
+			return;
+		for (Object serviceBean : serviceBeans) {
+			if (serviceBean == null || serviceBean == provider)
+				continue;
+			Method m;
+			try {
+				m = serviceBean.getClass().getMethod("destroy");
+			} catch (NoSuchMethodException e) {
+				continue;
+			}
+			try {
+				m.invoke(serviceBean);
+			} catch (Exception e) {
+				logger.warn("Problem destroying service bean: " + serviceBean.getClass().getName(), e);
+			}
+		}
+	}
+
 	/**
 	 * Returns a partner service specified in the provider's Jini configuration.
 	 * 
@@ -3138,6 +3228,7 @@ public class ProviderDelegate {
 
 	public void setServiceComponents(Map serviceComponents) {
 		this.serviceComponents = serviceComponents;
+		invocationCache.clear();
 	}
 	
 	public void addBean(Object bean) {
@@ -3147,6 +3238,7 @@ public class ProviderDelegate {
 			// allow marker interfaces to be added
 			serviceComponents.put(interfazes[j], bean);
 		}
+		invocationCache.clear();
 	}
 	
 	public Object getBean(Class<?> serviceType) {
@@ -3322,6 +3414,8 @@ public class ProviderDelegate {
 
 	public static final String MAX_WORKER_POOL_SIZE = "maxWorkerPoolSize";
 
+	public static final String WORKER_TAKE_BATCH_SIZE = "workerTakeBatchSize";
+
 	public static final String WORKER_TRANSACTION_LEASE_TIME = "workerTransactionLeaseTime";
 
 	public static final String SPACE_TIMEOUT = "workerTimeout";
@@ -0,0 +1,122 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sorcer.core.provider;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per provider cache of methods resolved by the {@link ProviderDelegate} for
+ * service beans and for the provider itself. Entries are keyed by the kind of
+ * dispatch, the owner type (service type, bean or provider class), the
+ * selector and the argument types, so a repeated dispatch of the same request
+ * is a single hash lookup.
+ * The cache is cleared when service beans of the provider change.
+ */
+class ServiceInvocationCache {
+
+	private final ConcurrentMap<Class<?>, Object> beans = new ConcurrentHashMap<Class<?>, Object>();
+
+	private final ConcurrentMap<Key, Invocation> invocations = new ConcurrentHashMap<Key, Invocation>();
+
+	Object getBean(Class<?> serviceType) {
+		return serviceType == null ? null : beans.get(serviceType);
+	}
+
+	void putBean(Class<?> serviceType, Object bean) {
+		if (serviceType != null && bean != null)
+			beans.put(serviceType, bean);
+	}
+
+	/**
+	 * The kinds of dispatch, each resolves methods its own way.
+	 */
+	enum Dispatch {
+		/** a task executed by a service bean */
+		BEAN,
+		/** an exertion passed to a provider method */
+		EXERTION,
+		/** a context passed to a provider method */
+		CONTEXT
+	}
+
+	Invocation getInvocation(Dispatch dispatch, Class<?> owner, String selector, Class[] argTypes) {
+		return invocations.get(new Key(dispatch, owner, selector, argTypes));
+	}
+
+	void putInvocation(Dispatch dispatch, Class<?> owner, String selector, Class[] argTypes, Invocation invocation) {
+		// the caller may change its array later
+		invocations.put(new Key(dispatch, owner, selector, argTypes.clone()), invocation);
+	}
+
+	void clear() {
+		beans.clear();
+		invocations.clear();
+	}
+
+	int size() {
+		return invocations.size();
+	}
+
+	/**
+	 * A resolved method with the flag telling if it is called with the task
+	 * context or with the parameters stored in the context.
+	 */
+	static class Invocation {
+		final Method method;
+		final boolean contextual;
+
+		Invocation(Method method, boolean contextual) {
+			this.method = method;
+			this.contextual = contextual;
+		}
+	}
+
+	private static class Key {
+		private final Dispatch dispatch;
+		private final Class<?> owner;
+		private final String selector;
+		private final Class[] argTypes;
+		private final int hash;
+
+		Key(Dispatch dispatch, Class<?> owner, String selector, Class[] argTypes) {
+			this.dispatch = dispatch;
+			this.owner = owner;
+			this.selector = selector;
+			this.argTypes = argTypes;
+			this.hash = 31 * (31 * (31 * dispatch.hashCode() + owner.hashCode()) + selector.hashCode())
+					+ Arrays.hashCode(argTypes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return dispatch == other.dispatch && owner == other.owner && selector.equals(other.selector)
+					&& Arrays.equals(argTypes, other.argTypes);
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sorcer.core.provider;
+
+import net.jini.core.lease.Lease;
+import net.jini.core.transaction.Transaction;
+import net.jini.entry.UnusableEntriesException;
+import sorcer.core.exertion.ExertionEnvelop;
+import sorcer.river.TX;
+import sorcer.service.space.SpaceAccessor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * A {@link SpaceTaker} that claims up to as many envelops as there are idle
+ * worker slots with a single <code>JavaSpace05</code> take. Instead of polling
+ * the worker pool, the taker blocks until at least one slot is free.
+ * Transactional takers claim one envelop per transaction.
+ */
+public class SpaceBatchTaker extends SpaceTaker {
+
+	// idle worker slots, released by workers when done
+	protected Semaphore slots;
+
+	protected int maxBatchSize;
+
+	public SpaceBatchTaker(SpaceTakerData data, ExecutorService pool,
+			boolean remoteLogging, int maxBatchSize) {
+		super(data, pool, remoteLogging);
+		int capacity = ((ThreadPoolExecutor) pool).getCorePoolSize();
+		if (!data.noQueue)
+			capacity += ((ThreadPoolExecutor) pool).getQueue().remainingCapacity();
+		this.slots = new Semaphore(capacity);
+		this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, capacity));
+	}
+
+	public void run() {
+		String threadId = doThreadMonitorTaker(null);
+		Collection<ExertionEnvelop> templates = Collections.singletonList(data.entry);
+		while (keepGoing) {
+			int claimed = 0;
+			Transaction.Created txnCreated = null;
+			try {
+				space = SpaceAccessor.getSpace(data.spaceName);
+				if (space == null) {
+					Thread.sleep(spaceTimeout / 6);
+					continue;
+				}
+				// block until a worker is idle, then claim all other idle ones
+				slots.acquire();
+				claimed = 1;
+				if (!isTransactional) {
+					int extra = Math.min(slots.availablePermits(), maxBatchSize - 1);
+					if (extra > 0 && slots.tryAcquire(extra))
+						claimed += extra;
+				}
+
+				Transaction tx = null;
+				if (isTransactional) {
+					txnCreated = TX.createTransaction(transactionLeaseTimeout);
+					if (txnCreated == null) {
+						logger.warn("SpaceBatchTaker did not get TRANSACTION thread: {}", threadId);
+						slots.release(claimed);
+						Thread.sleep(spaceTimeout / 6);
+						continue;
+					}
+					tx = txnCreated.transaction;
+				}
+
+				Collection<?> taken;
+				try {
+					taken = space.take(templates, tx, spaceTimeout, claimed);
+				} catch (UnusableEntriesException e) {
+					logger.warn("Unusable envelops taken by SpaceBatchTaker", e);
+					taken = e.getEntries();
+				}
+				List<ExertionEnvelop> envelops = new ArrayList<ExertionEnvelop>();
+				if (taken != null) {
+					for (Object entry : taken)
+						envelops.add((ExertionEnvelop) entry);
+				}
+
+				if (envelops.isEmpty()) {
+					slots.release(claimed);
+					if (txnCreated != null) {
+						TX.abortTransaction(txnCreated);
+						Thread.sleep(spaceTimeout / 2);
+					}
+					continue;
+				}
+				logger.debug("SpaceBatchTaker took {} of {} claimed envelops", envelops.size(), claimed);
+				slots.release(claimed - envelops.size());
+				claimed = 0;
+				dispatch(envelops, txnCreated);
+			} catch (InterruptedException ie) {
+				keepGoing = false;
+				slots.release(claimed);
+			} catch (Exception ex) {
+				logger.warn("Problem with SpaceBatchTaker", ex);
+				slots.release(claimed);
+			}
+		}
+		doThreadMonitorTaker(threadId);
+	}
+
+	/**
+	 * Hand taken envelops to the worker pool. If the pool rejects a worker,
+	 * the envelops not yet handed over are given back: the transaction is
+	 * aborted, or without one they are written back to the space.
+	 *
+	 * @return the number of envelops handed to workers
+	 */
+	int dispatch(List<ExertionEnvelop> envelops, Transaction.Created txnCreated) {
+		int i = 0;
+		try {
+			for (; i < envelops.size(); i++)
+				pool.execute(new SlotWorker(createWorker(envelops.get(i), txnCreated)));
+		} catch (RejectedExecutionException e) {
+			List<ExertionEnvelop> rest = envelops.subList(i, envelops.size());
+			logger.warn("Worker pool rejected {} taken envelops, giving them back", rest.size(), e);
+			slots.release(rest.size());
+			if (txnCreated != null) {
+				try {
+					TX.abortTransaction(txnCreated);
+				} catch (Exception ex) {
+					logger.warn("Could not abort transaction of rejected envelop", ex);
+				}
+			} else {
+				giveBack(rest);
+			}
+		}
+		return i;
+	}
+
+	protected Runnable createWorker(ExertionEnvelop ee, Transaction.Created txnCreated) {
+		return new SpaceWorker(ee, txnCreated, data.provider, remoteLogging);
+	}
+
+	protected void giveBack(List<ExertionEnvelop> envelops) {
+		for (ExertionEnvelop ee : envelops) {
+			try {
+				space.write(ee, null, Lease.FOREVER);
+			} catch (Exception e) {
+				logger.error("Could not write rejected envelop back to space, envelop lost: {}", ee, e);
+			}
+		}
+	}
+
+	/**
+	 * Releases the worker slot once the envelop is processed.
+	 */
+	class SlotWorker implements Runnable {
+		private final Runnable worker;
+
+		SlotWorker(Runnable worker) {
+			this.worker = worker;
+		}
+
+		public void run() {
+			try {
+				worker.run();
+			} finally {
+				slots.release();
+			}
+		}
+	}
+}
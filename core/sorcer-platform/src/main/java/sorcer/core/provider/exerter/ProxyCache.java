@@ -0,0 +1,197 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.provider.exerter;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import net.jini.core.lookup.ServiceTemplate;
+import net.jini.lookup.LookupCache;
+import net.jini.lookup.ServiceDiscoveryEvent;
+import net.jini.lookup.ServiceDiscoveryListener;
+import net.jini.lookup.ServiceDiscoveryManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.core.provider.Provider;
+import sorcer.service.*;
+import sorcer.util.ProviderLocator;
+import sorcer.util.ServiceAccessor;
+import sorcer.util.Sorcer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of provider proxies used by the {@link ServiceShell}. Cached proxies
+ * are not pinged before use; entries are dropped when the lookup services
+ * report the provider removed or changed, or when a call to the proxy fails.
+ * The size of the cache is set with the <code>sorcer.proxy.cache.size</code>
+ * property.
+ */
+public class ProxyCache implements ServiceDiscoveryListener {
+	private final static Logger logger = LoggerFactory.getLogger(ProxyCache.class);
+
+	public static final String PROXY_CACHE_SIZE = "sorcer.proxy.cache.size";
+
+	public static final int DEFAULT_PROXY_CACHE_SIZE = 20;
+
+	private final LoadingCache<Signature, Object> proxies;
+
+	private LookupCache lookupCache;
+
+	private final AtomicLong invalidations = new AtomicLong();
+
+	public ProxyCache() {
+		this(getCacheSize());
+	}
+
+	public ProxyCache(int size) {
+		proxies = CacheBuilder.newBuilder()
+				.maximumSize(size)
+				.expireAfterWrite(30, TimeUnit.MINUTES)
+				.recordStats()
+				.build(new CacheLoader<Signature, Object>() {
+					public Object load(Signature signature) throws SignatureException {
+						Object proxy;
+						if (signature.getProviderName() instanceof ServiceName)
+							proxy = ProviderLocator.getProvider(signature);
+						else
+							proxy = Accessor.get().getService(signature);
+						if (proxy == null) {
+							logger.warn("No available proxy for {}", signature);
+							return Context.none;
+						}
+						return proxy;
+					}
+				});
+		listenForProviders();
+	}
+
+	private static int getCacheSize() {
+		String size = Sorcer.getProperty(PROXY_CACHE_SIZE);
+		if (size != null) {
+			try {
+				return Integer.parseInt(size.trim());
+			} catch (NumberFormatException e) {
+				logger.warn("Could not evaluate property: {}: {}, using default: {}",
+						PROXY_CACHE_SIZE, size, DEFAULT_PROXY_CACHE_SIZE);
+			}
+		}
+		return DEFAULT_PROXY_CACHE_SIZE;
+	}
+
+	private void listenForProviders() {
+		try {
+			DynamicAccessor accessor = Accessor.get();
+			if (accessor instanceof ServiceAccessor) {
+				ServiceDiscoveryManager sdm = ((ServiceAccessor) accessor).getServiceDiscoveryManager();
+				if (sdm != null)
+					lookupCache = sdm.createLookupCache(
+							new ServiceTemplate(null, new Class[] { Provider.class }, null), null, this);
+			}
+		} catch (Exception e) {
+			logger.warn("Proxy cache is not notified about provider changes", e);
+		}
+	}
+
+	/**
+	 * Returns a cached proxy for the signature or looks it up.
+	 *
+	 * @return the proxy or null if no provider is available
+	 */
+	public Object get(Signature signature) {
+		try {
+			Object proxy = proxies.get(signature);
+			if (proxy == Context.none) {
+				// do not keep misses, the provider may show up any time
+				proxies.invalidate(signature);
+				return null;
+			}
+			return proxy;
+		} catch (Exception e) {
+			logger.warn("Failed to get proxy for {}", signature, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Drops the proxy cached for the signature, e.g. after a remote failure.
+	 */
+	public void invalidate(Signature signature) {
+		proxies.invalidate(signature);
+		invalidations.incrementAndGet();
+	}
+
+	private void invalidate(Object proxy) {
+		for (Map.Entry<Signature, Object> entry : proxies.asMap().entrySet()) {
+			if (entry.getValue().equals(proxy)) {
+				proxies.invalidate(entry.getKey());
+				invalidations.incrementAndGet();
+			}
+		}
+	}
+
+	@Override
+	public void serviceAdded(ServiceDiscoveryEvent event) {
+		// misses are not cached so nothing to refresh
+	}
+
+	@Override
+	public void serviceRemoved(ServiceDiscoveryEvent event) {
+		if (event.getPreEventServiceItem() != null) {
+			logger.debug("Provider removed: {}", event.getPreEventServiceItem().serviceID);
+			invalidate(event.getPreEventServiceItem().service);
+		}
+	}
+
+	@Override
+	public void serviceChanged(ServiceDiscoveryEvent event) {
+		// changed attributes may no longer match cached signatures
+		if (event.getPreEventServiceItem() != null)
+			invalidate(event.getPreEventServiceItem().service);
+	}
+
+	public CacheStats getStats() {
+		return proxies.stats();
+	}
+
+	public long getHitCount() {
+		return proxies.stats().hitCount();
+	}
+
+	public long getMissCount() {
+		return proxies.stats().missCount();
+	}
+
+	public long getEvictionCount() {
+		return proxies.stats().evictionCount() + invalidations.get();
+	}
+
+	public long size() {
+		return proxies.size();
+	}
+
+	public void terminate() {
+		if (lookupCache != null) {
+			lookupCache.terminate();
+			lookupCache = null;
+		}
+		proxies.invalidateAll();
+	}
+}
@@ -17,9 +17,6 @@
 
 package sorcer.core.provider.exerter;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import net.jini.core.lookup.ServiceID;
 import net.jini.core.transaction.Transaction;
 import net.jini.core.transaction.TransactionException;
@@ -56,17 +53,18 @@ import sorcer.service.Signature.ReturnPath;
 import sorcer.service.Strategy.Access;
 import sorcer.service.modeling.Model;
 import sorcer.service.txmgr.TransactionManagerAccessor;
-import sorcer.util.ProviderLocator;
 import sorcer.util.Sorcer;
 
 import java.io.File;
+import java.rmi.ConnectException;
+import java.rmi.ConnectIOException;
+import java.rmi.NoSuchObjectException;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 
 import static sorcer.eo.operator.*;
 
@@ -82,7 +80,9 @@ public class ServiceShell implements RemoteServiceShell, Client, Callable {
 	private static MutualExclusion locker;
 	// a reference to a provider running this mogram
 	private Exerter provider;
-	private static LoadingCache<Signature, Object> proxies;
+	private static ProxyCache proxies;
+	// signature of the provider taken from the proxy cache, if any
+	private Signature cachedSignature;
 
 	public ServiceShell() {
 		setupProxyCache();
@@ -103,28 +103,17 @@ public class ServiceShell implements RemoteServiceShell, Client, Callable {
 		this.provider = provider;
 	}
 
-	private static void setupProxyCache() {
+	private static synchronized void setupProxyCache() {
 		if (proxies == null) {
-			proxies = CacheBuilder.newBuilder()
-					.maximumSize(20)
-					.expireAfterWrite(30, TimeUnit.MINUTES)
-					.build(new CacheLoader<Signature, Object>() {
-						public Object load(Signature signature) throws SignatureException {
-							if (signature.getProviderName() instanceof ServiceName) {
-								try {
-									return ProviderLocator.getProvider(signature);
-								} catch (SignatureException e) {
-									e.printStackTrace();
-								}
-								logger.warn("No available proxy for {}", signature);
-								return Context.none;
-							} else
-								return Accessor.get().getService(signature);
-						}
-					});
+			proxies = new ProxyCache();
 		}
 	}
 
+	public static ProxyCache getProxyCache() {
+		setupProxyCache();
+		return proxies;
+	}
+
 	public Mogram exert(Mogram xrt, Arg... entries)
 			throws TransactionException, MogramException, RemoteException {
 		try {
@@ -420,16 +409,11 @@ public class ServiceShell implements RemoteServiceShell, Client, Callable {
 				signature = new NetSignature("exert", Spacer.class, srvName);
 			}
 			provider = ((NetSignature) signature).getProvider();
+			cachedSignature = null;
 			if (provider == null) {
-                // check proxy cache and ping with a provider name
-				try {
-					provider = proxies.get(signature);
-					// check if cached proxy is still alive
-					((Provider)provider).getProviderName();
-				} catch(Exception e) {
-					proxies.refresh(signature);
-					provider = proxies.get(signature);
-				}
+				// cached proxies are validated only when a call to them fails
+				provider = proxies.get(signature);
+				cachedSignature = signature;
 				if (provider == null) {
 					String message =
 							String.format("Provider name: [%s], fiType: %s not found, make sure it is running and there is " +
@@ -506,7 +490,26 @@ public class ServiceShell implements RemoteServiceShell, Client, Callable {
 //				e.printStackTrace();
 //			}
 
-			Exertion result = provider.exert(exertion, transaction, entries);
+			Exertion result;
+			try {
+				result = provider.exert(exertion, transaction, entries);
+			} catch (RemoteException re) {
+				if (cachedSignature == null)
+					throw re;
+				// stale cached proxy, drop it and retry only if the call never reached the provider
+				proxies.invalidate(cachedSignature);
+				if (!(re instanceof ConnectException || re instanceof ConnectIOException
+						|| re instanceof NoSuchObjectException))
+					throw re;
+				Object fresh = proxies.get(cachedSignature);
+				if (!(fresh instanceof Exerter))
+					throw re;
+				logger.info("Cached proxy failed, retrying with a fresh one for: {}", signature);
+				provider = (Exerter) fresh;
+				if (fresh instanceof Provider && signature instanceof NetSignature)
+					((NetSignature) signature).setProvider((Provider) fresh);
+				result = provider.exert(exertion, transaction, entries);
+			}
 			if (result != null && result.getExceptions().size() > 0) {
 				for (ThrowableTrace et : result.getExceptions()) {
 					Throwable t = et.getThrowable();
@@ -44,13 +44,24 @@ abstract public class AbstractRemoteFile implements RemoteFile {
         return Files.hash(localFile, hf).toString();
     }
 
+    /**
+     * Checks the checksum of the file returned by {@link #doGetFile()}.
+     */
+    protected void verify(File file) throws IOException {
+        if (!checksum.equals(checksum(file)))
+            throw new IllegalStateException("File exists but has invalid checksum");
+    }
+
     @Override
     public File getValue() throws EvaluationException {
         try {
             File result = doGetFile();
-            String myChecksum = checksum(result);
-            if (!checksum.equals(myChecksum))
-                throw new IllegalStateException("File exists but has invalid checksum");
+            try {
+                verify(result);
+            } catch (IOException | RuntimeException e) {
+                release();
+                throw e;
+            }
             return result;
         } catch (IOException e) {
             throw new EvaluationException("Error getting file", e);
@@ -0,0 +1,280 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.file.remote;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.HashingOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.data.DataService;
+import sorcer.util.Sorcer;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local cache of remote files addressed by their checksum. A file is
+ * downloaded once, concurrent requests for the same checksum wait for the
+ * same download. A download is verified while it is written to a temporary
+ * file and then renamed into the cache, so the cache holds only complete and
+ * verified files. Cached files are read only. When the cache is over its size
+ * the least recently used files are removed, except files still in use: a file
+ * returned by {@link #get(String, Source)} is pinned and not removed until the
+ * caller calls {@link #release(String)}, once for each time it was returned.
+ */
+public class FileCache {
+    private static final Logger log = LoggerFactory.getLogger(FileCache.class);
+
+    public static final String CACHE_DIR = "sorcer.file.cache.dir";
+    public static final String CACHE_SIZE = "sorcer.file.cache.size";
+    private static final long DEFAULT_CACHE_SIZE = 10L * 1024 * 1024 * 1024;
+
+    private static FileCache instance;
+
+    private final Path root;
+    private final Path tmp;
+    private final long maxSize;
+    private final HashFunction hashFunction;
+    private final ConcurrentMap<String, FutureTask<File>> downloads = new ConcurrentHashMap<String, FutureTask<File>>();
+    private final AtomicLong size = new AtomicLong(-1);
+    // the number of times files were returned to callers and not released, by checksum
+    private final Map<String, Integer> pins = new HashMap<String, Integer>();
+
+    /**
+     * Copies a remote file to a stream.
+     */
+    public interface Source {
+        void copyTo(OutputStream out) throws IOException;
+    }
+
+    public FileCache(Path root, long maxSize, HashFunction hashFunction) throws IOException {
+        this.root = root;
+        this.tmp = root.resolve("tmp");
+        this.maxSize = maxSize;
+        this.hashFunction = hashFunction;
+        Files.createDirectories(tmp);
+    }
+
+    public static synchronized FileCache getInstance() throws IOException {
+        if (instance == null) {
+            String dir = Sorcer.getProperty(CACHE_DIR);
+            Path root = dir != null ? Paths.get(dir) : Paths.get(DataService.getDataDir(), "remote-file-cache");
+            long maxSize = DEFAULT_CACHE_SIZE;
+            String sizeStr = Sorcer.getProperty(CACHE_SIZE);
+            if (sizeStr != null) {
+                try {
+                    maxSize = Long.parseLong(sizeStr.trim());
+                } catch (NumberFormatException e) {
+                    log.warn("Could not evaluate property: {}: {}, using default: {}", CACHE_SIZE, sizeStr, maxSize);
+                }
+            }
+            instance = new FileCache(root, maxSize, AbstractRemoteFile.hf);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the path of the file with the checksum in the cache.
+     *
+     * @throws IllegalArgumentException if the checksum is not a lowercase hex
+     *                                  string of the length of the hash function
+     */
+    public File getPath(String checksum) {
+        if (!isChecksum(checksum))
+            throw new IllegalArgumentException("Invalid checksum: " + checksum);
+        return root.resolve(checksum.substring(0, 2)).resolve(checksum).toFile();
+    }
+
+    private boolean isChecksum(String checksum) {
+        if (checksum == null || checksum.length() != hashFunction.bits() / 4)
+            return false;
+        for (int i = 0; i < checksum.length(); i++) {
+            char c = checksum.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f'))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the cached file with the checksum, copied from the source if it
+     * is not cached. The file is not removed from the cache until it is
+     * released with {@link #release(String)}.
+     *
+     * @throws IOException if the file could not be copied or its checksum is different
+     */
+    public File get(final String checksum, final Source source) throws IOException {
+        File cached = getPath(checksum);
+        // pinned before it is checked, so it is either gone or kept
+        pin(checksum);
+        boolean done = false;
+        try {
+            if (cached.isFile())
+                cached.setLastModified(System.currentTimeMillis());
+            else
+                fetch(checksum, source);
+            done = true;
+            return cached;
+        } finally {
+            if (!done)
+                release(checksum);
+        }
+    }
+
+    /**
+     * Releases a file returned by {@link #get(String, Source)}, so it may be
+     * removed from the cache when it is not in use by other callers.
+     */
+    public void release(String checksum) {
+        synchronized (pins) {
+            Integer count = pins.get(checksum);
+            if (count == null)
+                throw new IllegalStateException("File not in use: " + checksum);
+            if (count == 1)
+                pins.remove(checksum);
+            else
+                pins.put(checksum, count - 1);
+        }
+    }
+
+    private void pin(String checksum) {
+        synchronized (pins) {
+            Integer count = pins.get(checksum);
+            pins.put(checksum, count == null ? 1 : count + 1);
+        }
+    }
+
+    /**
+     * Copies the file from the source, or waits for the copy started by
+     * another caller.
+     */
+    private void fetch(final String checksum, final Source source) throws IOException {
+        FutureTask<File> download = new FutureTask<File>(new Callable<File>() {
+            @Override
+            public File call() throws IOException {
+                return download(checksum, source);
+            }
+        });
+        FutureTask<File> existing = downloads.putIfAbsent(checksum, download);
+        if (existing == null) {
+            try {
+                download.run();
+            } finally {
+                downloads.remove(checksum, download);
+            }
+        } else {
+            download = existing;
+        }
+        try {
+            download.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for " + checksum);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            throw new IOException("Could not get file " + checksum, cause);
+        }
+    }
+
+    private File download(String checksum, Source source) throws IOException {
+        File cached = getPath(checksum);
+        if (cached.isFile())
+            return cached;
+        Path part = Files.createTempFile(tmp, checksum, ".part");
+        try {
+            String actual;
+            try (HashingOutputStream out = new HashingOutputStream(hashFunction,
+                                                                   new BufferedOutputStream(Files.newOutputStream(part)))) {
+                source.copyTo(out);
+                out.flush();
+                actual = out.hash().toString();
+            }
+            if (!checksum.equals(actual))
+                throw new IOException("Invalid checksum of downloaded file, expected: " + checksum + ", was: " + actual);
+            part.toFile().setReadOnly();
+            Files.createDirectories(cached.getParentFile().toPath());
+            try {
+                Files.move(part, cached.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(part, cached.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(part);
+        }
+        if (size.get() >= 0)
+            size.addAndGet(cached.length());
+        evict();
+        return cached;
+    }
+
+    /**
+     * Removes the least recently used files while the cache is over its size.
+     */
+    private synchronized void evict() throws IOException {
+        if (size.get() < 0)
+            size.set(scan(null));
+        if (size.get() <= maxSize)
+            return;
+        List<File> files = new ArrayList<File>();
+        scan(files);
+        // the times are read once, files used while sorting must not break the order
+        final Map<File, Long> lastUsed = new HashMap<File, Long>(files.size() * 2);
+        for (File f : files)
+            lastUsed.put(f, f.lastModified());
+        Collections.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                return Long.compare(lastUsed.get(f1), lastUsed.get(f2));
+            }
+        });
+        for (File f : files) {
+            if (size.get() <= maxSize)
+                break;
+            long length = f.length();
+            synchronized (pins) {
+                if (pins.containsKey(f.getName()) || !f.delete())
+                    continue;
+            }
+            size.addAndGet(-length);
+            log.debug("Removed {} from file cache", f);
+        }
+    }
+
+    private long scan(List<File> files) throws IOException {
+        long total = 0;
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root)) {
+            for (Path dir : dirs) {
+                if (!Files.isDirectory(dir) || dir.equals(tmp))
+                    continue;
+                File[] cached = dir.toFile().listFiles();
+                if (cached == null)
+                    continue;
+                for (File f : cached) {
+                    total += f.length();
+                    if (files != null)
+                        files.add(f);
+                }
+            }
+        }
+        return total;
+    }
+}
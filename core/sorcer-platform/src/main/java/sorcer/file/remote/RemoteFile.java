@@ -29,4 +29,9 @@ public interface RemoteFile {
      * Before returning, the checksum is verified against eval stored in this object.
      */
     File getValue() throws EvaluationException;
+
+    /**
+     * Releases the local file returned by {@link #getValue()}, so it may be removed. Called once for each file returned.
+     */
+    void release();
 }
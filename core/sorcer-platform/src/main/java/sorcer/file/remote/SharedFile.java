@@ -45,4 +45,11 @@ public class SharedFile extends AbstractRemoteFile {
     protected File getLocalPath() {
         return sharedFile;
     }
+
+    /**
+     * The shared file is not removed.
+     */
+    @Override
+    public void release() {
+    }
 }
@@ -17,16 +17,17 @@
 package sorcer.file.remote;
 
 import com.google.common.io.Resources;
-import sorcer.file.ScratchDirManager;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.net.URL;
 
 /**
- * Remote file that is copied over web using webster data appliance.
+ * Remote file that is copied over web using webster data appliance. Copied
+ * files are kept in the {@link FileCache}, shared by all web files with the
+ * same checksum.
  *
  * @author Rafał Krupiński
  */
@@ -41,16 +42,32 @@ public class WebFile extends AbstractRemoteFile implements Serializable {
 
     @Override
     protected File doGetFile() throws IOException {
-        File localFile = getLocalPath();
-        try (FileOutputStream local = new FileOutputStream(localFile)) {
-            Resources.copy(remoteUrl, local);
+        return FileCache.getInstance().get(checksum, new FileCache.Source() {
+            @Override
+            public void copyTo(OutputStream out) throws IOException {
+                Resources.copy(remoteUrl, out);
+            }
+        });
+    }
+
+    @Override
+    public void release() {
+        try {
+            FileCache.getInstance().release(checksum);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not release " + checksum, e);
         }
-        return localFile;
     }
 
     @Override
     protected File getLocalPath() throws IOException {
-        File parent = new ScratchDirManager().getNewScratchDir("remote-file");
-        return new File(parent, checksum);
+        return FileCache.getInstance().getPath(checksum);
+    }
+
+    /**
+     * The cache verifies the checksum while the file is copied.
+     */
+    @Override
+    protected void verify(File file) {
     }
 }
@@ -48,18 +48,18 @@ public class RecordingInvocationDispatcher extends BasicInvocationDispatcher {
     @Override
     protected Object invoke(Remote impl, Method method, Object[] args, Collection context) throws Throwable {
         boolean monitor = MonitorCheck.check(method);
-        int id = 0;
+        long startTime = 0;
         if(monitor)
-            id = recorder.inprocess(method.getName());
+            startTime = recorder.inprocess(method.getName());
         try {
             Object result = doInvoke(impl, method, args, context);
             if(monitor)
-                recorder.completed(method.getName(), id);
+                recorder.completed(method.getName(), startTime);
             return result;
         } catch (Throwable t) {
             logger.error("Failed", t);
             if(monitor)
-                recorder.failed(method.getName(), id);
+                recorder.failed(method.getName(), startTime);
             throw t;
         }
     }
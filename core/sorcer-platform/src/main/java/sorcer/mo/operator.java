@@ -129,6 +129,8 @@ public class operator {
                 proc.getScope().putValue(proc.getName(), value);
         }
 
+        if (model instanceof ProcModel)
+            ((ProcModel) model).entryChanged(entName);
         ((ServiceMogram)model).setIsChanged(true);
         return model;
     }
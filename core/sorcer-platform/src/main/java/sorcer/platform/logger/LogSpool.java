@@ -0,0 +1,191 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.platform.logger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps batches of logging events on disk while the remote logger is not
+ * available, one file for each batch. Each JVM spools to its own directory
+ * locked while the JVM runs; batches left in the directory of a JVM that is
+ * gone are taken over by the next spool created. When the spool is over its
+ * size the oldest batches are dropped.
+ */
+class LogSpool {
+    private static final Logger log = LoggerFactory.getLogger(LogSpool.class);
+    private static final String LOCK = ".lock";
+    private static final String SUFFIX = ".batch";
+    private static final long ADOPT_AFTER = 60 * 1000;
+
+    private final File dir;
+    private final long maxSize;
+    private final RandomAccessFile lockFile;
+    private final FileLock lock;
+    private long size;
+    private long sequence;
+    private long dropped;
+
+    LogSpool(File root, long maxSize) throws IOException {
+        this.maxSize = maxSize;
+        dir = new File(root, UUID.randomUUID().toString());
+        if (!dir.mkdirs())
+            throw new IOException("Could not create " + dir);
+        lockFile = new RandomAccessFile(new File(dir, LOCK), "rw");
+        lock = lockFile.getChannel().lock();
+        adopt(root);
+    }
+
+    boolean isEmpty() {
+        return getBatches().isEmpty();
+    }
+
+    /**
+     * Returns the batch files in the order they were written.
+     */
+    List<File> getBatches() {
+        File[] files = dir.listFiles();
+        List<File> batches = new ArrayList<File>();
+        if (files == null)
+            return batches;
+        Arrays.sort(files);
+        for (File f : files) {
+            if (f.getName().endsWith(SUFFIX))
+                batches.add(f);
+        }
+        return batches;
+    }
+
+    synchronized void write(byte[] batch) throws IOException {
+        if (size + batch.length > maxSize) {
+            for (File f : getBatches()) {
+                if (size + batch.length <= maxSize)
+                    break;
+                remove(f);
+                dropped++;
+            }
+        }
+        File tmp = new File(dir, name(sequence) + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(batch);
+        }
+        if (!tmp.renameTo(new File(dir, name(sequence++) + SUFFIX)))
+            throw new IOException("Could not rename " + tmp);
+        size += batch.length;
+    }
+
+    byte[] read(File batch) throws IOException {
+        return Files.readAllBytes(batch.toPath());
+    }
+
+    synchronized void remove(File batch) {
+        long length = batch.length();
+        if (batch.delete())
+            size -= length;
+    }
+
+    /**
+     * Returns the number of batches dropped because the spool was full.
+     */
+    synchronized long getDropped() {
+        return dropped;
+    }
+
+    void close() throws IOException {
+        lock.release();
+        lockFile.close();
+        if (isEmpty()) {
+            new File(dir, LOCK).delete();
+            dir.delete();
+        }
+    }
+
+    /**
+     * Moves batches of spools not locked by a running JVM to this spool.
+     */
+    private void adopt(File root) {
+        File[] dirs = root.listFiles();
+        if (dirs == null)
+            return;
+        Arrays.sort(dirs);
+        for (File other : dirs) {
+            if (!other.isDirectory() || other.equals(dir))
+                continue;
+            // a spool just created may not be locked yet
+            if (System.currentTimeMillis() - other.lastModified() < ADOPT_AFTER)
+                continue;
+            File otherLock = new File(other, LOCK);
+            try (RandomAccessFile raf = new RandomAccessFile(otherLock, "rw")) {
+                FileLock l;
+                try {
+                    l = raf.getChannel().tryLock();
+                } catch (OverlappingFileLockException e) {
+                    // locked by a spool of this JVM
+                    continue;
+                }
+                if (l == null)
+                    continue;
+                File[] files = other.listFiles();
+                boolean moved = true;
+                if (files != null) {
+                    Arrays.sort(files);
+                    for (File f : files) {
+                        if (!f.getName().endsWith(SUFFIX))
+                            continue;
+                        File batch = new File(dir, name(sequence++) + SUFFIX);
+                        if (f.renameTo(batch))
+                            size += batch.length();
+                        else
+                            moved = false;
+                    }
+                }
+                l.release();
+                if (!moved) {
+                    // keep the batches not moved, the next spool created tries again
+                    log.warn("Could not take over all logging events spooled in {}", other);
+                    continue;
+                }
+            } catch (IOException e) {
+                log.warn("Could not take over log spool {}, {}: {}", other, e.getClass().getName(), e.getMessage());
+                continue;
+            }
+            File[] rest = other.listFiles();
+            if (rest != null) {
+                for (File f : rest)
+                    f.delete();
+            }
+            if (other.delete())
+                log.info("Took over logging events spooled in {}", other);
+        }
+    }
+
+    private static String name(long sequence) {
+        return String.format("%016d", sequence);
+    }
+}
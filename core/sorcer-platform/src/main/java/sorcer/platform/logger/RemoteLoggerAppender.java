@@ -21,15 +21,18 @@ import ch.qos.logback.core.UnsynchronizedAppenderBase;
 import sorcer.core.provider.RemoteLogger;
 
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Publish log to remote logger service through a queue.
+ * Publish log to remote logger service through a queue. Events are dropped
+ * when a bounded queue is full.
  *
  * @author Rafał Krupiński
  */
 public class RemoteLoggerAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
     private Queue<ILoggingEvent> queue;
     private String hostname;
+    private final AtomicLong dropped = new AtomicLong();
 
     public RemoteLoggerAppender(Queue<ILoggingEvent> queue, String hostname) {
         assert queue != null;
@@ -40,6 +43,14 @@ public class RemoteLoggerAppender extends UnsynchronizedAppenderBase<ILoggingEve
     @Override
     protected void append(ILoggingEvent eventObject) {
         eventObject.getMDCPropertyMap().put(RemoteLogger.KEY_HOSTNAME, hostname);
-        queue.add(eventObject);
+        if (!queue.offer(eventObject))
+            dropped.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of events dropped because the queue was full.
+     */
+    public long getDropped() {
+        return dropped.get();
     }
 }
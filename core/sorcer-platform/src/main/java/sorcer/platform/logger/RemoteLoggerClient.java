@@ -21,85 +21,184 @@ import ch.qos.logback.classic.spi.LoggingEventVO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sorcer.core.provider.RemoteLogger;
+import sorcer.core.provider.logger.LogBatchException;
+import sorcer.core.provider.logger.LoggingEvents;
 import sorcer.service.Accessor;
 
+import java.io.File;
+import java.io.IOException;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 
 /**
- * Reads the log message queue. If RemoteLogger is available, the message is sent.
+ * Reads the log message queue. If RemoteLogger is available, the messages are
+ * sent in compressed batches.
  * <p>
- * If RemoteLogger is not available, or it fails twice, the messages are discarded.
+ * If RemoteLogger is not available, or it fails twice, the batches are kept in
+ * a {@link LogSpool} on disk and sent before new messages when RemoteLogger is
+ * available again. RemoteLogger is looked up again after the retry interval.
+ * Batches RemoteLogger can not read are dropped.
  *
  * @author Rafał Krupiński
  */
 public class RemoteLoggerClient implements Runnable {
     private static final Logger log = LoggerFactory.getLogger(RemoteLoggerClient.class);
     private BlockingQueue<ILoggingEvent> queue;
+    private RemoteLoggerAppender appender;
     private RemoteLogger remoteLogger;
+    private final LogSpool spool;
+    private final int batchSize;
+    private final long retryInterval;
+    private long nextLookup;
+    private long droppedBatches;
+    private long rejectedBatches;
+    private long reportedDrops;
 
     public RemoteLoggerClient(BlockingQueue<ILoggingEvent> queue) {
+        this(queue, null, null, 1000, 5000);
+    }
+
+    /**
+     * @param queue the log message queue
+     * @param appender the appender of the queue, for its count of dropped messages
+     * @param spool the spool directory, or null to drop messages while RemoteLogger is not available
+     * @param batchSize the maximum number of messages sent in a batch
+     * @param retryInterval the interval in milliseconds to look up RemoteLogger
+     */
+    RemoteLoggerClient(BlockingQueue<ILoggingEvent> queue, RemoteLoggerAppender appender, LogSpool spool,
+                       int batchSize, long retryInterval) {
         assert queue != null;
         this.queue = queue;
+        this.appender = appender;
+        this.spool = spool;
+        this.batchSize = batchSize;
+        this.retryInterval = retryInterval;
     }
 
     @Override
     public void run() {
         try {
-            LinkedList<ILoggingEvent> loggingEvents = new LinkedList<ILoggingEvent>();
-            int count = queue.drainTo(loggingEvents);
-            if (count == 0)
-                return;
-            publish(loggingEvents);
+            boolean available = spool == null || spool.isEmpty() || replay();
+            List<ILoggingEvent> loggingEvents = new ArrayList<ILoggingEvent>();
+            while (queue.drainTo(loggingEvents, batchSize) > 0) {
+                byte[] batch = LoggingEvents.compress(vo(loggingEvents));
+                loggingEvents.clear();
+                if (!available || !publish(batch)) {
+                    available = false;
+                    spill(batch);
+                }
+            }
+            reportDrops();
         } catch (Throwable t) {
             log.error("Problem: ", t);
         }
     }
 
-    private void publish(List<ILoggingEvent> loggingEvents) {
-        if (remoteLogger != null) {
-            publishRetry(vo(loggingEvents));
-        } else {
-            publishNoRetry1(loggingEvents);
+    /**
+     * Publishes the spooled batches in order.
+     *
+     * @return true if all batches were published or rejected
+     */
+    private boolean replay() {
+        for (File f : spool.getBatches()) {
+            byte[] batch;
+            try {
+                batch = spool.read(f);
+            } catch (IOException e) {
+                log.warn("Could not read spooled logging events {}, {}: {}", f, e.getClass().getName(), e.getMessage());
+                spool.remove(f);
+                continue;
+            }
+            if (!publish(batch))
+                return false;
+            spool.remove(f);
         }
+        return true;
     }
 
     /**
-     * Publishes the logging event to RemoteLogger using cashed proxy. Retries once on failure using {@link #publishNoRetry(java.util.List)}.
+     * Publishes the batch to RemoteLogger using cashed proxy. Retries once on failure with a new proxy.
      *
-     * @param vos the logging events to publish
+     * @param batch the compressed logging events to publish
+     * @return true if the batch was published or rejected by RemoteLogger, false if RemoteLogger is not available
      */
-    private void publishRetry(List<LoggingEventVO> vos) {
+    private boolean publish(byte[] batch) {
+        RemoteLogger logger = getRemoteLogger();
+        if (logger == null)
+            return false;
         try {
-            remoteLogger.publish(vos);
+            logger.publish(batch);
+            return true;
         } catch (RemoteException e) {
             log.debug("Could not publish logging event, retrying", e);
-            publishNoRetry(vos);
+        } catch (LogBatchException e) {
+            return reject(e);
+        }
+        remoteLogger = null;
+        nextLookup = 0;
+        logger = getRemoteLogger();
+        if (logger != null) {
+            try {
+                logger.publish(batch);
+                return true;
+            } catch (RemoteException e) {
+                log.debug("Could not publish logging event", e);
+                remoteLogger = null;
+                nextLookup = System.currentTimeMillis() + retryInterval;
+            } catch (LogBatchException e) {
+                return reject(e);
+            }
         }
+        return false;
     }
 
-    private void publishNoRetry1(List<ILoggingEvent> loggingEvents) {
-        publishNoRetry(vo(loggingEvents));
+    private boolean reject(LogBatchException e) {
+        rejectedBatches++;
+        log.warn("RemoteLogger rejected a batch of logging events: {}", e.getMessage());
+        return true;
     }
 
     /**
-     * Gets a new RemoteLogger proxy and if it's available, publishes the logging event to it.
-     *
-     * @param vos the logging events to publish
+     * Gets a new RemoteLogger proxy if there is no cached one, at most once per retry interval.
      */
-    private void publishNoRetry(List<LoggingEventVO> vos) {
-        Object o = Accessor.get().getService(null, RemoteLogger.class);
-        remoteLogger = (RemoteLogger)o;
-        if (remoteLogger != null)
-            try {
-                remoteLogger.publish(vos);
-            } catch (RemoteException e) {
-                log.debug("Could not publish logging event", e);
-                remoteLogger = null;
-            }
+    private RemoteLogger getRemoteLogger() {
+        if (remoteLogger == null && System.currentTimeMillis() >= nextLookup) {
+            remoteLogger = lookup();
+            if (remoteLogger == null)
+                nextLookup = System.currentTimeMillis() + retryInterval;
+        }
+        return remoteLogger;
+    }
+
+    RemoteLogger lookup() {
+        return (RemoteLogger) Accessor.get().getService(null, RemoteLogger.class);
+    }
+
+    private void spill(byte[] batch) {
+        if (spool == null) {
+            droppedBatches++;
+            log.debug("No RemoteLogger available, dropped a batch of logging events");
+            return;
+        }
+        try {
+            spool.write(batch);
+        } catch (IOException e) {
+            droppedBatches++;
+            log.warn("Could not spool logging events, {}: {}", e.getClass().getName(), e.getMessage());
+        }
+    }
+
+    private void reportDrops() {
+        long droppedEvents = appender == null ? 0 : appender.getDropped();
+        long droppedSpooled = spool == null ? 0 : spool.getDropped();
+        long drops = droppedEvents + droppedSpooled + droppedBatches + rejectedBatches;
+        if (drops > reportedDrops) {
+            log.warn("Dropped {} logging events of a full queue, {} spooled batches of a full spool, {} batches not spooled and {} batches rejected",
+                     droppedEvents, droppedSpooled, droppedBatches, rejectedBatches);
+            reportedDrops = drops;
+        }
     }
 
     private static List<LoggingEventVO> vo(List<ILoggingEvent> loggingEvents) {
@@ -32,6 +32,7 @@ import sorcer.util.ConfigurableThreadFactory;
 import sorcer.util.Sorcer;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.UnknownHostException;
 import java.util.concurrent.*;
 
@@ -52,6 +53,20 @@ public class RemoteLoggerInstaller implements DestroyAdmin {
     @ConfigEntry(required = false)
     public String hostname;
 
+    @ConfigEntry(required = false)
+    public int capacity = 10000;
+
+    @ConfigEntry(required = false)
+    public int batchSize = 1000;
+
+    @ConfigEntry(required = false)
+    public long retryInterval = 5000;
+
+    @ConfigEntry(required = false)
+    public long spoolSize = 64 * 1024 * 1024;
+
+    private LogSpool spool;
+
     private ScheduledFuture<?> scheduledFuture;
 
     {
@@ -74,9 +89,7 @@ public class RemoteLoggerInstaller implements DestroyAdmin {
     }
 
     private void init() {
-        BlockingQueue<ILoggingEvent> queue = new LinkedBlockingDeque<ILoggingEvent>();
-
-        installClient(queue);
+        BlockingQueue<ILoggingEvent> queue = new ArrayBlockingQueue<ILoggingEvent>(capacity);
 
         ILoggerFactory loggerFactory = LoggerFactory.getILoggerFactory();
         if (!(loggerFactory instanceof LoggerContext))
@@ -94,14 +107,22 @@ public class RemoteLoggerInstaller implements DestroyAdmin {
         remoteAppender.addFilter(MDCFilter.instance);
         remoteAppender.start();
         root.addAppender(remoteAppender);
+
+        installClient(queue, remoteAppender);
     }
 
-    private void installClient(BlockingQueue<ILoggingEvent> queue) {
+    private void installClient(BlockingQueue<ILoggingEvent> queue, RemoteLoggerAppender appender) {
         ConfigurableThreadFactory threadFactory = new ConfigurableThreadFactory();
         threadFactory.setNameFormat("Logger");
 
+        try {
+            spool = new LogSpool(new File(Sorcer.getHomeDir(), "logs/spool"), spoolSize);
+        } catch (IOException e) {
+            log.warn("Could not create log spool, logging events are dropped while RemoteLogger is not available", e);
+        }
+        RemoteLoggerClient client = new RemoteLoggerClient(queue, appender, spool, batchSize, retryInterval);
         ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
-        scheduledFuture = scheduler.scheduleAtFixedRate(new RemoteLoggerClient(queue), 0, rate, TimeUnit.MILLISECONDS);
+        scheduledFuture = scheduler.scheduleAtFixedRate(client, 0, rate, TimeUnit.MILLISECONDS);
     }
 
     @Override
@@ -110,6 +131,13 @@ public class RemoteLoggerInstaller implements DestroyAdmin {
             scheduledFuture.cancel(false);
         else
             log.debug("No RemoteLoggerClient started");
+        if (spool != null) {
+            try {
+                spool.close();
+            } catch (IOException e) {
+                log.debug("Could not close log spool", e);
+            }
+        }
     }
 
     private void localInit() {
@@ -0,0 +1,829 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sorcer.util;
+
+import sorcer.util.DataTable.Cell;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * The cells of a columnar {@link DataTable} stored by column. Doubles and
+ * floats are stored in a <code>double[]</code>, integers and longs in a
+ * <code>long[]</code> and strings as codes of a dictionary. A column is typed
+ * by the cell type of its table, or by its first value if that does not
+ * match the cell type, and falls back to objects for a value of another type.
+ * Columns may have a hash index of the string values of their cells and
+ * numeric columns a sorted index, built when first queried after the column
+ * was changed.
+ *
+ * The rows of the store are a list of row views, so the store may be used as
+ * the data list of its table. A row view reads and writes the cells of the
+ * row at its index.
+ */
+class ColumnStore implements Serializable {
+    private static final long serialVersionUID = 4186295530475117312L;
+    private static final int[] NONE = new int[0];
+
+    private final Cell cellType;
+    private final List<Column> columns = new ArrayList<Column>();
+    private final Rows rows = new Rows();
+    private int rowCount;
+
+    ColumnStore(Cell cellType, List<? extends List<?>> data) {
+        this.cellType = cellType == null ? Cell.STRING : cellType;
+        if (data != null) {
+            for (List<?> row : data)
+                insertRow(rowCount, row);
+        }
+    }
+
+    List<List<?>> rows() {
+        return rows;
+    }
+
+    synchronized int getRowCount() {
+        return rowCount;
+    }
+
+    synchronized int getColumnCount() {
+        return columns.size();
+    }
+
+    synchronized Object get(int row, int column) {
+        checkRow(row);
+        return columns.get(column).get(row);
+    }
+
+    synchronized Object set(int row, int column, Object value) {
+        checkRow(row);
+        Column c = columns.get(column);
+        Object old = c.get(row);
+        typed(column, value).set(row, value);
+        return old;
+    }
+
+    synchronized void insertRow(int row, List<?> values) {
+        if (row < 0 || row > rowCount)
+            throw new IndexOutOfBoundsException("Row: " + row + ", rows: " + rowCount);
+        int width = values == null ? 0 : values.size();
+        while (columns.size() < width)
+            columns.add(newColumn(rowCount));
+        for (int j = 0; j < columns.size(); j++) {
+            Object value = j < width ? values.get(j) : null;
+            typed(j, value).insert(row, rowCount);
+            columns.get(j).set(row, value);
+        }
+        rowCount++;
+    }
+
+    synchronized List<Object> removeRow(int row) {
+        List<Object> removed = getRow(row);
+        for (Column c : columns)
+            c.remove(row, rowCount);
+        rowCount--;
+        return removed;
+    }
+
+    synchronized List<Object> getRow(int row) {
+        checkRow(row);
+        List<Object> values = new ArrayList<Object>(columns.size());
+        for (Column c : columns)
+            values.add(c.get(row));
+        return values;
+    }
+
+    synchronized List<Object> setRow(int row, List<?> values) {
+        List<Object> old = getRow(row);
+        int width = values == null ? 0 : values.size();
+        while (columns.size() < width)
+            columns.add(newColumn(rowCount));
+        for (int j = 0; j < columns.size(); j++) {
+            Object value = j < width ? values.get(j) : null;
+            typed(j, value).set(row, value);
+        }
+        return old;
+    }
+
+    /**
+     * Inserts a column of the values, rows are added if there are more values
+     * than rows.
+     */
+    synchronized void insertColumn(int column, List<?> values) {
+        int size = values == null ? 0 : values.size();
+        columns.add(column, newColumn(rowCount));
+        for (int i = 0; i < size; i++) {
+            if (i == rowCount)
+                insertRow(rowCount, null);
+            typed(column, values.get(i)).set(i, values.get(i));
+        }
+    }
+
+    synchronized void removeColumn(int column) {
+        columns.remove(column);
+    }
+
+    synchronized List<Object> getColumn(int column) {
+        Column c = columns.get(column);
+        List<Object> values = new ArrayList<Object>(rowCount);
+        for (int i = 0; i < rowCount; i++)
+            values.add(c.get(i));
+        return values;
+    }
+
+    synchronized void clear() {
+        columns.clear();
+        rowCount = 0;
+    }
+
+    /**
+     * Returns the minimum and the maximum of a numeric column, or
+     * <code>null</code> if the column is not numeric.
+     */
+    synchronized double[] getMinMax(int column) {
+        Column c = columns.get(column);
+        if (!(c instanceof NumericColumn) || rowCount == 0)
+            return null;
+        NumericColumn n = (NumericColumn) c;
+        if (n.sorted && n.sortedKeys(rowCount).length == rowCount) {
+            double[] keys = n.sortedKeys(rowCount);
+            return new double[] { keys[0], keys[keys.length - 1] };
+        }
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < rowCount; i++) {
+            if (n.isNull(i))
+                return null;
+            double d = n.getDouble(i);
+            if (d < min)
+                min = d;
+            if (d > max)
+                max = d;
+        }
+        return new double[] { min, max };
+    }
+
+    /**
+     * Returns the rows with the value in the column, compared by the string
+     * of their cells if <code>byString</code> or else by equality.
+     */
+    synchronized int[] select(int column, Object value, boolean byString) {
+        if (value == null)
+            return NONE;
+        Column c = columns.get(column);
+        if (c.hashed) {
+            int[] rows = c.hashIndex(rowCount).get(value.toString());
+            if (rows == null)
+                return NONE;
+            if (byString)
+                return rows;
+            int[] selected = new int[rows.length];
+            int n = 0;
+            for (int row : rows) {
+                if (value.equals(c.get(row)))
+                    selected[n++] = row;
+            }
+            return Arrays.copyOf(selected, n);
+        }
+        return c.select(value, byString, rowCount);
+    }
+
+    /**
+     * Returns whether the cell has the value, compared as by
+     * {@link #select}.
+     */
+    synchronized boolean matches(int row, int column, Object value, boolean byString) {
+        Object cell = columns.get(column).get(row);
+        if (cell == null || value == null)
+            return false;
+        return byString ? cell.toString().equals(value.toString()) : cell.equals(value);
+    }
+
+    /**
+     * Returns the rows with values of a numeric column within the range, in
+     * the order of values if the column is sorted, or <code>null</code> if
+     * the column is not numeric.
+     */
+    synchronized int[] selectRange(int column, double from, double to) {
+        Column c = columns.get(column);
+        if (!(c instanceof NumericColumn))
+            return null;
+        NumericColumn n = (NumericColumn) c;
+        if (n.sorted) {
+            double[] keys = n.sortedKeys(rowCount);
+            int low = lowerBound(keys, from);
+            int high = lowerBound(keys, Math.nextUp(to));
+            return Arrays.copyOfRange(n.sortedRows, low, Math.max(low, high));
+        }
+        int[] selected = new int[rowCount];
+        int k = 0;
+        for (int i = 0; i < rowCount; i++) {
+            if (!n.isNull(i)) {
+                double d = n.getDouble(i);
+                if (d >= from && d <= to)
+                    selected[k++] = i;
+            }
+        }
+        return Arrays.copyOf(selected, k);
+    }
+
+    synchronized void createIndex(int column, boolean sorted) {
+        Column c = columns.get(column);
+        if (sorted) {
+            if (!(c instanceof NumericColumn))
+                throw new IllegalArgumentException("Column " + column + " is not numeric");
+            ((NumericColumn) c).sorted = true;
+        } else {
+            c.hashed = true;
+        }
+    }
+
+    private static int lowerBound(double[] keys, double key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= rowCount)
+            throw new IndexOutOfBoundsException("Row: " + row + ", rows: " + rowCount);
+    }
+
+    /**
+     * Returns the column able to store the value, replacing a column of
+     * another type.
+     */
+    private Column typed(int j, Object value) {
+        Column c = columns.get(j);
+        if (c.accepts(value))
+            return c;
+        Column typed = c.hasValues(rowCount) ? null : newColumn(value, rowCount);
+        if (typed == null)
+            typed = new ObjectColumn(rowCount);
+        for (int i = 0; i < rowCount; i++)
+            typed.set(i, c.get(i));
+        typed.hashed = c.hashed;
+        if (typed instanceof NumericColumn && c instanceof NumericColumn)
+            ((NumericColumn) typed).sorted = ((NumericColumn) c).sorted;
+        columns.set(j, typed);
+        return typed;
+    }
+
+    private Column newColumn(int size) {
+        switch (cellType) {
+            case DOUBLE:
+                return new DoubleColumn(false, size);
+            case FLOAT:
+                return new DoubleColumn(true, size);
+            case INTEGER:
+                return new LongColumn(true, size);
+            case LONG:
+                return new LongColumn(false, size);
+            case STRING:
+                return new StringColumn(size);
+            default:
+                return new ObjectColumn(size);
+        }
+    }
+
+    private static Column newColumn(Object value, int size) {
+        if (value instanceof Double)
+            return new DoubleColumn(false, size);
+        if (value instanceof Float)
+            return new DoubleColumn(true, size);
+        if (value instanceof Integer)
+            return new LongColumn(true, size);
+        if (value instanceof Long)
+            return new LongColumn(false, size);
+        if (value instanceof String)
+            return new StringColumn(size);
+        return null;
+    }
+
+    private static int grow(int size) {
+        return Math.max(16, size + (size >> 1));
+    }
+
+    private abstract static class Column implements Serializable {
+        private static final long serialVersionUID = -2383740473052016573L;
+        boolean hashed;
+        private transient Map<String, int[]> hashIndex;
+
+        abstract Object get(int i);
+
+        abstract boolean accepts(Object value);
+
+        /**
+         * Sets a value accepted by the column.
+         */
+        abstract void set(int i, Object value);
+
+        /**
+         * Inserts a null cell at the index.
+         */
+        abstract void insert(int i, int size);
+
+        abstract void remove(int i, int size);
+
+        abstract boolean isNull(int i);
+
+        void changed() {
+            hashIndex = null;
+        }
+
+        boolean hasValues(int size) {
+            for (int i = 0; i < size; i++) {
+                if (!isNull(i))
+                    return true;
+            }
+            return false;
+        }
+
+        int[] select(Object value, boolean byString, int size) {
+            int[] selected = new int[size];
+            int n = 0;
+            String s = value.toString();
+            for (int i = 0; i < size; i++) {
+                Object cell = get(i);
+                if (cell != null && (byString ? cell.toString().equals(s) : cell.equals(value)))
+                    selected[n++] = i;
+            }
+            return Arrays.copyOf(selected, n);
+        }
+
+        Map<String, int[]> hashIndex(int size) {
+            if (hashIndex == null) {
+                Map<String, IntList> rows = new HashMap<String, IntList>();
+                for (int i = 0; i < size; i++) {
+                    Object cell = get(i);
+                    if (cell == null)
+                        continue;
+                    String key = cell.toString();
+                    IntList l = rows.get(key);
+                    if (l == null)
+                        rows.put(key, l = new IntList());
+                    l.add(i);
+                }
+                hashIndex = new HashMap<String, int[]>(rows.size() * 2);
+                for (Map.Entry<String, IntList> e : rows.entrySet())
+                    hashIndex.put(e.getKey(), e.getValue().toArray());
+            }
+            return hashIndex;
+        }
+    }
+
+    private abstract static class NumericColumn extends Column {
+        private static final long serialVersionUID = 7359166232153312815L;
+        boolean[] nulls;
+        boolean sorted;
+        transient int[] sortedRows;
+        private transient double[] sortedKeys;
+
+        abstract double getDouble(int i);
+
+        @Override boolean isNull(int i) {
+            return nulls != null && nulls[i];
+        }
+
+        void setNull(int i, boolean isNull) {
+            if (nulls == null) {
+                if (!isNull)
+                    return;
+                nulls = new boolean[capacity()];
+            }
+            nulls[i] = isNull;
+        }
+
+        abstract int capacity();
+
+        void insertNull(int i, int size, int capacity) {
+            if (nulls == null)
+                return;
+            if (nulls.length < capacity)
+                nulls = Arrays.copyOf(nulls, capacity);
+            System.arraycopy(nulls, i, nulls, i + 1, size - i);
+            nulls[i] = false;
+        }
+
+        void removeNull(int i, int size) {
+            if (nulls != null)
+                System.arraycopy(nulls, i + 1, nulls, i, size - i - 1);
+        }
+
+        @Override void changed() {
+            super.changed();
+            sortedRows = null;
+            sortedKeys = null;
+        }
+
+        /**
+         * Returns the values without nulls in ascending order, the rows of
+         * the values are in {@link #sortedRows}.
+         */
+        double[] sortedKeys(int size) {
+            if (sortedKeys == null) {
+                int[] rows = new int[size];
+                double[] keys = new double[size];
+                int n = 0;
+                for (int i = 0; i < size; i++) {
+                    if (!isNull(i)) {
+                        rows[n] = i;
+                        keys[n++] = getDouble(i);
+                    }
+                }
+                rows = Arrays.copyOf(rows, n);
+                keys = Arrays.copyOf(keys, n);
+                sort(keys, rows, new double[n], new int[n], 0, n);
+                sortedRows = rows;
+                sortedKeys = keys;
+            }
+            return sortedKeys;
+        }
+
+        private static void sort(double[] keys, int[] rows, double[] tmpKeys, int[] tmpRows, int from, int to) {
+            if (to - from < 2)
+                return;
+            int mid = (from + to) >>> 1;
+            sort(keys, rows, tmpKeys, tmpRows, from, mid);
+            sort(keys, rows, tmpKeys, tmpRows, mid, to);
+            if (Double.compare(keys[mid - 1], keys[mid]) <= 0)
+                return;
+            System.arraycopy(keys, from, tmpKeys, from, to - from);
+            System.arraycopy(rows, from, tmpRows, from, to - from);
+            int i = from, j = mid, k = from;
+            while (i < mid && j < to) {
+                if (Double.compare(tmpKeys[j], tmpKeys[i]) < 0) {
+                    keys[k] = tmpKeys[j];
+                    rows[k++] = tmpRows[j++];
+                } else {
+                    keys[k] = tmpKeys[i];
+                    rows[k++] = tmpRows[i++];
+                }
+            }
+            while (i < mid) {
+                keys[k] = tmpKeys[i];
+                rows[k++] = tmpRows[i++];
+            }
+            while (j < to) {
+                keys[k] = tmpKeys[j];
+                rows[k++] = tmpRows[j++];
+            }
+        }
+    }
+
+    private static class DoubleColumn extends NumericColumn {
+        private static final long serialVersionUID = -4390208575233367085L;
+        private final boolean floats;
+        private double[] values;
+
+        DoubleColumn(boolean floats, int size) {
+            this.floats = floats;
+            values = new double[grow(size)];
+            if (size > 0) {
+                nulls = new boolean[values.length];
+                Arrays.fill(nulls, 0, size, true);
+            }
+        }
+
+        @Override Object get(int i) {
+            if (isNull(i))
+                return null;
+            return floats ? (Object) (float) values[i] : (Object) values[i];
+        }
+
+        @Override double getDouble(int i) {
+            return values[i];
+        }
+
+        @Override boolean accepts(Object value) {
+            return value == null || (floats ? value instanceof Float : value instanceof Double);
+        }
+
+        @Override void set(int i, Object value) {
+            setNull(i, value == null);
+            if (value != null)
+                values[i] = ((Number) value).doubleValue();
+            changed();
+        }
+
+        @Override int capacity() {
+            return values.length;
+        }
+
+        @Override void insert(int i, int size) {
+            if (values.length == size)
+                values = Arrays.copyOf(values, grow(size));
+            System.arraycopy(values, i, values, i + 1, size - i);
+            insertNull(i, size, values.length);
+            changed();
+        }
+
+        @Override void remove(int i, int size) {
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            removeNull(i, size);
+            changed();
+        }
+
+        @Override int[] select(Object value, boolean byString, int size) {
+            double d;
+            if (byString) {
+                // a string of a cell is the canonical string of its value
+                try {
+                    d = floats ? Float.parseFloat(value.toString()) : Double.parseDouble(value.toString());
+                } catch (NumberFormatException e) {
+                    return NONE;
+                }
+                String s = floats ? Float.toString((float) d) : Double.toString(d);
+                if (!s.equals(value.toString()))
+                    return NONE;
+            } else if (accepts(value)) {
+                d = ((Number) value).doubleValue();
+            } else {
+                return NONE;
+            }
+            long bits = Double.doubleToLongBits(d);
+            int[] selected = new int[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (Double.doubleToLongBits(values[i]) == bits && !isNull(i))
+                    selected[n++] = i;
+            }
+            return Arrays.copyOf(selected, n);
+        }
+    }
+
+    private static class LongColumn extends NumericColumn {
+        private static final long serialVersionUID = 2996370384327455925L;
+        private final boolean ints;
+        private long[] values;
+
+        LongColumn(boolean ints, int size) {
+            this.ints = ints;
+            values = new long[grow(size)];
+            if (size > 0) {
+                nulls = new boolean[values.length];
+                Arrays.fill(nulls, 0, size, true);
+            }
+        }
+
+        @Override Object get(int i) {
+            if (isNull(i))
+                return null;
+            return ints ? (Object) (int) values[i] : (Object) values[i];
+        }
+
+        @Override double getDouble(int i) {
+            return values[i];
+        }
+
+        @Override boolean accepts(Object value) {
+            return value == null || (ints ? value instanceof Integer : value instanceof Long);
+        }
+
+        @Override void set(int i, Object value) {
+            setNull(i, value == null);
+            if (value != null)
+                values[i] = ((Number) value).longValue();
+            changed();
+        }
+
+        @Override int capacity() {
+            return values.length;
+        }
+
+        @Override void insert(int i, int size) {
+            if (values.length == size)
+                values = Arrays.copyOf(values, grow(size));
+            System.arraycopy(values, i, values, i + 1, size - i);
+            insertNull(i, size, values.length);
+            changed();
+        }
+
+        @Override void remove(int i, int size) {
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            removeNull(i, size);
+            changed();
+        }
+
+        @Override int[] select(Object value, boolean byString, int size) {
+            long l;
+            if (byString) {
+                try {
+                    l = ints ? Integer.parseInt(value.toString()) : Long.parseLong(value.toString());
+                } catch (NumberFormatException e) {
+                    return NONE;
+                }
+                if (!Long.toString(l).equals(value.toString()))
+                    return NONE;
+            } else if (accepts(value)) {
+                l = ((Number) value).longValue();
+            } else {
+                return NONE;
+            }
+            int[] selected = new int[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (values[i] == l && !isNull(i))
+                    selected[n++] = i;
+            }
+            return Arrays.copyOf(selected, n);
+        }
+    }
+
+    private static class StringColumn extends Column {
+        private static final long serialVersionUID = -6601577946380745005L;
+        private final List<String> dictionary = new ArrayList<String>();
+        private final Map<String, Integer> codes = new HashMap<String, Integer>();
+        // the code of a null cell
+        private static final int NULL = -1;
+        private int[] values;
+
+        StringColumn(int size) {
+            values = new int[grow(size)];
+            Arrays.fill(values, 0, size, NULL);
+        }
+
+        @Override Object get(int i) {
+            int code = values[i];
+            return code == NULL ? null : dictionary.get(code);
+        }
+
+        @Override boolean isNull(int i) {
+            return values[i] == NULL;
+        }
+
+        @Override boolean accepts(Object value) {
+            return value == null || value instanceof String;
+        }
+
+        @Override void set(int i, Object value) {
+            if (value == null) {
+                values[i] = NULL;
+            } else {
+                Integer code = codes.get(value);
+                if (code == null) {
+                    code = dictionary.size();
+                    dictionary.add((String) value);
+                    codes.put((String) value, code);
+                }
+                values[i] = code;
+            }
+            changed();
+        }
+
+        @Override void insert(int i, int size) {
+            if (values.length == size)
+                values = Arrays.copyOf(values, grow(size));
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = NULL;
+            changed();
+        }
+
+        @Override void remove(int i, int size) {
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            changed();
+        }
+
+        @Override int[] select(Object value, boolean byString, int size) {
+            if (!byString && !(value instanceof String))
+                return NONE;
+            Integer code = codes.get(value.toString());
+            if (code == null)
+                return NONE;
+            int[] selected = new int[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (values[i] == code)
+                    selected[n++] = i;
+            }
+            return Arrays.copyOf(selected, n);
+        }
+    }
+
+    private static class ObjectColumn extends Column {
+        private static final long serialVersionUID = 5826470335935409542L;
+        private Object[] values;
+
+        ObjectColumn(int size) {
+            values = new Object[grow(size)];
+        }
+
+        @Override Object get(int i) {
+            return values[i];
+        }
+
+        @Override boolean isNull(int i) {
+            return values[i] == null;
+        }
+
+        @Override boolean accepts(Object value) {
+            return true;
+        }
+
+        @Override void set(int i, Object value) {
+            values[i] = value;
+            changed();
+        }
+
+        @Override void insert(int i, int size) {
+            if (values.length == size)
+                values = Arrays.copyOf(values, grow(size));
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = null;
+            changed();
+        }
+
+        @Override void remove(int i, int size) {
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            values[size - 1] = null;
+            changed();
+        }
+    }
+
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int i) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = i;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * The rows of the store, a row replaced or removed is returned as a copy.
+     */
+    private class Rows extends AbstractList<List<?>> implements RandomAccess, Serializable {
+        private static final long serialVersionUID = -5542779006372269137L;
+
+        @Override public List<?> get(int index) {
+            checkRow(index);
+            return new Row(index);
+        }
+
+        @Override public int size() {
+            return getRowCount();
+        }
+
+        @Override public List<?> set(int index, List<?> row) {
+            return setRow(index, row);
+        }
+
+        @Override public void add(int index, List<?> row) {
+            insertRow(index, row);
+        }
+
+        @Override public List<?> remove(int index) {
+            return removeRow(index);
+        }
+
+        @Override public void clear() {
+            ColumnStore.this.clear();
+        }
+    }
+
+    private class Row extends AbstractList<Object> implements RandomAccess {
+        private final int row;
+
+        Row(int row) {
+            this.row = row;
+        }
+
+        @Override public Object get(int index) {
+            return ColumnStore.this.get(row, index);
+        }
+
+        @Override public Object set(int index, Object element) {
+            return ColumnStore.this.set(row, index, element);
+        }
+
+        @Override public int size() {
+            return getColumnCount();
+        }
+    }
+}
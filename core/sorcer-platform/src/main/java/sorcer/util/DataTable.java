@@ -78,6 +78,9 @@ public class DataTable implements ModelTable {
 	/* List of List that defines a dataTable */
 	protected List<List<?>> dataList;
 
+	/* Columns of a columnar dataTable, its dataList is a view of the rows of the columns */
+	protected ColumnStore columnStore;
+
 	// Input dataTable properties
 	/* Input dataTable file name */
 	protected String inputFileName;
@@ -258,6 +261,9 @@ public class DataTable implements ModelTable {
 	public List getColumn(int colIndex){
 		if (colIndex < 0)
 			return null;
+		if (columnStore != null)
+			return colIndex < columnStore.getColumnCount()
+					? columnStore.getColumn(colIndex) : Arrays.asList(new Object[getRowCount()]);
 
 		int rowCount = getRowCount();
 		List colList = new ArrayList();
@@ -298,6 +304,8 @@ public class DataTable implements ModelTable {
 
 	public void setDataList(List dataList) {
 		this.dataList = nonNullList(dataList);
+		if (columnStore != null)
+			toColumns();
 	}
 
 	/**
@@ -323,6 +331,69 @@ public class DataTable implements ModelTable {
 	public void setDataList(List dataList, List columnIdentifiers) {
 		this.dataList = nonNullList(dataList);
 		this.columnIdentifiers = nonNullList(columnIdentifiers);
+		if (columnStore != null)
+			toColumns();
+	}
+
+	/**
+	 * Returns whether the cells of this dataTable are stored by column.
+	 */
+	public boolean isColumnar() {
+		return columnStore != null;
+	}
+
+	/**
+	 * Stores the cells of this dataTable by column or by row. The cells of a
+	 * columnar dataTable are stored in primitive arrays by the cell type of
+	 * the dataTable, or by the type of the first value of a column, and
+	 * string cells are stored as codes of a dictionary. The rows of the
+	 * <code>dataList</code> of a columnar dataTable are views of the cells
+	 * at their index.
+	 *
+	 * @param columnar
+	 *            true to store the cells by column
+	 */
+	public void setColumnar(boolean columnar) {
+		if (columnar && columnStore == null) {
+			columnStore = new ColumnStore(cellType, dataList);
+			dataList = columnStore.rows();
+		} else if (!columnar && columnStore != null) {
+			List<List<?>> rows = (List) newList(getRowCount());
+			for (List<?> row : dataList)
+				rows.add(new ArrayList<Object>(row));
+			columnStore = null;
+			dataList = rows;
+		}
+	}
+
+	private void toColumns() {
+		if (dataList != columnStore.rows()) {
+			columnStore = new ColumnStore(cellType, dataList);
+			dataList = columnStore.rows();
+		}
+	}
+
+	/**
+	 * Adds an index on a column of this dataTable, the dataTable is made
+	 * columnar. A hash index selects the rows with a cell value in
+	 * <code>getValuesSuchThat</code> and <code>hasValueSuchThat</code>, a
+	 * sorted index of a numeric column selects the rows with values within a
+	 * range in <code>getValuesInRange</code>. An index is built when first
+	 * used after its column was changed.
+	 *
+	 * @param columnName
+	 *            the name of the indexed column
+	 * @param sorted
+	 *            true for a sorted index, false for a hash index
+	 */
+	public void createIndex(String columnName, boolean sorted) {
+		int column = columnIndexOf(columnName);
+		if (column < 0)
+			throw new IllegalArgumentException("No column: " + columnName);
+		setColumnar(true);
+		while (columnStore.getColumnCount() <= column)
+			columnStore.insertColumn(columnStore.getColumnCount(), null);
+		columnStore.createIndex(column, sorted);
 	}
 
 
@@ -473,7 +544,17 @@ public class DataTable implements ModelTable {
 			first = start;
 			last = to + end - start;
 		}
-		rotate(dataList, first, last + 1, shift);
+		if (columnStore != null) {
+			// rows of a columnar dataTable are views, rotate copies of them
+			List rows = new ArrayList(last + 1 - first);
+			for (int i = first; i <= last; i++)
+				rows.add(columnStore.getRow(i));
+			rotate(rows, 0, rows.size(), shift);
+			for (int i = first; i <= last; i++)
+				dataList.set(i, (List) rows.get(i - first));
+		} else {
+			rotate(dataList, first, last + 1, shift);
+		}
 	}
 
 	/**
@@ -541,6 +622,8 @@ public class DataTable implements ModelTable {
 	 *            the new number of columns in the model
 	 */
 	public void setColumnCount(int columnCount) {
+		if (columnStore != null)
+			return;
 		for (int i = 0; i < getRowCount(); i++) {
 			if (dataList.get(i) == null) {
 				dataList.set(i, newList());
@@ -578,6 +661,10 @@ public class DataTable implements ModelTable {
 	 */
 	public void addColumn(String columnName, List columnData, int colID) {
 		columnIdentifiers.add(colID, columnName);
+		if (columnStore != null) {
+			columnStore.insertColumn(colID, columnData);
+			return;
+		}
 		if (columnData != null) {
 			int columnSize = columnData.size();
 			for (int i = 0; i < columnSize; i++) {
@@ -597,7 +684,11 @@ public class DataTable implements ModelTable {
 	 */
 	public void removeColumn(int colID) throws EvaluationException {
 		int rowSize = getRowCount();
-	
+			if (columnStore != null) {
+				columnStore.removeColumn(colID);
+				columnIdentifiers.remove(colID);
+				return;
+			}
 			for (int i = 0; i < rowSize; i++) {
 				List row = (List) dataList.get(i);
 				row.remove(colID);
@@ -621,6 +712,13 @@ public class DataTable implements ModelTable {
 	 */
 	public void addColumn(String columnName, List columnData) {
 		columnIdentifiers.add(columnName);
+		if (columnStore != null) {
+			int column = getColumnCount() - 1;
+			while (columnStore.getColumnCount() < column)
+				columnStore.insertColumn(columnStore.getColumnCount(), null);
+			columnStore.insertColumn(column, columnData);
+			return;
+		}
 		if (columnData != null) {
 			int columnSize = columnData.size();
 			int newColumn = getColumnCount() - 1;
@@ -710,6 +808,8 @@ public class DataTable implements ModelTable {
 	 *                if an invalid row or column was given
 	 */
 	public Object getValueAt(int row, int column) {
+		if (columnStore != null)
+			return columnStore.get(row, column);
 		List rowList = (List) dataList.get(row);
 		return rowList.get(column);
 	}
@@ -733,6 +833,14 @@ public class DataTable implements ModelTable {
 	}
 	public Double[] getMinMaxValuesAsDouble(int colIndex){
 		Double[] minmax = new Double[2];
+		if (columnStore != null && colIndex < columnStore.getColumnCount()) {
+			double[] mm = columnStore.getMinMax(colIndex);
+			if (mm != null) {
+				minmax[0] = mm[0];
+				minmax[1] = mm[1];
+				return minmax;
+			}
+		}
 		minmax[0]= getValueAtAsDouble(0,colIndex);
 		minmax[1]=minmax[0];
 		for (int i = 1; i<getRowCount();i++){
@@ -754,6 +862,11 @@ public class DataTable implements ModelTable {
 
 		if (columnIdentifiers != null)qTable.setColumnIdentifiers(columnIdentifiers);
 		if (rowIdentifiers != null) qTable.setRowIdentifiers(rowIdentifiers);
+		if (columnStore != null) {
+			for (int i : selectRows(col1Idx, col1Value, col2Idx, col2Value))
+				qTable.addRow(columnStore.getRow(i));
+			return qTable;
+		}
 		for (int i=0; i<getRowCount(); i++) {
 			List<?>cRow = getRow(i);
 			if (cRow.get(col1Idx).toString().equals(col1Value) &&
@@ -769,6 +882,8 @@ public class DataTable implements ModelTable {
 		int col1Idx = columnIndexOf(colName1);
 		int col2Idx = columnIndexOf(colName2);
 
+		if (columnStore != null)
+			return selectRows(col1Idx, col1Value, col2Idx, col2Value).length > 0;
 		for (int i=0; i<getRowCount(); i++) {
 			List<?>cRow = getRow(i);
 //			logger.info("cRow.get(col1Idx).toString() >"+cRow.get(col1Idx).toString()+"< val1 >"+col1Value+"< "+cRow.get(col1Idx).toString().equals(col1Value));
@@ -788,6 +903,8 @@ public class DataTable implements ModelTable {
 		if (col1Idx < 0) return qTable;
 		if (columnIdentifiers != null)qTable.setColumnIdentifiers(columnIdentifiers);
 		if (rowIdentifiers != null) qTable.setRowIdentifiers(rowIdentifiers);
+		if (columnStore != null)
+			return addRows(qTable, col1Idx, col1Value);
 		for (int i=0; i<getRowCount(); i++) {
 			List<?>cRow = getRow(i);
 			if (cRow.get(col1Idx).equals(col1Value) ){
@@ -803,6 +920,8 @@ public class DataTable implements ModelTable {
 
 		if (columnIdentifiers != null)qTable.setColumnIdentifiers(columnIdentifiers);
 		if (rowIdentifiers != null) qTable.setRowIdentifiers(rowIdentifiers);
+		if (columnStore != null)
+			return addRows(qTable, col1Idx, col1Value);
 		//		logger.info("col1Idx = "+col1Idx+" for colName = "+colName1);
 		//		logger.info("type of colIdx = "+getRow(0).get(col1Idx).getClass().getName());
 		for (int i=0; i<getRowCount(); i++) {
@@ -815,6 +934,69 @@ public class DataTable implements ModelTable {
 		return qTable;
 	}
 
+	/**
+	 * Returns a dataTable of the rows with values of a numeric column within
+	 * the range, in the order of the values if the column has a sorted index.
+	 *
+	 * @param colName
+	 *            the name of a numeric column
+	 * @param from
+	 *            the lowest value, inclusive
+	 * @param to
+	 *            the highest value, inclusive
+	 */
+	public DataTable getValuesInRange(String colName, double from, double to) {
+		DataTable qTable = new DataTable();
+		int colIdx = columnIndexOf(colName);
+		if (colIdx < 0) return qTable;
+		if (columnIdentifiers != null)qTable.setColumnIdentifiers(columnIdentifiers);
+		if (rowIdentifiers != null) qTable.setRowIdentifiers(rowIdentifiers);
+		int[] rows = null;
+		if (columnStore != null && colIdx < columnStore.getColumnCount())
+			rows = columnStore.selectRange(colIdx, from, to);
+		if (rows != null) {
+			for (int i : rows)
+				qTable.addRow(columnStore.getRow(i));
+			return qTable;
+		}
+		for (int i=0; i<getRowCount(); i++) {
+			List<?>cRow = getRow(i);
+			Object value = colIdx < cRow.size() ? cRow.get(colIdx) : null;
+			if (value instanceof Number && ((Number) value).doubleValue() >= from
+					&& ((Number) value).doubleValue() <= to) {
+				qTable.addRow(columnStore != null ? new ArrayList(cRow) : cRow);
+			}
+		}
+		return qTable;
+	}
+
+	/**
+	 * Returns the rows of a columnar dataTable with both cells equal as strings
+	 * to the values, selected by the column with fewer matches.
+	 */
+	private int[] selectRows(int col1Idx, String col1Value, int col2Idx, String col2Value) {
+		int[] rows1 = columnStore.select(col1Idx, col1Value, true);
+		if (rows1.length == 0)
+			return rows1;
+		int[] rows2 = columnStore.select(col2Idx, col2Value, true);
+		int[] rows = rows1.length <= rows2.length ? rows1 : rows2;
+		int otherIdx = rows == rows1 ? col2Idx : col1Idx;
+		String otherValue = rows == rows1 ? col2Value : col1Value;
+		int[] selected = new int[rows.length];
+		int n = 0;
+		for (int i : rows) {
+			if (columnStore.matches(i, otherIdx, otherValue, true))
+				selected[n++] = i;
+		}
+		return Arrays.copyOf(selected, n);
+	}
+
+	private DataTable addRows(DataTable qTable, int colIdx, Object value) {
+		for (int i : columnStore.select(colIdx, value, false))
+			qTable.addRow(columnStore.getRow(i));
+		return qTable;
+	}
+
 	public int columnIndexOf(String columnName) {
 		return columnIdentifiers.indexOf(columnName);
 	}
@@ -862,6 +1044,10 @@ public class DataTable implements ModelTable {
 	 *                if an invalid row or column was given
 	 */
 	public void setValueAt(Object aValue, int row, int column) {
+		if (columnStore != null) {
+			columnStore.set(row, column, aValue);
+			return;
+		}
 		List rowList = (List) dataList.get(row);
 		rowList.set(column, aValue);
 	}
@@ -15,6 +15,8 @@
  */
 package sorcer.util;
 
+import net.jini.io.MarshalInputStream;
+import net.jini.io.MarshalOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sorcer.co.tuple.Tuple2;
@@ -27,6 +29,9 @@ import sorcer.service.Signature;
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.rmi.MarshalledObject;
 import java.util.*;
 import java.util.Collections;
@@ -36,10 +41,20 @@ public class FileTable<K,V> extends Identity implements Runnable, ModelTable {
 
 	private final static Logger logger = LoggerFactory.getLogger(FileTable.class);
 
+	/**
+	 * The storage of a table. An <code>INDEXED</code> table writes values in
+	 * place and rewrites its whole index on each change. A <code>LOG</code>
+	 * table appends values and index changes, and compacts its files
+	 * incrementally, see {@link TableLog}.
+	 */
+	public enum Storage { INDEXED, LOG }
+
 	// Object File
 	ObjectFile ofl;
 	// Index File
 	ObjectFile ifl;
+	// Append-only storage
+	TableLog<K> log;
 
 	String fileName;
 
@@ -78,6 +93,10 @@ public class FileTable<K,V> extends Identity implements Runnable, ModelTable {
 	protected static int count = 0;
 
 	public FileTable(String parent, String child) throws IOException {
+		this(parent, child, Storage.INDEXED);
+	}
+
+	public FileTable(String parent, String child, Storage storage) throws IOException {
 		if (child == null) {
 			throw new NullPointerException();
 		}
@@ -89,6 +108,11 @@ public class FileTable<K,V> extends Identity implements Runnable, ModelTable {
 		}
 		name = child;
 		this.fileName = tableName;
+		if (storage == Storage.LOG) {
+			log = new TableLog<K>(fileName);
+			table = log.getIndex();
+			return;
+		}
 		ofl = new ObjectFile(fileName +".obf");
 		ifl = new ObjectFile(fileName +"-index.obf");
 
@@ -105,8 +129,20 @@ public class FileTable<K,V> extends Identity implements Runnable, ModelTable {
 		this(null, fileName);
 	}
 
+	public FileTable(String fileName, Storage storage) throws IOException {
+		this(null, fileName, storage);
+	}
+
+	public Storage getStorage() {
+		return log != null ? Storage.LOG : Storage.INDEXED;
+	}
+
 	public synchronized final void close() throws  IOException {
 		running = false;
+		if (log != null) {
+			log.close();
+			return;
+		}
 		ofl.close();
 		ifl.close();
 	}
@@ -114,6 +150,11 @@ public class FileTable<K,V> extends Identity implements Runnable, ModelTable {
 	public synchronized final void put(K key, V value) throws IOException {
 		if (! (value instanceof Serializable))
 			throw new IOException("Not serializable eval");
+		if (log != null) {
+			log.put(key, (Serializable) value);
+			lastKey = key;
+			return;
+		}
 		Long oldPos = table.get(key);
 		long newPos;
 		if (oldPos == null)
@@ -135,6 +176,7 @@ public class FileTable<K,V> extends Identity implements Runnable, ModelTable {
 	}
 
 	public final V get(K key) throws IOException {
+		if (log != null) return (V)log.get(key);
 		Long pos = table.get(key);
 		if (pos == null) return null;
 		else return (V)ofl.readObject(pos.longValue());
@@ -162,11 +204,19 @@ public class FileTable<K,V> extends Identity implements Runnable, ModelTable {
 
 
 	public synchronized final void remove(K key) throws IOException {
+		if (log != null) {
+			log.remove(key);
+			return;
+		}
 		table.remove(key);
 		ifl.rewriteObject(0, table);
 	}
 
 	public synchronized void cleanup() throws IOException {
+		if (log != null) {
+			log.compact(true);
+			return;
+		}
 		ObjectFile tmp = new ObjectFile(fileName + "-temp.obf");
 		ConcurrentHashMap newTable = new ConcurrentHashMap();
 
@@ -198,9 +248,13 @@ public class FileTable<K,V> extends Identity implements Runnable, ModelTable {
 	}
 
 	public static class ObjectFile {
+		// the least growth of a file mapped again
+		private static final long REMAP_SIZE = 1024 * 1024;
 
         RandomAccessFile dataFile;
 
+		private volatile MappedByteBuffer mapped;
+
 		public ObjectFile(String fileName) throws IOException {
 			dataFile = new RandomAccessFile(fileName, "rw");
 		}
@@ -293,7 +347,122 @@ public class FileTable<K,V> extends Identity implements Runnable, ModelTable {
 			oos.close();
 		}
 
+		/**
+		 * Appends a record of the bytes at the end of the file.
+		 *
+		 * @return the file position the record was written to
+		 */
+		public synchronized long append(byte[] b) throws IOException {
+			long pos = dataFile.length();
+			ByteBuffer record = ByteBuffer.allocate(4 + b.length);
+			record.putInt(b.length).put(b).flip();
+			FileChannel channel = dataFile.getChannel();
+			while (record.hasRemaining())
+				channel.write(record, pos + record.position());
+			return pos;
+		}
+
+		/**
+		 * Reads the bytes of the record at the position, from the memory
+		 * mapped file when the record is mapped.
+		 */
+		public byte[] readBytes(long pos) throws IOException {
+			int datalen = readLength(pos);
+			ByteBuffer data = read(pos + 4, datalen);
+			if (data.hasArray() && data.arrayOffset() == 0 && data.array().length == datalen)
+				return data.array();
+			byte[] b = new byte[datalen];
+			data.get(b);
+			return b;
+		}
+
+		/**
+		 * Reads the length of the record at the position.
+		 */
+		public int readLength(long pos) throws IOException {
+			ByteBuffer header = read(pos, 4);
+			int datalen = header.getInt(header.position());
+			if (datalen < 0 || pos + 4 + datalen > dataFile.length())
+				throw new IOException("Data file is corrupted, length: "
+						+ datalen);
+			return datalen;
+		}
+
+		private ByteBuffer read(long pos, int len) throws IOException {
+			ByteBuffer m = map(pos + len);
+			if (m != null) {
+				ByteBuffer b = m.duplicate();
+				b.position((int) pos);
+				b.limit((int) pos + len);
+				return b;
+			}
+			ByteBuffer b = ByteBuffer.allocate(len);
+			FileChannel channel = dataFile.getChannel();
+			while (b.hasRemaining()) {
+				if (channel.read(b, pos + b.position()) < 0)
+					throw new EOFException();
+			}
+			b.flip();
+			return b;
+		}
+
+		/**
+		 * Returns the mapped file if it contains the end position. The
+		 * file is mapped again as it grows, though not for every record
+		 * appended.
+		 */
+		private ByteBuffer map(long end) throws IOException {
+			MappedByteBuffer m = mapped;
+			if (m != null && end <= m.capacity())
+				return m;
+			synchronized (this) {
+				m = mapped;
+				if (m != null && end <= m.capacity())
+					return m;
+				long length = dataFile.length();
+				if (end > length || length > Integer.MAX_VALUE
+						|| length - (m == null ? 0 : m.capacity()) < REMAP_SIZE)
+					return null;
+				mapped = m = dataFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+				return m;
+			}
+		}
+
+		public long length() throws IOException {
+			return dataFile.length();
+		}
+
+		public void force() throws IOException {
+			dataFile.getChannel().force(false);
+		}
+
+		/**
+		 * Serializes the object with codebase annotations, without wrapping
+		 * it into a {@link MarshalledObject}.
+		 */
+		public static byte[] marshal(Object obj) throws IOException {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			ObjectOutputStream oos = new MarshalOutputStream(baos, Collections.emptyList());
+			oos.writeObject(obj);
+			oos.close();
+			return baos.toByteArray();
+		}
+
+		public static Object unmarshal(byte[] b) throws IOException {
+			MarshalInputStream mis = new MarshalInputStream(new ByteArrayInputStream(b),
+					Thread.currentThread().getContextClassLoader(), false, null, Collections.emptyList());
+			mis.useCodebaseAnnotations();
+			try {
+				return mis.readObject();
+			} catch (ClassNotFoundException cnfe) {
+				throw new IOException("Class Not found:" + cnfe.getMessage());
+			} finally {
+				mis.close();
+			}
+		}
+
 		public void close() throws IOException {
+			mapped = null;
 			dataFile.close();
 		}
 
@@ -591,8 +760,13 @@ public class FileTable<K,V> extends Identity implements Runnable, ModelTable {
 	public Context getFileContext() throws ContextException {
 		ServiceContext sc = new ServiceContext(this.getName());
 
-        sc.putValue("object/file/name", fileName +".obf");
-        sc.putValue("index/file/name", fileName +"-index.obf");
+		if (log != null) {
+			sc.putValue("object/file/name", fileName + ".*" + TableLog.SEGMENT_SUFFIX);
+			sc.putValue("index/file/name", fileName + TableLog.JOURNAL_SUFFIX);
+		} else {
+			sc.putValue("object/file/name", fileName + ".obf");
+			sc.putValue("index/file/name", fileName + "-index.obf");
+		}
 
 		sc.putValue("input/file/name", inputFileName);
 		sc.putValue("input/table/URL", inputTableURL);
@@ -605,6 +779,10 @@ public class FileTable<K,V> extends Identity implements Runnable, ModelTable {
 	}
 
 	public void delete() {
+		if (log != null) {
+			log.delete();
+			return;
+		}
 		File obf = new File(fileName +".obf");
 		File iobf = new File(fileName +"-index.obf");
 		obf.delete();
@@ -0,0 +1,532 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sorcer.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.util.FileTable.ObjectFile;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * The append-only storage of a {@link FileTable}. Values are appended to
+ * segment files, a value replaced or removed is left in its segment as
+ * garbage. The positions of values by key are appended to an index journal
+ * replayed when the table is opened. When the garbage of the table is over
+ * its ratio, the segment with the most garbage is compacted by moving its
+ * live values to the active segment, so a compaction copies at most one
+ * segment.
+ *
+ * Values and journal records are not synced to disk one by one. They are
+ * synced together at most every sync interval, before a compaction deletes
+ * a segment and on close, and a sync record is then appended to the
+ * journal. Journal records carry a checksum, and puts after the last sync
+ * record the checksum of their value, so records and values not written
+ * completely by a crash are dropped when the journal is replayed.
+ *
+ * A position is the segment number in the bits above {@link #SEGMENT_BITS}
+ * and the offset in the segment below.
+ */
+class TableLog<K> {
+    static final String SEGMENT_SIZE = "sorcer.table.log.segment.size";
+    static final String GARBAGE_RATIO = "sorcer.table.log.garbage.ratio";
+    static final String SYNC_INTERVAL = "sorcer.table.log.sync.interval";
+    static final String JOURNAL_SUFFIX = "-index.log";
+    static final String SEGMENT_SUFFIX = ".obl";
+    private static final Logger logger = LoggerFactory.getLogger(TableLog.class);
+    private static final int SEGMENT_BITS = 40;
+    private static final long OFFSET_MASK = (1L << SEGMENT_BITS) - 1;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte SYNC = 3;
+    // garbage of a table smaller than that is not compacted
+    private static final long MIN_COMPACT_SIZE = 1024 * 1024;
+
+    private final String fileName;
+    private final long segmentSize;
+    private final double garbageRatio;
+    private final long syncInterval;
+    private final ConcurrentHashMap<K, Long> index = new ConcurrentHashMap<K, Long>();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<Integer, Segment>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // segments with values written since the last sync
+    private final Set<Segment> unsynced = new HashSet<Segment>();
+    private Segment active;
+    private DataOutputStream journal;
+    private FileOutputStream journalFile;
+    private long journalRecords;
+    private long size;
+    private long garbage;
+    private long lastSync;
+
+    TableLog(String fileName) throws IOException {
+        this(fileName, getProperty(SEGMENT_SIZE, 256L * 1024 * 1024), getProperty(GARBAGE_RATIO, 0.5),
+                getProperty(SYNC_INTERVAL, 1000L));
+    }
+
+    TableLog(String fileName, long segmentSize, double garbageRatio) throws IOException {
+        this(fileName, segmentSize, garbageRatio, 1000);
+    }
+
+    /**
+     * @param syncInterval the milliseconds values and journal records may
+     *                     be kept unsynced
+     */
+    TableLog(String fileName, long segmentSize, double garbageRatio, long syncInterval) throws IOException {
+        this.fileName = fileName;
+        this.segmentSize = Math.min(segmentSize, Integer.MAX_VALUE);
+        this.garbageRatio = garbageRatio;
+        this.syncInterval = syncInterval;
+        for (int n : listSegments())
+            segments.put(n, new Segment(n));
+        Map<K, Long> dropped = replay();
+        // segments without live values left by an interrupted compaction
+        Iterator<Segment> it = segments.values().iterator();
+        while (it.hasNext()) {
+            Segment s = it.next();
+            if (s.live == 0 && s.n != segments.lastKey()) {
+                it.remove();
+                delete(s);
+            }
+        }
+        for (Segment s : segments.values()) {
+            size += s.length;
+            garbage += s.length - s.live;
+        }
+        active = segments.isEmpty() ? newSegment(0) : segments.lastEntry().getValue();
+        journalFile = new FileOutputStream(journalFile(), true);
+        journal = new DataOutputStream(new BufferedOutputStream(journalFile));
+        // a segment created later with the same number must not revive them
+        if (!dropped.isEmpty()) {
+            for (Map.Entry<K, Long> e : dropped.entrySet())
+                writeJournal(REMOVE, e.getKey(), e.getValue(), 0);
+            journal.flush();
+        }
+        lastSync = System.currentTimeMillis();
+    }
+
+    ConcurrentHashMap<K, Long> getIndex() {
+        return index;
+    }
+
+    Object get(K key) throws IOException {
+        lock.readLock().lock();
+        try {
+            Long pos = index.get(key);
+            if (pos == null)
+                return null;
+            return ObjectFile.unmarshal(segments.get(segment(pos)).file.readBytes(offset(pos)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void put(K key, Serializable value) throws IOException {
+        byte[] b = ObjectFile.marshal(value);
+        lock.writeLock().lock();
+        try {
+            if (active.length >= segmentSize)
+                active = newSegment(active.n + 1);
+            long pos = position(active.n, active.file.append(b));
+            active.length += 4 + b.length;
+            active.live += 4 + b.length;
+            size += 4 + b.length;
+            unsynced.add(active);
+            writeJournal(PUT, key, pos, checksum(b));
+            journal.flush();
+            release(index.put(key, pos));
+            if (System.currentTimeMillis() - lastSync >= syncInterval)
+                sync();
+            compact(false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(K key) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Long pos = index.remove(key);
+            if (pos == null)
+                return;
+            writeJournal(REMOVE, key, pos, 0);
+            journal.flush();
+            release(pos);
+            compact(false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compacts segments while the garbage is over its ratio, all segments
+     * with garbage if <code>full</code>.
+     */
+    void compact(boolean full) throws IOException {
+        lock.writeLock().lock();
+        try {
+            while (garbage > 0 && (full || garbage >= MIN_COMPACT_SIZE && garbage > size * garbageRatio)) {
+                Segment victim = null;
+                for (Segment s : segments.values()) {
+                    if (victim == null || s.length - s.live > victim.length - victim.live)
+                        victim = s;
+                }
+                if (victim == null || victim.length == victim.live)
+                    break;
+                compact(victim);
+            }
+            if (journalRecords > Math.max(1024, 2L * index.size()))
+                rewriteJournal();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            sync();
+            journal.close();
+            for (Segment s : segments.values())
+                s.file.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void delete() {
+        for (int n : listSegments())
+            segmentFile(n).delete();
+        journalFile().delete();
+    }
+
+    private void compact(Segment victim) throws IOException {
+        if (victim == active)
+            active = newSegment(active.n + 1);
+        long moved = 0;
+        for (Map.Entry<K, Long> e : index.entrySet()) {
+            long pos = e.getValue();
+            if (segment(pos) != victim.n)
+                continue;
+            if (active.length >= segmentSize)
+                active = newSegment(active.n + 1);
+            byte[] b = victim.file.readBytes(offset(pos));
+            long newPos = position(active.n, active.file.append(b));
+            active.length += 4 + b.length;
+            active.live += 4 + b.length;
+            size += 4 + b.length;
+            unsynced.add(active);
+            writeJournal(PUT, e.getKey(), newPos, checksum(b));
+            index.put(e.getKey(), newPos);
+            moved += 4 + b.length;
+        }
+        // the moved values and the journal are durable before the segment is deleted
+        sync();
+        segments.remove(victim.n);
+        size -= victim.length;
+        garbage -= victim.length - moved;
+        delete(victim);
+        logger.debug("Compacted {} of {}, moved {} bytes", segmentFile(victim.n), fileName, moved);
+    }
+
+    private void release(Long pos) throws IOException {
+        if (pos == null)
+            return;
+        Segment s = segments.get(segment(pos));
+        int length = 4 + s.file.readLength(offset(pos));
+        s.live -= length;
+        garbage += length;
+        if (s.live == 0 && s != active) {
+            // the journal no longer refers to the segment once it is synced
+            sync();
+            segments.remove(s.n);
+            size -= s.length;
+            garbage -= s.length;
+            delete(s);
+        }
+    }
+
+    /**
+     * Makes the values and journal records written so far durable and
+     * appends a sync record to the journal.
+     */
+    private void sync() throws IOException {
+        for (Segment s : unsynced)
+            s.file.force();
+        unsynced.clear();
+        // the values of the puts before a sync record are not checked on replay
+        writeJournal(journal, SYNC, new byte[0], 0, 0);
+        journal.flush();
+        journalFile.getFD().sync();
+        lastSync = System.currentTimeMillis();
+    }
+
+    /**
+     * Reads the index from the journal, a journal truncated or corrupted by a
+     * crash is truncated to its last valid record. Positions not in their
+     * segment, and positions put after the last sync record whose value does
+     * not match its checksum, are dropped from the index.
+     *
+     * @return the dropped positions by key
+     */
+    private Map<K, Long> replay() throws IOException {
+        File file = journalFile();
+        // the checksums of the values put after the last sync record
+        Map<K, Integer> checksums = new HashMap<K, Integer>();
+        if (file.exists()) {
+            long length = file.length();
+            long valid = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                while (true) {
+                    byte op;
+                    long pos;
+                    int checksum;
+                    byte[] b;
+                    try {
+                        op = in.readByte();
+                        pos = in.readLong();
+                        checksum = in.readInt();
+                        int keyLength = in.readInt();
+                        if (keyLength < 0 || keyLength > length - valid)
+                            break;
+                        b = new byte[keyLength];
+                        in.readFully(b);
+                        byte[] record = record(op, b, pos, checksum);
+                        if (in.readInt() != checksum(record))
+                            break;
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    if (op == PUT) {
+                        K key = (K) ObjectFile.unmarshal(b);
+                        index.put(key, pos);
+                        checksums.put(key, checksum);
+                    } else if (op == REMOVE) {
+                        K key = (K) ObjectFile.unmarshal(b);
+                        index.remove(key);
+                        checksums.remove(key);
+                    } else if (op == SYNC) {
+                        checksums.clear();
+                    } else {
+                        break;
+                    }
+                    if (op != SYNC)
+                        journalRecords++;
+                    valid += 1 + 8 + 4 + 4 + b.length + 4;
+                }
+            }
+            if (valid < length) {
+                logger.warn("Truncating index journal {} from {} to {} bytes", file, length, valid);
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.setLength(valid);
+                }
+            }
+        }
+        Map<K, Long> dropped = new HashMap<K, Long>();
+        for (Iterator<Map.Entry<K, Long>> it = index.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<K, Long> e = it.next();
+            long pos = e.getValue();
+            Segment s = segments.get(segment(pos));
+            int length = s == null ? -1 : readLength(s, offset(pos));
+            Integer checksum = checksums.get(e.getKey());
+            if (length < 0 || checksum != null && !isValid(s, offset(pos), checksum)) {
+                logger.warn("Dropping {} of {}, offset {} is not in {}", e.getKey(), fileName, offset(pos),
+                        segmentFile(segment(pos)));
+                dropped.put(e.getKey(), pos);
+                it.remove();
+                continue;
+            }
+            s.live += 4 + length;
+        }
+        return dropped;
+    }
+
+    /**
+     * Returns the length of the record at the offset in the segment, or -1 if
+     * there is no complete record.
+     */
+    private int readLength(Segment s, long offset) {
+        if (offset + 4 > s.length)
+            return -1;
+        try {
+            return s.file.readLength(offset);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private boolean isValid(Segment s, long offset, int checksum) {
+        try {
+            byte[] b = s.file.readBytes(offset);
+            return checksum(b) == checksum;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void writeJournal(DataOutputStream out, byte op, byte[] key, long pos, int checksum)
+            throws IOException {
+        byte[] record = record(op, key, pos, checksum);
+        out.write(record);
+        out.writeInt(checksum(record));
+    }
+
+    private void writeJournal(byte op, K key, long pos, int checksum) throws IOException {
+        writeJournal(journal, op, ObjectFile.marshal(key), pos, checksum);
+        journalRecords++;
+    }
+
+    private static byte[] record(byte op, byte[] key, long pos, int checksum) {
+        ByteBuffer record = ByteBuffer.allocate(1 + 8 + 4 + 4 + key.length);
+        record.put(op).putLong(pos).putInt(checksum).putInt(key.length).put(key);
+        return record.array();
+    }
+
+    private static int checksum(byte[] b) {
+        CRC32 crc = new CRC32();
+        crc.update(b);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Replaces the journal with the puts of the current index.
+     */
+    private void rewriteJournal() throws IOException {
+        // the values are durable before the new journal refers to them unchecked
+        sync();
+        File file = journalFile();
+        File tmp = new File(file.getPath() + ".tmp");
+        FileOutputStream tmpFile = new FileOutputStream(tmp);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(tmpFile))) {
+            for (Map.Entry<K, Long> e : index.entrySet())
+                writeJournal(out, PUT, ObjectFile.marshal(e.getKey()), e.getValue(), 0);
+            writeJournal(out, SYNC, new byte[0], 0, 0);
+            out.flush();
+            tmpFile.getFD().sync();
+        }
+        journal.close();
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        journalRecords = index.size();
+        journalFile = new FileOutputStream(file, true);
+        journal = new DataOutputStream(new BufferedOutputStream(journalFile));
+    }
+
+    private Segment newSegment(int n) throws IOException {
+        Segment s = new Segment(n);
+        segments.put(n, s);
+        return s;
+    }
+
+    private void delete(Segment s) throws IOException {
+        unsynced.remove(s);
+        s.file.close();
+        if (!segmentFile(s.n).delete())
+            logger.warn("Could not delete {}", segmentFile(s.n));
+    }
+
+    private List<Integer> listSegments() {
+        File base = new File(fileName).getAbsoluteFile();
+        String prefix = base.getName() + ".";
+        List<Integer> numbers = new ArrayList<Integer>();
+        File[] files = base.getParentFile().listFiles();
+        if (files == null)
+            return numbers;
+        for (File f : files) {
+            String name = f.getName();
+            if (!name.startsWith(prefix) || !name.endsWith(SEGMENT_SUFFIX))
+                continue;
+            try {
+                numbers.add(Integer.parseInt(name.substring(prefix.length(), name.length() - SEGMENT_SUFFIX.length())));
+            } catch (NumberFormatException ignore) {
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    private File segmentFile(int n) {
+        return new File(fileName + "." + n + SEGMENT_SUFFIX);
+    }
+
+    private File journalFile() {
+        return new File(fileName + JOURNAL_SUFFIX);
+    }
+
+    private static long position(int segment, long offset) {
+        return ((long) segment << SEGMENT_BITS) | offset;
+    }
+
+    private static int segment(long pos) {
+        return (int) (pos >>> SEGMENT_BITS);
+    }
+
+    private static long offset(long pos) {
+        return pos & OFFSET_MASK;
+    }
+
+    private static long getProperty(String key, long defaultValue) {
+        String value = Sorcer.getProperty(key);
+        if (value == null)
+            return defaultValue;
+        try {
+            long l = Long.parseLong(value.trim());
+            if (l > 0)
+                return l;
+        } catch (NumberFormatException ignore) {
+        }
+        logger.warn("Could not evaluate property: {}: {}, using default: {}", key, value, defaultValue);
+        return defaultValue;
+    }
+
+    private static double getProperty(String key, double defaultValue) {
+        String value = Sorcer.getProperty(key);
+        if (value == null)
+            return defaultValue;
+        try {
+            double d = Double.parseDouble(value.trim());
+            if (d > 0 && d < 1)
+                return d;
+        } catch (NumberFormatException ignore) {
+        }
+        logger.warn("Could not evaluate property: {}: {}, using default: {}", key, value, defaultValue);
+        return defaultValue;
+    }
+
+    private class Segment {
+        final int n;
+        final ObjectFile file;
+        long length;
+        long live;
+
+        Segment(int n) throws IOException {
+            this.n = n;
+            file = new ObjectFile(segmentFile(n).getPath());
+            length = file.length();
+        }
+    }
+}
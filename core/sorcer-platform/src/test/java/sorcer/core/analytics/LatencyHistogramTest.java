@@ -0,0 +1,62 @@
+package sorcer.core.analytics;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketBounds() {
+        long previous = -1;
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+            long bound = LatencyHistogram.upperBound(i);
+            assertTrue(bound > previous);
+            assertEquals(i, LatencyHistogram.index(bound));
+            assertEquals(i, LatencyHistogram.index(previous + 1));
+            previous = bound;
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.index(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long now = TimeUnit.SECONDS.toNanos(100);
+        for (int i = 1; i <= 1000; i++)
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i), now);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot(now);
+        assertEquals(1000, snapshot.count);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), snapshot.max);
+        assertWithin(TimeUnit.MILLISECONDS.toNanos(500), snapshot.p50);
+        assertWithin(TimeUnit.MILLISECONDS.toNanos(900), snapshot.p90);
+        assertWithin(TimeUnit.MILLISECONDS.toNanos(990), snapshot.p99);
+    }
+
+    @Test
+    public void slidingWindow() {
+        LatencyHistogram histogram = new LatencyHistogram(6, 10, TimeUnit.SECONDS);
+        long start = TimeUnit.SECONDS.toNanos(1000);
+        histogram.record(TimeUnit.SECONDS.toNanos(2), start);
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(5), start + TimeUnit.SECONDS.toNanos(30));
+        assertEquals(2, histogram.snapshot(start + TimeUnit.SECONDS.toNanos(30)).count);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot(start + TimeUnit.SECONDS.toNanos(65));
+        assertEquals(1, snapshot.count);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), snapshot.max);
+
+        // the interval of the first call is reused
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(1), start + TimeUnit.SECONDS.toNanos(60));
+        snapshot = histogram.snapshot(start + TimeUnit.SECONDS.toNanos(60));
+        assertEquals(2, snapshot.count);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), snapshot.max);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected about " + expected + " but was " + actual,
+                   actual >= expected && actual <= expected + expected / 8);
+    }
+}
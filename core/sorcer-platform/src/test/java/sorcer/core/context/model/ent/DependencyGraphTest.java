@@ -0,0 +1,55 @@
+package sorcer.core.context.model.ent;
+
+import org.junit.Test;
+import sorcer.co.tuple.DependencyEntry;
+import sorcer.service.Path;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DependencyGraphTest {
+
+    @Test
+    public void affectedByArguments() {
+        DependencyGraph graph = new DependencyGraph();
+        graph.update("y1", Arrays.asList("x1", "x2"));
+        graph.update("y2", Arrays.asList("x3"));
+        graph.update("z", Arrays.asList("y1", "y2"));
+        graph.update("w", null);
+
+        assertEquals(new HashSet<String>(Arrays.asList("x1", "y1", "z", "w")), graph.getAffected("x1"));
+        assertEquals(Collections.singleton("z"), graph.getDependents("y2"));
+
+        graph.remove("z");
+        assertTrue(graph.getDependents("y2").isEmpty());
+        graph.remove("w");
+        assertTrue(graph.getUntracked().isEmpty());
+    }
+
+    @Test
+    public void rewiredDependencies() {
+        DependencyGraph graph = new DependencyGraph();
+        List<Path> paths = new ArrayList<Path>(Arrays.asList(new Path("x1")));
+        Map<String, List<DependencyEntry>> dependencies = new HashMap<String, List<DependencyEntry>>();
+        dependencies.put("y", new ArrayList<DependencyEntry>(Arrays.asList(new DependencyEntry("y", paths))));
+        graph.setDependencies(dependencies);
+        assertTrue(graph.getAffected("x1").contains("y"));
+
+        // the same number of dependencies, rewired in place
+        paths.set(0, new Path("x2"));
+        graph.setDependencies(dependencies);
+        assertFalse(graph.getAffected("x1").contains("y"));
+        assertTrue(graph.getAffected("x2").contains("y"));
+
+        // the dependency moved to another key
+        dependencies.put("z", dependencies.remove("y"));
+        graph.setDependencies(dependencies);
+        assertFalse(graph.getAffected("x2").contains("y"));
+        assertTrue(graph.getAffected("x2").contains("z"));
+
+        dependencies.clear();
+        graph.setDependencies(dependencies);
+        assertEquals(Collections.singleton("x2"), graph.getAffected("x2"));
+    }
+}
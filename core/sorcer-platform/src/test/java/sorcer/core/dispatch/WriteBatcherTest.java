@@ -0,0 +1,106 @@
+package sorcer.core.dispatch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WriteBatcherTest {
+
+    @Test
+    public void batchesBySize() throws Exception {
+        for (int n : new int[]{1, 9, 10, 11, 95}) {
+            WriteBatcher<Integer> batcher = new WriteBatcher<Integer>(10, 0);
+            for (int i = 0; i < n; i++)
+                batcher.add(i);
+            batcher.close();
+            List<List<Integer>> writes = drain(batcher);
+            assertEquals("writes for " + n, (n + 9) / 10, writes.size());
+            assertEquals(n, count(writes));
+        }
+    }
+
+    @Test
+    public void noLingerWaitsForFullBatch() throws Exception {
+        final WriteBatcher<Integer> batcher = new WriteBatcher<Integer>(4, 0);
+        Thread producer = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 8; i++) {
+                    batcher.add(i);
+                    pause(5);
+                }
+                batcher.close();
+            }
+        };
+        producer.start();
+        List<List<Integer>> writes = drain(batcher);
+        assertEquals(2, writes.size());
+        assertEquals(4, writes.get(0).size());
+    }
+
+    @Test
+    public void lingerFlushesPartialBatch() throws Exception {
+        final WriteBatcher<Integer> batcher = new WriteBatcher<Integer>(100, 20);
+        Thread producer = new Thread() {
+            @Override
+            public void run() {
+                batcher.add(1);
+                batcher.add(2);
+                pause(200);
+                batcher.add(3);
+                batcher.close();
+            }
+        };
+        producer.start();
+        List<List<Integer>> writes = drain(batcher);
+        assertEquals(2, writes.size());
+        assertEquals(2, writes.get(0).size());
+        assertEquals(3, count(writes));
+    }
+
+    @Test
+    public void lingerWaitsForMore() throws Exception {
+        final WriteBatcher<Integer> batcher = new WriteBatcher<Integer>(3, 2000);
+        Thread producer = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 3; i++) {
+                    batcher.add(i);
+                    pause(20);
+                }
+                batcher.close();
+            }
+        };
+        producer.start();
+        List<List<Integer>> writes = drain(batcher);
+        assertEquals(1, writes.size());
+        assertTrue(batcher.next().isEmpty());
+    }
+
+    private static List<List<Integer>> drain(WriteBatcher<Integer> batcher) throws InterruptedException {
+        List<List<Integer>> writes = new ArrayList<List<Integer>>();
+        List<Integer> batch;
+        while (!(batch = batcher.next()).isEmpty())
+            writes.add(batch);
+        return writes;
+    }
+
+    private static int count(List<List<Integer>> writes) {
+        int count = 0;
+        for (List<Integer> batch : writes)
+            count += batch.size();
+        return count;
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
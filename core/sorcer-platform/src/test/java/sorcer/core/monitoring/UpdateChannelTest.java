@@ -0,0 +1,113 @@
+package sorcer.core.monitoring;
+
+import net.jini.id.UuidFactory;
+import org.junit.Test;
+import sorcer.core.analytics.MethodAnalytics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class UpdateChannelTest {
+
+    @Test
+    public void coalescesUpdatesOfMethodAndStatus() {
+        UpdateChannel channel = new UpdateChannel(10);
+        MonitorAgent agent = registeredAgent();
+        MethodAnalytics first = analytics("foo", 1);
+        MethodAnalytics latest = analytics("foo", 2);
+        assertTrue(channel.offer(agent, Monitor.Status.ACTIVE, first));
+        assertTrue(channel.offer(agent, Monitor.Status.ACTIVE, latest));
+        assertTrue(channel.offer(agent, Monitor.Status.ACTIVE, analytics("bar", 1)));
+        assertEquals(2, channel.size());
+        assertEquals(1, channel.getCoalesced());
+
+        List<MonitorUpdate> batch = channel.drain().get(agent);
+        assertEquals(2, batch.size());
+        assertSame(latest, batch.get(0).getAnalytics());
+        assertEquals(0, channel.size());
+    }
+
+    @Test
+    public void buildsSuppliedAnalyticsWhenDrained() {
+        UpdateChannel channel = new UpdateChannel(10);
+        MonitorAgent agent = registeredAgent();
+        final AtomicInteger built = new AtomicInteger();
+        Supplier<MethodAnalytics> analytics = new Supplier<MethodAnalytics>() {
+            @Override public MethodAnalytics get() {
+                return analytics("foo", built.incrementAndGet());
+            }
+        };
+        assertTrue(channel.offer(agent, Monitor.Status.COMPLETED, "foo", analytics));
+        assertTrue(channel.offer(agent, Monitor.Status.COMPLETED, "foo", analytics));
+        assertTrue(channel.offer(agent, Monitor.Status.COMPLETED, analytics("bar", 1)));
+        assertEquals(2, channel.size());
+        assertEquals(0, built.get());
+
+        List<MonitorUpdate> batch = channel.drain().get(agent);
+        assertEquals(2, batch.size());
+        assertEquals(1, built.get());
+        assertEquals("foo", batch.get(0).getAnalytics().getMethodName());
+    }
+
+    @Test
+    public void keepsOrderOfLatestUpdates() {
+        UpdateChannel channel = new UpdateChannel(10);
+        MonitorAgent agent = registeredAgent();
+        MethodAnalytics completed = analytics("foo", 2);
+        channel.offer(agent, Monitor.Status.SUBMITTED, null);
+        channel.offer(agent, Monitor.Status.ACTIVE, analytics("foo", 1));
+        channel.offer(agent, Monitor.Status.COMPLETED, completed);
+        // the method is active again after it completed
+        MethodAnalytics active = analytics("foo", 3);
+        channel.offer(agent, Monitor.Status.ACTIVE, active);
+
+        List<MonitorUpdate> batch = channel.drain().get(agent);
+        assertEquals(3, batch.size());
+        assertEquals(Monitor.Status.SUBMITTED, batch.get(0).getStatus());
+        assertSame(completed, batch.get(1).getAnalytics());
+        assertSame(active, batch.get(2).getAnalytics());
+    }
+
+    @Test
+    public void dropsNewUpdatesWhenFull() {
+        UpdateChannel channel = new UpdateChannel(1);
+        MonitorAgent agent = registeredAgent();
+        assertTrue(channel.offer(agent, Monitor.Status.ACTIVE, analytics("foo", 1)));
+        assertFalse(channel.offer(agent, Monitor.Status.ACTIVE, analytics("bar", 1)));
+        assertTrue(channel.offer(agent, Monitor.Status.ACTIVE, analytics("foo", 2)));
+        assertEquals(1, channel.getDropped());
+        assertEquals(1, channel.size());
+    }
+
+    @Test
+    public void keepsUpdatesOfUnregisteredAgents() {
+        UpdateChannel channel = new UpdateChannel(10);
+        MonitorAgent registered = registeredAgent();
+        MonitorAgent unregistered = new MonitorAgent();
+        channel.offer(unregistered, Monitor.Status.SUBMITTED, null);
+        channel.offer(registered, Monitor.Status.SUBMITTED, null);
+
+        Map<MonitorAgent, List<MonitorUpdate>> batches = channel.drain();
+        assertEquals(1, batches.size());
+        assertNotNull(batches.get(registered));
+        assertEquals(1, channel.size());
+    }
+
+    private static MonitorAgent registeredAgent() {
+        final MonitorRegistration registration =
+                new MonitorRegistration(null, UuidFactory.generate(), "foo", "bar", null);
+        return new MonitorAgent() {
+            @Override public MonitorRegistration getMonitorRegistration() {
+                return registration;
+            }
+        };
+    }
+
+    private static MethodAnalytics analytics(String methodName, int completed) {
+        return new MethodAnalytics(null, 0, completed, 0, null, methodName, 0, null, 0, completed);
+    }
+}
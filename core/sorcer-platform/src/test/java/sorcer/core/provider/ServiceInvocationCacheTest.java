@@ -0,0 +1,34 @@
+package sorcer.core.provider;
+
+import org.junit.Test;
+import sorcer.core.provider.ServiceInvocationCache.Dispatch;
+import sorcer.core.provider.ServiceInvocationCache.Invocation;
+
+import static org.junit.Assert.*;
+
+public class ServiceInvocationCacheTest {
+
+    @Test
+    public void keyedByDispatch() throws Exception {
+        ServiceInvocationCache cache = new ServiceInvocationCache();
+        Invocation invocation = new Invocation(Object.class.getMethod("toString"), false);
+        cache.putInvocation(Dispatch.EXERTION, Object.class, "toString", new Class[]{Object.class}, invocation);
+
+        assertSame(invocation, cache.getInvocation(Dispatch.EXERTION, Object.class, "toString",
+                                                   new Class[]{Object.class}));
+        assertNull(cache.getInvocation(Dispatch.CONTEXT, Object.class, "toString", new Class[]{Object.class}));
+    }
+
+    @Test
+    public void copiesArgTypes() throws Exception {
+        ServiceInvocationCache cache = new ServiceInvocationCache();
+        Invocation invocation = new Invocation(Object.class.getMethod("toString"), false);
+        Class[] argTypes = {String.class};
+        cache.putInvocation(Dispatch.CONTEXT, Object.class, "toString", argTypes, invocation);
+        argTypes[0] = Integer.class;
+
+        assertSame(invocation, cache.getInvocation(Dispatch.CONTEXT, Object.class, "toString",
+                                                   new Class[]{String.class}));
+        assertNull(cache.getInvocation(Dispatch.CONTEXT, Object.class, "toString", new Class[]{Integer.class}));
+    }
+}
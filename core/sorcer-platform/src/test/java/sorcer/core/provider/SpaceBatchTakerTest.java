@@ -0,0 +1,108 @@
+package sorcer.core.provider;
+
+import net.jini.core.transaction.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import sorcer.core.exertion.ExertionEnvelop;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpaceBatchTakerTest {
+    private ThreadPoolExecutor pool;
+    private CountDownLatch release;
+    private final List<ExertionEnvelop> run = Collections.synchronizedList(new ArrayList<ExertionEnvelop>());
+    private final List<ExertionEnvelop> givenBack = new ArrayList<ExertionEnvelop>();
+
+    @Before
+    public void setUp() {
+        pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(1));
+        release = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void dispatchesAll() throws Exception {
+        TestTaker taker = new TestTaker(pool);
+        List<ExertionEnvelop> envelops = envelops(2);
+        taker.slots.acquire(2);
+        release.countDown();
+
+        assertEquals(2, taker.dispatch(envelops, null));
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, run.size());
+        assertTrue(givenBack.isEmpty());
+        assertEquals(2, taker.slots.availablePermits());
+    }
+
+    @Test
+    public void givesBackRejected() throws Exception {
+        TestTaker taker = new TestTaker(pool);
+        // another user of the pool keeps the only thread busy
+        pool.execute(new Runnable() {
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+        List<ExertionEnvelop> envelops = envelops(2);
+        taker.slots.acquire(2);
+
+        assertEquals(1, taker.dispatch(envelops, null));
+        assertEquals(envelops.subList(1, 2), givenBack);
+        assertEquals(1, taker.slots.availablePermits());
+
+        release.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(envelops.subList(0, 1), run);
+        assertEquals(2, taker.slots.availablePermits());
+    }
+
+    private static List<ExertionEnvelop> envelops(int n) {
+        ExertionEnvelop[] envelops = new ExertionEnvelop[n];
+        for (int i = 0; i < n; i++)
+            envelops[i] = new ExertionEnvelop();
+        return Arrays.asList(envelops);
+    }
+
+    class TestTaker extends SpaceBatchTaker {
+        TestTaker(ExecutorService pool) {
+            super(new SpaceTakerData(null, null, null, null, null, false, false), pool, false, 10);
+        }
+
+        @Override
+        protected Runnable createWorker(final ExertionEnvelop ee, Transaction.Created txnCreated) {
+            return new Runnable() {
+                public void run() {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    run.add(ee);
+                }
+            };
+        }
+
+        @Override
+        protected void giveBack(List<ExertionEnvelop> envelops) {
+            givenBack.addAll(envelops);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package sorcer.core.provider.logger;
+
+import ch.qos.logback.classic.spi.LoggingEventVO;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class LoggingEventsTest {
+
+    @Test
+    public void decompressesEvents() throws Exception {
+        List<LoggingEventVO> events = new ArrayList<LoggingEventVO>();
+        assertEquals(events, LoggingEvents.decompress(LoggingEvents.compress(events)));
+    }
+
+    @Test
+    public void rejectsOtherClasses() throws Exception {
+        List<Object> batch = new ArrayList<Object>();
+        batch.add(Collections.singletonList(new java.util.Date()));
+        try {
+            LoggingEvents.decompress(compress(batch));
+            fail("java.util.Date resolved");
+        } catch (InvalidClassException e) {
+            assertEquals("java.util.Date", e.classname);
+        }
+    }
+
+    private static byte[] compress(Object o) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeObject(o);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,157 @@
+package sorcer.file.remote;
+
+import com.google.common.hash.Hashing;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FileCacheTest {
+    private Path root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("file-cache");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(root.toFile());
+    }
+
+    @Test
+    public void testSingleDownload() throws Exception {
+        final FileCache cache = new FileCache(root, 1024, Hashing.sha1());
+        final byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+        final String checksum = Hashing.sha1().hashBytes(content).toString();
+        final AtomicInteger copies = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final FileCache.Source source = new FileCache.Source() {
+            @Override
+            public void copyTo(OutputStream out) throws IOException {
+                copies.incrementAndGet();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                out.write(content);
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] results = new Future[4];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = executor.submit(new Callable<File>() {
+                    @Override
+                    public File call() throws Exception {
+                        start.await();
+                        return cache.get(checksum, source);
+                    }
+                });
+            }
+            start.countDown();
+            for (Future<?> result : results)
+                Assert.assertEquals(cache.getPath(checksum), result.get());
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(1, copies.get());
+        Assert.assertArrayEquals(content, Files.readAllBytes(cache.getPath(checksum).toPath()));
+
+        cache.get(checksum, source);
+        Assert.assertEquals(1, copies.get());
+    }
+
+    @Test
+    public void testInvalidChecksum() throws Exception {
+        FileCache cache = new FileCache(root, 1024, Hashing.sha1());
+        String checksum = Hashing.sha1().hashBytes(new byte[]{1}).toString();
+        try {
+            cache.get(checksum, new FileCache.Source() {
+                @Override
+                public void copyTo(OutputStream out) throws IOException {
+                    out.write(2);
+                }
+            });
+            Assert.fail();
+        } catch (IOException expected) {
+        }
+        Assert.assertFalse(cache.getPath(checksum).exists());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        FileCache cache = new FileCache(root, 10, Hashing.sha1());
+        File first = cache.getPath(Hashing.sha1().hashBytes(new byte[6]).toString());
+        put(cache, new byte[6]);
+        cache.release(first.getName());
+        first.setLastModified(System.currentTimeMillis() - 10000);
+        File second = put(cache, new byte[7]);
+        Assert.assertFalse(first.exists());
+        Assert.assertTrue(second.exists());
+    }
+
+    @Test
+    public void testNoEvictionOfFilesInUse() throws Exception {
+        FileCache cache = new FileCache(root, 10, Hashing.sha1());
+        File first = put(cache, new byte[6]);
+        first.setLastModified(System.currentTimeMillis() - 10000);
+        File second = put(cache, new byte[7]);
+        Assert.assertTrue(first.exists());
+        Assert.assertTrue(second.exists());
+    }
+
+    @Test
+    public void testEvictionAfterAllReleased() throws Exception {
+        FileCache cache = new FileCache(root, 10, Hashing.sha1());
+        File first = put(cache, new byte[6]);
+        put(cache, new byte[6]);
+        cache.release(first.getName());
+        first.setLastModified(System.currentTimeMillis() - 10000);
+        put(cache, new byte[7]);
+        Assert.assertTrue(first.exists());
+
+        cache.release(first.getName());
+        put(cache, new byte[8]);
+        Assert.assertFalse(first.exists());
+        try {
+            cache.release(first.getName());
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testMalformedChecksum() throws Exception {
+        FileCache cache = new FileCache(root, 1024, Hashing.sha1());
+        String valid = Hashing.sha1().hashBytes(new byte[]{1}).toString();
+        for (String checksum : new String[]{"../../../../../../../../etc/passwd", valid.toUpperCase(),
+                valid.substring(1), valid + "0"}) {
+            try {
+                cache.getPath(checksum);
+                Assert.fail(checksum);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    private static File put(FileCache cache, final byte[] content) throws IOException {
+        return cache.get(Hashing.sha1().hashBytes(content).toString(), new FileCache.Source() {
+            @Override
+            public void copyTo(OutputStream out) throws IOException {
+                out.write(content);
+            }
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package sorcer.platform.logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LogSpoolTest {
+    private File root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("spool").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        delete(root);
+    }
+
+    @Test
+    public void readsInWriteOrder() throws IOException {
+        LogSpool spool = new LogSpool(root, 1024);
+        assertTrue(spool.isEmpty());
+        spool.write(new byte[]{1});
+        spool.write(new byte[]{2, 2});
+
+        List<File> batches = spool.getBatches();
+        assertEquals(2, batches.size());
+        assertArrayEquals(new byte[]{1}, spool.read(batches.get(0)));
+        assertArrayEquals(new byte[]{2, 2}, spool.read(batches.get(1)));
+
+        spool.remove(batches.get(0));
+        assertEquals(1, spool.getBatches().size());
+        spool.close();
+    }
+
+    @Test
+    public void dropsOldestWhenFull() throws IOException {
+        LogSpool spool = new LogSpool(root, 10);
+        spool.write(new byte[4]);
+        spool.write(new byte[]{2, 2, 2, 2});
+        spool.write(new byte[]{3, 3, 3, 3});
+
+        List<File> batches = spool.getBatches();
+        assertEquals(2, batches.size());
+        assertEquals(1, spool.getDropped());
+        assertArrayEquals(new byte[]{2, 2, 2, 2}, spool.read(batches.get(0)));
+        spool.close();
+    }
+
+    @Test
+    public void removesEmptySpoolOnClose() throws IOException {
+        LogSpool spool = new LogSpool(root, 1024);
+        spool.close();
+        assertEquals(0, root.listFiles().length);
+    }
+
+    @Test
+    public void takesOverSpoolLeftBehind() throws IOException {
+        LogSpool left = new LogSpool(root, 1024);
+        left.write(new byte[]{1});
+        left.write(new byte[]{2});
+        left.close();
+        File leftDir = root.listFiles()[0];
+        leftDir.setLastModified(System.currentTimeMillis() - 120 * 1000);
+
+        LogSpool spool = new LogSpool(root, 1024);
+        assertFalse(leftDir.exists());
+        List<File> batches = spool.getBatches();
+        assertEquals(2, batches.size());
+        assertArrayEquals(new byte[]{1}, spool.read(batches.get(0)));
+        assertArrayEquals(new byte[]{2}, spool.read(batches.get(1)));
+        spool.close();
+    }
+
+    @Test
+    public void leavesRecentAndLockedSpools() throws IOException {
+        LogSpool recent = new LogSpool(root, 1024);
+        recent.write(new byte[]{1});
+        recent.close();
+        File recentDir = root.listFiles()[0];
+        LogSpool running = new LogSpool(root, 1024);
+        running.write(new byte[]{2});
+        for (File dir : root.listFiles()) {
+            if (!dir.equals(recentDir))
+                dir.setLastModified(System.currentTimeMillis() - 120 * 1000);
+        }
+
+        LogSpool spool = new LogSpool(root, 1024);
+        assertTrue(spool.isEmpty());
+        assertEquals(1, running.getBatches().size());
+        assertEquals(1, new File(recentDir, "0000000000000000.batch").length());
+        spool.close();
+        running.close();
+        assertEquals(2, root.listFiles().length);
+    }
+
+    private static void delete(File f) {
+        File[] files = f.listFiles();
+        if (files != null) {
+            for (File c : files)
+                delete(c);
+        }
+        f.delete();
+    }
+}
@@ -0,0 +1,106 @@
+package sorcer.platform.logger;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEventVO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import sorcer.core.provider.RemoteLogger;
+import sorcer.core.provider.logger.LogBatchException;
+import sorcer.core.provider.logger.LoggingEvents;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.Assert.*;
+
+public class RemoteLoggerClientTest {
+    private File root;
+    private LogSpool spool;
+    private final List<byte[]> published = new ArrayList<byte[]>();
+    private boolean available = true;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("spool").toFile();
+        spool = new LogSpool(root, 1024 * 1024);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        spool.close();
+        delete(root);
+    }
+
+    @Test
+    public void dropsRejectedBatch() throws IOException {
+        byte[] first = LoggingEvents.compress(Collections.<LoggingEventVO>emptyList());
+        byte[] last = LoggingEvents.compress(Collections.<LoggingEventVO>emptyList());
+        spool.write(first);
+        spool.write(new byte[]{1, 2, 3});
+        spool.write(last);
+
+        client().run();
+
+        assertTrue(spool.isEmpty());
+        assertEquals(2, published.size());
+        assertArrayEquals(first, published.get(0));
+        assertArrayEquals(last, published.get(1));
+    }
+
+    @Test
+    public void keepsBatchesWhileNotAvailable() throws IOException {
+        spool.write(LoggingEvents.compress(Collections.<LoggingEventVO>emptyList()));
+        available = false;
+
+        client().run();
+
+        assertEquals(1, spool.getBatches().size());
+        assertTrue(published.isEmpty());
+    }
+
+    private RemoteLoggerClient client() {
+        final RemoteLogger logger = (RemoteLogger) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{RemoteLogger.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (!method.getName().equals("publish") || !(args[0] instanceof byte[]))
+                            throw new UnsupportedOperationException(method.getName());
+                        if (!available)
+                            throw new RemoteException("not available");
+                        byte[] batch = (byte[]) args[0];
+                        try {
+                            LoggingEvents.decompress(batch);
+                        } catch (IOException e) {
+                            throw new LogBatchException("Could not read batch of logging events", e);
+                        }
+                        published.add(batch);
+                        return null;
+                    }
+                });
+        return new RemoteLoggerClient(new LinkedBlockingQueue<ILoggingEvent>(), null, spool, 10, 60000) {
+            @Override
+            RemoteLogger lookup() {
+                return logger;
+            }
+        };
+    }
+
+    private static void delete(File f) {
+        File[] files = f.listFiles();
+        if (files != null) {
+            for (File c : files)
+                delete(c);
+        }
+        f.delete();
+    }
+}
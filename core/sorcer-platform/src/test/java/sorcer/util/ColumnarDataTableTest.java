@@ -0,0 +1,95 @@
+package sorcer.util;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ColumnarDataTableTest {
+
+    private static DataTable table(boolean columnar, int rows) {
+        DataTable table = new DataTable(new ArrayList<Object>(Arrays.asList("x", "y", "name", "count")), 0);
+        table.setColumnar(columnar);
+        for (int i = 0; i < rows; i++)
+            table.addRow(row(i * 0.5, (double) (i % 7), "n" + (i % 10), i % 3));
+        return table;
+    }
+
+    private static List<Object> row(Object... values) {
+        return new ArrayList<Object>(Arrays.asList(values));
+    }
+
+    @Test
+    public void testQueries() {
+        DataTable rows = table(false, 1000);
+        DataTable columns = table(true, 1000);
+        assertEquals(rows, columns);
+        assertEquals(rows.getColumn("y"), columns.getColumn("y"));
+        assertArrayEquals(rows.getMinMaxValuesAsDouble("x"), columns.getMinMaxValuesAsDouble("x"));
+        assertEquals(rows.getValuesSuchThat("y", "3.0", "name", "n5"), columns.getValuesSuchThat("y", "3.0", "name", "n5"));
+        assertEquals(0, columns.getValuesSuchThat("y", "3", "name", "n5").getRowCount());
+        assertEquals(rows.hasValueSuchThat("count", "2", "name", "n9"), columns.hasValueSuchThat("count", "2", "name", "n9"));
+        assertEquals(rows.getValuesSuchThat("name", "n3"), columns.getValuesSuchThat("name", "n3"));
+        assertEquals(rows.getValuesSuchThat("count", 1), columns.getValuesSuchThat("count", 1));
+        assertEquals("n0", columns.getValueAt(10, 2));
+        assertEquals(1, columns.getValueAt(10, 3));
+    }
+
+    @Test
+    public void testIndexes() {
+        DataTable rows = table(false, 1000);
+        DataTable columns = table(true, 1000);
+        columns.createIndex("name", false);
+        columns.createIndex("x", true);
+        assertEquals(rows.getValuesSuchThat("name", "n3"), columns.getValuesSuchThat("name", "n3"));
+        assertEquals(rows.getValuesSuchThat("y", "3.0", "name", "n5"), columns.getValuesSuchThat("y", "3.0", "name", "n5"));
+        assertEquals(21, columns.getValuesInRange("x", 10, 20).getRowCount());
+        assertEquals(rows.getValuesInRange("x", 10, 20), columns.getValuesInRange("x", 10, 20));
+
+        rows.setValueAt("n3", 0, 2);
+        columns.setValueAt("n3", 0, 2);
+        assertEquals(rows.getValuesSuchThat("name", "n3"), columns.getValuesSuchThat("name", "n3"));
+    }
+
+    @Test
+    public void testChanges() throws Exception {
+        DataTable rows = table(false, 100);
+        DataTable columns = table(true, 100);
+        rows.setValueAt("str", 5, 0);
+        columns.setValueAt("str", 5, 0);
+        assertEquals(rows, columns);
+
+        rows.removeRow(3);
+        columns.removeRow(3);
+        rows.insertRow(2, row(1.0, 2.0, "z", 4));
+        columns.insertRow(2, row(1.0, 2.0, "z", 4));
+        assertEquals(rows, columns);
+
+        rows.moveRow(1, 3, 5);
+        columns.moveRow(1, 3, 5);
+        assertEquals(rows, columns);
+
+        rows.addColumn("w", Collections.nCopies(rows.getRowCount(), 1L));
+        columns.addColumn("w", Collections.nCopies(columns.getRowCount(), 1L));
+        assertEquals(rows, columns);
+        rows.removeColumn(1);
+        columns.removeColumn(1);
+        assertEquals(rows, columns);
+        assertEquals(4, columns.getColumnCount());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new ObjectOutputStream(bytes).writeObject(columns);
+        DataTable copy = (DataTable) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertEquals(rows, copy);
+        assertEquals(rows.getValuesSuchThat("name", "n3"), copy.getValuesSuchThat("name", "n3"));
+
+        columns.setColumnar(false);
+        assertFalse(columns.isColumnar());
+        assertEquals(rows, columns);
+    }
+}
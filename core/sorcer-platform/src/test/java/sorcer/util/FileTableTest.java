@@ -0,0 +1,60 @@
+package sorcer.util;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class FileTableTest {
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("file-table").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testLogStorage() throws Exception {
+        FileTable<String, Integer> table = new FileTable<String, Integer>(dir.getPath(), "table", FileTable.Storage.LOG);
+        assertEquals(FileTable.Storage.LOG, table.getStorage());
+        for (int i = 0; i < 100; i++)
+            table.put("key" + i, i);
+        table.put("key0", -1);
+        table.remove("key1");
+        assertEquals(Integer.valueOf(-1), table.get("key0"));
+        assertNull(table.get("key1"));
+        assertEquals(Integer.valueOf(2), table.get("key2"));
+        table.close();
+
+        table = new FileTable<String, Integer>(dir.getPath(), "table", FileTable.Storage.LOG);
+        assertEquals(99, table.keySet().size());
+        assertFalse(table.containsKey("key1"));
+        assertEquals(Integer.valueOf(-1), table.get("key0"));
+        for (int i = 2; i < 100; i++)
+            assertEquals(Integer.valueOf(i), table.get("key" + i));
+
+        table.cleanup();
+        table.put("key100", 100);
+        table.close();
+
+        table = new FileTable<String, Integer>(dir.getPath(), "table", FileTable.Storage.LOG);
+        Set<String> keys = new HashSet<String>(table.keySet());
+        assertEquals(100, keys.size());
+        assertTrue(keys.contains("key100"));
+        assertEquals(Integer.valueOf(99), table.get("key99"));
+        table.close();
+    }
+}
@@ -0,0 +1,181 @@
+package sorcer.util;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class TableLogTest {
+    private File dir;
+    private String name;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("table-log").toFile();
+        name = new File(dir, "table").getPath();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        TableLog<Integer> log = new TableLog<Integer>(name, 64 * 1024, 0.5);
+        for (int i = 0; i < 5000; i++)
+            log.put(i % 500, value(i));
+        for (int i = 0; i < 100; i++)
+            log.remove(i);
+        log.close();
+
+        log = new TableLog<Integer>(name, 64 * 1024, 0.5);
+        assertEquals(400, log.getIndex().size());
+        assertNull(log.get(50));
+        for (int i = 100; i < 500; i++)
+            assertEquals(value(4500 + i), log.get(i));
+        log.close();
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        TableLog<Integer> log = new TableLog<Integer>(name, 64 * 1024, 0.5);
+        for (int i = 0; i < 5000; i++)
+            log.put(i % 500, value(i));
+        log.compact(true);
+        for (int i = 0; i < 500; i++)
+            assertEquals(value(4500 + i), log.get(i));
+        log.close();
+
+        long size = 0;
+        for (File f : dir.listFiles()) {
+            if (f.getName().endsWith(TableLog.SEGMENT_SUFFIX))
+                size += f.length();
+        }
+        assertTrue("garbage left: " + size, size < 2 * 500 * (value(0).length() + 4));
+    }
+
+    @Test
+    public void testTornJournal() throws Exception {
+        TableLog<Integer> log = new TableLog<Integer>(name, 64 * 1024, 0.5);
+        for (int i = 0; i < 10; i++)
+            log.put(i, value(i));
+        File journal = new File(name + TableLog.JOURNAL_SUFFIX);
+        long length = journal.length();
+        log.put(10, "torn");
+        log.close();
+
+        // the record of key 10 without its last bytes
+        try (RandomAccessFile raf = new RandomAccessFile(journal, "rw")) {
+            raf.setLength(length + 20);
+        }
+
+        log = new TableLog<Integer>(name, 64 * 1024, 0.5);
+        assertEquals(10, log.getIndex().size());
+        assertNull(log.get(10));
+        log.put(10, value(10));
+        assertEquals(value(10), log.get(10));
+        log.close();
+    }
+
+    @Test
+    public void testTruncatedSegment() throws Exception {
+        TableLog<Integer> log = new TableLog<Integer>(name, 64 * 1024, 0.5);
+        for (int i = 0; i < 10; i++)
+            log.put(i, value(i));
+        log.close();
+
+        File segment = new File(name + ".0" + TableLog.SEGMENT_SUFFIX);
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        log = new TableLog<Integer>(name, 64 * 1024, 0.5);
+        assertEquals(9, log.getIndex().size());
+        assertNull(log.get(9));
+        assertEquals(value(8), log.get(8));
+        log.close();
+    }
+
+    @Test
+    public void testMissingSegment() throws Exception {
+        TableLog<Integer> log = new TableLog<Integer>(name, 16 * 1024, 0.5);
+        for (int i = 0; i < 30; i++)
+            log.put(i, value(i));
+        log.close();
+
+        assertTrue(new File(name + ".0" + TableLog.SEGMENT_SUFFIX).delete());
+        log = new TableLog<Integer>(name, 16 * 1024, 0.5);
+        int left = log.getIndex().size();
+        assertTrue(left > 0 && left < 30);
+        assertNull(log.get(0));
+        assertEquals(value(29), log.get(29));
+        log.close();
+
+        // the dropped keys are removed in the journal
+        log = new TableLog<Integer>(name, 16 * 1024, 0.5);
+        assertEquals(left, log.getIndex().size());
+        log.close();
+    }
+
+    @Test
+    public void testCorruptJournal() throws Exception {
+        TableLog<Integer> log = new TableLog<Integer>(name, 64 * 1024, 0.5);
+        for (int i = 0; i < 10; i++)
+            log.put(i, value(i));
+        log.close();
+        long length = new File(name + TableLog.JOURNAL_SUFFIX).length();
+        log = new TableLog<Integer>(name, 64 * 1024, 0.5);
+        log.put(10, value(10));
+        log.close();
+
+        // the first byte of the record of key 10
+        try (RandomAccessFile raf = new RandomAccessFile(name + TableLog.JOURNAL_SUFFIX, "rw")) {
+            raf.seek(length + 1);
+            raf.write(raf.read() ^ 0xff);
+        }
+
+        log = new TableLog<Integer>(name, 64 * 1024, 0.5);
+        assertEquals(10, log.getIndex().size());
+        assertNull(log.get(10));
+        log.close();
+    }
+
+    @Test
+    public void testUnsyncedValue() throws Exception {
+        TableLog<Integer> log = new TableLog<Integer>(name, 64 * 1024, 0.5);
+        for (int i = 0; i < 10; i++)
+            log.put(i, value(i));
+        log.close();
+
+        // the values are not synced, and the log is not closed as by a crash
+        log = new TableLog<Integer>(name, 64 * 1024, 0.5, Long.MAX_VALUE);
+        log.put(10, value(10));
+        log.put(11, value(11));
+        File segment = new File(name + ".0" + TableLog.SEGMENT_SUFFIX);
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.seek(raf.length() - 1);
+            raf.write('y');
+        }
+
+        log = new TableLog<Integer>(name, 64 * 1024, 0.5);
+        assertEquals(11, log.getIndex().size());
+        assertEquals(value(10), log.get(10));
+        assertNull(log.get(11));
+        log.close();
+    }
+
+    private static String value(int i) {
+        StringBuilder sb = new StringBuilder().append(i).append(':');
+        while (sb.length() < 1000)
+            sb.append('x');
+        return sb.toString();
+    }
+}
@@ -14,6 +14,10 @@ import sorcer.service.*;
 import sorcer.service.Domain;
 import sorcer.service.modeling.Model;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 import static org.junit.Assert.assertTrue;
 import static sorcer.co.operator.*;
 import static sorcer.eo.operator.*;
@@ -181,6 +185,41 @@ public class Models {
 		assertTrue(get(out, "add/out").equals(100.0));
 	}
 
+	@Test
+	public void concurrentLambdaModel() throws Exception {
+		Set<String> threads = Collections.synchronizedSet(new HashSet<>());
+
+		// dependencies of "subtract" are evaluated concurrently
+		Domain mo = model(ent("multiply/x1", 10.0), ent("multiply/x2", 50.0),
+				ent("add/x1", 20.0), ent("add/x2", 80.0),
+				lambda("add", (Context <Double> model) -> {
+							threads.add(Thread.currentThread().getName());
+							return v(model, "add/x1") + v(model, "add/x2");
+						},
+						result("add/out",
+								inPaths("add/x1", "add/x2"))),
+				lambda("multiply", (Context <Double> model) -> {
+							threads.add(Thread.currentThread().getName());
+							return v(model, "multiply/x1") * v(model, "multiply/x2");
+						},
+						result("multiply/out",
+								inPaths("multiply/x1", "multiply/x2"))),
+				lambda("subtract", (Context <Double> model) ->
+								v(model, "multiply/out") - v(model, "add/out"),
+						result("model/response")),
+				response("subtract", "multiply/out", "add/out", "model/response"),
+				Strategy.Flow.PAR);
+
+		dependsOn(mo, ent("subtract", paths("multiply", "add")));
+
+		Context out = response(mo);
+		logger.info("model response: " + out);
+		assertTrue(get(out, "model/response").equals(400.0));
+		assertTrue(get(out, "multiply/out").equals(500.0));
+		assertTrue(get(out, "add/out").equals(100.0));
+		assertTrue(threads.stream().anyMatch(t -> t.startsWith("SrvModel-eval")));
+	}
+
 	@Test
 	public void addLambdaEntry() throws Exception {
 
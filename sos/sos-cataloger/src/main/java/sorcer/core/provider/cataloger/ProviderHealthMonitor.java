@@ -0,0 +1,313 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sorcer.core.provider.cataloger;
+
+import net.jini.core.lookup.ServiceID;
+import net.jini.core.lookup.ServiceItem;
+import net.jini.lookup.LookupCache;
+import org.rioproject.admin.ServiceActivityProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.core.analytics.AnalyticsProducer;
+import sorcer.core.analytics.MethodAnalytics;
+import sorcer.core.provider.Provider;
+import sorcer.util.ConfigurableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks the providers registered with the cataloger in the background and
+ * keeps their liveness, the latency of the last checks and the number of
+ * operations they are executing as reported by their method analytics.
+ * Lookups of the cataloger are answered from that state, so a hung provider
+ * does not stall clients. A provider is discarded from the lookup cache after
+ * <code>maxFailures</code> consecutive failed checks. A check that does not
+ * return within the timeout marks the provider as not alive and counts as a
+ * failed check, and so does every further timeout it stays pending.
+ */
+public class ProviderHealthMonitor {
+	private final static Logger logger = LoggerFactory.getLogger(ProviderHealthMonitor.class);
+
+	// period of health checks in milliseconds
+	public static final String P_HEALTH_PERIOD = "provider.cataloger.health.period";
+
+	// time in milliseconds after which a pending check marks its provider down
+	public static final String P_HEALTH_TIMEOUT = "provider.cataloger.health.timeout";
+
+	// consecutive failed checks after which a provider is discarded
+	public static final String P_HEALTH_MAX_FAILURES = "provider.cataloger.health.maxFailures";
+
+	// provider selection strategy: roundRobin or leastLoaded
+	public static final String P_SELECTION = "provider.cataloger.selection";
+
+	public enum Selection { ROUND_ROBIN, LEAST_LOADED }
+
+	// weight of the last latency sample in the moving average
+	private static final double LATENCY_WEIGHT = 0.3;
+
+	private final ConcurrentMap<ServiceID, Health> health = new ConcurrentHashMap<ServiceID, Health>();
+
+	private final long period;
+
+	private final long timeout;
+
+	private final int maxFailures;
+
+	private final Selection selection;
+
+	private ScheduledExecutorService scheduler;
+
+	private ExecutorService checkers;
+
+	private volatile LookupCache lookupCache;
+
+	public ProviderHealthMonitor(long period, long timeout, int maxFailures, Selection selection) {
+		this.period = period;
+		this.timeout = timeout;
+		this.maxFailures = maxFailures;
+		this.selection = selection;
+	}
+
+	public static Selection getSelection(String strategy) {
+		if (strategy != null && "leastLoaded".equalsIgnoreCase(strategy.trim()))
+			return Selection.LEAST_LOADED;
+		return Selection.ROUND_ROBIN;
+	}
+
+	public void setLookupCache(LookupCache lookupCache) {
+		this.lookupCache = lookupCache;
+	}
+
+	public Selection getSelection() {
+		return selection;
+	}
+
+	public void start() {
+		ConfigurableThreadFactory tf = new ConfigurableThreadFactory();
+		tf.setDaemon(true);
+		tf.setNameFormat("Cataloger-health-%2$s");
+		scheduler = Executors.newSingleThreadScheduledExecutor(tf);
+		// one check per provider at a time, a hung provider holds only its own thread
+		checkers = Executors.newCachedThreadPool(tf);
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				checkAll();
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+		logger.info("Health checks of providers every {} ms, timeout: {} ms, selection: {}",
+				period, timeout, selection);
+	}
+
+	public void terminate() {
+		if (scheduler != null)
+			scheduler.shutdownNow();
+		if (checkers != null)
+			checkers.shutdownNow();
+		health.clear();
+	}
+
+	public void track(ServiceItem sItem) {
+		Health h = new Health(sItem);
+		Health previous = health.put(sItem.serviceID, h);
+		if (previous != null) {
+			// keep the state of the replaced item until it is checked again
+			h.alive = previous.alive;
+			h.latency = previous.latency;
+			h.load = previous.load;
+		}
+		submit(h);
+	}
+
+	public void untrack(ServiceID serviceID) {
+		health.remove(serviceID);
+	}
+
+	/**
+	 * Returns the liveness of the provider from its last health check.
+	 * Providers not checked yet are considered alive.
+	 */
+	public boolean isAlive(ServiceItem sItem) {
+		Health h = health.get(sItem.serviceID);
+		return h == null || h.alive;
+	}
+
+	/**
+	 * Returns the number of operations in process by the provider as
+	 * reported by its last health check, or 0 if not known.
+	 */
+	public int getLoad(ServiceItem sItem) {
+		Health h = health.get(sItem.serviceID);
+		return h == null ? 0 : h.load;
+	}
+
+	/**
+	 * Returns the moving average of the health check latency of the provider
+	 * in milliseconds, or -1 if not known.
+	 */
+	public double getLatency(ServiceItem sItem) {
+		Health h = health.get(sItem.serviceID);
+		return h == null ? -1 : h.latency;
+	}
+
+	/**
+	 * Sorts providers by load, the least loaded first. The loads are read
+	 * once before sorting, checks running meanwhile do not change the order.
+	 * Providers with the same load keep their order in the list, so callers
+	 * passing the list in round-robin order spread requests over them rather
+	 * than all picking the same provider from the same, possibly old, loads.
+	 */
+	public List<ServiceItem> sortByLoad(List<ServiceItem> items) {
+		List<Load> loads = new ArrayList<Load>(items.size());
+		for (int i = 0; i < items.size(); i++)
+			loads.add(new Load(items.get(i), getLoad(items.get(i)), i));
+		Collections.sort(loads);
+		List<ServiceItem> sorted = new ArrayList<ServiceItem>(items.size());
+		for (Load load : loads)
+			sorted.add(load.item);
+		return sorted;
+	}
+
+	private void checkAll() {
+		long now = System.currentTimeMillis();
+		for (Health h : health.values()) {
+			if (h.checking.get()) {
+				if (now > h.deadline) {
+					h.deadline += timeout;
+					logger.warn("Service ID: {} did not respond within {} ms", h.item.serviceID, now - h.started);
+					fail(h);
+				}
+				continue;
+			}
+			submit(h);
+		}
+	}
+
+	private void submit(final Health h) {
+		if (checkers == null || !h.checking.compareAndSet(false, true))
+			return;
+		h.started = System.currentTimeMillis();
+		h.deadline = h.started + timeout;
+		try {
+			checkers.execute(new Runnable() {
+				public void run() {
+					check(h);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			h.checking.set(false);
+		}
+	}
+
+	private void check(Health h) {
+		ServiceItem si = h.item;
+		try {
+			long start = System.nanoTime();
+			if (si.service instanceof ServiceActivityProvider) {
+				((ServiceActivityProvider) si.service).isActive();
+			} else if (si.service instanceof Provider) {
+				((Provider) si.service).getProviderName();
+			}
+			double latency = (System.nanoTime() - start) / 1e6;
+			h.latency = h.latency < 0 ? latency : LATENCY_WEIGHT * latency + (1 - LATENCY_WEIGHT) * h.latency;
+			h.load = getActiveOperations(si);
+			h.failures.set(0);
+			h.alive = true;
+		} catch (Exception e) {
+			fail(h);
+		} finally {
+			h.checking.set(false);
+		}
+	}
+
+	private void fail(Health h) {
+		h.alive = false;
+		int failures = h.failures.incrementAndGet();
+		logger.warn("Service ID: {} is not Alive anymore, failed checks: {}", h.item.serviceID, failures);
+		if (failures >= maxFailures)
+			discard(h);
+	}
+
+	private int getActiveOperations(ServiceItem si) {
+		if (!(si.service instanceof AnalyticsProducer))
+			return 0;
+		try {
+			Map<String, MethodAnalytics> analytics = ((AnalyticsProducer) si.service).getMethodAnalytics();
+			int active = 0;
+			if (analytics != null)
+				for (MethodAnalytics ma : analytics.values())
+					active += ma.getNumActiveOperations();
+			return active;
+		} catch (Exception e) {
+			// liveness is already checked, analytics are optional
+			logger.debug("No method analytics from Service ID: {}", si.serviceID, e);
+			return 0;
+		}
+	}
+
+	private void discard(Health h) {
+		LookupCache cache = lookupCache;
+		if (cache != null) {
+			// the lookup cache removes the provider from the cataloger and
+			// adds it again if it is still registered with lookup services
+			health.remove(h.item.serviceID, h);
+			cache.discard(h.item.service);
+		}
+	}
+
+	private static class Load implements Comparable<Load> {
+		final ServiceItem item;
+		final int load;
+		final int order;
+
+		Load(ServiceItem item, int load, int order) {
+			this.item = item;
+			this.load = load;
+			this.order = order;
+		}
+
+		public int compareTo(Load other) {
+			int result = Integer.compare(load, other.load);
+			return result != 0 ? result : Integer.compare(order, other.order);
+		}
+	}
+
+	private static class Health {
+		final ServiceItem item;
+		final AtomicBoolean checking = new AtomicBoolean();
+		volatile boolean alive = true;
+		volatile double latency = -1;
+		volatile int load;
+		volatile long started;
+		volatile long deadline;
+		final AtomicInteger failures = new AtomicInteger();
+
+		Health(ServiceItem item) {
+			this.item = item;
+		}
+	}
+}
@@ -25,7 +25,6 @@ import net.jini.core.lookup.ServiceItem;
 import net.jini.core.lookup.ServiceMatches;
 import net.jini.core.lookup.ServiceTemplate;
 import net.jini.discovery.LookupDiscoveryManager;
-import net.jini.id.ReferentUuid;
 import net.jini.lookup.LookupCache;
 import net.jini.lookup.ServiceDiscoveryEvent;
 import net.jini.lookup.ServiceDiscoveryListener;
@@ -66,6 +65,9 @@ import java.rmi.server.RMIClassLoader;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The facility for maintaining a cache of all SORCER providers {@link Service}s
@@ -88,19 +90,17 @@ import java.util.concurrent.ConcurrentMap;
  * Only access to {@link CatalogerInfo} is via a setValue of "service-aware" methods.
  * They include
  * <ol>
- * <li><code>addServiceItem(SeviceItem)</code>: adds an entry to this hash map
- * such that the key is the <code>InterfaceList</code> describing the service.
- * eval is the serviceItem itself. Value is added always to the first to
- * improve load balancing heuristics (assuming that the latest served service is
- * always removed and added to the end
+ * <li><code>addServiceItem(SeviceItem)</code>: registers the serviceItem by
+ * its <code>ServiceID</code> and indexes it by its interfaces and
+ * <code>Name</code> attributes. The entry of this hash map with the key
+ * <code>InterfaceList</code> describing the service is updated as well.
  * 
  * <li> <code>getServiceItem(String[] interfaces), String providerName))</code>:
- * not only returns the serviceItem with the following specs, but also removes
- * and adds the sericeItem to the end of the list to provide load-balancing
+ * returns the serviceItem with the following specs selected in turn with an
+ * atomic round-robin cursor to provide load-balancing
  * 
- * <li>synchronized <code>getServiceItem(ServiceID serviceID)</code> returns a
- * service with a serviceID, with the same load-balancing feature mentioned
- * above
+ * <li><code>getServiceItem(ServiceID serviceID)</code> returns a
+ * service with a serviceID
  * 
  * <li> <code>getServiceMethods())</code> returns a hash map with the key as a
  * service interface (those interfaces package name starting with
@@ -125,6 +125,8 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger {
 
 	protected final CatalogerInfo cinfo = new CatalogerInfo();
 
+	protected ProviderHealthMonitor healthMonitor;
+
 	private String[] locators = null;
 
 	public LookupLocator[] getLL() throws RemoteException {
@@ -220,8 +222,11 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger {
 			ServiceTemplate template = new ServiceTemplate(null,
 					new Class[] { Class.forName(templateMatch) }, null);
 
+			initHealthMonitor();
 			cache = lookupMgr.createLookupCache(template, null,
 					new CatalogerEventListener(cinfo));
+			if (healthMonitor != null)
+				healthMonitor.setLookupCache(cache);
 
 			logger.info("-----------------------------");
 			logger.info("Matching services that are: " + templateMatch);
@@ -235,6 +240,43 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger {
 		}
 	}
 
+	/**
+	 * Starts background health checks of registered providers unless the
+	 * health check period is not positive, then providers are checked on
+	 * lookups.
+	 */
+	private void initHealthMonitor() {
+		long period = getLongProperty(ProviderHealthMonitor.P_HEALTH_PERIOD, 5000);
+		if (period <= 0)
+			return;
+		healthMonitor = new ProviderHealthMonitor(period,
+				getLongProperty(ProviderHealthMonitor.P_HEALTH_TIMEOUT, 3000),
+				(int) getLongProperty(ProviderHealthMonitor.P_HEALTH_MAX_FAILURES, 3),
+				ProviderHealthMonitor.getSelection(getProperty(ProviderHealthMonitor.P_SELECTION)));
+		healthMonitor.start();
+		cinfo.setHealthMonitor(healthMonitor);
+	}
+
+	private long getLongProperty(String key, long defaultValue) {
+		String value = getProperty(key);
+		if (value != null) {
+			try {
+				return Long.parseLong(value.trim());
+			} catch (NumberFormatException e) {
+				logger.warn("Could not evaluate property: {}: {}, using default: {}",
+						key, value, defaultValue);
+			}
+		}
+		return defaultValue;
+	}
+
+	@Override
+	public void destroy() {
+		if (healthMonitor != null)
+			healthMonitor.terminate();
+		super.destroy();
+	}
+
 //	public void setLogger(Logger logger) {
 //		ServiceCataloger.logger = logger;
 //	}
@@ -396,34 +438,43 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger {
 	 * A customized &quot;sorcer provider&quot; aware a map of the cataloger
 	 * info.
 	 * <p>
-	 * The key of the cataloger info is the <code>InterfaceList</code>. This
-	 * inner <code>InterfaceList</code> is an array list of interface names with
-	 * overridden <code>equals</code> such that it follows the following
-	 * semantics: <code>arrayList1.equals(arrayList2</code> iff all interfaces
-	 * of arrayList2 are contained in arrayList1.<br>
-	 * The key eval in <code>InterfaceList</code> is the list of service items
-	 * implementing its key interfaces. Methods <code>get</code> and
-	 * <code>put</code> are overridden to do nothing.
+	 * Service items are registered by <code>ServiceID</code> and indexed by
+	 * the names of all interfaces implemented by their proxies and by their
+	 * <code>Name</code> attributes. Lookups intersect the indexes and never
+	 * scan or reorder the registered items, so concurrent lookups do not
+	 * contend with each other.
 	 * <p>
-	 * The method <code>addServiceItem(SeviceItem)</code> adds an entry to this
-	 * map such that the key is the <code>InterfaceList</code> describing this
-	 * service, the eval is the serviceItem itself.
+	 * The method <code>addServiceItem(SeviceItem)</code> registers the service
+	 * item, replacing the item previously registered with the same
+	 * <code>ServiceID</code>.
 	 * <p>
 	 * The method
-	 * <code>getServiceItem(String[] interfaces, String providerName)</code> not
-	 * only returns the serviceItem with the following specs, but also removes
-	 * and adds the sericeItem to the end of the list to provide load-balancing
+	 * <code>getServiceItem(Class[] interfaces, String providerName)</code>
+	 * returns the matching serviceItem selected with an atomic round-robin
+	 * cursor per request to provide load-balancing
 	 * <p>
 	 * The method <code>getServiceItem(ServiceID serviceID)</code> returns a
 	 * service with a given serviceID
 	 * <p>
 	 * The method <code>getProviderMethods</code> return a map of provider's
 	 * <code>service methods</code>
+	 * <p>
+	 * The <code>InterfaceList</code> view of registered items, a map of
+	 * the lists of service items keyed by the interfaces of their proxies, is
+	 * maintained for browsers of the cataloger.
 	 */
 	protected static class CatalogerInfo {
 		Cataloger cataloger = null;
 		final ConcurrentMap<InterfaceList, List<ServiceItem>> interfaceListMap = new ConcurrentHashMap<CatalogerInfo.InterfaceList, List<ServiceItem>>();
 
+		// registered service items and their indexes by interface and Name
+		final ConcurrentMap<ServiceID, Registration> registrations = new ConcurrentHashMap<ServiceID, Registration>();
+		final ConcurrentMap<String, Set<ServiceID>> interfaceIndex = new ConcurrentHashMap<String, Set<ServiceID>>();
+		final ConcurrentMap<String, Set<ServiceID>> nameIndex = new ConcurrentHashMap<String, Set<ServiceID>>();
+
+		// round-robin cursors per requested interfaces and provider name
+		final ConcurrentMap<String, AtomicInteger> cursors = new ConcurrentHashMap<String, AtomicInteger>();
+
         public ConcurrentMap<InterfaceList, List<ServiceItem>> getInterfaceListMap() {
             return interfaceListMap;
         }
@@ -439,6 +490,7 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger {
 
 		private String[] interfaceIgnoreList;
 		private CatalogObservable observable;
+		private volatile ProviderHealthMonitor healthMonitor;
 
 		public CatalogerInfo() {
 			super();
@@ -458,43 +510,39 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger {
 			this.cataloger = cataloger;
 		}
 
+		public void setHealthMonitor(ProviderHealthMonitor healthMonitor) {
+			this.healthMonitor = healthMonitor;
+		}
+
+		/**
+		 * Returns the liveness of the provider from the health monitor or
+		 * checks it with a remote call if there is no health monitor.
+		 * Providers that are not alive anymore are removed.
+		 */
+		boolean isAvailable(ServiceItem sItem) {
+			if (healthMonitor != null)
+				return healthMonitor.isAlive(sItem);
+			if (isAlive(sItem))
+				return true;
+			// not Alive anymore removing from cataloger
+			removeServiceItem(sItem);
+			return false;
+		}
+
 		public void remove(CatalogerInfo.InterfaceList key) {
-			interfaceListMap.remove(key);
+			List<ServiceItem> sItems = interfaceListMap.remove(key);
+			if (sItems != null)
+				for (ServiceItem sItem : sItems)
+					unregister(sItem);
 		}
 
 		public void remove(ServiceItem value) {
-            InterfaceList found = null;
-            ServiceItem itemFound = null;
-            for (Map.Entry<InterfaceList, List<ServiceItem>> entry : interfaceListMap
-                    .entrySet()) {
-                for (ServiceItem item : entry.getValue()) {
-                    if (item.serviceID.equals(value.serviceID)) {
-                        found = entry.getKey();
-                        itemFound = item;
-                        break;
-                    }
-                }
-            }
-        }
-
+			unregister(value);
+		}
 
 		public void removeServiceItem(ServiceItem sItem) {
-			InterfaceList searchInterfaceList = new InterfaceList(sItem.service
-					.getClass().getInterfaces());
-			List<ServiceItem> value;
             logger.info("Removing ServiceItem from Cataloger: " + sItem.toString());
-
-			for (InterfaceList key : interfaceListMap.keySet()) {
-                if (key.containsAllInterfaces(searchInterfaceList)) {
-					value = interfaceListMap.get(key);
-                    if (value != null) {
-						if (value.size() == 1)
-							remove(key);
-						else
-							removeFrom(value, sItem);
-					}
-				}
-			}
+			unregister(sItem);
 			observable.tellOfAction("UPDATEDPLEASE");
 		}
 
@@ -504,71 +552,110 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger {
 		}
 
 		public List<ServiceItem> getAll(InterfaceList interfaceList) {
-			List<ServiceItem> sItems = new ArrayList<ServiceItem>();
-			for (Map.Entry<InterfaceList, List<ServiceItem>> entry : interfaceListMap.entrySet()) {
-                if(logger.isDebugEnabled())
-				logger.debug("list = " + entry.getValue());
-				if (entry.getKey().containsAllInterfaces(interfaceList)) {
-					logger.info("Cataloger found matching interface list: "+ entry.getValue());
-					sItems.addAll(interfaceListMap.get(entry.getKey()));
-				}
+			return getCandidates(interfaceList.toArray(new Class[interfaceList.size()]), null);
+		}
+
+		public void addServiceItem(ServiceItem sItem) {
+			if (sItem == null || sItem.service == null)
+				return;
+			Registration registration = new Registration(sItem,
+					getInterfaceNames(sItem.service.getClass()),
+					getNames(sItem.attributeSets));
+			Registration previous = registrations.put(sItem.serviceID, registration);
+			if (previous != null)
+				unindex(previous);
+			for (String type : registration.types)
+				indexOf(interfaceIndex, type).add(sItem.serviceID);
+			for (String name : registration.names)
+				indexOf(nameIndex, name).add(sItem.serviceID);
+			if (healthMonitor != null)
+				healthMonitor.track(sItem);
+
+			final ServiceItem added = sItem;
+			List<ServiceItem> sItems = interfaceListMap.compute(
+					new InterfaceList(sItem.service.getClass().getInterfaces()),
+					(key, list) -> {
+						if (list == null)
+							list = new CopyOnWriteArrayList<ServiceItem>();
+						removeFrom(list, added.serviceID);
+						list.add(0, added);
+						return list;
+					});
+			logger.info("ServiceItem {} registered, {} with the same interfaces{}",
+					getName(sItem.attributeSets), sItems.size(),
+					previous != null ? ", replaced previous registration" : "");
+			logger.debug("Added new service, calling notify");
+			observable.tellOfAction("UPDATEDPLEASE");
+		}
+
+		private void unregister(ServiceItem sItem) {
+			if (sItem == null || sItem.serviceID == null)
+				return;
+			Registration registration = registrations.remove(sItem.serviceID);
+			if (registration == null)
+				return;
+			unindex(registration);
+			if (healthMonitor != null)
+				healthMonitor.untrack(sItem.serviceID);
+			final ServiceID serviceID = sItem.serviceID;
+			interfaceListMap.computeIfPresent(
+					new InterfaceList(registration.item.service.getClass().getInterfaces()),
+					(key, list) -> {
+						removeFrom(list, serviceID);
+						return list.isEmpty() ? null : list;
+					});
+		}
+
+		private void unindex(Registration registration) {
+			ServiceID serviceID = registration.item.serviceID;
+			for (String type : registration.types) {
+				Set<ServiceID> ids = interfaceIndex.get(type);
+				if (ids != null)
+					ids.remove(serviceID);
+			}
+			for (String name : registration.names) {
+				Set<ServiceID> ids = nameIndex.get(name);
+				if (ids != null)
+					ids.remove(serviceID);
 			}
-			return sItems;
 		}
 
-		private boolean alreadyHas(ServiceItem item, List<ServiceItem> list) {
-			boolean has = false;
-			for(ServiceItem si : list) {
-				if(si.serviceID.equals(item.serviceID)) {
-					has = true;
-					break;
-				}
+		private static Set<ServiceID> indexOf(ConcurrentMap<String, Set<ServiceID>> index, String key) {
+			Set<ServiceID> ids = index.get(key);
+			if (ids == null) {
+				ids = new CopyOnWriteArraySet<ServiceID>();
+				Set<ServiceID> existing = index.putIfAbsent(key, ids);
+				if (existing != null)
+					ids = existing;
 			}
-			return has;
+			return ids;
 		}
 
-		public void addServiceItem(ServiceItem sItem) {
-			InterfaceList keyList = new InterfaceList(sItem.service.getClass().getInterfaces());
-			List<ServiceItem> sItems = interfaceListMap.get(keyList);
-			if(sItems!=null) {
-				List<ServiceItem> workingList = new ArrayList<>();
-				workingList.addAll(sItems);
-				boolean added = false;
-				for (ServiceItem si : sItems) {
-					if(!alreadyHas(si, workingList)) {
-						workingList.add(0, sItem);
-						added = true;
-					}
-				}
-				interfaceListMap.put(keyList, workingList);
-				if(added) {
-					StringBuilder sb = new StringBuilder();
-					for (ServiceItem i : workingList) {
-						if (sb.length() > 0)
-							sb.append("\n");
-						sb.append("\t")
-						  .append(getName(i.attributeSets))
-						  .append(" sid: ").append(i.serviceID)
-						  .append(" rid: ").append(((ReferentUuid) i.service).getReferentUuid());
-					}
-					logger.info("ServiceItem list for {} was {} now {}\n{}",
-								getName(sItem.attributeSets),
-								sItems.size(),
-								workingList.size(),
-								sb.toString());
-				} else {
-					logger.info("ServiceItem list unchanged for {}",
-								getName(sItem.attributeSets));
-				}
-			} else {
-				sItems = new ArrayList<>();
-				sItems.add(0, sItem);
-				interfaceListMap.put(keyList, sItems);
-				logger.info("ServiceItem list created for {}",
-							getName(sItem.attributeSets));
+		/**
+		 * Returns the names of all interfaces implemented by the proxy
+		 * class including their superinterfaces. Names are used rather than
+		 * classes since proxies are loaded from different codebases.
+		 */
+		private static Set<String> getInterfaceNames(Class<?> proxyClass) {
+			Set<String> names = new HashSet<String>();
+			Deque<Class<?>> types = new ArrayDeque<Class<?>>();
+			for (Class<?> c = proxyClass; c != null; c = c.getSuperclass())
+				types.addAll(Arrays.asList(c.getInterfaces()));
+			while (!types.isEmpty()) {
+				Class<?> type = types.poll();
+				if (names.add(type.getName()))
+					types.addAll(Arrays.asList(type.getInterfaces()));
 			}
-			logger.debug("Added new service, calling notify");
-			observable.tellOfAction("UPDATEDPLEASE");
+			return names;
+		}
+
+		private static Set<String> getNames(Entry[] entries) {
+			Set<String> names = new HashSet<String>();
+			if (entries != null)
+				for (Entry e : entries)
+					if (e instanceof Name && ((Name) e).name != null)
+						names.add(((Name) e).name);
+			return names;
 		}
 
 		private String getName(Entry[] entries) {
@@ -582,14 +669,66 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger {
 			return name;
 		}
 
-        private void removeFrom(List<ServiceItem> sis, ServiceItem si) {
-			if (si.service == null)
-				return;
-			for (int i = 0; i < sis.size(); i++)
-				if (si.service.equals(sis.get(i).service)) {
-					sis.remove(i);
-					return;
+        private void removeFrom(List<ServiceItem> sis, ServiceID serviceID) {
+			for (ServiceItem si : sis)
+				if (serviceID.equals(si.serviceID))
+					sis.remove(si);
+		}
+
+		/**
+		 * Returns registered service items implementing all the interfaces
+		 * and named <code>providerName</code> if not null. The smallest of
+		 * the matching index entries is filtered by the other criteria.
+		 */
+		private List<ServiceItem> getCandidates(Class[] interfaces, String providerName) {
+			List<String> types = new ArrayList<String>();
+			Set<ServiceID> smallest = null;
+			if (interfaces != null) {
+				for (Class type : interfaces) {
+					if (type == null)
+						continue;
+					Set<ServiceID> ids = interfaceIndex.get(type.getName());
+					if (ids == null || ids.isEmpty())
+						return new ArrayList<ServiceItem>();
+					if (smallest == null || ids.size() < smallest.size())
+						smallest = ids;
+					types.add(type.getName());
 				}
+			}
+			if (providerName != null) {
+				Set<ServiceID> ids = nameIndex.get(providerName);
+				if (ids == null || ids.isEmpty())
+					return new ArrayList<ServiceItem>();
+				if (smallest == null || ids.size() < smallest.size())
+					smallest = ids;
+			}
+			Collection<ServiceID> ids = smallest != null ? smallest : registrations.keySet();
+			List<ServiceItem> sItems = new ArrayList<ServiceItem>(ids.size());
+			for (ServiceID serviceID : ids) {
+				Registration registration = registrations.get(serviceID);
+				if (registration != null
+						&& registration.types.containsAll(types)
+						&& (providerName == null || registration.names.contains(providerName)))
+					sItems.add(registration.item);
+			}
+			return sItems;
+		}
+
+		private int nextCursor(Class[] interfaces, String providerName) {
+			StringBuilder key = new StringBuilder();
+			if (interfaces != null)
+				for (Class type : interfaces)
+					if (type != null)
+						key.append(type.getName()).append(',');
+			key.append('#').append(providerName);
+			AtomicInteger cursor = cursors.get(key.toString());
+			if (cursor == null) {
+				cursor = new AtomicInteger();
+				AtomicInteger existing = cursors.putIfAbsent(key.toString(), cursor);
+				if (existing != null)
+					cursor = existing;
+			}
+			return cursor.getAndIncrement() & Integer.MAX_VALUE;
 		}
 
 		public String toString() {
@@ -624,93 +763,58 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger {
 		 * first parameter = String[] of interfaces<br>
 		 * second parameter = providerName if any
 		 * <p>
-		 * This method provides automatic load balancing by providing the
-		 * serviceItem from the beginning and by removing it and adding to the
-		 * end upon each request.
+		 * This method provides automatic load balancing by selecting matching
+		 * service items in turn with a round-robin cursor kept per request or,
+		 * with the least-loaded selection of the health monitor, the item of
+		 * the provider with the fewest operations in process.
 		 */
 		public ServiceItem getServiceItem(Class[] interfaces,
 				String providerName) {
-
-			logger.info("providerName = " + providerName + "\ninterfaces: "
-					+ GenericUtil.arrayToString(interfaces));
-
-			List<ServiceItem> list = getAll(new InterfaceList(interfaces));
-			logger.info("Cinfo getServiceItem, got: " + list);
-			if (providerName != null && providerName.equals(ANY))
+			if (logger.isDebugEnabled())
+				logger.debug("providerName = " + providerName + "\ninterfaces: "
+						+ GenericUtil.arrayToString(interfaces));
+			if (providerName != null && (providerName.equals(ANY) || providerName.length() == 0))
 				providerName = null;
-			if (list == null)
+
+			List<ServiceItem> list = getCandidates(interfaces, providerName);
+			if (list.isEmpty())
 				return null;
 
-			ServiceItem sItem;
 			// provide load balancing and check if still alive
-			if (providerName == null || providerName.length() == 0) {
-				do {
-					if (list.size() == 0)
-						return null;
-					sItem = list.remove(0);
-					if (sItem != null) {
-						if (isAlive(sItem)) {
-							list.add(sItem);
-							return sItem;
-						} else {
-							// not Alive anymore removing from cataloger
-							removeServiceItem(sItem);
-						}
-					}
-				} while (sItem != null);
-			} else {
-				net.jini.core.entry.Entry[] attrs;
-				for (int i = 0; i < list.size(); i++) {
-					attrs = list.get(i).attributeSets;
-					for (net.jini.core.entry.Entry et : attrs) {
-						if (et instanceof Name
-								&& providerName.equals(((Name) et).name)) {
-							sItem = list.remove(i);
-                            if (sItem != null) {
-                                if (isAlive(sItem)) {
-                                    list.add(sItem);
-                                    return sItem;
-                                } else {
-                                    // not Alive anymore removing from cataloger
-                                    removeServiceItem(sItem);
-                                }
-                            }
-						}
-					}
+			int size = list.size();
+			int start = nextCursor(interfaces, providerName);
+			ServiceItem selected = null;
+			int selectedLoad = 0;
+			for (int i = 0; i < size; i++) {
+				ServiceItem sItem = list.get((start + i) % size);
+				if (!isAvailable(sItem))
+					continue;
+				if (!isLoadAware())
+					return sItem;
+				// ties are resolved by the round-robin order
+				int load = healthMonitor.getLoad(sItem);
+				if (selected == null || load < selectedLoad) {
+					selected = sItem;
+					selectedLoad = load;
 				}
 			}
-			return null;
+			return selected;
+		}
+
+		private boolean isLoadAware() {
+			ProviderHealthMonitor monitor = healthMonitor;
+			return monitor != null && monitor.getSelection() == ProviderHealthMonitor.Selection.LEAST_LOADED;
 		}
 
-		// there's no other better way of doing this because of the structure we
-		// maintain.
-		// we need to iterate through each and every one of the list and get the
-		// service
 		public ServiceItem getServiceItem(ServiceID serviceID) {
-			Collection<List<ServiceItem>> c = interfaceListMap.values();
-			if (c == null)
-				return null;
-			List<ServiceItem> sItems;
-			ServiceItem sItem;
-			for (Iterator<List<ServiceItem>> it = c.iterator(); it.hasNext();) {
-				sItems = it.next();
-				for (int i = 0; i < sItems.size(); i++) {
-					if (serviceID.equals((sItems.get(i)).serviceID)) {
-						sItem = sItems.remove(i);
-						sItems.add(sItem);
-						return sItem;
-					}
-				}
-			}
-			return null;
+			Registration registration = registrations.get(serviceID);
+			return registration == null ? null : registration.item;
 		}
 
 		public List<ServiceItem> getAllServiceItems() {
-			List<ServiceItem> items = new ArrayList<ServiceItem>();
-			for (Map.Entry<InterfaceList, List<ServiceItem>> entry : interfaceListMap
-					.entrySet()) {
-				items.addAll(entry.getValue());
-			}
+			List<ServiceItem> items = new ArrayList<ServiceItem>(registrations.size());
+			for (Registration registration : registrations.values())
+				items.add(registration.item);
 			return items;
 		}
 
@@ -719,54 +823,43 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger {
 			// if maxItems is less or 0 then get all possible ServiceItems
 			if (maxItems <= 0)
 				maxItems = Integer.MAX_VALUE;
-			if (providerName != null && providerName.equals(ANY))
+			if (providerName != null && (providerName.equals(ANY) || providerName.length() == 0))
 				providerName = null;
-			// logger.debug("Looking for interfaces: " + interfaces);
-			List<ServiceItem> list = interfaceListMap.get(new InterfaceList(
-					interfaces));
-			// logger.debug("Got list: " + list.toString());
-			if (list == null)
+			List<ServiceItem> list = getCandidates(interfaces, providerName);
+			if (list.isEmpty())
 				return null;
 
-			ServiceItem sItem;
 			// provide load balancing
-			if (providerName == null || "".equals(providerName)) {
-				sItem = list.remove(0);
-				list.add(sItem);
-				ArrayList<ServiceItem> arItems = new ArrayList<ServiceItem>();
-				Iterator<ServiceItem> it = list.iterator();
-				while (it.hasNext() && arItems.size() < maxItems) {
-					// Check if provider is still alive
-					ServiceItem si = it.next();
-					if (isAlive(si) && (!arItems.contains(si)))
-						arItems.add(si);
-				}
-				ServiceItem[] sitems = new ServiceItem[arItems.size()];
-				for (int i = 0; i < arItems.size(); i++) {
-					sitems[i] = arItems.get(i);
-				}
-				return sitems;
-			} else {
-				net.jini.core.entry.Entry[] attrs;
-				List<ServiceItem> slist = new ArrayList<ServiceItem>();
-				Iterator<ServiceItem> it = list.iterator();
-				ServiceItem si = null;
-				while (it.hasNext() && slist.size() < maxItems) {
-					si = it.next();
-					attrs = si.attributeSets;
-					if (attrs != null && attrs.length > 0
-							&& (attrs[0] instanceof Name)
-							&& providerName.equals(((Name) attrs[0]).name)) {
-						if (isAlive(si) && (!slist.contains(si))) {
-							slist.add(si);
-						}
-					}
-				}
-				ServiceItem[] sitems = new ServiceItem[slist.size()];
-				for (int i = 0; i < slist.size(); i++) {
-					sitems[i] = slist.get(i);
-				}
-				return sitems;
+			int size = list.size();
+			int start = nextCursor(interfaces, providerName);
+			List<ServiceItem> sItems = new ArrayList<ServiceItem>();
+			for (int i = 0; i < size && (isLoadAware() || sItems.size() < maxItems); i++) {
+				// Check if provider is still alive
+				ServiceItem si = list.get((start + i) % size);
+				if (isAvailable(si))
+					sItems.add(si);
+			}
+			if (isLoadAware()) {
+				sItems = healthMonitor.sortByLoad(sItems);
+				if (sItems.size() > maxItems)
+					sItems = sItems.subList(0, maxItems);
+			}
+			return sItems.toArray(new ServiceItem[sItems.size()]);
+		}
+
+		/**
+		 * A registered service item with the interface names and the
+		 * <code>Name</code> attributes it is indexed by.
+		 */
+		static class Registration {
+			final ServiceItem item;
+			final Set<String> types;
+			final Set<String> names;
+
+			Registration(ServiceItem item, Set<String> types, Set<String> names) {
+				this.item = item;
+				this.types = types;
+				this.names = names;
 			}
 		}
 
@@ -1272,45 +1365,28 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger {
         List<ServiceItem> result = new LinkedList<ServiceItem>();
         if(cinfo==null){
             logger.warn("Cataloger not initialized");
-        } else
-        for (Map.Entry<InterfaceList, List<ServiceItem>> entry : cinfo.getInterfaceListMap().entrySet()) {
-            List<ServiceItem> serviceItems;
-            List<ServiceItem> down = new LinkedList<ServiceItem>();
-            synchronized (entry) {
-                serviceItems = new LinkedList<ServiceItem>(entry.getValue());
-            }
+        } else if (tmpl.serviceID != null) {
+            //serviceID is unique, no need to match types and attributes
+            ServiceItem serviceItem = cinfo.getServiceItem(tmpl.serviceID);
+            if (serviceItem != null)
+                result.add(serviceItem);
+        } else {
             SRVITEM:
-
-            for (ServiceItem serviceItem : serviceItems) {
-                if (tmpl.serviceID != null && tmpl.serviceID.equals(serviceItem.serviceID)) {
-                    result.add(serviceItem);
-                    //serviceID is unique, stop on first matching service
-                    break;
-                }
-
-                CatalogerInfo.InterfaceList interfaceList = entry.getKey();
-                if (interfaceList.containsAll(Arrays.asList(tmpl.serviceTypes))) {
+            for (ServiceItem serviceItem : cinfo.getCandidates(tmpl.serviceTypes, null)) {
+                if (tmpl.attributeSetTemplates != null) {
                     List<Entry> sItemEntryList = Arrays.asList(serviceItem.attributeSets);
                     for (Entry attr : tmpl.attributeSetTemplates) {
                         if (!sItemEntryList.contains(attr)) {
                             continue SRVITEM;
                         }
                     }
-                    if (isAlive(serviceItem)) {
-                        logger.info("Service " + serviceItem.serviceID + " is adding to results for: " + tmpl.toString());
-                        result.add(serviceItem);
-                    } else {
-                        // not Alive anymore removing from cataloger
-                        down.add(serviceItem);
-                    }
-                    if (result.size() >= maxMatches) break;
                 }
+                if (cinfo.isAvailable(serviceItem)) {
+                    logger.info("Service " + serviceItem.serviceID + " is adding to results for: " + tmpl.toString());
+                    result.add(serviceItem);
+                }
+                if (result.size() >= maxMatches) break;
             }
-            synchronized (cinfo){
-                for(ServiceItem serviceItem: down)
-                        cinfo.removeServiceItem(serviceItem);
-            }
-
         }
         return new ServiceMatches(result.toArray(new ServiceItem[result.size()]), result.size());
     }
@@ -83,17 +83,18 @@ public class DatabaseProvider extends ServiceProvider implements DatabaseStorer
 		setupDatabase();
 	}
 
-    private Set<Uuid> objectsQueue = Collections.synchronizedSet(new HashSet<Uuid>());
+	private DatabaseWriter writer;
 
 	public Uuid store(Object object) {
 		Object obj = object;
 //		if (!(object instanceof Identifiable)) {
 			obj = new UuidObject(object);
 //		}
-        PersistThread pt = new PersistThread(obj);
-		Uuid id = pt.getUuid();
-        pt.start();
-        return id;
+		final UuidObject uuidObject = (UuidObject) obj;
+		final StoredValueSet storedSet = views.getUuidObjectSet();
+		writer.submit(uuidObject.getId(), uuidObject, views.getUuidObjectMap(),
+				() -> storedSet.add(uuidObject));
+		return uuidObject.getId();
 	}
 
 	public Uuid update(Uuid uuid, Object object) throws InvalidObjectException {
@@ -101,228 +102,76 @@ public class DatabaseProvider extends ServiceProvider implements DatabaseStorer
 		if (!(object instanceof Identifiable)) {
 			uuidObject = new UuidObject(uuid, object);
 		}
-		UpdateThread ut = new UpdateThread(uuid, uuidObject);
-        Uuid id = ut.getUuid();
-		//TODO - added by PR, this slows it down but should prevent errors in tests...
-        //ut.start();
-		ut.run();
-        return id;
+		writeUpdate(uuid, uuidObject);
+		return uuid;
 	}
 
 	public Uuid updateObject(URL url, Object object) throws InvalidObjectException {
+		Uuid uuid = SdbUtil.getUuid(url);
 		Object uuidObject = object;
 		if (!(object instanceof Identifiable)) {
-			uuidObject = new UuidObject(SdbUtil.getUuid(url), object);
+			uuidObject = new UuidObject(uuid, object);
 		}
-		UpdateThread ut = new UpdateThread(url, uuidObject);
-        Uuid id = ut.getUuid();
-        ut.start();
-		return id;
+		writeUpdate(uuid, uuidObject);
+		return uuid;
 	}
 
-    private void append(Uuid id, Object object) {
-        waitIfBusy(id);
-        objectsQueue.add(id);
-//		logger.info("new waiting: " + object + " id: " + id + " size: " + objectsQueue.size());
+	private void writeUpdate(final Uuid uuid, final Object object) {
+		final StoredMap storedMap;
+		if (object instanceof Context) {
+			storedMap = views.getContextMap();
+		} else if (object instanceof Exertion) {
+			storedMap = views.getExertionMap();
+		} else if (object instanceof ModelTable) {
+			storedMap = views.getTableMap();
+		} else {
+			storedMap = views.getUuidObjectMap();
+		}
+		// readers wait for updates, replace does nothing for a missing key
+		writer.submit(uuid, null, storedMap, () -> {
+			UuidKey key = new UuidKey(uuid);
+			try {
+				storedMap.replace(key, object);
+			} catch (IllegalArgumentException ie) {
+				logger.warn("Problem updating object with key: " + key.toString()
+						+ "\n" + storedMap.get(key));
+				throw (ie);
+			}
+		});
 	}
 
-    private void waitIfBusy(Uuid uuid) {
-        while (objectsQueue.contains(uuid)) {
-            try {
-                Thread.sleep(50);
-            } catch (InterruptedException ie) {
-                logger.warn("Interrupted while waiting for retrieved object: " + uuid);
-            }
-        }
-    }
-
-    private synchronized Set<Uuid> getCurrentBusy(){
-        return new HashSet<Uuid>(objectsQueue);
-    }
+	private Uuid writeDelete(final Uuid uuid, Store storeType) {
+		final StoredMap storedMap = getMap(storeType);
+		writer.submit(uuid, null, storedMap, () -> storedMap.remove(new UuidKey(uuid)));
+		return uuid;
+	}
 
-    public void waitIfBusy() {
-        Set<Uuid> currentlyBusy = getCurrentBusy();
-        while (!currentlyBusy.isEmpty()) {
-            try {
-                currentlyBusy.retainAll(objectsQueue);
-//                logger.info("currentlyBusy size: " + currentlyBusy.size());
-                Thread.sleep(50);
-            } catch (InterruptedException ie) {
-                logger.warn("Interrupted while busy :" + currentlyBusy.size());
-            }
-        }
-    }
+	/**
+	 * Waits until all writes pending at the time of the call are committed.
+	 */
+	public void waitIfBusy() {
+		writer.awaitAll();
+	}
 
 	public Object getObject(Uuid uuid) {
 		logger.info("Getting object: " + uuid);
-		waitIfBusy(uuid);
 		StoredMap<UuidKey, UuidObject> uuidObjectMap = views.getUuidObjectMap();
-
-		int tries = 0;
-		while (uuidObjectMap == null && tries < 100) {
-			logger.info("Didn't get UuidObjectMap, trying: " + tries);
-			try {
-				Thread.sleep(50);
-			} catch (InterruptedException ie) {
-			}
-			views.getUuidObjectMap();
-			tries++;
-		}
-
-		UuidObject uuidObj = uuidObjectMap.get(new UuidKey(uuid));
+		UuidObject uuidObj = (UuidObject) writer.read(uuid, uuidObjectMap);
 		return uuidObj != null ? uuidObj.getObject() : null;
 	}
 
 	public Context getContext(Uuid uuid) {
-        try {
-            append(uuid, "context");
-            StoredMap<UuidKey, Context> cxtMap = views.getContextMap();
-            return cxtMap.get(new UuidKey(uuid));
-        } finally {
-            objectsQueue.remove(uuid);
-        }
+		return (Context) writer.read(uuid, views.getContextMap());
 	}
 
 	public Exertion getExertion(Uuid uuid) {
-        try {
-            append(uuid, "exertion");
-            StoredMap<UuidKey, Exertion> xrtMap = views.getExertionMap();
-		    return xrtMap.get(new UuidKey(uuid));
-        } finally {
-            objectsQueue.remove(uuid);
-        }
+		return (Exertion) writer.read(uuid, views.getExertionMap());
 	}
 
     public ModelTable getTable(Uuid uuid) {
-        try {
-            append(uuid, "dataTable");
-            StoredMap<UuidKey, ModelTable> xrtMap = views.getTableMap();
-            return xrtMap.get(new UuidKey(uuid));
-        } finally {
-            objectsQueue.remove(uuid);
-        }
+		return (ModelTable) writer.read(uuid, views.getTableMap());
     }
 
-	protected class PersistThread extends Thread {
-
-		Object object;
-		Uuid uuid;
-
-		public PersistThread(Object object) {
-            super("PersistThread-" + ((Identifiable)object).getId());
-			this.object = object;
-			this.uuid = ((UuidObject)object).getId();
-			append(uuid, object);
-		}
-
-		@SuppressWarnings("unchecked")
-		public void run() {
-			try {
-//				logger.info("persisting: " + object);
-				StoredValueSet storedSet = views.getUuidObjectSet();
-				storedSet.add(object);
-//				TODO
-//				Object inner = ((UuidObject)object).getObject();
-//				if (inner instanceof Context) {
-//					storedSet = views.getContextSet();
-//					storedSet.add(object);
-//				} else if (inner instanceof Exertion) {
-//					storedSet = views.getExertionSet();
-//					storedSet.add(object);
-//				} else if (inner instanceof ModelTable) {
-//					storedSet = views.getTableSet();
-//					storedSet.add(object);
-//				} else if (inner instanceof UuidObject) {
-//					storedSet = views.getUuidObjectSet();
-//					storedSet.add(object);
-//				}
-			} finally {
-				objectsQueue.remove(this.uuid);
-			}
-		}
-
-		public Uuid getUuid() {
-			return uuid;
-		}
-	}
-
-	protected class UpdateThread extends Thread {
-
-		Object object;
-		Uuid uuid;
-
-		public UpdateThread(Uuid uuid, Object object) throws InvalidObjectException {
-			this.uuid = uuid;
-			this.object = object;
-		}
-
-		public UpdateThread(URL url, Object object) throws InvalidObjectException {
-            super("UpdateThread-" + url);
-			this.object = object;
-			this.uuid = SdbUtil.getUuid(url);
-            append(uuid, object);
-		}
-
-		public void run() {
-            StoredMap storedMap = null;
-            UuidKey key = null;
-			try {
-                key = new UuidKey(uuid);
-                if (object instanceof Context) {
-                    storedMap = views.getContextMap();
-                    storedMap.replace(key, object);
-                } else if (object instanceof Exertion) {
-                    storedMap = views.getExertionMap();
-                    storedMap.replace(key, object);
-                } else if (object instanceof ModelTable) {
-                    storedMap = views.getTableMap();
-                    storedMap.replace(key, object);
-                } else if (object instanceof Object) {
-                    storedMap = views.getUuidObjectMap();
-                    storedMap.replace(key, object);
-                }
-            } catch (IllegalArgumentException ie) {
-                logger.warn("Problem updating object with key: " + key.toString()
-						+ "\n" + storedMap.get(key).toString());
-                objectsQueue.remove(this.uuid);
-                throw (ie);
-            } finally {
-                objectsQueue.remove(this.uuid);
-            }
-		}
-
-		public Uuid getUuid() {
-			return uuid;
-		}
-	}
-
-	protected class DeleteThread extends Thread {
-
-		Uuid uuid;
-		Store storeType;
-        StoredMap storedMap;
-
-        public DeleteThread(Uuid uuid, Store storeType) {
-            super("DeleteThread-" + uuid);
-            this.uuid = uuid;
-			this.storeType = storeType;
-            storedMap = getStoredMap(storeType);
-            append(uuid, "deleteThread");
-		}
-
-		public void run() {
-            try {
-                storedMap.remove(new UuidKey(uuid));
-            } finally {
-                objectsQueue.remove(this.uuid);
-            }
-		}
-
-		public Uuid getUuid() {
-			return uuid;
-		}
-	}
-
 	public Context contextStore(Context context) throws RemoteException,
 			ContextException, MalformedURLException {
 		Object object = context.asis(object_stored);
@@ -365,10 +214,7 @@ public class DatabaseProvider extends ServiceProvider implements DatabaseStorer
 	public Uuid deleteObject(URL url) {
 		Store storeType = SdbUtil.getStoreType(url);
 		Uuid id = SdbUtil.getUuid(url);
-		DeleteThread dt = new DeleteThread(id, storeType);
-		dt.start();
-		id = dt.getUuid();
-		return id;
+		return writeDelete(id, storeType);
 	}
 
 	public Object retrieve(URL url) {
@@ -531,6 +377,20 @@ public class DatabaseProvider extends ServiceProvider implements DatabaseStorer
 		logger.info("Opening provider's BDBJE in: " + dbHomeFile.getAbsolutePath());
 		db = new SorcerDatabase(dbHome);
 		views = new SorcerDatabaseViews(db);
+		writer = new DatabaseWriter(db.getEnvironment(),
+				getConfigEntry(config, WRITE_WORKERS, 2),
+				getConfigEntry(config, WRITE_QUEUE_SIZE, 1024),
+				getConfigEntry(config, WRITE_BATCH_SIZE, 64));
+	}
+
+	private int getConfigEntry(Configuration config, String name, int defaultValue) {
+		try {
+			return (Integer) config.getEntry(ServiceProvider.COMPONENT, name,
+					int.class, defaultValue);
+		} catch (Exception e) {
+			logger.warn("Could not evaluate entry: " + name + ", using default: " + defaultValue);
+			return defaultValue;
+		}
 	}
 	
 	/**
@@ -540,15 +400,9 @@ public class DatabaseProvider extends ServiceProvider implements DatabaseStorer
 	 */
 	public void destroy() {
 		try {
-            int tries=0;
-            try {
-                while (objectsQueue.size()>0 && tries<80) {
-                    Thread.sleep(50);
-                    tries++;
-                }
-                if (tries==80) logger.warn("Interrupted while objects where still being used; size: "
-                + objectsQueue.size());
-            } catch (InterruptedException ie) {}
+			if (writer != null) {
+				writer.close(4000);
+			}
 			if (db != null) {
 				db.close();
 			}
@@ -580,6 +434,10 @@ public class DatabaseProvider extends ServiceProvider implements DatabaseStorer
 	
 	public StoredMap getStoredMap(Store storeType) {
         waitIfBusy();
+		return getMap(storeType);
+	}
+
+	private StoredMap getMap(Store storeType) {
 		StoredMap storedMap = null;
 		if (storeType == Store.context) {
 			storedMap = views.getContextMap();
@@ -618,23 +476,7 @@ public class DatabaseProvider extends ServiceProvider implements DatabaseStorer
 	
 	public Uuid deleteIdentifiable(Object object) {
 		Uuid id = (Uuid) ((Identifiable) object).getId();
-		DeleteThread dt = null;
-		if (object instanceof Context) {
-			dt = new DeleteThread(id, Store.context);
-		} else if (object instanceof Exertion) {
-			dt = new DeleteThread(id, Store.exertion);
-		} else if (object instanceof Variability) {
-			dt = new DeleteThread(id, Store.var);
-		} else if (object instanceof VariabilityModeling) {
-			dt = new DeleteThread(id, Store.varmodel);
-		} else if (object instanceof ModelTable) {
-            dt = new DeleteThread(id, Store.table);
-        } else {
-			dt = new DeleteThread(id, Store.object);			
-		}
-		dt.start();
-		id = dt.getUuid();
-		return id;
+		return writeDelete(id, getStoreType(object));
 	}
 	
 	private int getStoreSize(Store type) {
@@ -688,6 +530,15 @@ public class DatabaseProvider extends ServiceProvider implements DatabaseStorer
 		return null;
 	}
 
+    // number of threads writing to the database
+    public final static String WRITE_WORKERS = "writeWorkers";
+
+    // max number of writes waiting to be committed
+    public final static String WRITE_QUEUE_SIZE = "writeQueueSize";
+
+    // max number of writes committed in a single transaction
+    public final static String WRITE_BATCH_SIZE = "writeBatchSize";
+
     @Override
     public URL storeObject(Object object) throws RemoteException{
         Uuid uuid = store(object);
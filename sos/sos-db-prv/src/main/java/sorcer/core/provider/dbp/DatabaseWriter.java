@@ -0,0 +1,323 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.provider.dbp;
+
+import com.sleepycat.collections.TransactionRunner;
+import com.sleepycat.collections.TransactionWorker;
+import com.sleepycat.je.Environment;
+import net.jini.id.Uuid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.util.bdb.objects.UuidKey;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Write-behind pipeline of the {@link DatabaseProvider}. Writes are queued in
+ * bounded queues and applied by a fixed set of workers, each worker commits
+ * all writes it has drained in a single transaction. Writes of the same
+ * {@link Uuid} are always handled by the same worker in the order submitted.
+ * Readers of a {@link Uuid} with a pending write get the stored value
+ * directly or wait for the write to complete. Writes not committed when the
+ * writer is closed complete with an {@link IllegalStateException}.
+ */
+class DatabaseWriter {
+	private static final Logger logger = LoggerFactory.getLogger(DatabaseWriter.class);
+
+	// marks the end of writes for a worker
+	private static final Write STOP = new Write(null, null, null, null);
+
+	private final TransactionRunner runner;
+
+	private final BlockingQueue<Write>[] queues;
+
+	private final Thread[] workers;
+
+	private final int batchSize;
+
+	// the last pending write per Uuid
+	private final ConcurrentMap<Uuid, Write> pending = new ConcurrentHashMap<Uuid, Write>();
+
+	// the writes of the transactions in progress
+	private final Set<Write> committing = Collections.newSetFromMap(new ConcurrentHashMap<Write, Boolean>());
+
+	private volatile boolean closed;
+
+	// set by close once no more writes are committed
+	private volatile boolean terminated;
+
+	DatabaseWriter(Environment env, int workerCount, int queueSize, int batchSize) {
+		this.runner = new TransactionRunner(env);
+		this.batchSize = Math.max(1, batchSize);
+		workerCount = Math.max(1, workerCount);
+		int capacity = Math.max(1, queueSize / workerCount);
+		queues = new BlockingQueue[workerCount];
+		workers = new Thread[workerCount];
+		for (int i = 0; i < workerCount; i++) {
+			queues[i] = new ArrayBlockingQueue<Write>(capacity);
+			workers[i] = new Thread(new Worker(queues[i]), "DatabaseWriter-" + i);
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+		logger.info("Database writers: {}, queue size: {}, batch size: {}",
+				workerCount, capacity * workerCount, this.batchSize);
+	}
+
+	/**
+	 * Queues the write, blocking while the queue of its worker is full.
+	 *
+	 * @param uuid
+	 *            the id of the written object
+	 * @param value
+	 *            the value stored in <code>view</code> that readers get
+	 *            while the write is pending, or null if readers have to wait
+	 * @param view
+	 *            the stored map the value is written to
+	 * @param write
+	 *            the write applied to the stored collections
+	 * @return the future completed when the write is committed
+	 */
+	Future<Void> submit(Uuid uuid, Object value, Map view, Runnable write) {
+		if (closed)
+			throw new IllegalStateException("Database writer is closed");
+		Write w = new Write(uuid, value, view, write);
+		pending.put(uuid, w);
+		BlockingQueue<Write> queue = queues[(uuid.hashCode() & Integer.MAX_VALUE) % queues.length];
+		try {
+			while (!queue.offer(w, 100, TimeUnit.MILLISECONDS)) {
+				if (terminated)
+					break;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			complete(w, e);
+		}
+		// close may have run meanwhile, then no worker takes the write
+		if (terminated)
+			reject(w);
+		return w.done;
+	}
+
+	/**
+	 * Reads the object of the <code>uuid</code> from the <code>view</code>,
+	 * returns the pending value written to the same view or waits for the
+	 * pending write.
+	 */
+	Object read(Uuid uuid, Map view) {
+		Write w = pending.get(uuid);
+		if (w != null) {
+			if (w.value != null && w.view == view)
+				return w.value;
+			await(w);
+		}
+		return view.get(new UuidKey(uuid));
+	}
+
+	boolean isPending(Uuid uuid) {
+		return pending.containsKey(uuid);
+	}
+
+	int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Waits for the pending write of the <code>uuid</code> if any.
+	 */
+	void await(Uuid uuid) {
+		Write w = pending.get(uuid);
+		if (w != null)
+			await(w);
+	}
+
+	/**
+	 * Waits for all writes pending at the time of the call.
+	 */
+	void awaitAll() {
+		for (Write w : new ArrayList<Write>(pending.values()))
+			await(w);
+	}
+
+	private void await(Write w) {
+		try {
+			w.done.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.warn("Interrupted while waiting for object: " + w.uuid);
+		} catch (ExecutionException e) {
+			// failed writes are logged by workers
+		}
+	}
+
+	/**
+	 * Stops accepting writes and waits up to <code>timeout</code>
+	 * milliseconds for queued writes to be committed. Writes not committed by
+	 * then, except those of transactions in progress, are completed
+	 * exceptionally.
+	 */
+	void close(long timeout) {
+		closed = true;
+		long deadline = System.currentTimeMillis() + timeout;
+		for (BlockingQueue<Write> queue : queues) {
+			try {
+				if (!queue.offer(STOP, Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS))
+					logger.warn("Database writer queue still full, size: " + queue.size());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		for (Thread worker : workers) {
+			try {
+				worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		terminated = true;
+		int rejected = 0;
+		for (BlockingQueue<Write> queue : queues) {
+			List<Write> left = new ArrayList<Write>();
+			queue.drainTo(left);
+			for (Write w : left) {
+				if (w != STOP && reject(w))
+					rejected++;
+			}
+		}
+		for (Write w : pending.values()) {
+			if (!committing.contains(w) && reject(w))
+				rejected++;
+		}
+		// stops workers still waiting for writes, an interrupt could
+		// invalidate the environment of a worker committing
+		for (BlockingQueue<Write> queue : queues)
+			queue.offer(STOP);
+		if (rejected > 0 || !pending.isEmpty())
+			logger.warn("Closed while objects were still being written; not written: " + rejected
+					+ ", being written: " + pending.size());
+	}
+
+	private void commit(final List<Write> batch) {
+		committing.addAll(batch);
+		// close does not reject the writes once they are committing
+		if (terminated) {
+			committing.removeAll(batch);
+			for (Write w : batch)
+				reject(w);
+			return;
+		}
+		try {
+			commitBatch(batch);
+		} finally {
+			committing.removeAll(batch);
+		}
+	}
+
+	private void commitBatch(final List<Write> batch) {
+		try {
+			runner.run(new TransactionWorker() {
+				public void doWork() {
+					for (Write w : batch)
+						w.write.run();
+				}
+			});
+			for (Write w : batch)
+				complete(w, null);
+		} catch (Exception e) {
+			if (batch.size() == 1) {
+				complete(batch.get(0), e);
+			} else {
+				// isolate the failed write, other ones are committed on their own
+				for (Write w : batch)
+					commitBatch(Collections.singletonList(w));
+			}
+		}
+	}
+
+	private void complete(Write w, Exception e) {
+		pending.remove(w.uuid, w);
+		if (e == null) {
+			w.done.complete(null);
+		} else {
+			logger.warn("Problem writing object with key: " + w.uuid, e);
+			w.done.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Completes the write not committed because the writer is closed.
+	 *
+	 * @return true if the write was not completed yet
+	 */
+	private boolean reject(Write w) {
+		pending.remove(w.uuid, w);
+		return w.done.completeExceptionally(new IllegalStateException("Database writer is closed"));
+	}
+
+	private class Worker implements Runnable {
+		private final BlockingQueue<Write> queue;
+
+		Worker(BlockingQueue<Write> queue) {
+			this.queue = queue;
+		}
+
+		public void run() {
+			List<Write> batch = new ArrayList<Write>(batchSize);
+			boolean stopped = false;
+			while (!stopped && !terminated) {
+				try {
+					batch.add(queue.take());
+				} catch (InterruptedException e) {
+					break;
+				}
+				queue.drainTo(batch, batchSize - 1);
+				int stop = batch.indexOf(STOP);
+				if (stop >= 0) {
+					// writes queued after the stop marker are not accepted
+					for (Write w : batch.subList(stop + 1, batch.size()))
+						reject(w);
+					batch = new ArrayList<Write>(batch.subList(0, stop));
+					stopped = true;
+				}
+				if (!batch.isEmpty())
+					commit(batch);
+				batch.clear();
+			}
+		}
+	}
+
+	private static class Write {
+		final Uuid uuid;
+		final Object value;
+		final Map view;
+		final Runnable write;
+		final CompletableFuture<Void> done = new CompletableFuture<Void>();
+
+		Write(Uuid uuid, Object value, Map view, Runnable write) {
+			this.uuid = uuid;
+			this.value = value;
+			this.view = view;
+			this.write = write;
+		}
+	}
+}
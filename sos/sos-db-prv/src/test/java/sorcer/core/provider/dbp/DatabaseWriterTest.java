@@ -0,0 +1,205 @@
+package sorcer.core.provider.dbp;
+
+import com.sleepycat.collections.CurrentTransaction;
+import com.sleepycat.collections.StoredMap;
+import com.sleepycat.je.Transaction;
+import net.jini.id.Uuid;
+import net.jini.id.UuidFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import sorcer.util.bdb.objects.SorcerDatabase;
+import sorcer.util.bdb.objects.SorcerDatabaseViews;
+import sorcer.util.bdb.objects.UuidKey;
+import sorcer.util.bdb.objects.UuidObject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class DatabaseWriterTest {
+    private File home;
+    private SorcerDatabase db;
+    private StoredMap<UuidKey, UuidObject> objects;
+    private DatabaseWriter writer;
+
+    // holds the write in progress of the blocking write
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws Exception {
+        home = File.createTempFile("objects", "");
+        home.delete();
+        home.mkdirs();
+        db = new SorcerDatabase(home.getPath());
+        objects = new SorcerDatabaseViews(db).getUuidObjectMap();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        if (writer != null)
+            writer.close(5000);
+        db.close();
+        File[] files = home.listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        home.delete();
+    }
+
+    @Test
+    public void batching() throws Exception {
+        writer = new DatabaseWriter(db.getEnvironment(), 1, 16, 8);
+        final CurrentTransaction current = CurrentTransaction.getInstance(db.getEnvironment());
+        final List<Transaction> transactions = Collections.synchronizedList(new ArrayList<Transaction>());
+        Future<Void> blocked = block();
+        List<Future<Void>> writes = new ArrayList<Future<Void>>();
+        for (int i = 0; i < 3; i++) {
+            final UuidObject o = new UuidObject("object " + i);
+            writes.add(writer.submit(o.getId(), o, objects, new Runnable() {
+                public void run() {
+                    transactions.add(current.getTransaction());
+                    objects.put(new UuidKey(o.getId()), o);
+                }
+            }));
+        }
+        release.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        for (Future<Void> f : writes)
+            f.get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, transactions.size());
+        assertNotNull(transactions.get(0));
+        assertSame(transactions.get(0), transactions.get(1));
+        assertSame(transactions.get(0), transactions.get(2));
+        assertEquals(4, objects.size());
+    }
+
+    @Test
+    public void readPendingWrite() throws Exception {
+        writer = new DatabaseWriter(db.getEnvironment(), 1, 16, 8);
+        block();
+        UuidObject o = new UuidObject("pending");
+        Future<Void> f = store(o);
+
+        assertTrue(writer.isPending(o.getId()));
+        assertSame(o, writer.read(o.getId(), objects));
+        assertNull(objects.get(new UuidKey(o.getId())));
+
+        release.countDown();
+        f.get(5, TimeUnit.SECONDS);
+        assertFalse(writer.isPending(o.getId()));
+        assertEquals("pending", ((UuidObject) writer.read(o.getId(), objects)).getObject());
+    }
+
+    @Test
+    public void failedWriteIsolated() throws Exception {
+        writer = new DatabaseWriter(db.getEnvironment(), 1, 16, 8);
+        block();
+        UuidObject a = new UuidObject("a");
+        UuidObject c = new UuidObject("c");
+        Future<Void> first = store(a);
+        Future<Void> failed = writer.submit(UuidFactory.generate(), null, objects, new Runnable() {
+            public void run() {
+                throw new IllegalArgumentException("not written");
+            }
+        });
+        Future<Void> last = store(c);
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        last.get(5, TimeUnit.SECONDS);
+        try {
+            failed.get(5, TimeUnit.SECONDS);
+            fail("write did not fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        assertEquals("a", objects.get(new UuidKey(a.getId())).getObject());
+        assertEquals("c", objects.get(new UuidKey(c.getId())).getObject());
+    }
+
+    @Test
+    public void closeWithWritesInProgress() throws Exception {
+        // one worker with a queue of two writes
+        writer = new DatabaseWriter(db.getEnvironment(), 1, 2, 8);
+        Future<Void> blocked = block();
+        final List<Future<Void>> queued = new ArrayList<Future<Void>>();
+        queued.add(store(new UuidObject("1")));
+        queued.add(store(new UuidObject("2")));
+        // blocks while the queue is full
+        final UuidObject o = new UuidObject("3");
+        Thread submitter = new Thread() {
+            public void run() {
+                queued.add(store(o));
+            }
+        };
+        submitter.start();
+        while (submitter.getState() != Thread.State.TIMED_WAITING)
+            Thread.sleep(10);
+
+        writer.close(200);
+        submitter.join(5000);
+        assertEquals(3, queued.size());
+        for (Future<Void> f : queued) {
+            assertTrue(f.isDone());
+            try {
+                f.get();
+                fail("write not rejected");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+        writer.await(o.getId());
+        assertFalse(blocked.isDone());
+        assertEquals(1, writer.getPendingCount());
+
+        // the transaction in progress is still committed
+        release.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        writer.awaitAll();
+        assertEquals(0, writer.getPendingCount());
+        assertEquals(1, objects.size());
+
+        try {
+            store(new UuidObject("4"));
+            fail("closed writer accepted a write");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private Future<Void> store(final UuidObject o) {
+        return writer.submit(o.getId(), o, objects, new Runnable() {
+            public void run() {
+                objects.put(new UuidKey(o.getId()), o);
+            }
+        });
+    }
+
+    /**
+     * Submits a write holding its worker until released.
+     */
+    private Future<Void> block() throws InterruptedException {
+        final UuidObject o = new UuidObject("blocking");
+        final CountDownLatch started = new CountDownLatch(1);
+        Future<Void> f = writer.submit(o.getId(), o, objects, new Runnable() {
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                objects.put(new UuidKey(o.getId()), o);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return f;
+    }
+}
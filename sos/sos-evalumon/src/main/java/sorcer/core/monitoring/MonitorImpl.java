@@ -90,6 +90,21 @@ public class MonitorImpl implements Monitor {
         if(!isValid(registration)) {
             throw new MonitorException("Invalid MonitorRegistration for "+registration.getIdentifier());
         }
+        fire(registration, status, analytics);
+    }
+
+    @Override
+    public void update(MonitorRegistration registration, List<MonitorUpdate> updates) throws MonitorException {
+        if(updates==null)
+            throw new IllegalArgumentException("updates must not be null");
+        if(!isValid(registration)) {
+            throw new MonitorException("Invalid MonitorRegistration for "+registration.getIdentifier());
+        }
+        for(MonitorUpdate update : updates)
+            fire(registration, update.getStatus(), update.getAnalytics());
+    }
+
+    private void fire(MonitorRegistration registration, Status status, MethodAnalytics analytics) {
         String name = analytics==null?registration.getIdentifier():String.format("%s#%s",
                                                                                  registration.getIdentifier(),
                                                                                  analytics.getMethodName());
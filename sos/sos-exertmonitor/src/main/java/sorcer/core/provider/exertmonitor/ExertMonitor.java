@@ -18,6 +18,8 @@
 package sorcer.core.provider.exertmonitor;
 
 import com.sleepycat.collections.StoredMap;
+import com.sleepycat.collections.TransactionRunner;
+import com.sleepycat.collections.TransactionWorker;
 import com.sleepycat.je.DatabaseException;
 import com.sun.jini.landlord.LeasedResource;
 import com.sun.jini.start.LifeCycle;
@@ -36,6 +38,8 @@ import sorcer.core.provider.MonitorManagementSession;
 import sorcer.core.provider.ServiceProvider;
 import sorcer.core.provider.exertmonitor.db.SessionDatabase;
 import sorcer.core.provider.exertmonitor.db.SessionDatabaseViews;
+import sorcer.core.provider.exertmonitor.db.SessionIndex;
+import sorcer.core.provider.exertmonitor.db.SessionIndexEntry;
 import sorcer.core.provider.exertmonitor.lease.MonitorLandlord;
 import sorcer.security.util.SorcerPrincipal;
 import sorcer.service.*;
@@ -45,8 +49,9 @@ import java.io.File;
 import java.io.IOException;
 import java.rmi.RemoteException;
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 @SuppressWarnings("unchecked")
@@ -55,7 +60,10 @@ public class ExertMonitor extends ServiceProvider implements MonitoringManagemen
 	private MonitorLandlord landlord;
 	private SessionDatabase db;
 	private StoredMap<UuidKey, MonitorManagementSession> resources;
-    private Map<Uuid, UuidKey> cacheSessionKeyMap = new HashMap<>();
+	// cookie of any session -> key of its root session in resources, and
+	// principal ID/exertion ID -> session of the exertion and its state
+	private SessionIndex index;
+	private TransactionRunner runner;
     private final Object resourcesWriteLock = new Object();
     private ExertMonitorEventHandler eventHandler;
 
@@ -86,6 +94,10 @@ public class ExertMonitor extends ServiceProvider implements MonitoringManagemen
 		db = new SessionDatabase(dbHome);
 		SessionDatabaseViews views = new SessionDatabaseViews(db);
 		resources = views.getSessionMap();
+		index = new SessionIndex(views);
+		runner = new TransactionRunner(db.getEnvironment());
+		if (index.isEmpty() && !resources.isEmpty())
+			reindex();
 
 		// statically initialize
 		MonitorSession.mLandlord = landlord;
@@ -148,26 +160,13 @@ public class ExertMonitor extends ServiceProvider implements MonitoringManagemen
 				return resource;
 		}
 
-		// if (landlord.getResource(cookie)!=null) return
-		// (SessionResource)landlord.getResource(cookie);
-
 		// Ok it's not with landlord. So we retrieve it from the database
-		synchronized (resourcesWriteLock) {
-            Iterator<Map.Entry<UuidKey, MonitorManagementSession>> si = resources.entrySet().iterator();
-            Map.Entry<UuidKey, MonitorManagementSession> next;
-            while (si.hasNext()) {
-                next = si.next();
-                try {
-                    resource = getSession(next.getKey()).getSessionResource(cookie);
-                } catch (Exception e) {
-                    throw new MonitorException(e);
-                }
-                if (resource != null)
-                    return resource;
-            }
-        }
-        return null;
-    }
+		UuidKey key = index.getRootKey(cookie);
+		if (key == null)
+			return null;
+		MonitorSession session = getSession(key);
+		return session == null ? null : session.getSessionResource(cookie);
+	}
 
     /**
      *
@@ -311,12 +310,27 @@ public class ExertMonitor extends ServiceProvider implements MonitoringManagemen
 		Map<Uuid, ExertionInfo> table = new HashMap<>();
 		try {
 			if (resources==null) return table;
-			Iterator<UuidKey> ki = resources.keySet().iterator();
-			UuidKey key;
-			while (ki.hasNext()) {
-				key = ki.next();
-                MonitorSession monSession = getSession(key);
-                table.putAll(getMonitorableExertionInfo(monSession, key, state, principal));
+			String principalId = ((SorcerPrincipal) principal).getId();
+			Map<String, SessionIndexEntry> entries = index.getEntries(principalId);
+			// each root session is read once for all its exertions
+			Map<UuidKey, MonitorSession> sessions = new HashMap<>();
+			for (Map.Entry<String, SessionIndexEntry> entry : entries.entrySet()) {
+				SessionIndexEntry ie = entry.getValue();
+				if (entry.getKey().indexOf('/', principalId.length() + 1) >= 0
+						|| (state != null && !state.equals(Exec.State.NULL) && ie.getState() != state.ordinal()))
+					continue;
+				MonitorSession root = sessions.get(ie.getSessionKey());
+				if (root == null) {
+					root = getSession(ie.getSessionKey());
+					if (root == null)
+						continue;
+					sessions.put(ie.getSessionKey(), root);
+				}
+				MonitorSession monSession = root.getSessionResource(ie.getCookie());
+				if (monSession != null) {
+					ServiceExertion xrt = (ServiceExertion) monSession.getRuntimeExertion();
+					table.put(xrt.getId(), new ExertionInfo(xrt, ie.getSessionKey().getId()));
+				}
 			}
 		} catch (Exception e) {
 			logger.error("Failed getting ExertionInfo for principal: {}, State: {}",
@@ -326,23 +340,6 @@ public class ExertMonitor extends ServiceProvider implements MonitoringManagemen
 		return table;
 	}
 
-    private Map<Uuid, ExertionInfo> getMonitorableExertionInfo(MonitorSession monitorSession, UuidKey key, Exec.State state, Principal principal) throws RemoteException,MonitorException {
-        Map<Uuid, ExertionInfo> table = new HashMap<>();
-        logger.debug("Trying to get exertionInfos for: {} state: {} for: {}", monitorSession, (state==null?"null":state.toString()), principal);
-        ServiceExertion xrt = (ServiceExertion) (monitorSession).getRuntimeExertion();
-        if (xrt.getPrincipal().getId()
-                .equals(((SorcerPrincipal) principal).getId())) {
-            if (state == null || state.equals(Exec.State.NULL)
-                    || xrt.getStatus() == state.ordinal()) {
-                table.put(xrt.getId(), new ExertionInfo(xrt, key.getId()));
-            }
-        }
-        for (MonitorSession internalSession : monitorSession) {
-            table.putAll(getMonitorableExertionInfo(internalSession, key, state, principal));
-        }
-        return table;
-    }
-
     public Exertion getMonitorableExertion(Uuid id, Principal principal) throws MonitorException {
         Exertion xrt = getSession(id).getRuntimeExertion();
         if (((ServiceExertion) xrt).getPrincipal().getId().equals(((SorcerPrincipal) principal).getId()))
@@ -356,28 +353,16 @@ public class ExertMonitor extends ServiceProvider implements MonitoringManagemen
 	 * exertion if the client has enough credentials.
 	 */
 	public Exertion getMonitorableExertion(UEID cookie, Principal principal) throws MonitorException {
-        UuidKey lkey = cacheSessionKeyMap.get(cookie.exertionID);
-        Exertion ex;
-        if (lkey!=null) {
-            ex = (getSession(lkey)).getRuntimeExertion();
-            if (ex!=null && ((ServiceExertion) ex).getPrincipal().getId().equals(((SorcerPrincipal) principal).getId()))
-                return ex;
-            else
-                return null;
-        }
-		Iterator<UuidKey> ki = resources.keySet().iterator();
-		while (ki.hasNext()) {
-			lkey = ki.next();
-			ex = (getSession(lkey)).getRuntimeExertion();
-            if (ex!=null) cacheSessionKeyMap.put(ex.getId(), lkey);
-            if (cookie.exertionID.equals(ex.getId().toString())
-					&& ((ServiceExertion) ex).getPrincipal().getId().equals(((SorcerPrincipal) principal).getId()))
-				return ex;
-		}
-		return null;
+		// the principal index has entries of exertions of the principal only
+		SessionIndexEntry entry = index.getEntry(((SorcerPrincipal) principal).getId(), cookie.exertionID);
+		if (entry == null)
+			return null;
+		MonitorSession session = getSession(entry.getSessionKey());
+		if (session != null)
+			session = session.getSessionResource(entry.getCookie());
+		return session == null ? null : session.getRuntimeExertion();
 	}
 
-
     @Override
     public EventRegistration register(Principal principal, RemoteEventListener listener, long duration)
         throws LeaseDeniedException, RemoteException {
@@ -416,11 +401,65 @@ public class ExertMonitor extends ServiceProvider implements MonitoringManagemen
 	 * @see sorcer.core.monitor.MonitorManagement#persist(sorcer.core.provider.exertmonitor.MonitorSession)
 	 */
 	@Override
-	public boolean persist(MonitorManagementSession session) throws IOException {
+	public boolean persist(final MonitorManagementSession session) throws IOException {
         logger.warn("Persist {}", session);
-		resources.put(new UuidKey(((MonitorSession)session).getCookie()), session);
+		final MonitorSession root = (MonitorSession) session;
+		final UuidKey key = new UuidKey(root.getCookie());
+		try {
+			// the session and its index entries are written in one transaction
+			runner.run(new TransactionWorker() {
+				public void doWork() {
+					// the index keys of the stored tree are replaced by the current ones
+					MonitorSession previous = (MonitorSession) resources.get(key);
+					resources.put(key, session);
+					index.update(key, previous == null ? null : getIndexKeys(previous), getIndexKeys(root));
+				}
+			});
+		} catch (Exception e) {
+			throw new IOException("Failed to persist session: " + key, e);
+		}
 		return true;
 	}
+
+	/**
+	 * Returns the index keys of a root session and its child sessions.
+	 */
+	private static SessionIndex.Keys getIndexKeys(MonitorSession root) {
+		SessionIndex.Keys keys = new SessionIndex.Keys();
+		addIndexKeys(root, new UuidKey(root.getCookie()), keys);
+		return keys;
+	}
+
+	private static void addIndexKeys(MonitorSession session, UuidKey key, SessionIndex.Keys keys) {
+		keys.addCookie(session.getCookie());
+		ServiceExertion xrt = (ServiceExertion) session.getRuntimeExertion();
+		if (xrt != null && xrt.getPrincipal() != null) {
+			keys.addEntry(xrt.getPrincipal().getId(), xrt.getId().toString(),
+					new SessionIndexEntry(key, session.getCookie(), xrt.getStatus()));
+		}
+		for (MonitorSession internalSession : session)
+			addIndexKeys(internalSession, key, keys);
+	}
+
+	/**
+	 * Builds the indexes of sessions stored before the indexes existed.
+	 */
+	private void reindex() throws Exception {
+		logger.info("Indexing {} stored monitor sessions", resources.size());
+		// a copy of the keys, the cursor of the live key set must not stay
+		// open across the transactions below
+		List<UuidKey> keys = new ArrayList<>(resources.keySet());
+		for (final UuidKey key : keys) {
+			final MonitorSession session = getSession(key);
+			if (session == null)
+				continue;
+			runner.run(new TransactionWorker() {
+				public void doWork() {
+					index.update(key, null, getIndexKeys(session));
+				}
+			});
+		}
+	}
 	
 	public MonitorSession getSession(UuidKey key) throws MonitorException {
 		try {
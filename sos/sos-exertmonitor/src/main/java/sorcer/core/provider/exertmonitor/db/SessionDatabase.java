@@ -18,9 +18,13 @@ public class SessionDatabase {
 
     private static final String CLASS_CATALOG = "java_class_catalog";
     private static final String SESSION_STORE = "sesion_store";
+    private static final String COOKIE_INDEX = "cookie_index";
+    private static final String PRINCIPAL_INDEX = "principal_index";
 
     private Environment env;
     private Database sessionDb;
+    private Database cookieIndexDb;
+    private Database principalIndexDb;
     private StoredClassCatalog javaCatalog;
 
     /**
@@ -48,6 +52,13 @@ public class SessionDatabase {
         // Open the Berkeley DB database for the monitor session
         // store.  The store is opened with no duplicate keys allowed.
         sessionDb = env.openDatabase(null, SESSION_STORE, dbConfig);
+
+        // Open the index databases maintained by the monitor along with
+        // sessions: the cookie of every session in a session tree to the key
+        // of its root session, and principal and exertion IDs to the session
+        // of the exertion with its state.
+        cookieIndexDb = env.openDatabase(null, COOKIE_INDEX, dbConfig);
+        principalIndexDb = env.openDatabase(null, PRINCIPAL_INDEX, dbConfig);
     }
 
     /**
@@ -70,6 +81,20 @@ public class SessionDatabase {
     public final Database getSessionDatabase() {
         return sessionDb;
     }
+
+    /**
+     * Return the cookie index container.
+     */
+    public final Database getCookieIndexDatabase() {
+        return cookieIndexDb;
+    }
+
+    /**
+     * Return the principal index container.
+     */
+    public final Database getPrincipalIndexDatabase() {
+        return principalIndexDb;
+    }
     
     /**
      * Close all stores (closing a store automatically closes its indices).
@@ -77,6 +102,8 @@ public class SessionDatabase {
     public void close()
         throws DatabaseException {
         // Close secondary databases, then primary databases.
+        principalIndexDb.close();
+        cookieIndexDb.close();
         sessionDb.close();
         // And don't forget to close the catalog and the environment.
         javaCatalog.close();
@@ -8,10 +8,13 @@ import sorcer.util.bdb.objects.MarshalledData;
 import sorcer.util.bdb.objects.UuidKey;
 
 import com.sleepycat.bind.EntityBinding;
+import com.sleepycat.bind.EntryBinding;
 import com.sleepycat.bind.serial.ClassCatalog;
 import com.sleepycat.bind.serial.SerialBinding;
 import com.sleepycat.bind.serial.SerialSerialBinding;
+import com.sleepycat.bind.tuple.TupleBinding;
 import com.sleepycat.collections.StoredMap;
+import com.sleepycat.collections.StoredSortedMap;
 import com.sleepycat.collections.StoredValueSet;
 
 /**
@@ -25,6 +28,10 @@ public class SessionDatabaseViews {
 	
 	private StoredMap<UuidKey, MonitorManagementSession>  sessionMap;
 
+	private StoredMap<UuidKey, UuidKey> cookieIndexMap;
+
+	private StoredSortedMap<String, SessionIndexEntry> principalIndexMap;
+
 	/**
 	 * Create the data bindings and collection views.
 	 */
@@ -37,6 +44,17 @@ public class SessionDatabaseViews {
 		
 		sessionMap = new StoredMap(db.getSessionDatabase(),
 				sessionKeyBinding, sessionDataBinding, true);
+
+		SerialBinding rootKeyBinding = new SerialBinding(catalog, UuidKey.class);
+		cookieIndexMap = new StoredMap(db.getCookieIndexDatabase(),
+				sessionKeyBinding, rootKeyBinding, true);
+
+		// string keys are sorted, entries of a principal are a key range
+		EntryBinding principalKeyBinding = TupleBinding
+			.getPrimitiveBinding(String.class);
+		SerialBinding indexEntryBinding = new SerialBinding(catalog, SessionIndexEntry.class);
+		principalIndexMap = new StoredSortedMap(db.getPrincipalIndexDatabase(),
+				principalKeyBinding, indexEntryBinding, true);
 	}
 
 	// The views returned below can be accessed using the java.util.Map or
@@ -52,6 +70,22 @@ public class SessionDatabaseViews {
 		return sessionMap;
 	}
 	
+	/**
+	 * Return a map view of the cookie index: the cookie of any session to the
+	 * key of its root session.
+	 */
+	public StoredMap<UuidKey, UuidKey> getCookieIndexMap() {
+		return cookieIndexMap;
+	}
+
+	/**
+	 * Return a sorted map view of the principal index: a principal ID and an
+	 * exertion ID to the session of the exertion.
+	 */
+	public StoredSortedMap<String, SessionIndexEntry> getPrincipalIndexMap() {
+		return principalIndexMap;
+	}
+
 	/**
 	 * Return an entity setValue view of the session storage container.
 	 */
@@ -0,0 +1,120 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.provider.exertmonitor.db;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import net.jini.id.Uuid;
+import sorcer.util.bdb.objects.UuidKey;
+
+import com.sleepycat.collections.StoredMap;
+import com.sleepycat.collections.StoredSortedMap;
+
+/**
+ * The cookie and principal indexes of the session database. The index keys
+ * of a root session tree are kept in sync with the stored tree: keys the
+ * tree no longer has are removed when it is updated.
+ */
+public class SessionIndex {
+
+	private final StoredMap<UuidKey, UuidKey> cookieIndex;
+
+	private final StoredSortedMap<String, SessionIndexEntry> principalIndex;
+
+	/**
+	 * The index keys of one root session tree.
+	 */
+	public static class Keys {
+		final Set<UuidKey> cookies = new HashSet<UuidKey>();
+		final Map<String, SessionIndexEntry> entries = new HashMap<String, SessionIndexEntry>();
+
+		public void addCookie(Uuid cookie) {
+			cookies.add(new UuidKey(cookie));
+		}
+
+		public void addEntry(String principalId, String exertionId, SessionIndexEntry entry) {
+			entries.put(getKey(principalId, exertionId), entry);
+		}
+	}
+
+	public SessionIndex(SessionDatabaseViews views) {
+		cookieIndex = views.getCookieIndexMap();
+		principalIndex = views.getPrincipalIndexMap();
+	}
+
+	public boolean isEmpty() {
+		return cookieIndex.isEmpty();
+	}
+
+	/**
+	 * Updates the index keys of a root session tree. Must be called in the
+	 * transaction that stores the tree.
+	 *
+	 * @param rootKey
+	 *            the key of the stored root session
+	 * @param previous
+	 *            the keys of the tree stored so far, or null if it is new
+	 * @param current
+	 *            the keys of the tree being stored
+	 */
+	public void update(UuidKey rootKey, Keys previous, Keys current) {
+		Set<UuidKey> staleCookies = previous == null ? new HashSet<UuidKey>()
+				: new HashSet<UuidKey>(previous.cookies);
+		for (UuidKey cookie : current.cookies) {
+			if (!staleCookies.remove(cookie))
+				cookieIndex.put(cookie, rootKey);
+		}
+		for (UuidKey cookie : staleCookies)
+			cookieIndex.remove(cookie);
+
+		Map<String, SessionIndexEntry> staleEntries = previous == null ? new HashMap<String, SessionIndexEntry>()
+				: new HashMap<String, SessionIndexEntry>(previous.entries);
+		for (Map.Entry<String, SessionIndexEntry> entry : current.entries.entrySet()) {
+			// entries are rewritten only when the state of the exertion changed
+			if (!entry.getValue().equals(staleEntries.remove(entry.getKey())))
+				principalIndex.put(entry.getKey(), entry.getValue());
+		}
+		for (String key : staleEntries.keySet())
+			principalIndex.remove(key);
+	}
+
+	/**
+	 * Returns the key of the root session of the session with the cookie.
+	 */
+	public UuidKey getRootKey(Uuid cookie) {
+		return cookieIndex.get(new UuidKey(cookie));
+	}
+
+	public SessionIndexEntry getEntry(String principalId, String exertionId) {
+		return principalIndex.get(getKey(principalId, exertionId));
+	}
+
+	/**
+	 * Returns the entries of all exertions of the principal.
+	 */
+	public Map<String, SessionIndexEntry> getEntries(String principalId) {
+		// all keys of the principal are between 'id/' and 'id0'
+		return principalIndex.subMap(principalId + '/', principalId + '0');
+	}
+
+	static String getKey(String principalId, String exertionId) {
+		return principalId + '/' + exertionId;
+	}
+}
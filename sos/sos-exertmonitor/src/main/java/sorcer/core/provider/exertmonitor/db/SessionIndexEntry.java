@@ -0,0 +1,79 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.provider.exertmonitor.db;
+
+import java.io.Serializable;
+
+import net.jini.id.Uuid;
+import sorcer.util.bdb.objects.UuidKey;
+
+/**
+ * An entry of the principal index of the session database. It locates the
+ * monitor session of an exertion within its root session and keeps the last
+ * persisted status of the exertion, so exertions of a principal can be
+ * selected by status without reading the stored sessions.
+ */
+public class SessionIndexEntry implements Serializable {
+
+	static final long serialVersionUID = 4273581036413922519L;
+
+	private UuidKey sessionKey;
+
+	private Uuid cookie;
+
+	private int state;
+
+	public SessionIndexEntry(UuidKey sessionKey, Uuid cookie, int state) {
+		this.sessionKey = sessionKey;
+		this.cookie = cookie;
+		this.state = state;
+	}
+
+	/**
+	 * Returns the key of the stored root session.
+	 */
+	public UuidKey getSessionKey() {
+		return sessionKey;
+	}
+
+	/**
+	 * Returns the cookie of the session within the root session.
+	 */
+	public Uuid getCookie() {
+		return cookie;
+	}
+
+	public int getState() {
+		return state;
+	}
+
+	public int hashCode() {
+		return 31 * cookie.hashCode() + state;
+	}
+
+	public boolean equals(Object obj) {
+		if (!(obj instanceof SessionIndexEntry))
+			return false;
+		SessionIndexEntry other = (SessionIndexEntry) obj;
+		return state == other.state && cookie.equals(other.cookie)
+				&& sessionKey.equals(other.sessionKey);
+	}
+
+	public String toString() {
+		return "[session=" + sessionKey.getId() + ", cookie=" + cookie + ", state=" + state + ']';
+	}
+}
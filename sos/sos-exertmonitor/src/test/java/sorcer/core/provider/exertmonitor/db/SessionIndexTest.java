@@ -0,0 +1,96 @@
+package sorcer.core.provider.exertmonitor.db;
+
+import net.jini.id.Uuid;
+import net.jini.id.UuidFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import sorcer.util.bdb.objects.UuidKey;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SessionIndexTest {
+    private File home;
+    private SessionDatabase db;
+    private SessionIndex index;
+
+    private final Uuid root = UuidFactory.generate();
+    private final Uuid child = UuidFactory.generate();
+    private final UuidKey rootKey = new UuidKey(root);
+
+    @Before
+    public void setUp() throws Exception {
+        home = File.createTempFile("sessions", "");
+        home.delete();
+        home.mkdirs();
+        db = new SessionDatabase(home.getPath());
+        index = new SessionIndex(new SessionDatabaseViews(db));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.close();
+        File[] files = home.listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        home.delete();
+    }
+
+    @Test
+    public void lookups() {
+        assertTrue(index.isEmpty());
+        index.update(rootKey, null, keys(1, true));
+        assertFalse(index.isEmpty());
+
+        assertEquals(rootKey, index.getRootKey(root));
+        assertEquals(rootKey, index.getRootKey(child));
+        assertNull(index.getRootKey(UuidFactory.generate()));
+
+        SessionIndexEntry entry = index.getEntry("p1", "x2");
+        assertEquals(child, entry.getCookie());
+        assertEquals(rootKey, entry.getSessionKey());
+        assertEquals(1, entry.getState());
+        assertNull(index.getEntry("p2", "x2"));
+
+        Map<String, SessionIndexEntry> entries = index.getEntries("p1");
+        assertEquals(2, entries.size());
+        assertTrue(entries.containsKey("p1/x1"));
+        assertTrue(entries.containsKey("p1/x2"));
+        assertEquals(1, index.getEntries("p2").size());
+        assertTrue(index.getEntries("p").isEmpty());
+    }
+
+    @Test
+    public void updateRemovesStaleKeys() {
+        SessionIndex.Keys previous = keys(1, true);
+        index.update(rootKey, null, previous);
+        index.update(rootKey, previous, keys(2, false));
+
+        assertEquals(rootKey, index.getRootKey(root));
+        assertNull(index.getRootKey(child));
+        assertNull(index.getEntry("p1", "x2"));
+        assertNull(index.getEntry("p2", "x3"));
+        assertEquals(2, index.getEntry("p1", "x1").getState());
+        assertEquals(1, index.getEntries("p1").size());
+    }
+
+    /*
+     * Keys of a root session with an exertion of principal p1, and optionally
+     * a child session with exertions of principals p1 and p2
+     */
+    private SessionIndex.Keys keys(int state, boolean withChild) {
+        SessionIndex.Keys keys = new SessionIndex.Keys();
+        keys.addCookie(root);
+        keys.addEntry("p1", "x1", new SessionIndexEntry(rootKey, root, state));
+        if (withChild) {
+            keys.addCookie(child);
+            keys.addEntry("p1", "x2", new SessionIndexEntry(rootKey, child, state));
+            keys.addEntry("p2", "x3", new SessionIndexEntry(rootKey, child, state));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sorcer.core.provider.logger;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static sorcer.core.provider.RemoteLogger.KEY_MOGRAM_ID;
+
+/**
+ * A sidecar index of a remote log file. The index starts with the logger name
+ * followed by a fixed size record for each event appended to the log file:
+ * its byte offset in the log file, its time stamp, its level and a hash of its
+ * mogram id. Events are read from the log file by the offsets of the index, so
+ * a page of a log is read without reading the whole file.
+ * <p>
+ * When an index is opened for writing, its tail is checked against the log
+ * file: records past the end of the log and a partial last record are
+ * dropped, and events the log has beyond the last record are marked
+ * unindexed. An index without a valid header is rebuilt.
+ */
+class LogIndex {
+    static final String SUFFIX = ".idx";
+    private static final int MAGIC = 0x534c4958;
+    private static final int RECORD_SIZE = 8 + 8 + 4 + 8;
+    // the time stamp of the part of a log file written before its index
+    private static final long UNINDEXED = -1;
+
+    private LogIndex() {
+    }
+
+    static File getIndexFile(File logFile) {
+        return new File(logFile.getPath() + SUFFIX);
+    }
+
+    /**
+     * Appends index records of events appended to a log file. A writer is
+     * used only by the ingest thread of the shard of its logger.
+     */
+    static class Writer implements Closeable {
+        private final File logFile;
+        private final DataOutputStream out;
+        private long end;
+
+        Writer(File logFile, String loggerName) throws IOException {
+            this.logFile = logFile;
+            File indexFile = getIndexFile(logFile);
+            end = logFile.length();
+            long unindexed = indexFile.length() > 0 ? recover(indexFile, logFile, end) : 0;
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, true)));
+            if (unindexed < 0)
+                return;
+            if (indexFile.length() == 0) {
+                out.writeInt(MAGIC);
+                out.writeUTF(loggerName);
+            }
+            if (unindexed < end)
+                write(unindexed, UNINDEXED, Level.ALL_INT, 0);
+            out.flush();
+        }
+
+        /**
+         * Adds the event just appended to the log file.
+         */
+        void add(ILoggingEvent event) throws IOException {
+            long length = logFile.length();
+            if (length <= end) {
+                // not written or the log file was replaced
+                end = length;
+                return;
+            }
+            write(end, event.getTimeStamp(), event.getLevel().toInt(), hash(event.getMDCPropertyMap().get(KEY_MOGRAM_ID)));
+            end = length;
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override public void close() throws IOException {
+            out.close();
+        }
+
+        private void write(long offset, long timeStamp, int level, long mogramHash) throws IOException {
+            out.writeLong(offset);
+            out.writeLong(timeStamp);
+            out.writeInt(level);
+            out.writeLong(mogramHash);
+        }
+    }
+
+    /**
+     * Truncates the index to the records of events within the log file, or
+     * empties it if its header is not valid.
+     *
+     * @return the offset of the first event of the log file not indexed, or
+     * -1 if all events are indexed
+     */
+    private static long recover(File indexFile, File logFile, long length) throws IOException {
+        try (RandomAccessFile index = new RandomAccessFile(indexFile, "rw")) {
+            long first;
+            try {
+                if (index.readInt() != MAGIC) {
+                    index.setLength(0);
+                    return 0;
+                }
+                index.readUTF();
+                first = index.getFilePointer();
+            } catch (IOException e) {
+                // truncated header
+                index.setLength(0);
+                return 0;
+            }
+            FileChannel records = index.getChannel();
+            long count = (records.size() - first) / RECORD_SIZE;
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            while (count > 0) {
+                read(records, first, count - 1, record);
+                if (record.getLong(0) < length)
+                    break;
+                count--;
+            }
+            if (first + count * RECORD_SIZE != records.size())
+                index.setLength(first + count * RECORD_SIZE);
+            if (count == 0)
+                return 0;
+            // the unindexed part extends to the end of the log
+            if (record.getLong(8) == UNINDEXED)
+                return -1;
+            long next = nextEvent(logFile, record.getLong(0), length);
+            return next < length ? next : -1;
+        }
+    }
+
+    /**
+     * Returns the offset of the event following the event at the offset.
+     */
+    private static long nextEvent(File logFile, long offset, long length) throws IOException {
+        try (FileInputStream in = new FileInputStream(logFile)) {
+            in.getChannel().position(offset);
+            LineReader reader = new LineReader(new BufferedInputStream(in), offset);
+            reader.readLine();
+            while (reader.position < length) {
+                long position = reader.position;
+                String line = reader.readLine();
+                if (line == null)
+                    break;
+                if (getLevel(line) != null)
+                    return position;
+            }
+            return length;
+        }
+    }
+
+    /**
+     * Returns a page of events of the log file selected by the query, the
+     * whole log file is read line by line if it has no index.
+     */
+    static LogPage query(File logFile, LogQuery query) throws IOException {
+        File indexFile = getIndexFile(logFile);
+        long length = logFile.length();
+        if (indexFile.length() == 0)
+            return readUnindexed(logFile, query, query.getLimit(), query.getOffset(), length, length);
+        try (RandomAccessFile index = new RandomAccessFile(indexFile, "r");
+             FileInputStream log = new FileInputStream(logFile)) {
+            if (index.readInt() != MAGIC)
+                return readUnindexed(logFile, query, query.getLimit(), query.getOffset(), length, length);
+            String loggerName = index.readUTF();
+            long first = index.getFilePointer();
+            if (query.getLogger() != null && !loggerName.startsWith(query.getLogger()))
+                return new LogPage(new ArrayList<String>(), query.getOffset(), length, true);
+            FileChannel records = index.getChannel();
+            long count = (records.size() - first) / RECORD_SIZE;
+            long i = search(records, first, count, query.getOffset());
+            List<String> lines = new ArrayList<String>();
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            ByteBuffer next = ByteBuffer.allocate(RECORD_SIZE);
+            int level = query.getLevel() == null ? Level.ALL_INT : query.getLevel().toInt();
+            long mogramHash = query.getMogramId() == null ? 0 : hash(query.getMogramId());
+            int events = 0;
+            long nextOffset = length;
+            if (i < count)
+                read(records, first, i, record);
+            for (; i < count; i++) {
+                long offset = record.getLong(0);
+                long end = length;
+                if (i + 1 < count) {
+                    read(records, first, i + 1, next);
+                    end = Math.min(next.getLong(0), length);
+                }
+                if (events >= query.getLimit()) {
+                    nextOffset = offset;
+                    break;
+                }
+                if (record.getLong(8) == UNINDEXED) {
+                    LogPage page = readUnindexed(logFile, query, query.getLimit() - events,
+                                                 Math.max(offset, query.getOffset()), end, length);
+                    for (String line : page.getLines()) {
+                        if (getLevel(line) != null)
+                            events++;
+                        lines.add(line);
+                    }
+                    if (!page.isEndOfLog() && page.getNextOffset() < end) {
+                        nextOffset = page.getNextOffset();
+                        break;
+                    }
+                } else if (record.getInt(16) >= level
+                        && record.getLong(8) >= query.getFrom() && record.getLong(8) <= query.getTo()
+                        && (query.getMogramId() == null || record.getLong(20) == mogramHash)) {
+                    log.getChannel().position(offset);
+                    LineReader reader = new LineReader(new BufferedInputStream(log), offset);
+                    String line;
+                    while (reader.position < end && (line = reader.readLine()) != null)
+                        lines.add(line);
+                    events++;
+                }
+                ByteBuffer b = record;
+                record = next;
+                next = b;
+            }
+            return new LogPage(lines, query.getOffset(), nextOffset, nextOffset >= length);
+        }
+    }
+
+    /**
+     * Returns complete lines of the log file from the offset up to
+     * <code>maxBytes</code>, the last lines if the offset is negative.
+     */
+    static LogPage tail(File logFile, long offset, int maxBytes) throws IOException {
+        long length = logFile.length();
+        try (FileInputStream in = new FileInputStream(logFile)) {
+            long start = offset < 0 ? Math.max(0, length - maxBytes) : Math.min(offset, length);
+            in.getChannel().position(start);
+            LineReader reader = new LineReader(new BufferedInputStream(in), start);
+            if (offset < 0 && start > 0)
+                reader.readLine();
+            start = reader.position;
+            List<String> lines = new ArrayList<String>();
+            long end = reader.position;
+            while (reader.position < length && reader.position - start < maxBytes) {
+                String line = reader.readLine();
+                if (line == null || !reader.terminated)
+                    break;
+                lines.add(line);
+                end = reader.position;
+            }
+            return new LogPage(lines, start, end, end >= length);
+        }
+    }
+
+    /**
+     * Reads up to <code>limit</code> events between the offsets with the level
+     * or higher, lines that do not start with a level belong to the previous
+     * line.
+     */
+    private static LogPage readUnindexed(File logFile, LogQuery query, int limit, long offset, long end, long length)
+            throws IOException {
+        List<String> lines = new ArrayList<String>();
+        if (query.hasTimeRange() || query.getMogramId() != null)
+            return new LogPage(lines, offset, end, end >= length);
+        try (FileInputStream in = new FileInputStream(logFile)) {
+            in.getChannel().position(offset);
+            LineReader reader = new LineReader(new BufferedInputStream(in), offset);
+            Level level = query.getLevel() == null ? Level.ALL : query.getLevel();
+            boolean selected = false;
+            int events = 0;
+            String line;
+            while (reader.position < end) {
+                long position = reader.position;
+                if ((line = reader.readLine()) == null)
+                    break;
+                Level lineLevel = getLevel(line);
+                if (lineLevel != null) {
+                    selected = lineLevel.isGreaterOrEqual(level);
+                    if (selected && events++ >= limit)
+                        return new LogPage(lines, offset, position, false);
+                }
+                if (selected)
+                    lines.add(line);
+            }
+            return new LogPage(lines, offset, reader.position, reader.position >= length);
+        }
+    }
+
+    private static Level getLevel(String line) {
+        int i = line.indexOf(' ');
+        if (i < 4 || i > 5)
+            return null;
+        Level level = Level.toLevel(line.substring(0, i), null);
+        return level == Level.ALL || level == Level.OFF ? null : level;
+    }
+
+    /**
+     * Returns the index of the first record with an offset not less than the
+     * offset, or of the unindexed part if the offset is within it.
+     */
+    private static long search(FileChannel records, long first, long count, long offset) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        long low = 0;
+        long high = count;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            read(records, first, mid, record);
+            if (record.getLong(0) < offset)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        // an offset within the unindexed part is read from the offset
+        if (low > 0) {
+            read(records, first, low - 1, record);
+            if (record.getLong(8) == UNINDEXED)
+                return low - 1;
+        }
+        return low;
+    }
+
+    private static void read(FileChannel records, long first, long i, ByteBuffer record) throws IOException {
+        record.clear();
+        long position = first + i * RECORD_SIZE;
+        while (record.hasRemaining()) {
+            if (records.read(record, position + record.position()) < 0)
+                throw new EOFException();
+        }
+    }
+
+    static long hash(String s) {
+        if (s == null)
+            return 0;
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Reads lines of bytes keeping the byte position in the file.
+     */
+    private static class LineReader {
+        private final InputStream in;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        long position;
+        boolean terminated;
+
+        LineReader(InputStream in, long position) {
+            this.in = in;
+            this.position = position;
+        }
+
+        String readLine() throws IOException {
+            line.reset();
+            terminated = false;
+            int b;
+            while ((b = in.read()) >= 0) {
+                position++;
+                if (b == '\n') {
+                    terminated = true;
+                    break;
+                }
+                line.write(b);
+            }
+            if (b < 0 && line.size() == 0)
+                return null;
+            int size = line.size();
+            byte[] bytes = line.toByteArray();
+            if (size > 0 && bytes[size - 1] == '\r')
+                size--;
+            return new String(bytes, 0, size, Charset.defaultCharset());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sorcer.core.provider.logger;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.util.ConfigurableThreadFactory;
+import sorcer.util.Sorcer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ingests remote logging events in shards by logger name. Each shard has a
+ * bounded queue drained in batches by its own thread, so events of a logger
+ * are appended in order and loggers of different shards are appended
+ * concurrently. An event is dropped if its shard stays full for the offer
+ * timeout. On shutdown the events already queued are appended before the
+ * shard threads end.
+ */
+class LogIngest {
+    static final String SHARDS = "sorcer.logger.ingest.shards";
+    static final String CAPACITY = "sorcer.logger.ingest.capacity";
+    static final String BATCH_SIZE = "sorcer.logger.ingest.batch";
+    private static final Logger logger = LoggerFactory.getLogger(LogIngest.class);
+    private static final long OFFER_TIMEOUT = 100;
+
+    /**
+     * Appends the batches of events of a shard.
+     */
+    interface Sink {
+        void append(List<ILoggingEvent> events);
+    }
+
+    private final Sink sink;
+    private final Shard[] shards;
+    private final Thread[] threads;
+    private final int batchSize;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running = true;
+
+    LogIngest(Sink sink) {
+        this(sink, getProperty(SHARDS, Math.min(8, Runtime.getRuntime().availableProcessors())),
+             getProperty(CAPACITY, 4096), getProperty(BATCH_SIZE, 256));
+    }
+
+    LogIngest(Sink sink, int shardCount, int capacity, int batchSize) {
+        this.sink = sink;
+        this.batchSize = batchSize;
+        ConfigurableThreadFactory threadFactory = new ConfigurableThreadFactory();
+        threadFactory.setDaemon(true);
+        threadFactory.setNameFormat("LogIngest-%2$s");
+        shards = new Shard[shardCount];
+        threads = new Thread[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(capacity);
+            threads[i] = threadFactory.newThread(shards[i]);
+            threads[i].start();
+        }
+    }
+
+    /**
+     * @return false if the event was dropped
+     */
+    boolean offer(ILoggingEvent event) throws InterruptedException {
+        if (!running)
+            return false;
+        String name = event.getLoggerName();
+        Shard shard = shards[((name == null ? 0 : name.hashCode()) & 0x7fffffff) % shards.length];
+        if (shard.queue.offer(event, OFFER_TIMEOUT, TimeUnit.MILLISECONDS))
+            return true;
+        long count = dropped.incrementAndGet();
+        if (Long.bitCount(count) == 1)
+            logger.warn("Remote log ingest is full, dropped {} events", count);
+        return false;
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops accepting events and waits up to <code>timeout</code>
+     * milliseconds for the shard threads to append the queued events.
+     */
+    void shutdown(long timeout) {
+        running = false;
+        long deadline = System.currentTimeMillis() + timeout;
+        for (Thread thread : threads) {
+            try {
+                thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (Thread thread : threads) {
+            if (thread.isAlive()) {
+                logger.warn("Remote log ingest thread {} did not stop, interrupting", thread.getName());
+                thread.interrupt();
+            }
+        }
+    }
+
+    private static int getProperty(String key, int defaultValue) {
+        String value = Sorcer.getProperty(key);
+        if (value == null)
+            return defaultValue;
+        try {
+            int i = Integer.parseInt(value.trim());
+            if (i > 0)
+                return i;
+        } catch (NumberFormatException ignore) {
+        }
+        logger.warn("Could not evaluate property: {}: {}, using default: {}", key, value, defaultValue);
+        return defaultValue;
+    }
+
+    private class Shard implements Runnable {
+        final BlockingQueue<ILoggingEvent> queue;
+
+        Shard(int capacity) {
+            queue = new ArrayBlockingQueue<ILoggingEvent>(capacity);
+        }
+
+        @Override public void run() {
+            List<ILoggingEvent> batch = new ArrayList<ILoggingEvent>(batchSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    ILoggingEvent event = queue.poll(OFFER_TIMEOUT, TimeUnit.MILLISECONDS);
+                    if (event == null)
+                        continue;
+                    batch.add(event);
+                    queue.drainTo(batch, batchSize - 1);
+                    sink.append(batch);
+                } catch (InterruptedException e) {
+                    break;
+                } catch (RuntimeException e) {
+                    logger.error("Problem appending {} remote log events", batch.size(), e);
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sorcer.core.provider.logger;
+
+import org.rioproject.event.EventHandler;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static sorcer.core.provider.RemoteLogger.KEY_MOGRAM_ID;
+
+/**
+ * The filters of remote log listeners. Filters with a mogram id are indexed
+ * by the id, so an event is matched only against the filters of its mogram
+ * and the filters without a mogram id.
+ */
+class LogListenerIndex {
+    private final ConcurrentHashMap<String, Set<Filter>> byMogramId = new ConcurrentHashMap<String, Set<Filter>>();
+    private final Set<Filter> unindexed = Collections.newSetFromMap(new ConcurrentHashMap<Filter, Boolean>());
+    private volatile int size;
+
+    synchronized void add(Map<String, String> filterMap, EventHandler handler) {
+        Filter filter = new Filter(new HashMap<String, String>(filterMap), handler);
+        String mogramId = filterMap.get(KEY_MOGRAM_ID);
+        if (mogramId == null) {
+            unindexed.add(filter);
+        } else {
+            Set<Filter> filters = byMogramId.get(mogramId);
+            if (filters == null) {
+                filters = Collections.newSetFromMap(new ConcurrentHashMap<Filter, Boolean>());
+                byMogramId.put(mogramId, filters);
+            }
+            filters.add(filter);
+        }
+        size++;
+    }
+
+    synchronized void remove(EventHandler handler) {
+        size -= remove(unindexed, handler);
+        Iterator<Set<Filter>> it = byMogramId.values().iterator();
+        while (it.hasNext()) {
+            Set<Filter> filters = it.next();
+            size -= remove(filters, handler);
+            if (filters.isEmpty())
+                it.remove();
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the handlers of listeners with all entries of their filter in
+     * the MDC properties of an event.
+     */
+    Set<EventHandler> match(Map<String, String> mdc) {
+        Set<EventHandler> handlers = null;
+        String mogramId = mdc.get(KEY_MOGRAM_ID);
+        if (mogramId != null) {
+            Set<Filter> filters = byMogramId.get(mogramId);
+            if (filters != null)
+                handlers = match(filters, mdc, handlers);
+        }
+        if (!unindexed.isEmpty())
+            handlers = match(unindexed, mdc, handlers);
+        return handlers == null ? Collections.<EventHandler>emptySet() : handlers;
+    }
+
+    private static Set<EventHandler> match(Set<Filter> filters, Map<String, String> mdc, Set<EventHandler> handlers) {
+        for (Filter filter : filters) {
+            if (filter.matches(mdc)) {
+                if (handlers == null)
+                    handlers = new LinkedHashSet<EventHandler>();
+                handlers.add(filter.handler);
+            }
+        }
+        return handlers;
+    }
+
+    private static int remove(Set<Filter> filters, EventHandler handler) {
+        int removed = 0;
+        Iterator<Filter> it = filters.iterator();
+        while (it.hasNext()) {
+            if (it.next().handler.equals(handler)) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static class Filter {
+        final Map<String, String> entries;
+        final EventHandler handler;
+
+        Filter(Map<String, String> entries, EventHandler handler) {
+            this.entries = entries;
+            this.handler = handler;
+        }
+
+        boolean matches(Map<String, String> mdc) {
+            for (Map.Entry<String, String> e : entries.entrySet()) {
+                String value = mdc.get(e.getKey());
+                if (value == null ? e.getValue() != null || !mdc.containsKey(e.getKey()) : !value.equals(e.getValue()))
+                    return false;
+            }
+            return true;
+        }
+    }
+}
@@ -53,6 +53,7 @@ import java.rmi.MarshalledObject;
 import java.rmi.RemoteException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -60,31 +61,51 @@ import java.util.regex.PatternSyntaxException;
 public class RemoteLoggerManager implements RemoteLogger {
     private static final org.slf4j.Logger log = LoggerFactory.getLogger(RemoteLoggerManager.class);
 
-    // The list of all known loggers.
-    private List<LoggingConfig> knownLoggers = new LinkedList<LoggingConfig>();
+    // All known loggers by name.
+    private final ConcurrentMap<String, LoggingConfig> knownLoggers = new ConcurrentHashMap<String, LoggingConfig>();
 
     private LoggerContext loggerFactory;
 
     private File logDir = new File(Sorcer.getHomeDir(), "logs/remote");
 
-    private Map<Map<String,String>, EventHandler> remoteLogListeners = new ConcurrentHashMap<Map<String,String>, EventHandler>();
+    private final LogListenerIndex remoteLogListeners = new LogListenerIndex();
 
     private Map<Long, EventHandler> remoteLogHandlers = new ConcurrentHashMap<Long, EventHandler>();
 
     private Provider provider;
 
+    private final LogIngest ingest;
+
+    // sidecar indexes of log files by logger name
+    private final Map<String, LogIndex.Writer> logIndexes = new ConcurrentHashMap<String, LogIndex.Writer>();
+
     public RemoteLoggerManager() {
         ILoggerFactory loggerFactory;
         loggerFactory = LoggerFactory.getILoggerFactory();
         if (!(loggerFactory instanceof LoggerContext))
             throw new IllegalStateException("This service must be running with Logback Classic");
         this.loggerFactory = (LoggerContext) loggerFactory;
+        ingest = new LogIngest(new LogIngest.Sink() {
+            @Override public void append(List<ILoggingEvent> events) {
+                RemoteLoggerManager.this.append(events);
+            }
+        });
     }
 
     public void init(Provider provider) throws RemoteException {
         this.provider = provider;
     }
 
+    /**
+     * Appends the queued events, stops the ingest threads and closes the
+     * log indexes, called when the provider is destroyed.
+     */
+    public void destroy() {
+        ingest.shutdown(5000);
+        for (String loggerName : logIndexes.keySet())
+            closeIndex(loggerName);
+    }
+
     public String[] getLogNames() throws RemoteException {
         if (this.logDir == null)
             return new String[0];
@@ -105,59 +126,124 @@ public class RemoteLoggerManager implements RemoteLogger {
             publish(vo);
     }
 
+    public void publish(byte[] batch) throws LogBatchException {
+        try {
+            publish(LoggingEvents.decompress(batch));
+        } catch (IOException | ClassNotFoundException e) {
+            log.warn("Could not read batch of logging events, {}: {}", e.getClass().getName(), e.getMessage());
+            throw new LogBatchException("Could not read batch of logging events", e);
+        }
+    }
+
+    /**
+     * Queues the event to be appended to the log of its logger and sent to
+     * matching remote log listeners.
+     */
     protected void publish(ILoggingEvent loggingEvent) {
-        String loggerName;
-        Logger logger;
-        synchronized (this) {
-            log.info("Publishing remote log: " + loggingEvent.getMessage().substring(0,Math.min(loggingEvent.getMessage().length(),50)));
+        try {
+            ingest.offer(loggingEvent);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Appends a batch of events, called by the ingest thread of the shard
+     * of their loggers.
+     */
+    void append(List<ILoggingEvent> loggingEvents) {
+        Logger logger = null;
+        LogIndex.Writer logIndex = null;
+        Set<LogIndex.Writer> appended = new HashSet<LogIndex.Writer>();
+        for (ILoggingEvent loggingEvent : loggingEvents) {
             Map<String, String> mdc = loggingEvent.getMDCPropertyMap();
-            String exertionId = null;
-            if (!remoteLogListeners.isEmpty()) {
-                exertionId = mdc.get(KEY_MOGRAM_ID);
-                Map<String, String> keyMap = new HashMap<String, String>();
-                keyMap.put(KEY_MOGRAM_ID, exertionId);
-
-                for (Map.Entry<Map<String, String>, EventHandler> entry : remoteLogListeners.entrySet()) {
-                    if (mdc.entrySet().containsAll(entry.getKey().entrySet())) {
-                        try {
-                            LoggerRemoteEvent rse = new LoggerRemoteEvent(provider.getProxy(), loggingEvent);
-                            entry.getValue().fire(rse);
-                            System.out.println("!!!!!!!!!!!!!!!!!!!!!!!!!!! Sending log to remote listener exID: " + exertionId + ": " + loggingEvent.getMessage().substring(0, Math.min(loggingEvent.getMessage().length(), 50)));
-                        } catch (NoEventConsumerException e) {
-                            log.error("Problem sending remote log event, no event consumer available");
-                        } catch (RemoteException e) {
-                            log.error("Problem getting proxy from provider - should never happen as provider is local!!!");
-                        }
-                    }
+            if (!remoteLogListeners.isEmpty())
+                fire(loggingEvent, mdc);
+            String loggerName = loggingEvent.getLoggerName();
+            if (logger == null || !logger.getName().equals(loggerName)) {
+                logger = getLogger(loggerName, mdc);
+                logIndex = logIndexes.get(loggerName);
+            }
+            logger.callAppenders(loggingEvent);
+            if (logIndex != null) {
+                try {
+                    logIndex.add(loggingEvent);
+                    appended.add(logIndex);
+                } catch (IOException e) {
+                    log.warn("Could not index log of {}, {}: {}", loggerName, e.getClass().getName(), e.getMessage());
+                    closeIndex(loggerName);
+                    logIndex = null;
                 }
             }
-            loggerName = loggingEvent.getLoggerName();
-            logger = loggerFactory.getLogger(loggerName);
-            Appender<ILoggingEvent> appender = logger.getAppender(loggerName);
-            if (appender == null) {
-                String hostname;
-                if (mdc.containsKey(KEY_HOSTNAME))
-                    hostname = mdc.get(KEY_HOSTNAME);
-                else
-                    hostname = "remote";
-                //logger.setAdditive(false);
-                logger.addAppender(createAppender(loggerName, hostname));
+        }
+        for (LogIndex.Writer writer : appended) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                log.warn("Could not flush log index, {}: {}", e.getClass().getName(), e.getMessage());
+            }
+        }
+    }
+
+    private void closeIndex(String loggerName) {
+        LogIndex.Writer writer = logIndexes.remove(loggerName);
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    private void fire(ILoggingEvent loggingEvent, Map<String, String> mdc) {
+        for (EventHandler eventHandler : remoteLogListeners.match(mdc)) {
+            try {
+                eventHandler.fire(new LoggerRemoteEvent(provider.getProxy(), loggingEvent));
+                if (log.isTraceEnabled())
+                    log.trace("Sent log to remote listener exID: {}", mdc.get(KEY_MOGRAM_ID));
+            } catch (NoEventConsumerException e) {
+                log.error("Problem sending remote log event, no event consumer available");
+            } catch (RemoteException e) {
+                log.error("Problem getting proxy from provider - should never happen as provider is local!!!");
             }
         }
+    }
 
-        logger.callAppenders(loggingEvent);
-        LoggingConfig lc = new LoggingConfig(loggerName, null);
-        if (!knownLoggers.contains(lc)) {
+    /**
+     * Returns the logger with its file appender, only called from the ingest
+     * thread of the shard of the logger.
+     */
+    private Logger getLogger(String loggerName, Map<String, String> mdc) {
+        Logger logger = loggerFactory.getLogger(loggerName);
+        Appender<ILoggingEvent> appender = logger.getAppender(loggerName);
+        if (appender == null) {
+            String hostname;
+            if (mdc.containsKey(KEY_HOSTNAME))
+                hostname = mdc.get(KEY_HOSTNAME);
+            else
+                hostname = "remote";
+            //logger.setAdditive(false);
+            File file = new File(logDir, hostname + "-" + loggerName + ".log");
+            logger.addAppender(createAppender(loggerName, file));
+            closeIndex(loggerName);
+            try {
+                logIndexes.put(loggerName, new LogIndex.Writer(file, loggerName));
+            } catch (IOException e) {
+                log.warn("Could not create log index of {}, {}: {}", loggerName, e.getClass().getName(), e.getMessage());
+            }
+        }
+        if (!knownLoggers.containsKey(loggerName)) {
+            LoggingConfig lc = new LoggingConfig(loggerName, null);
             lc.setLevel(Level.ALL);
-            knownLoggers.add(lc);
+            knownLoggers.putIfAbsent(loggerName, lc);
         }
+        return logger;
     }
 
-    private Appender<ILoggingEvent> createAppender(String loggerName, String prefix) {
+    private Appender<ILoggingEvent> createAppender(String loggerName, File file) {
         Appender<ILoggingEvent> appender;
         FileAppender<ILoggingEvent> fileAppender = new FileAppender<ILoggingEvent>();
         fileAppender.setName(loggerName);
-        File file = new File(logDir, prefix + "-" + loggerName + ".log");
         fileAppender.setFile(file.getPath());
         fileAppender.setContext(loggerFactory);
         PatternLayoutEncoder encoder = new PatternLayoutEncoder();
@@ -180,8 +266,28 @@ public class RemoteLoggerManager implements RemoteLogger {
         }
     }
 
+    public LogPage getLog(String fileName, LogQuery query) throws RemoteException {
+        try {
+            return LogIndex.query(new File(logDir, fileName), query);
+        } catch (IOException e) {
+            String msg = MessageFormatter.format("Error reading file {}", fileName).getMessage();
+            log.warn(msg, e);
+            return new LogPage(Arrays.asList(msg), query.getOffset(), query.getOffset(), true);
+        }
+    }
+
+    public LogPage tailLog(String fileName, long offset, int maxBytes) throws RemoteException {
+        try {
+            return LogIndex.tail(new File(logDir, fileName), offset, maxBytes);
+        } catch (IOException e) {
+            String msg = MessageFormatter.format("Error reading file {}", fileName).getMessage();
+            log.warn(msg, e);
+            return new LogPage(Arrays.asList(msg), offset, offset, true);
+        }
+    }
+
     public List<LoggingConfig> getLoggers() throws IOException {
-        return knownLoggers;
+        return new ArrayList<LoggingConfig>(knownLoggers.values());
     }
 
     public void deleteLog(String loggerName) throws RemoteException {
@@ -189,6 +295,10 @@ public class RemoteLoggerManager implements RemoteLogger {
         if (df.exists()) {
             df.delete();
         }
+        File index = LogIndex.getIndexFile(df);
+        if (index.exists()) {
+            index.delete();
+        }
     }
 
     public EventRegistration registerLogListener(RemoteEventListener listener, MarshalledObject handback, long duration, List<Map<String,String>> filterMap) throws LeaseDeniedException, RemoteException {
@@ -202,7 +312,7 @@ public class RemoteLoggerManager implements RemoteLogger {
             log.debug("Got evRegID: " + evReg.getID() + " filters: " + filterMap);
             remoteLogHandlers.put(evReg.getID(), eventHandler);
             for (Map<String, String>  fMap : filterMap)
-                remoteLogListeners.put(fMap, eventHandler);
+                remoteLogListeners.add(fMap, eventHandler);
             return evReg;
         } catch (Exception e1) {
             log.error("Problem registering to Log listener: " + e1.getMessage());
@@ -215,14 +325,7 @@ public class RemoteLoggerManager implements RemoteLogger {
         try {
             EventHandler evHandler = remoteLogHandlers.get(evReg.getID());
             if (evHandler!=null) {
-                List<Map<String,String>> toRemove = new ArrayList<Map<String, String>>();
-                for (Map.Entry<Map<String, String>, EventHandler> entry : remoteLogListeners.entrySet()) {
-                    if (entry.getValue().equals(evHandler)) {
-                        toRemove.add(entry.getKey());
-                    }
-                }
-                for (Map<String, String> key : toRemove)
-                    remoteLogListeners.remove(key);
+                remoteLogListeners.remove(evHandler);
                 remoteLogHandlers.remove(evReg.getID());
             } else {
                 log.error("Problem unregistering, listener for: " + evReg.getID() + " doesn't exist");
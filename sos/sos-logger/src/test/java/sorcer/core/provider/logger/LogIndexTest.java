@@ -0,0 +1,162 @@
+package sorcer.core.provider.logger;
+
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static sorcer.core.provider.RemoteLogger.KEY_MOGRAM_ID;
+
+public class LogIndexTest {
+    private File logFile;
+    private LogIndex.Writer writer;
+
+    @Before
+    public void setUp() throws IOException {
+        logFile = File.createTempFile("remote-foo", ".log");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (writer != null)
+            writer.close();
+        LogIndex.getIndexFile(logFile).delete();
+        logFile.delete();
+    }
+
+    @Test
+    public void pages() throws IOException {
+        open();
+        for (int i = 0; i < 5; i++)
+            append(i % 2 == 0 ? "INFO" : "WARN", i, "event " + i, null);
+        writer.flush();
+
+        List<String> lines = new ArrayList<String>();
+        LogPage page = LogIndex.query(logFile, new LogQuery().limit(2));
+        assertEquals(2, page.getLines().size());
+        assertFalse(page.isEndOfLog());
+        lines.addAll(page.getLines());
+        page = LogIndex.query(logFile, new LogQuery().offset(page.getNextOffset()).limit(2));
+        assertEquals(2, page.getLines().size());
+        lines.addAll(page.getLines());
+        page = LogIndex.query(logFile, new LogQuery().offset(page.getNextOffset()).limit(2));
+        assertEquals(1, page.getLines().size());
+        assertTrue(page.isEndOfLog());
+        lines.addAll(page.getLines());
+        assertEquals(5, lines.size());
+        for (int i = 0; i < 5; i++)
+            assertTrue(lines.get(i), lines.get(i).endsWith("event " + i));
+    }
+
+    @Test
+    public void selects() throws IOException {
+        open();
+        append("INFO", 1000, "first", "a");
+        append("ERROR", 2000, "second", "b");
+        append("INFO", 3000, "third", "b");
+        writer.flush();
+
+        assertEquals(1, LogIndex.query(logFile, new LogQuery().level(Level.WARN)).getLines().size());
+        assertEquals(2, LogIndex.query(logFile, new LogQuery().mogramId("b")).getLines().size());
+        List<String> lines = LogIndex.query(logFile, new LogQuery().timeRange(2500, 5000)).getLines();
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).endsWith("third"));
+    }
+
+    @Test
+    public void tails() throws IOException {
+        write("INFO  one\nINFO  two\nINFO  three\nINFO  par");
+        LogPage page = LogIndex.tail(logFile, -1, 24);
+        assertEquals(Collections.singletonList("INFO  three"), page.getLines());
+        assertFalse(page.isEndOfLog());
+
+        page = LogIndex.tail(logFile, 0, 1024);
+        assertEquals(3, page.getLines().size());
+        page = LogIndex.tail(logFile, page.getNextOffset(), 1024);
+        assertTrue(page.getLines().isEmpty());
+
+        write("tial\n");
+        page = LogIndex.tail(logFile, page.getNextOffset(), 1024);
+        assertEquals(Collections.singletonList("INFO  partial"), page.getLines());
+        assertTrue(page.isEndOfLog());
+    }
+
+    @Test
+    public void rebuildsTailOfIndex() throws IOException {
+        open();
+        for (int i = 0; i < 3; i++)
+            append("INFO", i, "event " + i, null);
+        writer.close();
+        // events written but not indexed, and a partial record
+        write("INFO  event 3\nINFO  event 4\n");
+        FileOutputStream out = new FileOutputStream(LogIndex.getIndexFile(logFile), true);
+        out.write(new byte[]{1, 2, 3});
+        out.close();
+
+        open();
+        append("INFO", 5, "event 5", null);
+        writer.flush();
+        List<String> lines = LogIndex.query(logFile, new LogQuery()).getLines();
+        assertEquals(6, lines.size());
+        for (int i = 0; i < 6; i++)
+            assertTrue(lines.get(i), lines.get(i).endsWith("event " + i));
+    }
+
+    @Test
+    public void dropsRecordsPastEndOfLog() throws IOException {
+        open();
+        for (int i = 0; i < 3; i++)
+            append("INFO", i, "event " + i, null);
+        writer.close();
+        // the log is replaced by a shorter one
+        new FileOutputStream(logFile).close();
+        write("INFO  event 0\n");
+
+        open();
+        append("INFO", 1, "new event", null);
+        writer.flush();
+        List<String> lines = LogIndex.query(logFile, new LogQuery()).getLines();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).endsWith("new event"));
+    }
+
+    @Test
+    public void rebuildsInvalidIndex() throws IOException {
+        write("INFO  event 0\n");
+        FileOutputStream out = new FileOutputStream(LogIndex.getIndexFile(logFile));
+        out.write(new byte[]{0, 0});
+        out.close();
+
+        open();
+        append("INFO", 1, "event 1", null);
+        writer.flush();
+        List<String> lines = LogIndex.query(logFile, new LogQuery()).getLines();
+        assertEquals(2, lines.size());
+    }
+
+    private void open() throws IOException {
+        writer = new LogIndex.Writer(logFile, "foo");
+    }
+
+    private void append(String level, long timeStamp, String message, String mogramId) throws IOException {
+        write(String.format("%-5s %d [main] foo - %s%n", level, timeStamp, message));
+        LoggingEvent event = new LoggingEvent();
+        event.setLevel(ch.qos.logback.classic.Level.toLevel(level));
+        event.setTimeStamp(timeStamp);
+        event.setMDCPropertyMap(mogramId == null ? Collections.<String, String>emptyMap()
+                                        : Collections.singletonMap(KEY_MOGRAM_ID, mogramId));
+        writer.add(event);
+    }
+
+    private void write(String text) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(logFile, true), "UTF-8");
+        out.write(text);
+        out.close();
+    }
+}
@@ -0,0 +1,64 @@
+package sorcer.core.provider.logger;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LogIngestTest {
+    private final Map<String, List<String>> appended = new HashMap<String, List<String>>();
+
+    private final LogIngest.Sink sink = new LogIngest.Sink() {
+        @Override public void append(List<ILoggingEvent> events) {
+            synchronized (appended) {
+                for (ILoggingEvent event : events) {
+                    List<String> messages = appended.get(event.getLoggerName());
+                    if (messages == null) {
+                        messages = new ArrayList<String>();
+                        appended.put(event.getLoggerName(), messages);
+                    }
+                    messages.add(event.getMessage());
+                }
+            }
+        }
+    };
+
+    @Test
+    public void appendsEventsOfLoggerInOrder() throws InterruptedException {
+        LogIngest ingest = new LogIngest(sink, 3, 2000, 16);
+        String[] loggers = {"a", "b", "c", "d", "e"};
+        for (int i = 0; i < 1000; i++) {
+            for (String logger : loggers)
+                assertTrue(ingest.offer(event(logger, i)));
+        }
+        ingest.shutdown(5000);
+
+        assertEquals(loggers.length, appended.size());
+        for (String logger : loggers) {
+            List<String> messages = appended.get(logger);
+            assertEquals(1000, messages.size());
+            for (int i = 0; i < 1000; i++)
+                assertEquals(Integer.toString(i), messages.get(i));
+        }
+        assertEquals(0, ingest.getDropped());
+    }
+
+    @Test
+    public void stopsOnShutdown() throws InterruptedException {
+        LogIngest ingest = new LogIngest(sink, 2, 16, 4);
+        ingest.shutdown(5000);
+        assertFalse(ingest.offer(event("a", 0)));
+        for (Thread thread : Thread.getAllStackTraces().keySet())
+            assertFalse(thread.getName(), thread.getName().startsWith("LogIngest-") && thread.isAlive());
+    }
+
+    private static ILoggingEvent event(String logger, int i) {
+        LoggingEvent event = new LoggingEvent();
+        event.setLoggerName(logger);
+        event.setMessage(Integer.toString(i));
+        return event;
+    }
+}
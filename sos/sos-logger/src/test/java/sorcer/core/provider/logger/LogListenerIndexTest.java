@@ -0,0 +1,82 @@
+package sorcer.core.provider.logger;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.rioproject.event.EventDescriptor;
+import org.rioproject.event.EventHandler;
+import sorcer.util.SenderEventHandler;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static sorcer.core.provider.RemoteLogger.KEY_MOGRAM_ID;
+import static sorcer.core.provider.RemoteLogger.KEY_PROVIDER_ID;
+
+public class LogListenerIndexTest {
+    private LogListenerIndex index;
+    private EventHandler mogramA;
+    private EventHandler mogramB;
+    private EventHandler provider;
+    private EventHandler mogramAOfProvider;
+
+    @Before
+    public void setUp() throws IOException {
+        index = new LogListenerIndex();
+        mogramA = handler();
+        mogramB = handler();
+        provider = handler();
+        mogramAOfProvider = handler();
+        index.add(filter(KEY_MOGRAM_ID, "a"), mogramA);
+        index.add(filter(KEY_MOGRAM_ID, "b"), mogramB);
+        index.add(filter(KEY_PROVIDER_ID, "p"), provider);
+        Map<String, String> both = filter(KEY_MOGRAM_ID, "a");
+        both.put(KEY_PROVIDER_ID, "q");
+        index.add(both, mogramAOfProvider);
+    }
+
+    @Test
+    public void matchesAllEntriesOfFilters() {
+        Map<String, String> mdc = filter(KEY_MOGRAM_ID, "a");
+        mdc.put(KEY_PROVIDER_ID, "p");
+        assertEquals(handlers(mogramA, provider), index.match(mdc));
+
+        mdc.put(KEY_PROVIDER_ID, "q");
+        assertEquals(handlers(mogramA, mogramAOfProvider), index.match(mdc));
+
+        assertEquals(handlers(mogramB), index.match(filter(KEY_MOGRAM_ID, "b")));
+        assertEquals(handlers(provider), index.match(filter(KEY_PROVIDER_ID, "p")));
+        assertTrue(index.match(filter(KEY_MOGRAM_ID, "c")).isEmpty());
+        assertTrue(index.match(Collections.<String, String>emptyMap()).isEmpty());
+    }
+
+    @Test
+    public void removesFiltersOfHandler() {
+        assertFalse(index.isEmpty());
+        index.remove(mogramA);
+        assertEquals(handlers(mogramAOfProvider), index.match(filter(KEY_MOGRAM_ID, "a", KEY_PROVIDER_ID, "q")));
+
+        index.remove(mogramAOfProvider);
+        index.remove(mogramB);
+        assertFalse(index.isEmpty());
+        index.remove(provider);
+        assertTrue(index.isEmpty());
+        assertTrue(index.match(filter(KEY_PROVIDER_ID, "p")).isEmpty());
+    }
+
+    private static Map<String, String> filter(String... entries) {
+        Map<String, String> filter = new HashMap<String, String>();
+        for (int i = 0; i < entries.length; i += 2)
+            filter.put(entries[i], entries[i + 1]);
+        return filter;
+    }
+
+    private static Set<EventHandler> handlers(EventHandler... handlers) {
+        return new HashSet<EventHandler>(Arrays.asList(handlers));
+    }
+
+    private static EventHandler handler() throws IOException {
+        return new SenderEventHandler(new EventDescriptor(ILoggingEvent.class, LoggerRemoteEvent.ID));
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.emory.mathcs.util.classloader;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Persistent package index of the JAR files on a search path. For every local JAR it records the packages
+ * (directories, and top-level entries) it contains, in the format of a JAR index, and its Class-Path. With the
+ * index a {@link ResourceLoader} can tell which JARs may contain a resource without opening them, so only the JARs
+ * actually used are opened, on first use.
+ * <p>
+ * The index of a search path is stored in one file. An entry of a JAR is valid as long as the size and modification
+ * time of the JAR do not change; JARs without a valid entry are indexed in parallel and the file is rewritten. A JAR
+ * that could not be indexed gets an entry without packages, so it is not indexed again until it changes.
+ * <p>
+ * The modification time of an index file is its last use, renewed at most once a day. When an index file is
+ * written, the index files not used for {@link #INDEX_MAX_AGE} days are removed.
+ */
+class ClassPathIndex {
+    static final String INDEX_DIR = "sorcer.boot.index.dir";
+    static final String INDEX_ENABLED = "sorcer.boot.index";
+    static final String INDEX_MAX_AGE = "sorcer.boot.index.maxAge";
+
+    private static final int VERSION = 2;
+    private static final String SUFFIX = ".idx";
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final int DEFAULT_MAX_AGE = 30;
+
+    private static ExecutorService pool;
+
+    static class Entry {
+        final long size;
+        final long modified;
+        final String[] packages;    // null if the JAR could not be indexed
+        final URL[] classPath;
+
+        Entry(long size, long modified, String[] packages, URL[] classPath) {
+            this.size = size;
+            this.modified = modified;
+            this.packages = packages;
+            this.classPath = classPath;
+        }
+
+        /**
+         * @return true if the entry was made for the file as it is now
+         */
+        boolean isValid(File file) {
+            return size == file.length() && modified == file.lastModified();
+        }
+    }
+
+    private final File dir;
+
+    ClassPathIndex(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * @return the index configured with the {@link #INDEX_DIR} system property, or null when {@link #INDEX_ENABLED}
+     * is false
+     */
+    static ClassPathIndex getDefault() {
+        if (!Boolean.parseBoolean(System.getProperty(INDEX_ENABLED, "true")))
+            return null;
+        String dirName = System.getProperty(INDEX_DIR);
+        File dir = dirName != null ? new File(dirName)
+                : new File(System.getProperty("user.home"), ".sorcer" + File.separator + "boot-index");
+        return new ClassPathIndex(dir);
+    }
+
+    /**
+     * Get the index entries of the local JAR files on the search path, keyed by URL external form. Missing and
+     * out-of-date entries are rebuilt and stored. JARs that could not be indexed have no entry.
+     */
+    Map<String, Entry> getEntries(URL[] sources) {
+        Map<String, File> jars = new LinkedHashMap<String, File>();
+        for (URL url : sources) {
+            File file = toFile(url);
+            if (file != null)
+                jars.put(url.toExternalForm(), file);
+        }
+        if (jars.isEmpty())
+            return Collections.emptyMap();
+
+        File indexFile = getFile(jars.keySet());
+        Map<String, Entry> stored = read(indexFile);
+        Map<String, Entry> entries = new HashMap<String, Entry>();
+        Map<String, Future<Entry>> pending = new LinkedHashMap<String, Future<Entry>>();
+        for (Map.Entry<String, File> jar : jars.entrySet()) {
+            final File file = jar.getValue();
+            Entry entry = stored.get(jar.getKey());
+            if (entry != null && entry.isValid(file)) {
+                entries.put(jar.getKey(), entry);
+            } else if (file.isFile()) {
+                final URL url;
+                try {
+                    url = new URL(jar.getKey());
+                } catch (IOException e) {
+                    continue;
+                }
+                pending.put(jar.getKey(), getPool().submit(new Callable<Entry>() {
+                    public Entry call() throws IOException {
+                        return index(url, file);
+                    }
+                }));
+            }
+        }
+        if (pending.isEmpty() && entries.size() == stored.size()) {
+            touch(indexFile);
+            return indexed(entries);
+        }
+
+        for (Map.Entry<String, Future<Entry>> p : pending.entrySet()) {
+            try {
+                entries.put(p.getKey(), p.getValue().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return indexed(entries);
+            } catch (ExecutionException e) {
+                // not a readable JAR, it is opened and reported on use
+                File file = jars.get(p.getKey());
+                entries.put(p.getKey(), new Entry(file.length(), file.lastModified(), null, new URL[0]));
+            }
+        }
+        write(indexFile, entries);
+        prune(indexFile);
+        return indexed(entries);
+    }
+
+    /**
+     * Renews the last use of an index file, unless it was renewed within a day.
+     */
+    private static void touch(File indexFile) {
+        long now = System.currentTimeMillis();
+        if (now - indexFile.lastModified() > DAY)
+            indexFile.setLastModified(now);
+    }
+
+    /**
+     * Removes the index files, and temporary files left by writers, not used for {@link #INDEX_MAX_AGE} days.
+     */
+    private void prune(File current) {
+        int maxAge = DEFAULT_MAX_AGE;
+        String value = System.getProperty(INDEX_MAX_AGE);
+        if (value != null) {
+            try {
+                maxAge = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                // the default is used
+            }
+        }
+        File[] files = dir.listFiles();
+        if (files == null)
+            return;
+        long oldest = System.currentTimeMillis() - maxAge * DAY;
+        for (File file : files) {
+            String name = file.getName();
+            if ((name.endsWith(SUFFIX) || name.endsWith(".part")) && !file.equals(current)
+                    && file.lastModified() < oldest)
+                file.delete();
+        }
+    }
+
+    private static Map<String, Entry> indexed(Map<String, Entry> entries) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().packages == null)
+                it.remove();
+        }
+        return entries;
+    }
+
+    static Entry index(URL url, File file) throws IOException {
+        long size = file.length();
+        long modified = file.lastModified();
+        JarFile jar = new JarFile(file);
+        try {
+            Set<String> packages = new HashSet<String>();
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                // the same derivation the index is verified against in ResourceLoader
+                String name = entries.nextElement().getName();
+                int pos = name.lastIndexOf('/');
+                packages.add(pos > 0 ? name.substring(0, pos) : name);
+            }
+            String[] sorted = packages.toArray(new String[packages.size()]);
+            Arrays.sort(sorted);
+            return new Entry(size, modified, sorted, ResourceLoader.parseClassPath(jar, url));
+        } finally {
+            jar.close();
+        }
+    }
+
+    File getFile(Collection<String> urls) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (String url : urls) {
+                digest.update(url.getBytes("UTF-8"));
+                digest.update((byte) '\n');
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest())
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            return new File(dir, sb.append(SUFFIX).toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, Entry> read(File file) {
+        if (!file.isFile())
+            return Collections.emptyMap();
+        Map<String, Entry> entries = new HashMap<String, Entry>();
+        try {
+            CheckedInputStream checked = new CheckedInputStream(
+                    new BufferedInputStream(new FileInputStream(file)), new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            try {
+                if (in.readInt() != VERSION)
+                    return Collections.emptyMap();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String url = in.readUTF();
+                    long size = in.readLong();
+                    long modified = in.readLong();
+                    URL[] classPath = new URL[in.readInt()];
+                    for (int j = 0; j < classPath.length; j++)
+                        classPath[j] = new URL(in.readUTF());
+                    int packageCount = in.readInt();
+                    String[] packages = packageCount < 0 ? null : new String[packageCount];
+                    for (int j = 0; j < packageCount; j++)
+                        packages[j] = in.readUTF();
+                    entries.put(url, new Entry(size, modified, packages, classPath));
+                }
+                long crc = checked.getChecksum().getValue();
+                if (in.readLong() != crc)
+                    return Collections.emptyMap();
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            // corrupt or truncated, rebuilt by the caller
+            return Collections.emptyMap();
+        }
+        return entries;
+    }
+
+    private void write(File file, Map<String, Entry> entries) {
+        Path tmp = null;
+        try {
+            Files.createDirectories(dir.toPath());
+            tmp = Files.createTempFile(dir.toPath(), file.getName(), ".part");
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp.toFile())), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            try {
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    Entry entry = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.modified);
+                    out.writeInt(entry.classPath.length);
+                    for (URL url : entry.classPath)
+                        out.writeUTF(url.toExternalForm());
+                    if (entry.packages == null) {
+                        out.writeInt(-1);
+                        continue;
+                    }
+                    out.writeInt(entry.packages.length);
+                    for (String p : entry.packages)
+                        out.writeUTF(p);
+                }
+                out.writeLong(checked.getChecksum().getValue());
+            } finally {
+                out.close();
+            }
+            try {
+                Files.move(tmp, file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // the index is only an optimization, the search path works without it
+            if (tmp != null)
+                tmp.toFile().delete();
+        }
+    }
+
+    private static File toFile(URL url) {
+        if (!"file".equals(url.getProtocol()) || ResourceLoader.isDir(url))
+            return null;
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static synchronized ExecutorService getPool() {
+        if (pool == null) {
+            int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ClassPathIndex-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            pool = executor;
+        }
+        return pool;
+    }
+}
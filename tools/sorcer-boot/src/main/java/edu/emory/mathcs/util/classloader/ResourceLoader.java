@@ -8,6 +8,7 @@ package edu.emory.mathcs.util.classloader;
 import edu.emory.mathcs.util.classloader.jar.JarURLStreamHandler;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -176,6 +177,31 @@ public class ResourceLoader {
 //        }
 //    }
 //
+    /**
+     * Applies the persistent package index of the given search path, so that
+     * JAR files on the path are only opened once a resource is requested from
+     * a package they contain. Index entries missing or out of date are built
+     * in parallel and stored. Does nothing if the index is disabled with the
+     * <code>sorcer.boot.index</code> system property.
+     *
+     * @param sources the source URL path
+     */
+    public void index(URL[] sources) {
+        ClassPathIndex classPathIndex = ClassPathIndex.getDefault();
+        if (classPathIndex == null) return;
+        Map entries = classPathIndex.getEntries(sources);
+        for (Iterator i = entries.entrySet().iterator(); i.hasNext();) {
+            Map.Entry entry = (Map.Entry)i.next();
+            try {
+                getJarInfo(new URL((String)entry.getKey()))
+                    .setCachedIndex((ClassPathIndex.Entry)entry.getValue());
+            }
+            catch (MalformedURLException e) {
+                // continue with other URLs
+            }
+        }
+    }
+
     private ResourceHandle getResource(final URL source, String name,
                                        Set visitedJars, Set skip) {
 
@@ -371,6 +397,7 @@ public class ResourceLoader {
         Permission perm;
         URL[] classPath;
         String[] index;
+        ClassPathIndex.Entry cached; // index and classPath come from it
         Map package2url;
 
         JarInfo(ResourceLoader loader, URL source) throws MalformedURLException {
@@ -403,25 +430,29 @@ public class ResourceLoader {
 
         ResourceHandle getResource(String name, Set visited, Set skip) {
             visited.add(source);
-            URL url;
-            try {
-                // escape spaces etc. to make sure url is well-formed
-                URI relUri = new URI(null, null, null, -1, name, null, null);
-                url = new URL(base, relUri.getRawPath());
-            }
-            catch (URISyntaxException e) {
-                throw new IllegalArgumentException("Illegal resource name: " +
-                    name);
-            }
-            catch (MalformedURLException e) {
-                return null;
-            }
             try {
+                // consult the index before building the URL, most JARs on
+                // a long search path do not contain the resource
                 JarFile jfile = getJarFileIfPossiblyContains(name);
                 if (jfile != null) {
                     JarEntry jentry = jar.getJarEntry(name);
-                    if (jentry != null && (skip == null || !skip.contains(url))) {
-                        return new JarResourceHandle(jfile, jentry, url, source);
+                    if (jentry != null) {
+                        URL url;
+                        try {
+                            // escape spaces etc. to make sure url is well-formed
+                            URI relUri = new URI(null, null, null, -1, name, null, null);
+                            url = new URL(base, relUri.getRawPath());
+                        }
+                        catch (URISyntaxException e) {
+                            throw new IllegalArgumentException("Illegal resource name: " +
+                                name);
+                        }
+                        catch (MalformedURLException e) {
+                            return null;
+                        }
+                        if (skip == null || !skip.contains(url)) {
+                            return new JarResourceHandle(jfile, jentry, url, source);
+                        }
                     }
                 }
             }
@@ -469,8 +500,8 @@ public class ResourceLoader {
         }
 
         synchronized void setIndex(List newIndex) {
-            if (jar != null) {
-                // already loaded; no need for index
+            if (jar != null || cached != null) {
+                // already loaded or indexed from the JAR itself; no need for index
                 return;
             }
             if (index != null) {
@@ -488,6 +519,13 @@ public class ResourceLoader {
             Arrays.sort(this.index);
         }
 
+        synchronized void setCachedIndex(ClassPathIndex.Entry entry) {
+            if (jar != null || cached != null) return;
+            this.index = entry.packages;
+            this.classPath = entry.classPath;
+            this.cached = entry;
+        }
+
         public JarFile getJarFileIfPossiblyContains(String name) throws IOException {
             Map indexes;
             synchronized (this) {
@@ -520,9 +558,15 @@ public class ResourceLoader {
                 JarURLConnection conn = (JarURLConnection)base.openConnection();
                 this.perm = conn.getPermission();
                 JarFile jar = conn.getJarFile();
+                // a cached index is only as good as the JAR is unchanged since
+                // the index was loaded
+                if (cached != null && !cached.isValid(new File(jar.getName()))) {
+                    index = null;
+                    cached = null;
+                }
                 // conservatively check if index is accurate, that is, does not
                 // contain args which are not in the JAR file
-                if (index != null) {
+                if (index != null && cached == null) {
                     Set indices = new HashSet(Arrays.asList(index));
                     Enumeration entries = jar.entries();
                     while (entries.hasMoreElements()) {
@@ -689,7 +733,7 @@ public class ResourceLoader {
         }
     }
 
-    private static URL[] parseClassPath(JarFile jar, URL source) throws IOException {
+    static URL[] parseClassPath(JarFile jar, URL source) throws IOException {
         Manifest man = jar.getManifest();
         if (man == null) return new URL[0];
         Attributes attr = man.getMainAttributes();
@@ -60,6 +60,7 @@ public class ResourceUtils {
      * </pre>
      */
     public static String canonizePath(String path) {
+        if (isCanonical(path)) return path;
         StringBuffer buf = new StringBuffer(path);
         StringBuffer aux = new StringBuffer();
         while (replaceAll(buf, aux, dotInMiddlePattern, "/", 0));
@@ -82,6 +83,26 @@ public class ResourceUtils {
         return buf.toString();
     }
 
+    /**
+     * Quick check for the common case of a path that has no "." or ".."
+     * segments and no repeated slashes, so canonizing it would not change it.
+     */
+    private static boolean isCanonical(String path) {
+        int start = 0;
+        int len = path.length();
+        for (int i = 0; i <= len; i++) {
+            if (i == len || path.charAt(i) == '/') {
+                int segment = i - start;
+                if (segment == 0 && i > 0 && i < len) return false;
+                if (segment == 1 && path.charAt(start) == '.') return false;
+                if (segment == 2 && path.charAt(start) == '.' &&
+                    path.charAt(start + 1) == '.') return false;
+                start = i + 1;
+            }
+        }
+        return true;
+    }
+
     public static boolean isAbsolute(String path) {
         return (path.length() > 0 && path.charAt(0) == '/');
     }
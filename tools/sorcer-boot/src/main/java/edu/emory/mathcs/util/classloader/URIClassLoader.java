@@ -372,6 +372,7 @@ public class URIClassLoader extends URLClassLoader {
                     urls[i] = uris[i].toURL();
                 }
                 this.urls = urls;
+                this.loader.index(urls);
             }
             catch (MalformedURLException e) {
                 throw new IllegalArgumentException(e.getMessage());
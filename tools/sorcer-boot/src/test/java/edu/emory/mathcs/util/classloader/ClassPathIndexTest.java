@@ -0,0 +1,193 @@
+package edu.emory.mathcs.util.classloader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import static org.junit.Assert.*;
+
+public class ClassPathIndexTest {
+    private File dir;
+    private File indexDir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("class-path-index").toFile();
+        indexDir = new File(dir, "index");
+        System.setProperty(ClassPathIndex.INDEX_DIR, indexDir.getPath());
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(ClassPathIndex.INDEX_DIR);
+        System.clearProperty(ClassPathIndex.INDEX_ENABLED);
+        delete(dir);
+    }
+
+    @Test
+    public void testIndexedLookup() throws Exception {
+        URI[] path = createJars(20, 3);
+        File dependency = new File(dir, "dependency.jar");
+        writeJar(dependency, null, "dep/Dependency.txt");
+        File withClassPath = new File(dir, "with-class-path.jar");
+        writeJar(withClassPath, dependency.getName(), "main/Main.txt");
+        URI[] search = new URI[path.length + 1];
+        System.arraycopy(path, 0, search, 0, path.length);
+        search[path.length] = withClassPath.toURI();
+
+        for (int run = 0; run < 2; run++) {
+            URIClassLoader loader = new URIClassLoader(search, (ClassLoader) null);
+            assertEquals(1, indexDir.list().length);
+            URL url = loader.findResource("p7/q2/R.txt");
+            assertNotNull(url);
+            assertTrue(url.toString(), url.toString().contains("lib7.jar!"));
+            assertNotNull(loader.findResource("top19.txt"));
+            assertNotNull(loader.findResource("dep/Dependency.txt"));
+            assertNull(loader.findResource("p7/q3/R.txt"));
+            assertNull(loader.findResource("missing/R.txt"));
+        }
+    }
+
+    @Test
+    public void testChangedJar() throws Exception {
+        URI[] path = createJars(5, 1);
+        assertNotNull(new URIClassLoader(path, (ClassLoader) null).findResource("p2/q0/R.txt"));
+
+        File jar = new File(path[2]);
+        writeJar(jar, null, "changed/R.txt");
+        jar.setLastModified(jar.lastModified() - 10000);
+        URIClassLoader loader = new URIClassLoader(path, (ClassLoader) null);
+        assertNull(loader.findResource("p2/q0/R.txt"));
+        assertNotNull(loader.findResource("changed/R.txt"));
+    }
+
+    @Test
+    public void testUnreadableJar() throws Exception {
+        URI[] path = createJars(2, 1);
+        File broken = new File(dir, "broken.jar");
+        Files.write(broken.toPath(), new byte[]{1, 2, 3});
+        URL[] urls = {path[0].toURL(), broken.toURI().toURL(), path[1].toURL()};
+
+        ClassPathIndex index = ClassPathIndex.getDefault();
+        assertEquals(2, index.getEntries(urls).size());
+        File indexFile = indexDir.listFiles()[0];
+        long written = indexFile.lastModified() - 10000;
+        indexFile.setLastModified(written);
+
+        // the broken JAR is not indexed again, so the index is not rewritten
+        assertEquals(2, index.getEntries(urls).size());
+        assertEquals(written, indexFile.lastModified());
+
+        writeJar(broken, null, "fixed/R.txt");
+        assertEquals(3, index.getEntries(urls).size());
+    }
+
+    @Test
+    public void testPruneUnused() throws Exception {
+        URI[] path = createJars(3, 1);
+        ClassPathIndex index = ClassPathIndex.getDefault();
+        URL[] used = {path[0].toURL()};
+        URL[] unused = {path[1].toURL()};
+        index.getEntries(used);
+        index.getEntries(unused);
+        File usedFile = index.getFile(Collections.singleton(used[0].toExternalForm()));
+        File unusedFile = index.getFile(Collections.singleton(unused[0].toExternalForm()));
+        long old = System.currentTimeMillis() - 31L * 24 * 60 * 60 * 1000;
+        usedFile.setLastModified(old);
+        unusedFile.setLastModified(old);
+
+        // the use renews the index without writing it
+        index.getEntries(used);
+        assertTrue(usedFile.lastModified() > old);
+
+        index.getEntries(new URL[]{path[2].toURL()});
+        assertTrue(usedFile.exists());
+        assertFalse(unusedFile.exists());
+        assertEquals(2, indexDir.list().length);
+    }
+
+    /**
+     * Compares the time to create a loader for a large search path and look up resources, with and without a
+     * stored index, on synthetic JARs. A benchmark rather than a unit test, run it on demand; it does not measure
+     * the start of a service booter.
+     */
+    @Ignore
+    @Test
+    public void testStartupBenchmark() throws Exception {
+        URI[] path = createJars(300, 20);
+        String[] names = new String[200];
+        for (int i = 0; i < names.length; i++)
+            names[i] = i % 2 == 0 ? "p" + (299 - i % 50) + "/q" + (i % 20) + "/R.txt" : "absent" + i + "/R.txt";
+
+        System.setProperty(ClassPathIndex.INDEX_ENABLED, "false");
+        // warm up the JIT and the file system cache before measuring
+        lookup(path, names);
+        long plain = lookup(path, names);
+        System.setProperty(ClassPathIndex.INDEX_ENABLED, "true");
+        long cold = lookup(path, names);
+        long warm = lookup(path, names);
+        System.out.println("300 jars, " + names.length + " lookups: no index " + plain / 1000000 + " ms, cold index "
+                + cold / 1000000 + " ms, warm index " + warm / 1000000 + " ms");
+        assertTrue(warm < plain);
+    }
+
+    private static long lookup(URI[] path, String[] names) {
+        long start = System.nanoTime();
+        URIClassLoader loader = new URIClassLoader(path, (ClassLoader) null);
+        for (int i = 0; i < names.length; i++)
+            assertEquals(names[i], i % 2 == 0, loader.findResource(names[i]) != null);
+        return System.nanoTime() - start;
+    }
+
+    private URI[] createJars(int count, int packages) throws IOException {
+        URI[] uris = new URI[count];
+        for (int i = 0; i < count; i++) {
+            String[] entries = new String[packages + 1];
+            for (int j = 0; j < packages; j++)
+                entries[j] = "p" + i + "/q" + j + "/R.txt";
+            entries[packages] = "top" + i + ".txt";
+            File jar = new File(dir, "lib" + i + ".jar");
+            writeJar(jar, null, entries);
+            uris[i] = jar.toURI();
+        }
+        return uris;
+    }
+
+    private static void writeJar(File file, String classPath, String... entries) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        if (classPath != null)
+            manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, classPath);
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(file), manifest);
+        try {
+            for (String entry : entries) {
+                out.putNextEntry(new JarEntry(entry));
+                out.write(entry.getBytes("UTF-8"));
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null)
+            for (File child : children)
+                delete(child);
+        file.delete();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright to the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.resolver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * On-disk cache of resolved class paths, so the same artifact is not resolved again on every JVM start.
+ * <p/>
+ * An entry is stored in a file named after the SHA-1 of its key (the artifact and the repository set it was
+ * resolved against). It records the size and modification time of every resolved file and ends with the SHA-1 of
+ * its own content. An entry is discarded when it is corrupt or when any of its files has changed or disappeared.
+ * Entries are written to a temporary file and moved in place, so concurrent JVMs never see a partial entry.
+ * <p/>
+ * Artifacts whose resolution may change while their files stay the same, snapshots, version ranges and the
+ * LATEST and RELEASE versions, are not cacheable.
+ */
+public class ResolutionCache {
+    private static final Logger logger = LoggerFactory.getLogger(ResolutionCache.class);
+
+    public static final String CACHE_DIR = "sorcer.resolver.cache.dir";
+    public static final String CACHE_ENABLED = "sorcer.resolver.cache";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String KEY = "key";
+    private static final String FILE = "file";
+    private static final String CHECKSUM = "sha1";
+    private static final String SUFFIX = ".cp";
+
+    private final File dir;
+
+    public ResolutionCache(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * @return the cache configured with the {@link #CACHE_DIR} system property, or null when {@link #CACHE_ENABLED}
+     * is false
+     */
+    public static ResolutionCache getDefault() {
+        if (!Boolean.parseBoolean(System.getProperty(CACHE_ENABLED, "true")))
+            return null;
+        String dirName = System.getProperty(CACHE_DIR);
+        File dir = dirName != null ? new File(dirName)
+                : new File(System.getProperty("user.home"), ".sorcer" + File.separator + "resolver-cache");
+        return new ResolutionCache(dir);
+    }
+
+    /**
+     * @return false if the artifact, in coordinates or artifact URL form, has a snapshot version, a version range or
+     * a LATEST or RELEASE version
+     */
+    public static boolean isCacheable(String artifact) {
+        for (String part : artifact.split("[:/;]")) {
+            if (part.endsWith("SNAPSHOT") || part.equals("LATEST") || part.equals("RELEASE")
+                    || part.startsWith("[") || part.startsWith("("))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the cached class path for the key, or null if there is no valid entry
+     */
+    public String[] get(String key) {
+        File file = getFile(key);
+        if (!file.exists())
+            return null;
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file.toPath(), UTF8);
+        } catch (IOException e) {
+            logger.debug("Could not read resolution cache entry {}", file, e);
+            return null;
+        }
+        String[] cp = parse(key, lines);
+        if (cp == null) {
+            logger.debug("Discarding stale resolution cache entry for {}", key);
+            file.delete();
+        }
+        return cp;
+    }
+
+    /**
+     * Store the class path for the key. The entry is not stored if any path is not an existing file.
+     */
+    public void put(String key, String[] cp) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(KEY).append('\t').append(key).append('\n');
+        for (String path : cp) {
+            File f = new File(path);
+            if (!f.isFile()) {
+                logger.debug("Not caching resolution of {}, {} is not a file", key, path);
+                return;
+            }
+            sb.append(FILE).append('\t').append(f.length()).append('\t').append(f.lastModified())
+                    .append('\t').append(path).append('\n');
+        }
+        String checksum = sha1(sb.toString());
+        sb.append(CHECKSUM).append('\t').append(checksum).append('\n');
+
+        File file = getFile(key);
+        Path tmp = null;
+        try {
+            Files.createDirectories(dir.toPath());
+            tmp = Files.createTempFile(dir.toPath(), file.getName(), ".part");
+            Files.write(tmp, sb.toString().getBytes(UTF8));
+            try {
+                Files.move(tmp, file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write resolution cache entry for {}: {}", key, e.toString());
+            if (tmp != null)
+                tmp.toFile().delete();
+        }
+    }
+
+    File getFile(String key) {
+        return new File(dir, sha1(key) + SUFFIX);
+    }
+
+    private static String[] parse(String key, List<String> lines) {
+        if (lines.size() < 2)
+            return null;
+        String last = lines.get(lines.size() - 1);
+        if (!last.startsWith(CHECKSUM + '\t'))
+            return null;
+        StringBuilder content = new StringBuilder();
+        for (String line : lines.subList(0, lines.size() - 1))
+            content.append(line).append('\n');
+        if (!last.substring(CHECKSUM.length() + 1).equals(sha1(content.toString())))
+            return null;
+        // guard against SHA-1 file name collisions
+        if (!lines.get(0).equals(KEY + '\t' + key))
+            return null;
+
+        List<String> cp = new ArrayList<String>(lines.size() - 2);
+        for (String line : lines.subList(1, lines.size() - 1)) {
+            String[] fields = line.split("\t", 4);
+            if (fields.length != 4 || !FILE.equals(fields[0]))
+                return null;
+            File f = new File(fields[3]);
+            try {
+                if (f.length() != Long.parseLong(fields[1]) || f.lastModified() != Long.parseLong(fields[2]))
+                    return null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            cp.add(fields[3]);
+        }
+        return cp.toArray(new String[cp.size()]);
+    }
+
+    private static String sha1(String s) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(s.getBytes(UTF8));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest)
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -20,6 +20,8 @@ public abstract class SorcerResolver {
 
     private static SorcerResolver instance;
 
+    private final ResolutionCache cache = ResolutionCache.getDefault();
+
     static {
         String sorcerResolvingLoaderClassName = null;
 
@@ -45,7 +47,17 @@ public abstract class SorcerResolver {
     }
 
     public String[] doResolve(String artifact) throws SorcerResolverException {
-        String[] cp = null;
+        String key = null;
+        if (cache != null && ResolutionCache.isCacheable(artifact)) {
+            String repositories = getRepositoryKey();
+            if (repositories != null)
+                key = artifact + '|' + repositories;
+        }
+        String[] cp = key == null ? null : cache.get(key);
+        if (cp != null) {
+            logger.debug("Resolved {} from cache", artifact);
+            return cp;
+        }
 
         if (artifact.startsWith("artifact:")) {
             cp = resolveUrl(artifact);
@@ -54,9 +66,20 @@ public abstract class SorcerResolver {
         }
         if (cp == null || cp.length == 0)
             throw new SorcerResolverException("Failed to resolve: " + artifact + " after 5 attempts");
+        if (key != null)
+            cache.put(key, cp);
         return cp;
     }
 
+    /**
+     * @return a description of the repositories artifacts are resolved against, part of the resolution cache key so
+     * a class path resolved from one set of repositories is not reused for another, or null if the repositories are
+     * not known yet and resolutions must not be cached
+     */
+    protected String getRepositoryKey() {
+        return null;
+    }
+
     public abstract String[] resolveUrl(String artifact);
 
     public abstract String[] resolveCoords(String coords);
@@ -23,7 +23,10 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * @author Paweł Rubach
@@ -31,6 +34,9 @@ import java.util.Collection;
 public class SorcerRioResolver extends SorcerResolver implements SettableResolver {
     private static final Logger logger = LoggerFactory.getLogger(SorcerRioResolver.class);
     private final Resolver resolver;
+    // null until the repositories are set
+    private volatile String repositoryUrls;
+    private volatile String flatDirectories = "";
 
     public SorcerRioResolver() {
         try {
@@ -75,6 +81,29 @@ public class SorcerRioResolver extends SorcerResolver implements SettableResolve
         return cp;
     }
 
+    /**
+     * @return the repositories set, or the repositories the resolver is configured with, or null if neither is known
+     */
+    @Override
+    protected String getRepositoryKey() {
+        String urls = repositoryUrls;
+        if (urls == null) {
+            Collection<RemoteRepository> repositories = resolver.getRemoteRepositories();
+            if (repositories == null || repositories.isEmpty())
+                return null;
+            urls = toKey(repositories);
+        }
+        return flatDirectories.isEmpty() ? urls : urls + flatDirectories;
+    }
+
+    private static String toKey(Collection<RemoteRepository> repositories) {
+        List<String> urls = new ArrayList<String>();
+        for (RemoteRepository repository : repositories)
+            urls.add(repository.getUrl());
+        Collections.sort(urls);
+        return urls.toString();
+    }
+
     @Override
     public URL getLocation(String path) throws SorcerResolverException {
         throw new SorcerResolverException("NOT IMPLEMENTED in this Resolver");
@@ -84,6 +113,7 @@ public class SorcerRioResolver extends SorcerResolver implements SettableResolve
         if(resolver instanceof SettableResolver) {
             ((SettableResolver)resolver).setRemoteRepositories(repositories);
         }
+        repositoryUrls = toKey(repositories);
         return this;
     }
 
@@ -91,6 +121,7 @@ public class SorcerRioResolver extends SorcerResolver implements SettableResolve
         if(resolver instanceof SettableResolver) {
             ((SettableResolver)resolver).setFlatDirectories(directories);
         }
+        flatDirectories = directories.toString();
         return this;
     }
 
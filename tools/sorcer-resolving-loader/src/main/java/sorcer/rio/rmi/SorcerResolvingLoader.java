@@ -26,7 +26,8 @@ import java.net.MalformedURLException;
 import java.rmi.server.RMIClassLoader;
 import java.rmi.server.RMIClassLoaderSpi;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * SORCER class
@@ -41,16 +42,33 @@ public class SorcerResolvingLoader extends RMIClassLoaderSpi {
      */
     private final Map<String, Set<String>> artifactToCodebase = new ConcurrentHashMap<String, Set<String>>();
     /**
-     * A table of classes to artifact: codebase. This will ensure that if the annotation is requested for a class that
-     * has it's classpath resolved from an artifact, that the artifact URL is passed back instead of the resolved
-     * (local) classpath.
+     * A table of artifact codebases to resolved codebases, so a codebase of several artifacts is resolved and joined
+     * once.
      */
+    private final Map<String, String> resolvedCodebases = new ConcurrentHashMap<String, String>();
+    /**
+     * A table of resolved codebases to artifact codebases, the reverse of the tables above. This will ensure that if
+     * the annotation is requested for a class that has it's classpath resolved from an artifact, that the artifact URL
+     * is passed back instead of the resolved (local) classpath.
+     */
+    private final Map<String, String> annotations = new ConcurrentHashMap<String, String>();
     private static final Logger logger = LoggerFactory.getLogger(SorcerResolvingLoader.class);
-    private static SorcerResolver sorcerResolver;
-    static {
-        sorcerResolver = SorcerResolver.getInstance();
+    private final SorcerResolver sorcerResolver;
+    private final RMIClassLoaderSpi loader;
+    /**
+     * Number of threads resolving the artifacts of a single codebase in parallel, 1 resolves them one by one.
+     */
+    public static final String RESOLVER_THREADS = "sorcer.resolver.threads";
+    private static final ExecutorService resolverPool = createResolverPool();
+
+    public SorcerResolvingLoader() {
+        this(SorcerResolver.getInstance(), RMIClassLoader.getDefaultProviderInstance());
+    }
+
+    SorcerResolvingLoader(SorcerResolver sorcerResolver, RMIClassLoaderSpi loader) {
+        this.sorcerResolver = sorcerResolver;
+        this.loader = loader;
     }
-    private static final RMIClassLoaderSpi loader = RMIClassLoader.getDefaultProviderInstance();
 
     @Override
     public Class<?> loadClass(final String codebase,
@@ -100,59 +118,136 @@ public class SorcerResolvingLoader extends RMIClassLoaderSpi {
     @Override
     public String getClassAnnotation(final Class<?> aClass) {
         String loaderAnnotation = loader.getClassAnnotation(aClass);
-        String artifact = null;
-        if(loaderAnnotation!=null) {
-            for(Map.Entry<String, Set<String>> entry : artifactToCodebase.entrySet()) {
-                String resolvedCodebase = join(entry.getValue(), CODEBASE_SEPARATOR);
-                if(resolvedCodebase.equals(loaderAnnotation)) {
-                    artifact = entry.getKey();
-                    break;
-                }
-            }
-        }
+        String artifact = loaderAnnotation == null ? null : annotations.get(loaderAnnotation);
         String annotation = artifact==null?loaderAnnotation:artifact;
         if(logger.isDebugEnabled())
             logger.debug("Annotation for {} is {}", aClass.getName(), annotation);
         return annotation;
     }
 
-    private String resolveCodebase(final String codebase) {
+    String resolveCodebase(final String codebase) {
         String adaptedCodebase;
         if(codebase!=null && codebase.startsWith("artifact:")) {
+            adaptedCodebase = resolvedCodebases.get(codebase);
+            if (adaptedCodebase != null)
+                return adaptedCodebase;
             String[] artifacts = codebase.split(CODEBASE_SEPARATOR);
-            Set<String> jarsSet = new HashSet<String>();
+            // resolve the artifacts not seen yet in parallel, the calling thread takes the first one
+            Map<String, Future<Set<String>>> pending = new HashMap<String, Future<Set<String>>>();
+            if (resolverPool != null) {
+                boolean first = true;
+                for (final String artf : artifacts) {
+                    if (artf.isEmpty() || artifactToCodebase.containsKey(artf) || pending.containsKey(artf))
+                        continue;
+                    if (first) {
+                        first = false;
+                        continue;
+                    }
+                    pending.put(artf, resolverPool.submit(new Callable<Set<String>>() {
+                        @Override
+                        public Set<String> call() {
+                            return resolveArtifact(artf);
+                        }
+                    }));
+                }
+            }
+            Set<String> jarsSet = new LinkedHashSet<String>();
+            boolean resolved = true;
             for (String artf : artifacts) {
-                if (artf != null) {
-                    Set<String> adaptedCodebaseSet;
-                    synchronized (artf.intern()) {
-                        adaptedCodebaseSet = artifactToCodebase.get(artf);
-                        if (adaptedCodebaseSet == null)
-                            try {
-                                adaptedCodebaseSet = new HashSet<String>();
-                                for (String path : sorcerResolver.doResolve(artf)) {
-                                    // ignore pom files
-                                    if (path.endsWith(".pom"))
-                                        continue;
-                                    adaptedCodebaseSet.add(new File(path).toURI().toURL().toExternalForm());
-                                }
-                                artifactToCodebase.put(artf, adaptedCodebaseSet);
-                                logger.debug("Resolved {} to {}", artf, adaptedCodebaseSet);
-                            } catch (SorcerResolverException e) {
-                                logger.warn("Unable to resolve {}", artf, e);
-                            } catch (MalformedURLException e) {
-                                logger.warn("The codebase {} is malformed", artf, e);
-                            }
+                if (artf.isEmpty())
+                    continue;
+                Set<String> adaptedCodebaseSet;
+                Future<Set<String>> future = pending.get(artf);
+                if (future != null) {
+                    try {
+                        adaptedCodebaseSet = future.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        adaptedCodebaseSet = null;
+                    } catch (ExecutionException e) {
+                        logger.warn("Unable to resolve {}", artf, e.getCause());
+                        adaptedCodebaseSet = null;
                     }
-                    jarsSet.addAll(adaptedCodebaseSet);
+                } else {
+                    adaptedCodebaseSet = resolveArtifact(artf);
                 }
+                if (adaptedCodebaseSet != null)
+                    jarsSet.addAll(adaptedCodebaseSet);
+                else
+                    resolved = false;
             }
             adaptedCodebase = join(jarsSet, CODEBASE_SEPARATOR);
+            // a codebase with an unresolved artifact is resolved again next time
+            if (resolved) {
+                resolvedCodebases.put(codebase, adaptedCodebase);
+                if (!jarsSet.isEmpty())
+                    annotations.putIfAbsent(adaptedCodebase, codebase);
+            }
         }  else {
             adaptedCodebase = codebase;
         }
         return adaptedCodebase;
     }
 
+    /**
+     * @return the codebase of a single artifact, or null if it could not be resolved
+     */
+    private Set<String> resolveArtifact(String artf) {
+        Set<String> adaptedCodebaseSet = artifactToCodebase.get(artf);
+        if (adaptedCodebaseSet != null)
+            return adaptedCodebaseSet;
+        synchronized (artf.intern()) {
+            adaptedCodebaseSet = artifactToCodebase.get(artf);
+            if (adaptedCodebaseSet == null)
+                try {
+                    adaptedCodebaseSet = new LinkedHashSet<String>();
+                    for (String path : sorcerResolver.doResolve(artf)) {
+                        // ignore pom files
+                        if (path.endsWith(".pom"))
+                            continue;
+                        adaptedCodebaseSet.add(new File(path).toURI().toURL().toExternalForm());
+                    }
+                    artifactToCodebase.put(artf, adaptedCodebaseSet);
+                    if (!adaptedCodebaseSet.isEmpty())
+                        annotations.putIfAbsent(join(adaptedCodebaseSet, CODEBASE_SEPARATOR), artf);
+                    logger.debug("Resolved {} to {}", artf, adaptedCodebaseSet);
+                } catch (SorcerResolverException e) {
+                    logger.warn("Unable to resolve {}", artf, e);
+                    adaptedCodebaseSet = null;
+                } catch (MalformedURLException e) {
+                    logger.warn("The codebase {} is malformed", artf, e);
+                    adaptedCodebaseSet = null;
+                }
+        }
+        return adaptedCodebaseSet;
+    }
+
+    private static ExecutorService createResolverPool() {
+        int threads = Math.min(4, Runtime.getRuntime().availableProcessors());
+        String value = System.getProperty(RESOLVER_THREADS);
+        if (value != null) {
+            try {
+                threads = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                logger.warn("Could not evaluate property: {}: {}, using default: {}", RESOLVER_THREADS, value, threads);
+            }
+        }
+        if (threads < 2)
+            return null;
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "SorcerResolvingLoader-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
 
     /**
      * Copied from StringUtils to avoid dependency on sorcer-platform
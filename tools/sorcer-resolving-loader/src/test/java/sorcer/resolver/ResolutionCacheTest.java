@@ -0,0 +1,86 @@
+package sorcer.resolver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ResolutionCacheTest {
+    private File dir;
+    private ResolutionCache cache;
+    private File jar;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("resolver-cache").toFile();
+        cache = new ResolutionCache(new File(dir, "cache"));
+        jar = new File(dir, "a.jar");
+        Files.write(jar.toPath(), new byte[]{1, 2, 3});
+    }
+
+    @After
+    public void tearDown() {
+        delete(dir);
+    }
+
+    @Test
+    public void storesClassPath() {
+        assertNull(cache.get("g:a:1.0|[repo]"));
+        cache.put("g:a:1.0|[repo]", new String[]{jar.getPath()});
+        assertArrayEquals(new String[]{jar.getPath()}, cache.get("g:a:1.0|[repo]"));
+        assertNull(cache.get("g:a:1.0|[other]"));
+    }
+
+    @Test
+    public void discardsChangedFiles() throws IOException {
+        cache.put("g:a:1.0|[repo]", new String[]{jar.getPath()});
+        Files.write(jar.toPath(), new byte[]{1, 2, 3, 4});
+        assertNull(cache.get("g:a:1.0|[repo]"));
+        assertFalse(cache.getFile("g:a:1.0|[repo]").exists());
+    }
+
+    @Test
+    public void discardsCorruptEntries() throws IOException {
+        cache.put("g:a:1.0|[repo]", new String[]{jar.getPath()});
+        File entry = cache.getFile("g:a:1.0|[repo]");
+        List<String> lines = Files.readAllLines(entry.toPath(), Charset.forName("UTF-8"));
+        lines.set(1, lines.get(1).replace("a.jar", "b.jar"));
+        Files.write(entry.toPath(), lines, Charset.forName("UTF-8"));
+        assertNull(cache.get("g:a:1.0|[repo]"));
+    }
+
+    @Test
+    public void skipsMissingFiles() {
+        cache.put("g:a:1.0|[repo]", new String[]{jar.getPath(), new File(dir, "missing.jar").getPath()});
+        assertFalse(cache.getFile("g:a:1.0|[repo]").exists());
+    }
+
+    @Test
+    public void cacheableArtifacts() {
+        assertTrue(ResolutionCache.isCacheable("org.sorcersoft.sorcer:sos-api:1.0"));
+        assertTrue(ResolutionCache.isCacheable("org.sorcersoft.sorcer:sos-api:jar:dl:1.0"));
+        assertTrue(ResolutionCache.isCacheable("artifact:org.sorcersoft.sorcer/sos-api/1.0;http://repo/releases"));
+        assertFalse(ResolutionCache.isCacheable("org.sorcersoft.sorcer:sos-api:1.0-SNAPSHOT"));
+        assertFalse(ResolutionCache.isCacheable("artifact:org.sorcersoft.sorcer/sos-api/1.0-SNAPSHOT"));
+        assertFalse(ResolutionCache.isCacheable("org.sorcersoft.sorcer:sos-api:[1.0,2.0)"));
+        assertFalse(ResolutionCache.isCacheable("org.sorcersoft.sorcer:sos-api:(,2.0]"));
+        assertFalse(ResolutionCache.isCacheable("org.sorcersoft.sorcer:sos-api:LATEST"));
+        assertFalse(ResolutionCache.isCacheable("org.sorcersoft.sorcer:sos-api:RELEASE"));
+    }
+
+    private static void delete(File f) {
+        File[] files = f.listFiles();
+        if (files != null) {
+            for (File c : files)
+                delete(c);
+        }
+        f.delete();
+    }
+}
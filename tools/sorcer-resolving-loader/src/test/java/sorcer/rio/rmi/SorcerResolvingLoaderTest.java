@@ -0,0 +1,179 @@
+package sorcer.rio.rmi;
+
+import org.junit.Before;
+import org.junit.Test;
+import sorcer.resolver.SorcerResolver;
+import sorcer.resolver.SorcerResolverException;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.rmi.server.RMIClassLoaderSpi;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SorcerResolvingLoaderTest {
+    static {
+        // the loader resolves with the stub, the default resolver is never created
+        System.setProperty("sorcer.resolver.class", StubResolver.class.getName());
+        System.setProperty(SorcerResolvingLoader.RESOLVER_THREADS, "4");
+    }
+
+    private StubResolver resolver;
+    private SorcerResolvingLoader loader;
+    // the annotations of the default loader, by class
+    private final Map<Class<?>, String> loaderAnnotations = new HashMap<Class<?>, String>();
+
+    @Before
+    public void setUp() {
+        resolver = new StubResolver();
+        loader = new SorcerResolvingLoader(resolver, new RMIClassLoaderSpi() {
+            @Override
+            public Class<?> loadClass(String codebase, String name, ClassLoader defaultLoader) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Class<?> loadProxyClass(String codebase, String[] interfaces, ClassLoader defaultLoader) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public ClassLoader getClassLoader(String codebase) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public String getClassAnnotation(Class<?> cl) {
+                return loaderAnnotations.get(cl);
+            }
+        });
+    }
+
+    @Test
+    public void keepsOrderOfArtifacts() throws Exception {
+        // the first artifact resolves last
+        resolver.add("artifact:g/a/1", 200, "a.jar", "common.jar", "a.pom");
+        resolver.add("artifact:g/b/1", 100, "b.jar", "common.jar");
+        resolver.add("artifact:g/c/1", 0, "c.jar");
+        String codebase = "artifact:g/a/1 artifact:g/b/1 artifact:g/c/1";
+
+        String resolved = loader.resolveCodebase(codebase);
+        assertEquals(join("a.jar", "common.jar", "b.jar", "c.jar"), resolved);
+        assertSame(resolved, loader.resolveCodebase(codebase));
+        for (String artifact : codebase.split(" "))
+            assertEquals(artifact, 1, resolver.resolutions(artifact));
+    }
+
+    @Test
+    public void resolvesFailedArtifactAgain() throws Exception {
+        resolver.add("artifact:g/a/1", 0, "a.jar");
+        String codebase = "artifact:g/a/1 artifact:g/bad/1";
+
+        assertEquals(join("a.jar"), loader.resolveCodebase(codebase));
+        assertEquals(1, resolver.resolutions("artifact:g/bad/1"));
+
+        resolver.add("artifact:g/bad/1", 0, "bad.jar");
+        String resolved = loader.resolveCodebase(codebase);
+        assertEquals(join("a.jar", "bad.jar"), resolved);
+        assertSame(resolved, loader.resolveCodebase(codebase));
+        assertEquals(1, resolver.resolutions("artifact:g/a/1"));
+        assertEquals(2, resolver.resolutions("artifact:g/bad/1"));
+    }
+
+    @Test
+    public void keepsOtherCodebases() {
+        assertNull(loader.resolveCodebase(null));
+        assertEquals("http://host/a.jar", loader.resolveCodebase("http://host/a.jar"));
+        assertTrue(resolver.resolutions.isEmpty());
+    }
+
+    @Test
+    public void annotatesSingleArtifact() throws Exception {
+        resolver.add("artifact:g/a/1", 0, "a.jar", "common.jar");
+        loaderAnnotations.put(String.class, loader.resolveCodebase("artifact:g/a/1"));
+        assertEquals("artifact:g/a/1", loader.getClassAnnotation(String.class));
+    }
+
+    @Test
+    public void annotatesArtifacts() throws Exception {
+        resolver.add("artifact:g/a/1", 0, "a.jar", "common.jar");
+        resolver.add("artifact:g/b/1", 0, "b.jar");
+        String codebase = "artifact:g/a/1 artifact:g/b/1";
+        loaderAnnotations.put(String.class, loader.resolveCodebase(codebase));
+        loaderAnnotations.put(Integer.class, join("b.jar"));
+        assertEquals(codebase, loader.getClassAnnotation(String.class));
+        // each artifact of the codebase is annotated on its own too
+        assertEquals("artifact:g/b/1", loader.getClassAnnotation(Integer.class));
+    }
+
+    @Test
+    public void keepsAnnotationOfUnresolvedLoader() throws Exception {
+        resolver.add("artifact:g/a/1", 0, "a.jar");
+        loader.resolveCodebase("artifact:g/a/1");
+        loaderAnnotations.put(String.class, "http://host/a.jar");
+        loaderAnnotations.put(Integer.class, join("a.jar", "other.jar"));
+        assertEquals("http://host/a.jar", loader.getClassAnnotation(String.class));
+        assertEquals(join("a.jar", "other.jar"), loader.getClassAnnotation(Integer.class));
+        assertNull(loader.getClassAnnotation(Long.class));
+    }
+
+    private static String join(String... jars) throws MalformedURLException {
+        List<String> urls = new ArrayList<String>();
+        for (String jar : jars)
+            urls.add(new File(jar).toURI().toURL().toExternalForm());
+        return SorcerResolvingLoader.join(urls, SorcerResolvingLoader.CODEBASE_SEPARATOR);
+    }
+
+    public static class StubResolver extends SorcerResolver {
+        private final Map<String, String[]> classPaths = new ConcurrentHashMap<String, String[]>();
+        private final Map<String, Long> delays = new ConcurrentHashMap<String, Long>();
+        final Map<String, AtomicInteger> resolutions = new ConcurrentHashMap<String, AtomicInteger>();
+
+        void add(String artifact, long delay, String... classPath) {
+            classPaths.put(artifact, classPath);
+            delays.put(artifact, delay);
+        }
+
+        int resolutions(String artifact) {
+            AtomicInteger count = resolutions.get(artifact);
+            return count == null ? 0 : count.get();
+        }
+
+        @Override
+        public String[] doResolve(String artifact) throws SorcerResolverException {
+            synchronized (resolutions) {
+                if (!resolutions.containsKey(artifact))
+                    resolutions.put(artifact, new AtomicInteger());
+            }
+            resolutions.get(artifact).incrementAndGet();
+            String[] classPath = classPaths.get(artifact);
+            if (classPath == null)
+                throw new SorcerResolverException("Failed to resolve: " + artifact);
+            try {
+                Thread.sleep(delays.get(artifact));
+            } catch (InterruptedException e) {
+                throw new SorcerResolverException("Interrupted", e);
+            }
+            return classPath;
+        }
+
+        @Override
+        public String[] resolveUrl(String artifact) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String[] resolveCoords(String coords) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public URL getLocation(String path) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -24,6 +24,15 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -54,6 +63,10 @@ public class Webster implements Runnable {
 
     static final int DEFAULT_MIN_THREADS = 1;
     static final int DEFAULT_MAX_THREADS = 10;
+    static final int DEFAULT_KEEP_ALIVE_TIMEOUT = 5000;
+    static final int MAX_KEEP_ALIVE_REQUESTS = 100;
+    // interval in which an idle connection checks for clients waiting for a thread
+    static final int IDLE_POLL_INTERVAL = 50;
     private ServerSocket ss;
     private int port;
     private volatile boolean run = true;
@@ -65,6 +78,7 @@ public class Webster implements Runnable {
     private int startPort = 0;
     private int endPort = 0;
     private int soTimeout = 0;
+    private int keepAliveTimeout = DEFAULT_KEEP_ALIVE_TIMEOUT;
     private static Logger logger = LoggerFactory.getLogger(Webster.class.getName());
     private com.sun.jini.start.LifeCycle lifeCycle;
     private boolean debug = false;
@@ -242,7 +256,7 @@ public class Webster implements Runnable {
      *
      * @param args      String[] of options. Valid options are [-port port],
      *                  [-roots list-of-roots], [-bindAddress address], [-minThreads minThreads],
-     *                  [-maxThreads maxThreads] [-soTimeout soTimeout]
+     *                  [-maxThreads maxThreads] [-soTimeout soTimeout] [-keepAliveTimeout keepAliveTimeout]
      * @param lifeCycle The LifeCycle object, may be null
      * @throws IOException if Webster cannot create a socket
      */
@@ -310,6 +324,9 @@ public class Webster implements Runnable {
             } else if (option.equals("-soTimeout")) {
                 i++;
                 soTimeout = Integer.parseInt(options[i]);
+            } else if (option.equals("-keepAliveTimeout")) {
+                i++;
+                keepAliveTimeout = Integer.parseInt(options[i]);
             } else if (option.equals("-isDaemon")) {
                 i++;
                 isDaemon = Boolean.parseBoolean(options[i]);
@@ -372,6 +389,10 @@ public class Webster implements Runnable {
             if (str != null && str.equals("true"))
                 debug = true;
         }
+        str = System.getProperty("webster.keepalive.timeout");
+        if (str != null) {
+            keepAliveTimeout = Integer.parseInt(str);
+        }
         str = System.getProperty("webster.tmp.dir");
         if (str != null) {
             tempDir = str;
@@ -432,7 +453,15 @@ public class Webster implements Runnable {
             if (s != null && s.length() > 0) {
                 port = new Integer(s);
             }
-            ss = new ServerSocket(port, 0, address);
+            // a channel based socket lets files be transferred with no copies
+            ServerSocketChannel ssc = ServerSocketChannel.open();
+            try {
+                ssc.socket().bind(new InetSocketAddress(address, port), 0);
+            } catch (IOException e) {
+                ssc.close();
+                throw e;
+            }
+            ss = ssc.socket();
         } catch (IOException ioe) {
             if (startPort == endPort) {
                 throw new IOException("Port bind server socket failure: " + endPort, ioe);
@@ -583,6 +612,8 @@ public class Webster implements Runnable {
             }
             prev = read;
         }
+        if (read == -1 && sb.length() == 0)
+            return null;
         return sb.toString();
     }
 
@@ -591,32 +622,114 @@ public class Webster implements Runnable {
         Socket s;
         try {
             loadMimes();
-            String fileName;
             while (run) {
                 s = ss.accept(); // accept incoming requests
                 if (soTimeout > 0) {
                     s.setSoTimeout(soTimeout);
                 }
-                String line;
-                Properties header = new Properties();
-                DataInputStream inputStream = null;
-                try {
-                    inputStream = new DataInputStream(s.getInputStream());
-                    StringBuilder lineBuilder = new StringBuilder();
-                    StringTokenizer tokenizer;
-                    while ((line = readRequest(inputStream)).length() != 0) {
-                        if (lineBuilder.length() > 0)
-                            lineBuilder.append("\n");
-                        lineBuilder.append(line);
-                        tokenizer = new StringTokenizer(line, ":");
-                        String aToken = tokenizer.nextToken().trim();
-                        if (tokenizer.hasMoreTokens()) {
-                            header.setProperty(aToken, tokenizer.nextToken().trim());
+                pool.execute(new Connection(s));
+            }
+        } catch (Exception e) {
+            if (run) {
+                e.printStackTrace();
+                logger.warn("Processing HTTP Request", e);
+            }
+        }
+    }
+
+    /*
+     * Tests if the client asks to keep the connection open, HTTP/1.1
+     * connections are persistent unless closed by the client
+     */
+    private boolean isKeepAlive(String version, Properties header) {
+        String connection = ignoreCaseProperty(header, "Connection");
+        if ("HTTP/1.1".equals(version))
+            return connection == null || !connection.equalsIgnoreCase("close");
+        return connection != null && connection.equalsIgnoreCase("keep-alive");
+    }
+
+    public static String ignoreCaseProperty(Properties props, String field) {
+        Enumeration<?> names = props.propertyNames();
+        while (names.hasMoreElements()) {
+            String propName = (String) names.nextElement();
+            if (field.equalsIgnoreCase(propName)) {
+                return (props.getProperty(propName));
+            }
+        }
+        return (null);
+    }
+
+    /*
+     * Waits for the next request on an idle connection. Gives up when the
+     * keep-alive timeout expires or as soon as other clients wait for a
+     * pooled thread, so idle connections never block new clients.
+     */
+    private boolean awaitRequest(Socket client, InputStream inputStream) throws IOException {
+        long deadline = System.currentTimeMillis() + keepAliveTimeout;
+        while (run) {
+            if (inputStream.available() > 0)
+                return true;
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0 || !pool.getQueue().isEmpty())
+                return false;
+            client.setSoTimeout((int) Math.min(left, IDLE_POLL_INTERVAL));
+            inputStream.mark(1);
+            try {
+                if (inputStream.read() == -1)
+                    return false;
+                inputStream.reset();
+                return true;
+            } catch (SocketTimeoutException e) {
+                // nothing read yet, check again
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads requests of a client connection. GET and HEAD requests are served
+     * on the same connection as long as the client keeps it open, the idle
+     * connection is closed after the keep-alive timeout or when other clients
+     * wait for a pooled thread.
+     */
+    class Connection implements Runnable {
+        private Socket client;
+
+        Connection(Socket s) {
+            client = s;
+        }
+
+        public void run() {
+            InputStream inputStream = null;
+            int served = 0;
+            boolean keepAlive = true;
+            try {
+                inputStream = new BufferedInputStream(client.getInputStream());
+                while (run && keepAlive && !client.isClosed()) {
+                    String line;
+                    if (served > 0) {
+                        if (!awaitRequest(client, inputStream))
+                            break;
+                        client.setSoTimeout(soTimeout);
+                    }
+                    // skip empty lines between requests
+                    do {
+                        line = readRequest(inputStream);
+                    } while (line != null && line.length() == 0);
+                    if (line == null)
+                        break;
+                    served++;
+
+                    Properties header = new Properties();
+                    String field;
+                    while ((field = readRequest(inputStream)) != null && field.length() != 0) {
+                        int index = field.indexOf(':');
+                        if (index > 0) {
+                            header.setProperty(field.substring(0, index).trim(),
+                                               field.substring(index + 1).trim());
                         }
                     }
-                    line = lineBuilder.toString();
-                    int port = s.getPort();
-                    String from = s.getInetAddress().getHostAddress() + ":" + port;
+                    String from = client.getInetAddress().getHostAddress() + ":" + client.getPort();
                     if (debug) {
                         StringBuilder buff = new StringBuilder();
                         buff.append("From: ").append(from).append(", ");
@@ -631,78 +744,64 @@ public class Webster implements Runnable {
                         if (soTimeout > 0)
                             buff.append("SO_TIMEOUT: ").append(soTimeout).append(", ");
                         buff.append("Request: ").append(line);
-                        if (logger.isDebugEnabled())
-                            logger.debug(buff.toString());
+                        logger.debug(buff.toString());
                     }
-                    if (line.length() > 0) {
-                        tokenizer = new StringTokenizer(line, " ");
-                        if (!tokenizer.hasMoreTokens())
-                            break;
-                        String token = tokenizer.nextToken();
-                        fileName = tokenizer.nextToken();
-                        if (fileName.startsWith("/"))
-                            fileName = fileName.substring(1);
-                        if (token.equals("GET")) {
-                            header.setProperty("GET", fileName);
-                        } else if (token.equals("PUT")) {
-                            header.setProperty("PUT", fileName);
-                        } else if (token.equals("DELETE")) {
-                            header.setProperty("DELETE", fileName);
-                        } else if (token.equals("HEAD")) {
-                            header.setProperty("HEAD", fileName);
-                        }
-                        while (tokenizer.hasMoreTokens()) {
-                            String aToken = tokenizer.nextToken().trim();
-                            if (tokenizer.hasMoreTokens()) {
-                                header.setProperty(aToken,
-                                                   tokenizer.nextToken().trim());
-                            }
-                        }
-                        if (header.getProperty("GET") != null) {
-                            pool.execute(new GetFile(s, fileName));
-                        } else if (header.getProperty("PUT") != null) {
-                            if(tempDir==null) {
-                                DataOutputStream clientStream = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
-                                clientStream.writeBytes("HTTP/1.1 405 Method Not Allowed\nWebster is in read-only mode\r\n\r\n");
-                                clientStream.flush();
-                                clientStream.close();
-                            } else {
-                                pool.execute(new PutFile(s, fileName, header, inputStream));
-                            }
-                        } else if (header.getProperty("DELETE") != null) {
-                            pool.execute(new DelFile(s, fileName));
-                        } else if (header.getProperty("HEAD") != null) {
-                            pool.execute(new Head(s, fileName));
-                        } else {
-                            if (debug)
-                                System.out.println("bad request [" + line + "] from " + from);
-                            if (logger.isDebugEnabled())
-                                logger.debug("bad request [" + line + "] from " + from);
-                            DataOutputStream clientStream =
-                                new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
-                            clientStream.writeBytes("HTTP/1.0 400 Bad Request\r\n\r\n");
+                    StringTokenizer tokenizer = new StringTokenizer(line, " ");
+                    String token = tokenizer.nextToken();
+                    String fileName = tokenizer.hasMoreTokens() ? tokenizer.nextToken() : "";
+                    String version = tokenizer.hasMoreTokens() ? tokenizer.nextToken() : "HTTP/1.0";
+                    if (fileName.startsWith("/"))
+                        fileName = fileName.substring(1);
+                    // do not hold a pooled thread when other clients are waiting
+                    keepAlive = isKeepAlive(version, header)
+                            && served < MAX_KEEP_ALIVE_REQUESTS
+                            && pool.getQueue().isEmpty();
+                    if (token.equals("GET") || token.equals("HEAD")) {
+                        new GetFile(client, fileName, header, token.equals("HEAD"), keepAlive).run();
+                    } else if (token.equals("PUT")) {
+                        keepAlive = false;
+                        if(tempDir==null) {
+                            DataOutputStream clientStream = new DataOutputStream(new BufferedOutputStream(client.getOutputStream()));
+                            clientStream.writeBytes("HTTP/1.1 405 Method Not Allowed\nWebster is in read-only mode\r\n\r\n");
                             clientStream.flush();
-                            clientStream.close();
+                        } else {
+                            new PutFile(client, fileName, header, inputStream).run();
                         }
-                    } /* if line != null */
-                } catch (Exception e) {
+                    } else if (token.equals("DELETE")) {
+                        keepAlive = false;
+                        new DelFile(client, fileName).run();
+                    } else {
+                        keepAlive = false;
+                        if (debug)
+                            System.out.println("bad request [" + line + "] from " + from);
+                        if (logger.isDebugEnabled())
+                            logger.debug("bad request [" + line + "] from " + from);
+                        DataOutputStream clientStream =
+                            new DataOutputStream(new BufferedOutputStream(client.getOutputStream()));
+                        clientStream.writeBytes("HTTP/1.0 400 Bad Request\r\n\r\n");
+                        clientStream.flush();
+                    }
+                }
+            } catch (Exception e) {
+                try {
                     DataOutputStream clientStream =
-                            new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+                            new DataOutputStream(new BufferedOutputStream(client.getOutputStream()));
                     clientStream.writeBytes("HTTP/1.0 500 Internal Server Error\n" +
                                             "MIME-Version: 1.0\n" +
                                             "Server: " + SERVER_DESCRIPTION + "\n" +
                                             "\n\n<H1>500 Internal Server Error</H1>\n"
                                             + e);
                     clientStream.flush();
-                    clientStream.close();
-                    inputStream.close();
-                    logger.warn("Getting Request", e);
+                } catch (IOException e2) {
+                    // the client is gone
+                }
+                logger.warn("Getting Request", e);
+            } finally {
+                try {
+                    client.close();
+                } catch (IOException e2) {
+                    logger.warn("Closing incoming socket", e2);
                 }
-            }
-        } catch (Exception e) {
-            if (run) {
-                e.printStackTrace();
-                logger.warn("Processing HTTP Request", e);
             }
         }
     }
@@ -840,226 +939,240 @@ public class Webster implements Runnable {
         return (wildcarded);
     }
 
-    class Head implements Runnable {
+    /**
+     * Serves GET and HEAD requests. File content is transferred by the file
+     * channel directly to the client socket, supports conditional requests
+     * with <code>If-None-Match</code> and <code>If-Modified-Since</code>, and
+     * a single byte range requested with the <code>Range</code> field.
+     */
+    class GetFile implements Runnable {
         private Socket client;
         private String fileName;
+        private Properties rheader;
+        private boolean head;
+        private boolean keepAlive;
 
-        Head(Socket s, String fileName) {
+        GetFile(Socket s, String fileName, Properties header, boolean head, boolean keepAlive) {
             client = s;
             this.fileName = fileName;
+            this.rheader = header;
+            this.head = head;
+            this.keepAlive = keepAlive;
         }
 
         public void run() {
-            StringBuilder dirData = new StringBuilder();
             StringBuilder logData = new StringBuilder();
+            FileInputStream requestedFile = null;
             try {
                 File getFile = parseFileName(fileName);
-                logData.append("Do HEAD: input=")
+                logData.append(head ? "Do HEAD: input=" : "Do GET: input=")
                        .append(fileName)
                        .append(", " + "parsed=")
                        .append(getFile)
                        .append(", ");
-                int fileLength;
-                String header;
+                OutputStream clientStream = new BufferedOutputStream(client.getOutputStream());
                 if (getFile.isDirectory()) {
                     logData.append("directory located");
-                    String files[] = getFile.list();
-                    for (String file : files) {
-                        File f = new File(getFile, file);
-                        dirData.append(f.toString().substring(
-                                getFile.getParent().length()));
-                        dirData.append("\t");
-                        if (f.isDirectory())
-                            dirData.append("d");
-                        else
-                            dirData.append("f");
-                        dirData.append("\t");
-                        dirData.append(f.length());
-                        dirData.append("\t");
-                        dirData.append(f.lastModified());
-                        dirData.append("\n");
-                    }
-                    fileLength = dirData.length();
+                    byte[] dirData = getDirectoryData(getFile).getBytes();
                     String fileType = MimeTypes.getProperty("txt");
                     if (fileType == null)
                         fileType = "application/java";
-                    header = "HTTP/1.0 200 OK\n" +
-                            "Allow: GET\nMIME-Version: 1.0\n" +
-                            "Server: " + SERVER_DESCRIPTION + "\n" +
-                            "Content-Type: " + fileType + "\n" +
-                            "Content-Length: " + fileLength + "\r\n\r\n";
+                    writeHeader(clientStream, "200 OK", fileType, dirData.length, "");
+                    if (!head)
+                        clientStream.write(dirData);
+                    clientStream.flush();
                 } else if (getFile.exists()) {
-                    DataInputStream requestedFile = new DataInputStream(
-                            new BufferedInputStream(new FileInputStream(getFile)));
-                    fileLength = requestedFile.available();
+                    long fileLength = getFile.length();
+                    long lastModified = getFile.lastModified();
+                    String eTag = "\"" + Long.toHexString(fileLength) + "-" + Long.toHexString(lastModified) + "\"";
                     String fileType =
                             fileName.substring(fileName.lastIndexOf(".") + 1,
                                                fileName.length());
                     fileType = MimeTypes.getProperty(fileType);
+                    String fields = "Last-Modified: " + formatDate(lastModified) + "\r\n"
+                            + "ETag: " + eTag + "\r\n"
+                            + "Accept-Ranges: bytes\r\n";
                     logData.append("file size: [").append(fileLength).append("]");
-                    header = "HTTP/1.0 200 OK\n"
-                            + "Allow: GET\nMIME-Version: 1.0\n"
-                            + "Server: " + SERVER_DESCRIPTION + "\n"
-                            + "Content-Type: "
-                            + fileType
-                            + "\n"
-                            + "Content-Length: "
-                            + fileLength
-                            + "\r\n\r\n";
+
+                    if (isNotModified(eTag, lastModified)) {
+                        logData.append(", not modified");
+                        writeHeader(clientStream, "304 Not Modified", null, -1, fields);
+                        clientStream.flush();
+                    } else {
+                        long[] range = getRange(eTag, fileLength);
+                        if (range != null && range.length == 0) {
+                            logData.append(", range not satisfiable");
+                            writeHeader(clientStream, "416 Requested Range Not Satisfiable", null, 0,
+                                        "Content-Range: bytes */" + fileLength + "\r\n");
+                            clientStream.flush();
+                        } else {
+                            long start = 0;
+                            long count = fileLength;
+                            if (range != null) {
+                                start = range[0];
+                                count = range[1] - range[0] + 1;
+                                fields += "Content-Range: bytes " + range[0] + "-" + range[1] + "/" + fileLength + "\r\n";
+                                logData.append(", range: [").append(range[0]).append("-").append(range[1]).append("]");
+                            }
+                            writeHeader(clientStream, range != null ? "206 Partial Content" : "200 OK",
+                                        fileType, count, fields);
+                            clientStream.flush();
+                            if (!head) {
+                                requestedFile = new FileInputStream(getFile);
+                                transfer(requestedFile.getChannel(), start, count, getFile);
+                            }
+                        }
+                    }
                 } else {
-                    header = "HTTP/1.1 404 Not Found\r\n\r\n";
                     logData.append("not found");
+                    writeHeader(clientStream, "404 Not Found", null, 0, "");
+                    clientStream.flush();
                 }
-
                 if (debug)
                     System.out.println(logData.toString());
                 if (logger.isDebugEnabled())
                     logger.debug(logData.toString());
-
-                DataOutputStream clientStream =
-                        new DataOutputStream(
-                                new BufferedOutputStream(client.getOutputStream()));
-                clientStream.writeBytes(header);
-                clientStream.flush();
-                clientStream.close();
             } catch (Exception e) {
-                logger.warn("Error closing Socket", e);
+                logger.warn("Closing Socket", e);
+                keepAlive = false;
             } finally {
                 try {
-                    client.close();
+                    if (requestedFile != null)
+                        requestedFile.close();
+                    if (!keepAlive)
+                        client.close();
                 } catch (IOException e2) {
                     logger.warn(
                                "Closing incoming socket",
                                e2);
                 }
             }
-        } // end of Head
-    }
-
-    class GetFile implements Runnable {
-        private Socket client;
-        private String fileName;
-        private DataInputStream requestedFile;
-        private int fileLength;
+        } // end of GetFile
 
-        GetFile(Socket s, String fileName) {
-            client = s;
-            this.fileName = fileName;
+        private void writeHeader(OutputStream clientStream, String status, String contentType,
+                                 long contentLength, String fields) throws IOException {
+            StringBuilder header = new StringBuilder();
+            header.append("HTTP/1.1 ").append(status).append("\r\n")
+                  .append("Allow: GET\r\nMIME-Version: 1.0\r\n")
+                  .append("Server: ").append(SERVER_DESCRIPTION).append("\r\n");
+            if (contentType != null)
+                header.append("Content-Type: ").append(contentType).append("\r\n");
+            if (contentLength >= 0)
+                header.append("Content-Length: ").append(contentLength).append("\r\n");
+            header.append(fields)
+                  .append("Connection: ").append(keepAlive ? "keep-alive" : "close")
+                  .append("\r\n\r\n");
+            clientStream.write(header.toString().getBytes("ISO-8859-1"));
         }
 
-        public void run() {
-            StringBuilder dirData = new StringBuilder();
-            StringBuilder logData = new StringBuilder();
-            try {
-                File getFile = parseFileName(fileName);
-                logData.append("Do GET: input=")
-                       .append(fileName)
-                       .append(", " + "parsed=")
-                       .append(getFile)
-                       .append(", ");
-                String header;
-                if (getFile.isDirectory()) {
-                    logData.append("directory located");
-                    String files[] = getFile.list();
-                    for (String file : files) {
-                        File f = new File(getFile, file);
-                        dirData.append(f.toString().substring(
-                                getFile.getParent().length()));
-                        dirData.append("\t");
-                        if (f.isDirectory())
-                            dirData.append("d");
-                        else
-                            dirData.append("f");
-                        dirData.append("\t");
-                        dirData.append(f.length());
-                        dirData.append("\t");
-                        dirData.append(f.lastModified());
-                        dirData.append("\n");
-                    }
-                    fileLength = dirData.length();
-                    String fileType = MimeTypes.getProperty("txt");
-                    if (fileType == null)
-                        fileType = "application/java";
-                    header = "HTTP/1.0 200 OK\n"
-                            + "Allow: GET\nMIME-Version: 1.0\n"
-                            + "Server: " + SERVER_DESCRIPTION + "\n"
-                            + "Content-Type: "
-                            + fileType
-                            + "\n"
-                            + "Content-Length: "
-                            + fileLength
-                            + "\r\n\r\n";
-                } else if (getFile.exists()) {
-                    requestedFile =
-                            new DataInputStream(
-                                    new BufferedInputStream(new FileInputStream(getFile)));
-                    fileLength = requestedFile.available();
-                    String fileType =
-                            fileName.substring(fileName.lastIndexOf(".") + 1,
-                                               fileName.length());
-                    fileType = MimeTypes.getProperty(fileType);
-                    header = "HTTP/1.0 200 OK\n"
-                            + "Allow: GET\nMIME-Version: 1.0\n"
-                            + "Server: " + SERVER_DESCRIPTION + "\n"
-                            + "Content-Type: "
-                            + fileType
-                            + "\n"
-                            + "Content-Length: "
-                            + fileLength
-                            + "\r\n\r\n";
-                } else {
-                    header = "HTTP/1.0 404 Not Found\r\n\r\n";
+        /*
+         * Transfers the file content without copying it to the heap, directly to
+         * the socket channel if the client socket has one
+         */
+        private void transfer(FileChannel fileChannel, long position, long count, File getFile) throws IOException {
+            WritableByteChannel out = client.getChannel() != null ?
+                    client.getChannel() : Channels.newChannel(client.getOutputStream());
+            while (count > 0) {
+                long sent = fileChannel.transferTo(position, count, out);
+                if (sent <= 0) {
+                    // the file was truncated, the client cannot get the promised length
+                    keepAlive = false;
+                    logger.warn("Sending [" + getFile.getAbsolutePath() + "] to client at ["
+                                + client.getInetAddress().getHostAddress() + "] ended " + count + " bytes short");
+                    break;
                 }
-                DataOutputStream clientStream =
-                        new DataOutputStream(
-                                new BufferedOutputStream(client.getOutputStream()));
-                clientStream.writeBytes(header);
+                position += sent;
+                count -= sent;
+            }
+        }
 
-                if (getFile.isDirectory()) {
-                    clientStream.writeBytes(dirData.toString());
-                } else if (getFile.exists()) {
-                    byte[] buffer = new byte[fileLength];
-                    requestedFile.readFully(buffer);
-                    logData.append("file size: [").append(fileLength).append("]");
-                    try {
-                        clientStream.write(buffer);
-                    } catch (Exception e) {
-                        String s = "Sending [" +
-                                getFile.getAbsolutePath() + "], " +
-                                "size [" + fileLength + "], " +
-                                "to client at " +
-                                "[" +
-                                client.getInetAddress().getHostAddress() +
-                                "]";
-                        if (logger.isDebugEnabled())
-                            logger.debug(s, e);
-                        if (debug) {
-                            System.out.println(s);
-                            e.printStackTrace();
-                        }
-                    }
-                    requestedFile.close();
+        private boolean isNotModified(String eTag, long lastModified) {
+            String ifNoneMatch = ignoreCaseProperty(rheader, "If-None-Match");
+            if (ifNoneMatch != null)
+                return ifNoneMatch.trim().equals("*") || ifNoneMatch.contains(eTag);
+            String ifModifiedSince = ignoreCaseProperty(rheader, "If-Modified-Since");
+            if (ifModifiedSince != null) {
+                long since = parseDate(ifModifiedSince);
+                return since >= 0 && lastModified / 1000 <= since / 1000;
+            }
+            return false;
+        }
+
+        /*
+         * Returns the first and last byte of the requested range, null if the
+         * whole file is to be sent, or an empty array if the range is not
+         * satisfiable. Multiple ranges are not supported, the whole file is sent.
+         */
+        private long[] getRange(String eTag, long fileLength) {
+            String range = ignoreCaseProperty(rheader, "Range");
+            if (range == null || !range.startsWith("bytes=") || range.indexOf(',') != -1)
+                return null;
+            String ifRange = ignoreCaseProperty(rheader, "If-Range");
+            if (ifRange != null && !ifRange.equals(eTag))
+                return null;
+            String spec = range.substring("bytes=".length()).trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0)
+                return null;
+            try {
+                String first = spec.substring(0, dash).trim();
+                String last = spec.substring(dash + 1).trim();
+                long start, end;
+                if (first.length() == 0) {
+                    if (last.length() == 0)
+                        return null;
+                    long suffix = Long.parseLong(last);
+                    if (suffix <= 0 || fileLength == 0)
+                        return new long[0];
+                    start = Math.max(0, fileLength - suffix);
+                    end = fileLength - 1;
                 } else {
-                    logData.append("not found");
-                }
-                if (debug)
-                    System.out.println(logData.toString());
-                if (logger.isDebugEnabled())
-                    logger.debug(logData.toString());
-                clientStream.flush();
-                clientStream.close();
-            } catch (Exception e) {
-                logger.warn("Closing Socket", e);
-            } finally {
-                try {
-                    client.close();
-                } catch (IOException e2) {
-                    logger.warn(
-                               "Closing incoming socket",
-                               e2);
+                    start = Long.parseLong(first);
+                    if (last.length() > 0 && Long.parseLong(last) < start)
+                        return null;
+                    if (start >= fileLength)
+                        return new long[0];
+                    end = last.length() == 0 ? fileLength - 1 : Math.min(Long.parseLong(last), fileLength - 1);
                 }
+                return new long[] { start, end };
+            } catch (NumberFormatException e) {
+                return null;
             }
-        } // end of GetFile
+        }
+    }
+
+    private static String getDirectoryData(File getFile) {
+        StringBuilder dirData = new StringBuilder();
+        String files[] = getFile.list();
+        for (String file : files) {
+            File f = new File(getFile, file);
+            dirData.append(f.toString().substring(
+                    getFile.getParent().length()));
+            dirData.append("\t");
+            if (f.isDirectory())
+                dirData.append("d");
+            else
+                dirData.append("f");
+            dirData.append("\t");
+            dirData.append(f.length());
+            dirData.append("\t");
+            dirData.append(f.lastModified());
+            dirData.append("\n");
+        }
+        return dirData.toString();
+    }
+
+    private static String formatDate(long time) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneOffset.UTC));
+    }
+
+    private static long parseDate(String date) {
+        try {
+            return ZonedDateTime.parse(date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
     }
 
     class PutFile implements Runnable {
@@ -1184,17 +1297,6 @@ public class Webster implements Runnable {
             clientStream.flush();
             clientStream.close();
         }
-
-        public String ignoreCaseProperty(Properties props, String field) {
-            Enumeration<?> names = props.propertyNames();
-            while (names.hasMoreElements()) {
-                String propName = (String) names.nextElement();
-                if (field.equalsIgnoreCase(propName)) {
-                    return (props.getProperty(propName));
-                }
-            }
-            return (null);
-        }
     } // end of PutFile
 
     class DelFile implements Runnable {
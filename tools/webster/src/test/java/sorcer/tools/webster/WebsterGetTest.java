@@ -0,0 +1,151 @@
+package sorcer.tools.webster;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class WebsterGetTest {
+    private File root;
+    private Webster webster;
+
+    @Before
+    public void setUp() throws Exception {
+        root = File.createTempFile("webster", "");
+        root.delete();
+        root.mkdirs();
+        Writer writer = new FileWriter(new File(root, "a.txt"));
+        writer.write("content");
+        writer.close();
+        webster = new Webster(0, root.getPath(), "127.0.0.1", 1, 2, true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        webster.terminate();
+        new File(root, "a.txt").delete();
+        root.delete();
+    }
+
+    @Test
+    public void notModifiedByETag() throws Exception {
+        Response full = get();
+        assertEquals("HTTP/1.1 200 OK", full.status);
+        assertEquals("content", full.body);
+        String eTag = full.headers.get("etag");
+        assertNotNull(eTag);
+
+        Response response = get("If-None-Match: " + eTag);
+        assertEquals("HTTP/1.1 304 Not Modified", response.status);
+        assertEquals("", response.body);
+        assertEquals("HTTP/1.1 200 OK", get("If-None-Match: \"other\"").status);
+    }
+
+    @Test
+    public void notModifiedSince() throws Exception {
+        String lastModified = get().headers.get("last-modified");
+        assertNotNull(lastModified);
+
+        assertEquals("HTTP/1.1 304 Not Modified", get("If-Modified-Since: " + lastModified).status);
+        Response response = get("If-Modified-Since: Thu, 01 Jan 1970 00:00:00 GMT");
+        assertEquals("HTTP/1.1 200 OK", response.status);
+        assertEquals("content", response.body);
+    }
+
+    @Test
+    public void range() throws Exception {
+        Response response = get("Range: bytes=1-3");
+        assertEquals("HTTP/1.1 206 Partial Content", response.status);
+        assertEquals("bytes 1-3/7", response.headers.get("content-range"));
+        assertEquals("ont", response.body);
+
+        response = get("Range: bytes=4-");
+        assertEquals("HTTP/1.1 206 Partial Content", response.status);
+        assertEquals("ent", response.body);
+    }
+
+    @Test
+    public void suffixRange() throws Exception {
+        Response response = get("Range: bytes=-3");
+        assertEquals("HTTP/1.1 206 Partial Content", response.status);
+        assertEquals("bytes 4-6/7", response.headers.get("content-range"));
+        assertEquals("ent", response.body);
+
+        response = get("Range: bytes=-100");
+        assertEquals("HTTP/1.1 206 Partial Content", response.status);
+        assertEquals("content", response.body);
+    }
+
+    @Test
+    public void unsatisfiableRange() throws Exception {
+        Response response = get("Range: bytes=7-");
+        assertEquals("HTTP/1.1 416 Requested Range Not Satisfiable", response.status);
+        assertEquals("bytes */7", response.headers.get("content-range"));
+        assertEquals("", response.body);
+    }
+
+    @Test
+    public void rangeOfOtherVersion() throws Exception {
+        Response response = get("Range: bytes=1-3", "If-Range: \"other\"");
+        assertEquals("HTTP/1.1 200 OK", response.status);
+        assertEquals("content", response.body);
+    }
+
+    private static class Response {
+        String status;
+        final Map<String, String> headers = new HashMap<String, String>();
+        String body;
+    }
+
+    /*
+     * Sends a GET request for a.txt with the header fields and reads the response
+     */
+    private Response get(String... fields) throws IOException {
+        Socket client = new Socket("127.0.0.1", webster.getPort());
+        try {
+            client.setSoTimeout(10000);
+            StringBuilder request = new StringBuilder("GET /a.txt HTTP/1.1\r\nHost: localhost\r\n");
+            for (String field : fields)
+                request.append(field).append("\r\n");
+            request.append("Connection: close\r\n\r\n");
+            OutputStream out = client.getOutputStream();
+            out.write(request.toString().getBytes("ISO-8859-1"));
+            out.flush();
+
+            InputStream in = client.getInputStream();
+            Response response = new Response();
+            response.status = readLine(in);
+            String line;
+            while ((line = readLine(in)).length() > 0) {
+                int colon = line.indexOf(':');
+                response.headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+            }
+            String length = response.headers.get("content-length");
+            byte[] body = new byte[length == null ? 0 : Integer.parseInt(length)];
+            new DataInputStream(in).readFully(body);
+            response.body = new String(body, "ISO-8859-1");
+            return response;
+        } finally {
+            client.close();
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c == -1)
+                throw new EOFException();
+            if (c != '\r')
+                sb.append((char) c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package sorcer.tools.webster;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WebsterKeepAliveTest {
+    private static final int MAX_THREADS = 2;
+    private static final int KEEP_ALIVE_TIMEOUT = 30000;
+
+    private File root;
+    private Webster webster;
+    private final List<Socket> clients = new ArrayList<Socket>();
+
+    @Before
+    public void setUp() throws Exception {
+        root = File.createTempFile("webster", "");
+        root.delete();
+        root.mkdirs();
+        Writer writer = new FileWriter(new File(root, "a.txt"));
+        writer.write("content");
+        writer.close();
+        System.setProperty("webster.keepalive.timeout", Integer.toString(KEEP_ALIVE_TIMEOUT));
+        try {
+            webster = new Webster(0, root.getPath(), "127.0.0.1", 1, MAX_THREADS, true);
+        } finally {
+            System.clearProperty("webster.keepalive.timeout");
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (Socket client : clients)
+            client.close();
+        webster.terminate();
+        new File(root, "a.txt").delete();
+        root.delete();
+    }
+
+    @Test
+    public void idleConnectionsDoNotBlockNewClients() throws Exception {
+        long start = System.currentTimeMillis();
+        for (int i = 0; i <= MAX_THREADS; i++)
+            assertEquals("HTTP/1.1 200 OK", get(connect()));
+        assertEquals("HTTP/1.1 200 OK", get(connect()));
+        assertTrue(System.currentTimeMillis() - start < KEEP_ALIVE_TIMEOUT / 2);
+    }
+
+    @Test
+    public void servesRequestsOnKeptConnection() throws Exception {
+        Socket client = connect();
+        assertEquals("HTTP/1.1 200 OK", get(client));
+        assertEquals("HTTP/1.1 200 OK", get(client));
+    }
+
+    private Socket connect() throws IOException {
+        Socket client = new Socket("127.0.0.1", webster.getPort());
+        client.setSoTimeout(KEEP_ALIVE_TIMEOUT / 2);
+        clients.add(client);
+        return client;
+    }
+
+    /*
+     * Sends a GET request and reads the response, leaving the connection open
+     */
+    private static String get(Socket client) throws IOException {
+        OutputStream out = client.getOutputStream();
+        out.write("GET /a.txt HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes("ISO-8859-1"));
+        out.flush();
+        InputStream in = client.getInputStream();
+        String status = readLine(in);
+        int length = 0;
+        String line;
+        while ((line = readLine(in)).length() > 0) {
+            if (line.toLowerCase().startsWith("content-length:"))
+                length = Integer.parseInt(line.substring(line.indexOf(':') + 1).trim());
+        }
+        for (int i = 0; i < length; i++) {
+            if (in.read() == -1)
+                throw new EOFException();
+        }
+        return status;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c == -1)
+                throw new EOFException();
+            if (c != '\r')
+                sb.append((char) c);
+        }
+        return sb.toString();
+    }
+}